@@ -0,0 +1,505 @@
+package edu.cmu.cs.cs214.hw5.plugins_example.data;
+
+import edu.cmu.cs.cs214.hw5.core.DataSetBuilder;
+import edu.cmu.cs.cs214.hw5.core.DataType;
+import edu.cmu.cs.cs214.hw5.core.LoadProgress;
+import edu.cmu.cs.cs214.hw5.core.RowBatch;
+import edu.cmu.cs.cs214.hw5.core.StreamingDataPlugin;
+import edu.cmu.cs.cs214.hw5.core.UserInputConfig;
+import edu.cmu.cs.cs214.hw5.core.UserInputType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * CsvFilePlugin is a DataPlugin which imports large delimited files (e.g. csv, tsv..) into the
+ * framework. The file is memory-mapped and split into chunks that start at the beginning of a line;
+ * the chunks are parsed in parallel straight into typed batches, which are appended to the dataSet
+ * in file order as they are ready.
+ *
+ * The file may start with a line of labels and a line of types (String, Integer or Double), like
+ * the files of FileReaderPlugin. Without the line of types, the type of each column is inferred
+ * from all its values: INTEGER if they all are ints, DOUBLE if they all are numbers and STRING
+ * otherwise.
+ *
+ * Fields may be quoted as in RFC 4180, holding delimiters, line breaks and quotes written twice.
+ * Quotes must not appear in fields that are not quoted, since the chunks are split by counting them.
+ */
+public class CsvFilePlugin implements StreamingDataPlugin {
+
+    /**
+     * Name of the plugin.
+     */
+    private static final String NAME = "(Example) CSV File Reader";
+
+    /**
+     * File Path configuration label name.
+     */
+    private static final String FILE_PATH = "File Path";
+
+    /**
+     * Delimiter configuration label name.
+     */
+    private static final String DELIMITER = "Delimiter";
+
+    /**
+     * Header configuration label name.
+     */
+    private static final String HEADER = "Header";
+
+    /**
+     * Header detected from the second line of the file.
+     */
+    private static final String DETECT_HEADER = "Detect";
+
+    /**
+     * Header of a line of labels and a line of types.
+     */
+    private static final String LABELS_AND_TYPES = "Labels and Types";
+
+    /**
+     * Header of a line of labels only.
+     */
+    private static final String LABELS_ONLY = "Labels Only";
+
+    /**
+     * No header.
+     */
+    private static final String NO_HEADER = "None";
+
+    /**
+     * Number of bytes the header lines must fit in.
+     */
+    private static final int HEADER_WINDOW = 1 << 20;
+
+    /**
+     * Approximate size of a chunk parsed by one thread.
+     */
+    private static final long CHUNK_SIZE = 8 << 20;
+
+    /**
+     * Number of threads parsing chunks.
+     */
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Maximum number of chunks parsed ahead of the chunk appended to the dataSet.
+     */
+    private static final int CHUNKS_AHEAD = 2 * THREADS;
+
+    /**
+     * Fetch the name of data plugin which is loaded into the framework.
+     *
+     * @return name of data plugin.
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Plugin should provide a list of UserInputConfig to customize the plugin-specific usage
+     * configuration or information (e.g. file path, dataset name..) that user needs to specify.
+     * The plugin needs to specify configuration name, input type (TEXT_FIELD, MULTI_SELECTION
+     * or SINGLE_SELECTION) and a list of selections if any. The concrete parameters
+     * that user specifies can be fetched later when loading data.
+     *
+     * @return a list of plugin-specific UserInputConfig.
+     */
+    @Override
+    public List<UserInputConfig> getUserInputConfigs() {
+        List<UserInputConfig> options = new ArrayList<>();
+        options.add(new UserInputConfig(FILE_PATH, UserInputType.TEXT_FIELD, new ArrayList<>()));
+        options.add(new UserInputConfig(DELIMITER, UserInputType.TEXT_FIELD, new ArrayList<>()));
+        options.add(new UserInputConfig(HEADER, UserInputType.SINGLE_SELECTION,
+                Arrays.asList(DETECT_HEADER, LABELS_AND_TYPES, LABELS_ONLY, NO_HEADER)));
+        return options;
+    }
+
+    /**
+     * Based on a parameter mapping from configuration name to concrete parameters user specifies,
+     * extract data from the file into the builder. A blank delimiter means a tab for .tsv files and
+     * a comma otherwise, and "\t" stands for a tab.
+     *
+     * @param params a parameter mapping from configuration name to concrete parameters user specifies.
+     * @param builder builder receiving the rows.
+     * @param progress receiver of the progress of the load.
+     */
+    @Override
+    public void loadData(Map<String, List<String>> params, DataSetBuilder builder, LoadProgress progress) {
+        Path path = Paths.get(params.get(FILE_PATH).get(0));
+        byte delimiter = delimiter(params.get(DELIMITER), path);
+        List<String> header = params.get(HEADER);
+        String headerType = header == null || header.isEmpty() ? DETECT_HEADER : header.get(0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS, task -> {
+            Thread thread = new Thread(task, "csv-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            CsvParser parser = new CsvParser(map(channel, 0, Math.min(size, HEADER_WINDOW)), delimiter, 0);
+            List<String> labels = null;
+            List<DataType> types = null;
+            if (!headerType.equals(NO_HEADER)) {
+                labels = parser.readLine();
+                if (labels == null)
+                    throw new IllegalArgumentException("Please specify a column line in the file");
+            }
+            long dataStart = parser.position();
+            if (headerType.equals(DETECT_HEADER) || headerType.equals(LABELS_AND_TYPES)) {
+                types = parseTypes(parser.readLine());
+                if (types != null)
+                    dataStart = parser.position();
+                else if (headerType.equals(LABELS_AND_TYPES))
+                    throw new IllegalArgumentException("Please specify a column value type line in the file");
+            }
+            if (dataStart >= HEADER_WINDOW && dataStart < size)
+                throw new IllegalArgumentException("Header Too Long");
+
+            long[] bounds = splitChunks(channel, dataStart, size, delimiter, pool);
+            if (labels == null)
+                labels = defaultLabels(channel, bounds, delimiter);
+            if (types == null)
+                types = inferTypes(channel, bounds, delimiter, labels.size(), pool);
+            builder.setColumns(labels, types);
+            parseChunks(channel, bounds, delimiter, types, builder, progress, pool);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Split the data of the file into chunks of about CHUNK_SIZE bytes, each starting at the
+     * beginning of a line. Line breaks inside quoted fields are told apart from the ends of lines by
+     * counting the quotes before them: the quotes of each chunk are counted in parallel first.
+     *
+     * @param channel the file.
+     * @param start offset of the first line of data.
+     * @param size size of the file.
+     * @param delimiter delimiter between fields.
+     * @param pool threads parsing chunks.
+     * @return offsets of the chunks, followed by the size of the file.
+     * @throws IOException thrown if the file cannot be read.
+     */
+    private static long[] splitChunks(FileChannel channel, long start, long size, byte delimiter,
+                                      ExecutorService pool) throws IOException {
+        int count = (int) Math.max(1, (size - start + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        long[] rawStarts = new long[count + 1];
+        for (int i = 0; i <= count; i++) {
+            rawStarts[i] = start + (size - start) * i / count;
+        }
+
+        List<Callable<Long>> quoteCounts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ByteBuffer region = map(channel, rawStarts[i], rawStarts[i + 1] - rawStarts[i]);
+            quoteCounts.add(() -> {
+                long quotes = 0;
+                for (int p = 0; p < region.limit(); p++) {
+                    if (region.get(p) == '"')
+                        quotes++;
+                }
+                return quotes;
+            });
+        }
+        List<Long> quotes = await(pool, quoteCounts);
+
+        List<Callable<Long>> lineStarts = new ArrayList<>();
+        boolean inQuote = false;
+        for (int i = 1; i < count; i++) {
+            inQuote ^= quotes.get(i - 1) % 2 == 1;
+            ByteBuffer region = map(channel, rawStarts[i], rawStarts[i + 1] - rawStarts[i]);
+            long regionStart = rawStarts[i];
+            boolean quoted = inQuote;
+            lineStarts.add(() -> {
+                boolean q = quoted;
+                for (int p = 0; p < region.limit(); p++) {
+                    byte b = region.get(p);
+                    if (b == '"')
+                        q = !q;
+                    else if (b == '\n' && !q)
+                        return regionStart + p + 1;
+                }
+                return -1L;
+            });
+        }
+        List<Long> starts = await(pool, lineStarts);
+
+        long[] bounds = new long[count + 1];
+        int chunks = 0;
+        bounds[chunks++] = start;
+        for (long lineStart : starts) {
+            if (lineStart > bounds[chunks - 1] && lineStart < size)
+                bounds[chunks++] = lineStart;
+        }
+        bounds[chunks] = size;
+        return Arrays.copyOf(bounds, chunks + 1);
+    }
+
+    /**
+     * Infer the type of each column from all its values, checking chunks in parallel.
+     *
+     * @param channel the file.
+     * @param bounds offsets of the chunks, followed by the size of the file.
+     * @param delimiter delimiter between fields.
+     * @param columnCount number of columns.
+     * @param pool threads parsing chunks.
+     * @return the types of the columns.
+     * @throws IOException thrown if the file cannot be read.
+     */
+    private static List<DataType> inferTypes(FileChannel channel, long[] bounds, byte delimiter, int columnCount,
+                                             ExecutorService pool) throws IOException {
+        List<Callable<DataType[]>> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            CsvParser parser = new CsvParser(map(channel, bounds[i], bounds[i + 1] - bounds[i]), delimiter, bounds[i]);
+            tasks.add(() -> {
+                DataType[] types = new DataType[columnCount];
+                Arrays.fill(types, DataType.INTEGER);
+                while (parser.nextLine()) {
+                    for (int j = 0; j < columnCount; j++) {
+                        if (!parser.nextField())
+                            throw parser.error("Too Few Values");
+                        if (types[j] == DataType.INTEGER && !parser.isIntField())
+                            types[j] = DataType.DOUBLE;
+                        if (types[j] == DataType.DOUBLE && !parser.isDoubleField())
+                            types[j] = DataType.STRING;
+                    }
+                    if (parser.nextField())
+                        throw parser.error("Too Many Values");
+                }
+                return types;
+            });
+        }
+        DataType[] types = new DataType[columnCount];
+        Arrays.fill(types, DataType.INTEGER);
+        for (DataType[] chunkTypes : await(pool, tasks)) {
+            for (int j = 0; j < columnCount; j++) {
+                if (chunkTypes[j] == DataType.STRING || types[j] == DataType.STRING)
+                    types[j] = DataType.STRING;
+                else if (chunkTypes[j] == DataType.DOUBLE)
+                    types[j] = DataType.DOUBLE;
+            }
+        }
+        return Arrays.asList(types);
+    }
+
+    /**
+     * Parse the chunks in parallel into batches, appending the batches of each chunk to the builder
+     * in file order. At most CHUNKS_AHEAD chunks are parsed ahead of the one being appended, which
+     * bounds the memory held by batches not yet appended.
+     *
+     * @param channel the file.
+     * @param bounds offsets of the chunks, followed by the size of the file.
+     * @param delimiter delimiter between fields.
+     * @param types types of the columns.
+     * @param builder builder receiving the rows.
+     * @param progress receiver of the progress of the load.
+     * @param pool threads parsing chunks.
+     * @throws IOException thrown if the file cannot be read.
+     */
+    private static void parseChunks(FileChannel channel, long[] bounds, byte delimiter, List<DataType> types,
+                                    DataSetBuilder builder, LoadProgress progress, ExecutorService pool)
+            throws IOException {
+        int chunkCount = bounds.length - 1;
+        Deque<Future<List<RowBatch>>> parsing = new ArrayDeque<>();
+        int next = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            while (next < chunkCount && parsing.size() < CHUNKS_AHEAD) {
+                CsvParser parser = new CsvParser(map(channel, bounds[next], bounds[next + 1] - bounds[next]),
+                        delimiter, bounds[next]);
+                parsing.add(pool.submit(() -> parseChunk(parser, types, builder)));
+                next++;
+            }
+            for (RowBatch batch : await(parsing.poll())) {
+                builder.append(batch);
+            }
+            if (progress.isCancelled())
+                throw new CancellationException("Load cancelled");
+            progress.report((double) (bounds[i + 1] - bounds[0]) / Math.max(1, bounds[chunkCount] - bounds[0]));
+        }
+    }
+
+    /**
+     * Parse the lines of a chunk into batches.
+     *
+     * @param parser parser of the chunk.
+     * @param types types of the columns.
+     * @param builder builder creating the batches.
+     * @return the batches, all full except the last one.
+     */
+    private static List<RowBatch> parseChunk(CsvParser parser, List<DataType> types, DataSetBuilder builder) {
+        DataType[] columnTypes = types.toArray(new DataType[0]);
+        List<RowBatch> batches = new ArrayList<>();
+        RowBatch batch = builder.newBatch();
+        batches.add(batch);
+        while (parser.nextLine()) {
+            if (batch.isFull()) {
+                batch = builder.newBatch();
+                batches.add(batch);
+            }
+            for (int j = 0; j < columnTypes.length; j++) {
+                if (!parser.nextField())
+                    throw parser.error("Too Few Values");
+                switch (columnTypes[j]) {
+                    case INTEGER:
+                        batch.putInt(j, parser.fieldInt());
+                        break;
+                    case DOUBLE:
+                        batch.putDouble(j, parser.fieldDouble());
+                        break;
+                    default:
+                        batch.putString(j, parser.fieldString());
+                        break;
+                }
+            }
+            if (parser.nextField())
+                throw parser.error("Too Many Values");
+            batch.endRow();
+        }
+        return batches;
+    }
+
+    /**
+     * Return the types given by a line of types, if it is one.
+     *
+     * @param fields fields of the line.
+     * @return the types, or null if the line is not a line of types.
+     */
+    private static List<DataType> parseTypes(List<String> fields) {
+        if (fields == null || fields.isEmpty())
+            return null;
+        List<DataType> types = new ArrayList<>();
+        for (String field : fields) {
+            switch (field.trim()) {
+                case "String":
+                    types.add(DataType.STRING);
+                    break;
+                case "Integer":
+                    types.add(DataType.INTEGER);
+                    break;
+                case "Double":
+                    types.add(DataType.DOUBLE);
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Name the columns of a file without labels "Column 1", "Column 2"..., as many as the fields
+     * of its first line.
+     *
+     * @param channel the file.
+     * @param bounds offsets of the chunks, followed by the size of the file.
+     * @param delimiter delimiter between fields.
+     * @return the labels.
+     * @throws IOException thrown if the file cannot be read.
+     */
+    private static List<String> defaultLabels(FileChannel channel, long[] bounds, byte delimiter) throws IOException {
+        CsvParser parser = new CsvParser(map(channel, bounds[0], bounds[1] - bounds[0]), delimiter, bounds[0]);
+        List<String> fields = parser.readLine();
+        if (fields == null)
+            throw new IllegalArgumentException("The File Is Empty");
+        List<String> labels = new ArrayList<>();
+        for (int j = 1; j <= fields.size(); j++) {
+            labels.add("Column " + j);
+        }
+        return labels;
+    }
+
+    /**
+     * Return the delimiter given by the user.
+     *
+     * @param values the delimiter the user specified, if any.
+     * @param path path of the file.
+     * @return the delimiter.
+     */
+    private static byte delimiter(List<String> values, Path path) {
+        String value = values == null || values.isEmpty() ? "" : values.get(0);
+        if (value.isEmpty())
+            return (byte) (path.toString().toLowerCase(Locale.ROOT).endsWith(".tsv") ? '\t' : ',');
+        if (value.equals("\\t"))
+            return '\t';
+        if (value.length() != 1 || value.charAt(0) > 127 || value.charAt(0) == '"' || value.charAt(0) == '\n')
+            throw new IllegalArgumentException("Delimiter Must Be A Single Character");
+        return (byte) value.charAt(0);
+    }
+
+    /**
+     * Map part of the file into memory.
+     *
+     * @param channel the file.
+     * @param start offset of the part.
+     * @param length length of the part.
+     * @return the bytes of the part.
+     * @throws IOException thrown if the file cannot be read.
+     */
+    private static MappedByteBuffer map(FileChannel channel, long start, long length) throws IOException {
+        if (length > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Line Too Long At Byte " + start);
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    }
+
+    /**
+     * Run tasks on the pool and wait for their results.
+     *
+     * @param pool the pool.
+     * @param tasks the tasks.
+     * @param <T> type of the results.
+     * @return the results, in the order of the tasks.
+     */
+    private static <T> List<T> await(ExecutorService pool, List<Callable<T>> tasks) {
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(pool.submit(task));
+        }
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    /**
+     * Wait for the result of a task, rethrowing what it throws.
+     *
+     * @param future the task.
+     * @param <T> type of the result.
+     * @return the result.
+     */
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Load cancelled");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw new IllegalArgumentException(ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package edu.cmu.cs.cs214.hw5.plugins_example.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CsvParser reads the delimited lines of a chunk of a file, field by field, straight from its bytes.
+ * Fields may be quoted, in which case they can hold delimiters, line breaks and quotes written twice.
+ * Blank lines are skipped, and a line may end with "\r\n" as well as "\n". Text is decoded as UTF-8.
+ */
+class CsvParser {
+
+    /**
+     * Quote character.
+     */
+    private static final byte QUOTE = '"';
+
+    /**
+     * End of line character.
+     */
+    private static final byte NEWLINE = '\n';
+
+    /**
+     * Carriage return, ignored before an end of line.
+     */
+    private static final byte RETURN = '\r';
+
+    /**
+     * Largest number of characters of an int.
+     */
+    private static final int MAX_INT_LENGTH = 11;
+
+    /**
+     * Largest number of digits of a number computed exactly from its digits.
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    /**
+     * Largest power of ten that is an exact double.
+     */
+    private static final int MAX_EXACT_POWER = 22;
+
+    /**
+     * Powers of ten up to MAX_EXACT_POWER.
+     */
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_EXACT_POWER; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Bytes of the chunk.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Delimiter between fields.
+     */
+    private final byte delimiter;
+
+    /**
+     * Offset in the file of the first byte of the chunk, for error messages.
+     */
+    private final long offset;
+
+    /**
+     * Position of the next byte to read.
+     */
+    private int position;
+
+    /**
+     * Whether the fields of the current line have all been read.
+     */
+    private boolean lineEnded = true;
+
+    /**
+     * Position of the first byte of the current line.
+     */
+    private int lineStart;
+
+    /**
+     * First byte of the last field read.
+     */
+    private int fieldStart;
+
+    /**
+     * End, exclusive, of the last field read.
+     */
+    private int fieldEnd;
+
+    /**
+     * Whether the last field read has quotes written twice in it.
+     */
+    private boolean fieldEscaped;
+
+    /**
+     * Create a parser reading a chunk of a file.
+     *
+     * @param buffer bytes of the chunk, from position 0 to the limit.
+     * @param delimiter delimiter between fields.
+     * @param offset offset in the file of the first byte of the chunk.
+     */
+    CsvParser(ByteBuffer buffer, byte delimiter, long offset) {
+        this.buffer = buffer;
+        this.delimiter = delimiter;
+        this.offset = offset;
+    }
+
+    /**
+     * Move to the next line that is not blank, skipping what is left of the current line.
+     *
+     * @return true if there is such a line, false at the end of the chunk.
+     */
+    boolean nextLine() {
+        while (!lineEnded) {
+            nextField();
+        }
+        int limit = buffer.limit();
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b == NEWLINE)
+                position++;
+            else if (b == RETURN && position + 1 < limit && buffer.get(position + 1) == NEWLINE)
+                position += 2;
+            else
+                break;
+        }
+        if (position >= limit)
+            return false;
+        lineStart = position;
+        lineEnded = false;
+        return true;
+    }
+
+    /**
+     * Read the next field of the current line.
+     *
+     * @return true if a field has been read, false if the line has no more fields.
+     */
+    boolean nextField() {
+        if (lineEnded)
+            return false;
+        int limit = buffer.limit();
+        if (position < limit && buffer.get(position) == QUOTE) {
+            fieldStart = position + 1;
+            fieldEscaped = false;
+            int p = fieldStart;
+            while (true) {
+                if (p >= limit)
+                    throw error("Unterminated Quote");
+                if (buffer.get(p) == QUOTE) {
+                    if (p + 1 < limit && buffer.get(p + 1) == QUOTE) {
+                        fieldEscaped = true;
+                        p += 2;
+                        continue;
+                    }
+                    break;
+                }
+                p++;
+            }
+            fieldEnd = p;
+            position = p + 1;
+            if (position < limit && buffer.get(position) == RETURN)
+                position++;
+            if (position < limit && buffer.get(position) != delimiter && buffer.get(position) != NEWLINE)
+                throw error("Unexpected Character After Quote");
+        } else {
+            fieldStart = position;
+            fieldEscaped = false;
+            int p = position;
+            while (p < limit && buffer.get(p) != delimiter && buffer.get(p) != NEWLINE) {
+                p++;
+            }
+            fieldEnd = p;
+            if (fieldEnd > fieldStart && buffer.get(fieldEnd - 1) == RETURN && (p == limit || buffer.get(p) == NEWLINE))
+                fieldEnd--;
+            position = p;
+        }
+        if (position < limit && buffer.get(position) == delimiter) {
+            position++;
+        } else {
+            if (position < limit)
+                position++;
+            lineEnded = true;
+        }
+        return true;
+    }
+
+    /**
+     * Read all the fields of the next line that is not blank.
+     *
+     * @return the fields, or null at the end of the chunk.
+     */
+    List<String> readLine() {
+        if (!nextLine())
+            return null;
+        List<String> fields = new ArrayList<>();
+        while (nextField()) {
+            fields.add(fieldString());
+        }
+        return fields;
+    }
+
+    /**
+     * Return position of the next byte to read.
+     *
+     * @return the position in the chunk.
+     */
+    int position() {
+        return position;
+    }
+
+    /**
+     * Return the last field read as a string.
+     *
+     * @return the field, without its quotes.
+     */
+    String fieldString() {
+        byte[] bytes = new byte[fieldEnd - fieldStart];
+        ByteBuffer field = buffer.duplicate();
+        field.limit(fieldEnd).position(fieldStart);
+        field.get(bytes);
+        String s = new String(bytes, StandardCharsets.UTF_8);
+        return fieldEscaped ? s.replace("\"\"", "\"") : s;
+    }
+
+    /**
+     * Return whether the last field read is an integer that fits in an int.
+     *
+     * @return true if the field is an int.
+     */
+    boolean isIntField() {
+        int length = fieldEnd - fieldStart;
+        if (length == 0 || length > MAX_INT_LENGTH)
+            return false;
+        int p = fieldStart;
+        byte first = buffer.get(p);
+        if (first == '-' || first == '+') {
+            if (length == 1)
+                return false;
+            p++;
+        }
+        long value = 0;
+        for (; p < fieldEnd; p++) {
+            byte b = buffer.get(p);
+            if (b < '0' || b > '9')
+                return false;
+            value = value * 10 + (b - '0');
+        }
+        return first == '-' ? -value >= Integer.MIN_VALUE : value <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Return whether the last field read is a decimal number, with an optional sign, fraction and
+     * exponent. Spellings of infinity and NaN are taken as strings.
+     *
+     * @return true if the field is a number.
+     */
+    boolean isDoubleField() {
+        int p = fieldStart;
+        if (p < fieldEnd && (buffer.get(p) == '-' || buffer.get(p) == '+'))
+            p++;
+        int digits = 0;
+        for (; p < fieldEnd && isDigit(buffer.get(p)); p++) {
+            digits++;
+        }
+        if (p < fieldEnd && buffer.get(p) == '.') {
+            for (p++; p < fieldEnd && isDigit(buffer.get(p)); p++) {
+                digits++;
+            }
+        }
+        if (digits == 0)
+            return false;
+        if (p < fieldEnd && (buffer.get(p) == 'e' || buffer.get(p) == 'E')) {
+            p++;
+            if (p < fieldEnd && (buffer.get(p) == '-' || buffer.get(p) == '+'))
+                p++;
+            int exponentDigits = 0;
+            for (; p < fieldEnd && isDigit(buffer.get(p)); p++) {
+                exponentDigits++;
+            }
+            if (exponentDigits == 0)
+                return false;
+        }
+        return p == fieldEnd;
+    }
+
+    /**
+     * Return the last field read as an int.
+     *
+     * @return the value of the field.
+     */
+    int fieldInt() {
+        if (!isIntField())
+            throw error("Invalid Integer \"" + fieldString() + "\"");
+        int p = fieldStart;
+        byte first = buffer.get(p);
+        if (first == '-' || first == '+')
+            p++;
+        long value = 0;
+        for (; p < fieldEnd; p++) {
+            value = value * 10 + (buffer.get(p) - '0');
+        }
+        return (int) (first == '-' ? -value : value);
+    }
+
+    /**
+     * Return the last field read as a double. Numbers of at most MAX_EXACT_DIGITS digits and a small
+     * exponent are computed from their digits, since both are exact doubles and a single
+     * multiplication or division of them is correctly rounded; other numbers are left to
+     * Double.parseDouble.
+     *
+     * @return the value of the field.
+     */
+    double fieldDouble() {
+        if (!isDoubleField())
+            throw error("Invalid Double \"" + fieldString() + "\"");
+        int p = fieldStart;
+        boolean negative = buffer.get(p) == '-';
+        if (negative || buffer.get(p) == '+')
+            p++;
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (; p < fieldEnd; p++) {
+            byte b = buffer.get(p);
+            if (b == '.') {
+                fraction = true;
+                continue;
+            }
+            if (!isDigit(b))
+                break;
+            if (mantissa == 0 && b == '0') {
+                if (fraction)
+                    scale++;
+                continue;
+            }
+            if (++digits > MAX_EXACT_DIGITS)
+                return Double.parseDouble(fieldString());
+            mantissa = mantissa * 10 + (b - '0');
+            if (fraction)
+                scale++;
+        }
+        if (p < fieldEnd)
+            return Double.parseDouble(fieldString());
+        if (scale > MAX_EXACT_POWER)
+            return Double.parseDouble(fieldString());
+        double value = scale == 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Create the exception thrown for a malformed line.
+     *
+     * @param message description of the problem.
+     * @return the exception, giving the position of the current line in the file.
+     */
+    IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " In Line At Byte " + (offset + lineStart));
+    }
+}
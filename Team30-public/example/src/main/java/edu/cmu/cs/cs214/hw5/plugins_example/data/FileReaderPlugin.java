@@ -1,8 +1,10 @@
 package edu.cmu.cs.cs214.hw5.plugins_example.data;
 
-import edu.cmu.cs.cs214.hw5.core.DataPlugin;
-import edu.cmu.cs.cs214.hw5.core.DataSet;
+import edu.cmu.cs.cs214.hw5.core.DataSetBuilder;
 import edu.cmu.cs.cs214.hw5.core.DataType;
+import edu.cmu.cs.cs214.hw5.core.LoadProgress;
+import edu.cmu.cs.cs214.hw5.core.RowBatch;
+import edu.cmu.cs.cs214.hw5.core.StreamingDataPlugin;
 import edu.cmu.cs.cs214.hw5.core.UserInputConfig;
 import edu.cmu.cs.cs214.hw5.core.UserInputType;
 
@@ -15,9 +17,9 @@ import java.util.Scanner;
 
 /**
  * FileReaderPlugin is a DataPlugin which extracts dataSet from files(e.g. csv, tsv..) and
- * imports the dataSet into the framework.
+ * streams the dataSet into the framework.
  */
-public class FileReaderPlugin implements DataPlugin {
+public class FileReaderPlugin implements StreamingDataPlugin {
     
     /**
      * Name of the plugin.
@@ -63,22 +65,23 @@ public class FileReaderPlugin implements DataPlugin {
 
     /**
      * Based on a parameter mapping from configuration name to concrete parameters user specifies,
-     * client can extract data from source into DataSet object and import into framework. The client 
-     * needs to specify a list of column labels, a list of data type (STRING, INTEGER, DOUBLE) 
-     * respectively and a list of data entries (an entry is a list of object and stores values in 
-     * position corresponding to the column labels).
+     * extract data from the file into the builder. The first line of the file holds the column
+     * labels, the second line their types (String, Integer or Double) and every other line a row.
+     * Rows are parsed straight into batches, so the file is never held in memory as rows of objects.
      *
      * @param params a parameter mapping from configuration name to concrete parameters user specifies.
-     * @return DataSet object containing the data from source.
+     * @param builder builder receiving the rows.
+     * @param progress receiver of the progress of the load.
      */
     @Override
-    public DataSet loadData(Map<String, List<String>> params) {
+    public void loadData(Map<String, List<String>> params, DataSetBuilder builder, LoadProgress progress) {
         String path = params.get(FILE_PATH).get(0);
         String delimiter = params.get(DELIMITER).get(0);
 
+        File file = new File(path);
         Scanner scanner = null;
         try {
-            scanner = new Scanner(new File(path));
+            scanner = new Scanner(file);
         } catch (IOException ioe) {
             throw new IllegalArgumentException(ioe.getMessage());
         }
@@ -117,30 +120,39 @@ public class FileReaderPlugin implements DataPlugin {
                     break;
             }
         }
-                
-        List<List<Object>> data = new ArrayList<>();
+        builder.setColumns(labels, dataTypes);
+
+        // Only an estimate, since a character may take more than one byte.
+        long bytesRead = columnLine.length() + typeLine.length() + 2;
+        RowBatch batch = builder.newBatch();
         while(scanner.hasNextLine()) {
-            List<Object> row = new ArrayList<>();
-            String[] valuesInLine = scanner.nextLine().split(delimiter);
+            String line = scanner.nextLine();
+            bytesRead += line.length() + 1;
+            String[] valuesInLine = line.split(delimiter);
             for (int i = 0; i < columnNum; i++) {
                 switch (dataTypes.get(i)) {
                     case STRING:
-                        row.add(valuesInLine[i]);
+                        batch.putString(i, valuesInLine[i]);
                         break;
                     case INTEGER:
-                        row.add(Integer.parseInt(valuesInLine[i]));
+                        batch.putInt(i, Integer.parseInt(valuesInLine[i]));
                         break;
                     case DOUBLE:
-                        row.add(Double.parseDouble(valuesInLine[i]));
+                        batch.putDouble(i, Double.parseDouble(valuesInLine[i]));
                         break;
                     default:
                         break;
                 }
             }
-            data.add(row);
+            batch.endRow();
+            if (batch.isFull()) {
+                builder.append(batch);
+                if (progress.isCancelled())
+                    return;
+                progress.report(Math.min(1.0, (double) bytesRead / file.length()));
+            }
         }
-        
-        DataSet dataSet = new DataSet(labels, dataTypes, data);
-        return dataSet;
+        builder.append(batch);
+        progress.report(1.0);
     }
-}
\ No newline at end of file
+}
@@ -5,6 +5,7 @@ import com.google.gson.JsonElement;
 import edu.cmu.cs.cs214.hw5.core.DataPlugin;
 import edu.cmu.cs.cs214.hw5.core.DataSet;
 import edu.cmu.cs.cs214.hw5.core.DataType;
+import edu.cmu.cs.cs214.hw5.core.LoadProgress;
 import edu.cmu.cs.cs214.hw5.core.UserInputConfig;
 import edu.cmu.cs.cs214.hw5.core.UserInputType;
 import org.apache.commons.lang3.tuple.Pair;
@@ -17,7 +18,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -139,6 +142,19 @@ public class WorldBankDataPlugin implements DataPlugin {
      */
     @Override
     public DataSet loadData(Map<String, List<String>> params) {
+        return loadData(params, LoadProgress.NONE);
+    }
+
+    /**
+     * Load data the same way as loadData(params), reporting the fraction of World Bank requests
+     * answered so far and sending no more requests once the load is cancelled.
+     *
+     * @param params a parameter mapping from configuration name to concrete parameters user specifies.
+     * @param progress receiver of the progress of the load.
+     * @return DataSet object containing the data from source.
+     */
+    @Override
+    public DataSet loadData(Map<String, List<String>> params, LoadProgress progress) {
         // Check start year and end year.
         String startYear = params.get(START_YEAR_LABEL).get(0);
         String endYear = params.get(END_YEAR_LABEL).get(0);
@@ -160,7 +176,9 @@ public class WorldBankDataPlugin implements DataPlugin {
             throw new IllegalArgumentException("Choose topics first.");
 
         try {
-            return loadDataFromWorldBank(countryList, topicList, startYear, endYear);
+            return loadDataFromWorldBank(countryList, topicList, startYear, endYear, progress);
+        } catch (CancellationException ex) {
+            throw ex;
         } catch (Exception ex) {
             ex.printStackTrace();
             throw new IllegalArgumentException("Error in retrieving World Bank data");
@@ -174,19 +192,25 @@ public class WorldBankDataPlugin implements DataPlugin {
      * @param topicList list of topics queried.
      * @param startYear start year.
      * @param endYear end year.
+     * @param progress receiver of the progress of the load.
      * @return DataSet extracted from World Bank.
      * @throws InterruptedException thrown if there is error in retrieving World Bank data.
      * @throws IOException thrown if there is error in retrieving World Bank data.
      * @throws URISyntaxException thrown if there is error in retrieving World Bank data.
      */
-    private DataSet loadDataFromWorldBank(List<String> countryNames, List<String> topicList, String startYear, String endYear)
+    private DataSet loadDataFromWorldBank(List<String> countryNames, List<String> topicList, String startYear, String endYear,
+                                          LoadProgress progress)
             throws InterruptedException, IOException, URISyntaxException {
         // Retrive data from world bank.
         Map<Pair<String, Integer>, Double[]> map = new ConcurrentHashMap<>();
+        int requestCount = countryNames.size() * topicList.size();
+        AtomicInteger answered = new AtomicInteger();
 
         countryNames.stream().parallel().forEach(countryName -> {
             String countryCode = countryNameCodeMap.get(countryName);
             for (int j = 0; j < topicList.size(); j++) {
+                if (progress.isCancelled())
+                    return;
                 String topicPath = TOPIC_PATH_MAP.get(topicList.get(j));
                 String uri = String.format(
                         "http://api.worldbank.org/v2/country/%s/indicator/%s?format=json&date=%s:%s",
@@ -212,8 +236,11 @@ public class WorldBankDataPlugin implements DataPlugin {
                 } catch (Exception ex) {
                     ex.printStackTrace();
                 }
+                progress.report((double) answered.incrementAndGet() / requestCount);
             }
         });
+        if (progress.isCancelled())
+            throw new CancellationException("Load cancelled");
 
         List<List<Object>> data = new ArrayList<>();
         for (Map.Entry<Pair<String, Integer>, Double[]> entry : map.entrySet()) {
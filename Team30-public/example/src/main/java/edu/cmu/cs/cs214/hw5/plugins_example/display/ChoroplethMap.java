@@ -23,11 +23,11 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.GradientPaint;
 import java.awt.Graphics2D;
-import java.awt.Polygon;
 import java.awt.RenderingHints;
-import java.awt.geom.Point2D;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -164,11 +164,10 @@ public class ChoroplethMap implements DisplayPlugin {
 
         String valueLabel = pluginParams.get(VALUE).get(0);
 
-        List<Double> valueColumn = dataSet.getColumn(valueLabel).stream()
-                .map(o -> ((Number) o).doubleValue()).collect(Collectors.toList());
+        double[] valueColumn = dataSet.getDoubleColumn(valueLabel);
 
-        double maxV = valueColumn.stream().max(Double::compareTo).get();
-        double minV = valueColumn.stream().min(Double::compareTo).get();
+        double maxV = Arrays.stream(valueColumn).max().getAsDouble();
+        double minV = Arrays.stream(valueColumn).min().getAsDouble();
 
         double maxX = areaColumns.stream().map(MultiPolygon::getMaxX).max(Double::compareTo).get();
         double minX = areaColumns.stream().map(MultiPolygon::getMinX).min(Double::compareTo).get();
@@ -195,23 +194,33 @@ public class ChoroplethMap implements DisplayPlugin {
         BufferedImage img = new BufferedImage(graphWidth, graphHeight, TYPE_INT_ARGB);
         Graphics2D g = img.createGraphics();
 
+        // map coordinates to the image, flipping the y axis
+        double scaleX = graphWidth / (maxX - minX + 1);
+        double scaleY = graphHeight / (maxY - minY + 1);
+        AffineTransform toGraph = new AffineTransform(scaleX, 0, 0, -scaleY,
+                (1 - minX) * scaleX, graphHeight - (1 - minY) * scaleY);
+        int[] xPoints = new int[0];
+        int[] yPoints = new int[0];
+
         g.setStroke(new BasicStroke(2));
-        for (int i = 0; i < valueColumn.size(); i++) {
-            double val = (valueColumn.get(i) - minV + 1) / (maxV - minV + 1);
+        for (int i = 0; i < valueColumn.length; i++) {
+            double val = (valueColumn[i] - minV + 1) / (maxV - minV + 1);
             Color color = new Color(
                     (int) (val * R1 + (1 - val) * R2),
                     (int) (val * G1 + (1 - val) * G2),
                     (int) (val * B1 + (1 - val) * B2));
-            for (List<Point2D> points : areaColumns.get(i).getPoints()) {
-                Polygon newPolygon = new Polygon(
-                        points.stream().mapToInt(p -> (int) ((p.getX() - minX + 1) * graphWidth / (maxX - minX + 1))).toArray(),
-                        points.stream().mapToInt(p -> graphHeight - (int) ((p.getY() - minY + 1) * graphHeight / (maxY - minY + 1))).toArray(),
-                        points.size()
-                );
+            MultiPolygon area = areaColumns.get(i);
+            for (int ring = 0; ring < area.ringCount(); ring++) {
+                int length = area.ringLength(ring);
+                if (length > xPoints.length) {
+                    xPoints = new int[Math.max(length, 2 * xPoints.length)];
+                    yPoints = new int[xPoints.length];
+                }
+                area.transformRing(ring, toGraph, xPoints, yPoints);
                 g.setColor(Color.WHITE);
-                g.drawPolygon(newPolygon);
+                g.drawPolygon(xPoints, yPoints, length);
                 g.setColor(color);
-                g.fill(newPolygon);
+                g.fillPolygon(xPoints, yPoints, length);
             }
         }
         JLabel graphLabel = new JLabel(new ImageIcon(img));
@@ -16,8 +16,6 @@ import java.awt.Color;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * LineChartPlugin is a display plugin which displays GeoDataSet as a line chart
@@ -128,32 +126,23 @@ public class LineChartPlugin implements DisplayPlugin {
 
         String xLabel = pluginParams.get(X_AXIS).get(0);
         List<String> yLabels = pluginParams.get(Y_AXIS);
-        final List<List<Double>> yList = new ArrayList<>();
-        for (String yLabel : yLabels)
-            yList.add(dataSet.getColumn(yLabel).stream().map(v -> ((Number) v).doubleValue()).collect(Collectors.toList()));
-
-        final List<Double> xList;
-        xList = dataSet.getColumn(xLabel).stream().map(v -> ((Number) v).doubleValue()).collect(Collectors.toList());
 
         XYChart chart = new XYChartBuilder().width(width).height(height).build();
 
         String cateLabel = pluginParams.get(CATEGORY).get(0);
         if (cateLabel != null) {
-            List<Object> cateColumn = dataSet.getColumn(cateLabel);
-            Map<String, List<Integer>> indices = IntStream.range(0, cateColumn.size()).mapToObj(Integer::valueOf)
-                    .collect(Collectors.groupingBy(i -> (String) cateColumn.get(i), Collectors.toList()));
-            for (int i = 0; i < yList.size(); i++) {
-                for (Map.Entry<String, List<Integer>> entry : indices.entrySet()) {
-                    String label = entry.getKey() + ", " + yLabels.get(i);
-                    int ii = i;
-                    List<Double> y = entry.getValue().stream().map(j -> yList.get(ii).get(j)).collect(Collectors.toList());
-                    List<Double> x = entry.getValue().stream().map(j -> xList.get(j)).collect(Collectors.toList());
-                    chart.addSeries(label, x, y);
+            Map<Object, DataSet> categories = dataSet.partitionBy(cateLabel);
+            for (String yLabel : yLabels) {
+                for (Map.Entry<Object, DataSet> entry : categories.entrySet()) {
+                    String label = entry.getKey() + ", " + yLabel;
+                    DataSet category = entry.getValue();
+                    chart.addSeries(label, category.getDoubleColumn(xLabel), category.getDoubleColumn(yLabel));
                 }
             }
         } else {
-            for (int i = 0; i < yList.size(); i++) {
-                chart.addSeries(yLabels.get(i), xList, yList.get(i));
+            final double[] xList = dataSet.getDoubleColumn(xLabel);
+            for (String yLabel : yLabels) {
+                chart.addSeries(yLabel, xList, dataSet.getDoubleColumn(yLabel));
             }
         }
 
@@ -0,0 +1,78 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * SyntheticDataSets generates data sets for the benchmarks. Every row is a made-up county with a name, a state, a
+ * population and a median income; the same seed always gives the same rows.
+ */
+final class SyntheticDataSets {
+
+    /**
+     * Labels of the generated columns.
+     */
+    static final List<String> LABELS = Arrays.asList("County", "State", "Population", "Income");
+
+    /**
+     * Data types of the generated columns.
+     */
+    static final List<DataType> DATA_TYPES = Arrays.asList(
+            DataType.STRING, DataType.STRING, DataType.INTEGER, DataType.DOUBLE);
+
+    /**
+     * Number of distinct values in the State column.
+     */
+    static final int NUM_STATES = 50;
+
+    /**
+     * Upper bound of the Population column.
+     */
+    static final int MAX_POPULATION = 1_000_000;
+
+    private static final long SEED = 214;
+
+    private SyntheticDataSets() {
+    }
+
+    /**
+     * Generate the rows of a data set.
+     *
+     * @param numRows number of rows.
+     * @return the rows, each a list of objects matching DATA_TYPES.
+     */
+    static List<List<Object>> rows(int numRows) {
+        Random random = new Random(SEED);
+        List<List<Object>> rows = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            rows.add(Arrays.asList(
+                    "County " + i,
+                    state(random.nextInt(NUM_STATES)),
+                    random.nextInt(MAX_POPULATION),
+                    20_000 + random.nextDouble() * 100_000));
+        }
+        return rows;
+    }
+
+    /**
+     * Generate a data set.
+     *
+     * @param numRows number of rows.
+     * @return the data set.
+     */
+    static DataSet dataSet(int numRows) {
+        return new DataSet(LABELS, DATA_TYPES, rows(numRows));
+    }
+
+    /**
+     * Return the name of a state in the State column.
+     *
+     * @param index index of the state.
+     * @return name of the state.
+     */
+    static String state(int index) {
+        return "State " + index;
+    }
+}
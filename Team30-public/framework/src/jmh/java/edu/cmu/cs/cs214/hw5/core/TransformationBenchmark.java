@@ -0,0 +1,169 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransformationBenchmark measures the Transformation engine and DataSet validation on synthetic data sets of several
+ * sizes. Transformations are lazy until toDataSet is called, so every transformation benchmark ends with it; the
+ * toDataSet benchmark alone gives the cost of copying the rows in and validating them on the way out.
+ * Run with {@code ./gradlew jmh} from the framework directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformationBenchmark {
+
+    /**
+     * Filtering rule keeping about half the rows.
+     */
+    private static final String POPULATION_THRESHOLD = String.valueOf(SyntheticDataSets.MAX_POPULATION / 2);
+
+    /**
+     * Values of the State column kept by the list filter, about a tenth of the rows.
+     */
+    private static final List<String> STATES = Arrays.asList(
+            SyntheticDataSets.state(0), SyntheticDataSets.state(1), SyntheticDataSets.state(2),
+            SyntheticDataSets.state(3), SyntheticDataSets.state(4));
+
+    /**
+     * Data set and the rows it was built from.
+     */
+    @State(Scope.Benchmark)
+    public static class Data {
+        @Param({"1000", "10000", "100000"})
+        int numRows;
+
+        List<List<Object>> rows;
+        DataSet dataSet;
+
+        /**
+         * One row per state, to join with.
+         */
+        DataSet states;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            rows = SyntheticDataSets.rows(numRows);
+            dataSet = new DataSet(SyntheticDataSets.LABELS, SyntheticDataSets.DATA_TYPES, rows);
+            states = dataSet.groupBy(Arrays.asList("State"), Arrays.asList(Aggregation.count()));
+        }
+    }
+
+    @Benchmark
+    public DataSet newDataSet(Data data) {
+        return new DataSet(SyntheticDataSets.LABELS, SyntheticDataSets.DATA_TYPES, data.rows);
+    }
+
+    @Benchmark
+    public DataSet toDataSet(Data data) {
+        return new Transformation(data.dataSet).toDataSet();
+    }
+
+    @Benchmark
+    public DataSet filterByOperator(Data data) {
+        return new Transformation(data.dataSet).filter("Population", ">", POPULATION_THRESHOLD).toDataSet();
+    }
+
+    @Benchmark
+    public DataSet filterByValues(Data data) {
+        return new Transformation(data.dataSet).filter("State", STATES).toDataSet();
+    }
+
+    @Benchmark
+    public DataSet filterByOperatorIndexed(Data data) {
+        // the index is built by the first invocation and kept with the column afterwards
+        return new Transformation(data.dataSet).indexed(true)
+                .filter("Population", ">", POPULATION_THRESHOLD).toDataSet();
+    }
+
+    @Benchmark
+    public DataSet filterByValuesIndexed(Data data) {
+        return new Transformation(data.dataSet).indexed(true).filter("State", STATES).toDataSet();
+    }
+
+    @Benchmark
+    public List<Object> distinctValues(Data data) {
+        return data.dataSet.distinctValues("State");
+    }
+
+    @Benchmark
+    public DataSet sortByInteger(Data data) {
+        return new Transformation(data.dataSet).sort("Population").toDataSet();
+    }
+
+    @Benchmark
+    public DataSet sortByString(Data data) {
+        return new Transformation(data.dataSet).sort("County", false).toDataSet();
+    }
+
+    @Benchmark
+    public DataSet filterThenSort(Data data) {
+        return new Transformation(data.dataSet)
+                .filter("Population", ">", POPULATION_THRESHOLD)
+                .sort("Income")
+                .toDataSet();
+    }
+
+    @Benchmark
+    public DataSet filterByCondition(Data data) {
+        return new Transformation(data.dataSet)
+                .filter(Condition.or(Arrays.asList(
+                        Condition.in("State", STATES),
+                        Condition.and(Arrays.asList(
+                                Condition.compare("Population", ">", POPULATION_THRESHOLD),
+                                Condition.compare("Income", "<", POPULATION_THRESHOLD))))))
+                .toDataSet();
+    }
+
+    @Benchmark
+    public DataSet filterThenSortSequential(Data data) {
+        return new Transformation(data.dataSet)
+                .parallel(false)
+                .filter("Population", ">", POPULATION_THRESHOLD)
+                .sort("Income")
+                .toDataSet();
+    }
+
+    @Benchmark
+    public DataSet groupByState(Data data) {
+        return data.dataSet.groupBy(Arrays.asList("State"), Arrays.asList(
+                new Aggregation(AggregateType.SUM, "Population"),
+                new Aggregation(AggregateType.MEAN, "Income"),
+                Aggregation.count()));
+    }
+
+    @Benchmark
+    public Map<Object, DataSet> partitionByState(Data data) {
+        return data.dataSet.partitionBy("State");
+    }
+
+    @Benchmark
+    public DataSet joinByState(Data data) {
+        return data.dataSet.join(data.states, Arrays.asList("State"), Arrays.asList("State"), JoinType.INNER);
+    }
+
+    @Benchmark
+    public DataSet joinByStateSpilled(Data data) {
+        // a limit below the number of states forces the partitioned join
+        return data.dataSet.join(data.states, Arrays.asList("State"), Arrays.asList("State"), JoinType.INNER,
+                SyntheticDataSets.NUM_STATES / 4);
+    }
+}
@@ -2,10 +2,13 @@ package edu.cmu.cs.cs214.hw5;
 
 import edu.cmu.cs.cs214.hw5.core.DataPlugin;
 import edu.cmu.cs.cs214.hw5.core.DisplayPlugin;
+import edu.cmu.cs.cs214.hw5.core.GazetteerGeocoder;
 import edu.cmu.cs.cs214.hw5.core.GeoDataFramework;
+import edu.cmu.cs.cs214.hw5.core.Geocoder;
 import edu.cmu.cs.cs214.hw5.gui.GeoDataFrameworkGui;
 
 import javax.swing.SwingUtilities;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ServiceLoader;
@@ -28,6 +31,7 @@ public class Main {
 
         dataPlugins.forEach(core::registerDataPlugin);
         displayPlugins.forEach(core::registerDisplayPlugin);
+        loadGeocoders().forEach(core::registerGeocoder);
 
         SwingUtilities.invokeLater(() -> new GeoDataFrameworkGui(core));
     }
@@ -46,6 +50,26 @@ public class Main {
         return result;
     }
 
+    /**
+     * Load geocoders listed in META-INF/services/..., and a gazetteer geocoder for each file of the
+     * default gazetteer directory.
+     *
+     * @return List of instantiated geocoders
+     */
+    private static List<Geocoder> loadGeocoders() {
+        ServiceLoader<Geocoder> geocoders = ServiceLoader.load(Geocoder.class);
+        List<Geocoder> result = new ArrayList<>();
+        for (Geocoder geocoder : geocoders) {
+            result.add(geocoder);
+        }
+        try {
+            result.addAll(GazetteerGeocoder.fromDirectory(GazetteerGeocoder.DEFAULT_DIRECTORY));
+        } catch (IOException ex) {
+            System.out.println("Unable to list gazetteers: " + ex.getMessage());
+        }
+        return result;
+    }
+
     /**
      * Load display plugins listed in META-INF/services/...
      *
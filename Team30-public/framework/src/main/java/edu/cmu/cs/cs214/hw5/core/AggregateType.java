@@ -0,0 +1,9 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+/**
+ * AggregateType enumerates the aggregates that DataSet.groupBy can compute over each group of rows.
+ * It includes SUM, MEAN, COUNT, MIN and MAX.
+ */
+public enum AggregateType {
+    SUM, MEAN, COUNT, MIN, MAX
+}
@@ -0,0 +1,104 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.Objects;
+
+/**
+ * Aggregation describes one column of the result of DataSet.groupBy: an aggregate computed over
+ * a numeric column for each group of rows, or the number of rows in each group.
+ */
+public class Aggregation {
+
+    /**
+     * Aggregate to be computed.
+     */
+    private final AggregateType type;
+
+    /**
+     * Label of the column aggregated, null for COUNT.
+     */
+    private final String label;
+
+    /**
+     * Create an aggregation of a column.
+     *
+     * @param type aggregate to be computed.
+     * @param label label of the INTEGER or DOUBLE column aggregated. Ignored for COUNT.
+     */
+    public Aggregation(AggregateType type, String label) {
+        if (type == null)
+            throw new IllegalArgumentException("Aggregate Type Cannot Be Empty");
+        if (type != AggregateType.COUNT && (label == null || label.isEmpty()))
+            throw new IllegalArgumentException("Label Cannot Be Empty");
+        this.type = type;
+        this.label = type == AggregateType.COUNT ? null : label;
+    }
+
+    /**
+     * Create an aggregation counting the rows of each group.
+     *
+     * @return the aggregation.
+     */
+    public static Aggregation count() {
+        return new Aggregation(AggregateType.COUNT, null);
+    }
+
+    /**
+     * Return the aggregate to be computed.
+     *
+     * @return the aggregate to be computed.
+     */
+    public AggregateType getType() {
+        return type;
+    }
+
+    /**
+     * Return label of the column aggregated.
+     *
+     * @return label of the column aggregated, null for COUNT.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Return label of the column holding this aggregation in the result of groupBy,
+     * such as "Population (SUM)" or "COUNT".
+     *
+     * @return label of the result column.
+     */
+    public String getResultLabel() {
+        return label == null ? type.name() : label + " (" + type.name() + ")";
+    }
+
+    /**
+     * Return data type of the result column: INTEGER for COUNT, DOUBLE for SUM and MEAN, and the type
+     * of the column aggregated for MIN and MAX.
+     *
+     * @param columnType data type of the column aggregated.
+     * @return data type of the result column.
+     */
+    DataType resultType(DataType columnType) {
+        switch (type) {
+            case COUNT:
+                return DataType.INTEGER;
+            case MIN:
+            case MAX:
+                return columnType;
+            default:
+                return DataType.DOUBLE;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Aggregation))
+            return false;
+        Aggregation other = (Aggregation) o;
+        return type == other.type && Objects.equals(label, other.label);
+    }
+
+    @Override
+    public int hashCode() {
+        return type.hashCode() * 31 + Objects.hashCode(label);
+    }
+}
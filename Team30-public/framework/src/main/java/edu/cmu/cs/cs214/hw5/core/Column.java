@@ -0,0 +1,665 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column is a typed vector storing one column of a DataSet. INTEGER and DOUBLE columns are stored in primitive
+ * arrays, STRING columns are dictionary-encoded (each distinct string is stored once and every row holds its code)
+ * and POLYGONS columns are stored in an array of MultiPolygon.
+ *
+ * A column is filled by add while its DataSet is being built and never changes afterwards, so
+ * transformed DataSets can share it: select returns a view of some rows of a column, in any order,
+ * without copying its values.
+ */
+abstract class Column {
+
+    /**
+     * Initial capacity of a column whose number of rows is unknown.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Number of values in the column.
+     */
+    protected int size;
+
+    /**
+     * Index of the column, created on first use.
+     */
+    private volatile ColumnIndex index;
+
+    /**
+     * Create an empty column of the given type.
+     *
+     * @param type data type of the column.
+     * @param capacity expected number of rows.
+     * @return an empty column.
+     */
+    static Column create(DataType type, int capacity) {
+        int initial = Math.max(capacity, DEFAULT_CAPACITY);
+        switch (type) {
+            case INTEGER:
+                return new IntColumn(initial);
+            case DOUBLE:
+                return new DoubleColumn(initial);
+            case STRING:
+                return new StringColumn(initial);
+            case POLYGONS:
+                return new PolygonColumn(initial);
+            default:
+                throw new IllegalArgumentException("Unknown Data Type: " + type);
+        }
+    }
+
+    /**
+     * Create an INTEGER column holding the given values. The array is not copied and must not change.
+     *
+     * @param values values of the column.
+     * @return the column.
+     */
+    static Column ofInts(int[] values) {
+        return new IntColumn(values);
+    }
+
+    /**
+     * Create a DOUBLE column holding the given values. The array is not copied and must not change.
+     *
+     * @param values values of the column.
+     * @return the column.
+     */
+    static Column ofDoubles(double[] values) {
+        return new DoubleColumn(values);
+    }
+
+    /**
+     * Return data type of the column.
+     *
+     * @return data type of the column.
+     */
+    abstract DataType type();
+
+    /**
+     * Append a value to the column. The value must have the type of the column.
+     *
+     * @param value value to be appended.
+     */
+    abstract void add(Object value);
+
+    /**
+     * Append values to an INTEGER column.
+     *
+     * @param values values to be appended.
+     * @param count number of values appended, from the start of values.
+     */
+    void addInts(int[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            add(values[i]);
+        }
+    }
+
+    /**
+     * Append values to a DOUBLE column.
+     *
+     * @param values values to be appended.
+     * @param count number of values appended, from the start of values.
+     */
+    void addDoubles(double[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            add(values[i]);
+        }
+    }
+
+    /**
+     * Release the memory only needed while the column is filled. Called once the DataSet is built.
+     */
+    abstract void trim();
+
+    /**
+     * Return the value at given row as an object.
+     *
+     * @param row row number.
+     * @return value at given row.
+     */
+    abstract Object get(int row);
+
+    /**
+     * Return the numeric value at given row.
+     *
+     * @param row row number.
+     * @return value at given row as a double.
+     */
+    double getDouble(int row) {
+        throw new IllegalArgumentException("Column Is Not Numeric: " + type());
+    }
+
+    /**
+     * Return the integer value at given row.
+     *
+     * @param row row number.
+     * @return value at given row.
+     */
+    int getInt(int row) {
+        throw new IllegalArgumentException("Column Is Not Integer: " + type());
+    }
+
+    /**
+     * Return number of values in the column.
+     *
+     * @return number of values in the column.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copy the integer values at the given rows into out. For STRING columns, the dictionary
+     * codes of the values are copied instead.
+     *
+     * @param rows row numbers.
+     * @param count number of rows.
+     * @param out array receiving the values, at least count long. May be the same array as rows.
+     */
+    void gatherInts(int[] rows, int count, int[] out) {
+        throw new IllegalArgumentException("Column Is Not Integer: " + type());
+    }
+
+    /**
+     * Copy the numeric values at the given rows into out.
+     *
+     * @param rows row numbers.
+     * @param count number of rows.
+     * @param out array receiving the values, at least count long.
+     * @param scratch array at least count long that may be overwritten.
+     */
+    void gatherDoubles(int[] rows, int count, double[] out, int[] scratch) {
+        throw new IllegalArgumentException("Column Is Not Numeric: " + type());
+    }
+
+    /**
+     * Return the distinct strings of a STRING column, indexed by dictionary code.
+     *
+     * @return the dictionary of the column.
+     */
+    List<String> dictionary() {
+        throw new IllegalArgumentException("Column Is Not String: " + type());
+    }
+
+    /**
+     * Return the position of each dictionary code of a STRING column in the sorted dictionary.
+     *
+     * @return the rank of each code.
+     */
+    int[] ranks() {
+        throw new IllegalArgumentException("Column Is Not String: " + type());
+    }
+
+    /**
+     * Return the index of the column, creating it on first use. The index is shared by all users
+     * of the column and builds its parts when a query first needs them.
+     *
+     * @return the index.
+     */
+    ColumnIndex index() {
+        ColumnIndex columnIndex = index;
+        if (columnIndex == null) {
+            if (type() == DataType.POLYGONS)
+                throw new IllegalArgumentException("Index Doesn't Support This Data Type: " + type());
+            synchronized (this) {
+                columnIndex = index;
+                if (columnIndex == null) {
+                    columnIndex = new ColumnIndex(this);
+                    index = columnIndex;
+                }
+            }
+        }
+        return columnIndex;
+    }
+
+    /**
+     * Return a view of the given rows of the column. The rows are not copied.
+     *
+     * @param rows row numbers of this column, in the order of the view.
+     * @return a column whose row i is row rows[i] of this column.
+     */
+    Column select(int[] rows) {
+        return new SelectedColumn(this, rows);
+    }
+
+    /**
+     * Return views of the given rows of several columns of the same length. Columns that are views
+     * with the same index share the composed index.
+     *
+     * @param columns the columns.
+     * @param rows row numbers of the columns, in the order of the views.
+     * @return the views, in the order of columns.
+     */
+    static Column[] select(Column[] columns, int[] rows) {
+        Map<int[], int[]> composedIndexes = new IdentityHashMap<>();
+        Column[] selected = new Column[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] instanceof SelectedColumn) {
+                SelectedColumn view = (SelectedColumn) columns[i];
+                int[] composed = composedIndexes.computeIfAbsent(view.index, index -> view.compose(rows));
+                selected[i] = new SelectedColumn(view.base, composed);
+            } else {
+                selected[i] = columns[i].select(rows);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Check that a row number is in the column.
+     *
+     * @param row row number.
+     * @return the row number.
+     */
+    protected int checkRow(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("Row " + row + " Out Of " + size);
+        return row;
+    }
+
+    /**
+     * Return a copy of the numeric values of the column.
+     *
+     * @return values of the column as doubles.
+     */
+    double[] toDoubleArray() {
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = getDouble(i);
+        }
+        return values;
+    }
+
+    /**
+     * Return a copy of the integer values of the column.
+     *
+     * @return values of the column.
+     */
+    int[] toIntArray() {
+        throw new IllegalArgumentException("Column Is Not Integer: " + type());
+    }
+
+    /**
+     * Column of INTEGER values.
+     */
+    private static final class IntColumn extends Column {
+        private int[] values;
+
+        IntColumn(int capacity) {
+            values = new int[capacity];
+        }
+
+        IntColumn(int[] values) {
+            this.values = values;
+            this.size = values.length;
+        }
+
+        @Override
+        DataType type() {
+            return DataType.INTEGER;
+        }
+
+        @Override
+        void add(Object value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = (Integer) value;
+        }
+
+        @Override
+        void addInts(int[] added, int count) {
+            if (size + count > values.length)
+                values = Arrays.copyOf(values, Math.max(size + count, size * 2));
+            System.arraycopy(added, 0, values, size, count);
+            size += count;
+        }
+
+        @Override
+        void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+
+        @Override
+        Object get(int row) {
+            return getInt(row);
+        }
+
+        @Override
+        double getDouble(int row) {
+            return getInt(row);
+        }
+
+        @Override
+        int getInt(int row) {
+            return values[checkRow(row)];
+        }
+
+        @Override
+        void gatherInts(int[] rows, int count, int[] out) {
+            for (int i = 0; i < count; i++) {
+                out[i] = values[checkRow(rows[i])];
+            }
+        }
+
+        @Override
+        void gatherDoubles(int[] rows, int count, double[] out, int[] scratch) {
+            for (int i = 0; i < count; i++) {
+                out[i] = values[checkRow(rows[i])];
+            }
+        }
+
+        @Override
+        int[] toIntArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Column of DOUBLE values.
+     */
+    private static final class DoubleColumn extends Column {
+        private double[] values;
+
+        DoubleColumn(int capacity) {
+            values = new double[capacity];
+        }
+
+        DoubleColumn(double[] values) {
+            this.values = values;
+            this.size = values.length;
+        }
+
+        @Override
+        DataType type() {
+            return DataType.DOUBLE;
+        }
+
+        @Override
+        void add(Object value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = (Double) value;
+        }
+
+        @Override
+        void addDoubles(double[] added, int count) {
+            if (size + count > values.length)
+                values = Arrays.copyOf(values, Math.max(size + count, size * 2));
+            System.arraycopy(added, 0, values, size, count);
+            size += count;
+        }
+
+        @Override
+        void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+
+        @Override
+        Object get(int row) {
+            return getDouble(row);
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[checkRow(row)];
+        }
+
+        @Override
+        void gatherDoubles(int[] rows, int count, double[] out, int[] scratch) {
+            for (int i = 0; i < count; i++) {
+                out[i] = values[checkRow(rows[i])];
+            }
+        }
+
+        @Override
+        double[] toDoubleArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Column of STRING values, dictionary-encoded.
+     */
+    private static final class StringColumn extends Column {
+
+        /**
+         * Distinct strings of the column, indexed by code.
+         */
+        private final List<String> dictionary = new ArrayList<>();
+
+        /**
+         * Mapping from distinct string to its code, only needed while the column is built.
+         */
+        private Map<String, Integer> codes = new HashMap<>();
+
+        /**
+         * Code of the string at each row.
+         */
+        private int[] rows;
+
+        /**
+         * Position of each code in the sorted dictionary, computed on the first comparison.
+         */
+        private volatile int[] ranks;
+
+        StringColumn(int capacity) {
+            rows = new int[capacity];
+        }
+
+        @Override
+        DataType type() {
+            return DataType.STRING;
+        }
+
+        @Override
+        void add(Object value) {
+            if (size == rows.length)
+                rows = Arrays.copyOf(rows, size * 2);
+            rows[size++] = codes.computeIfAbsent((String) value, s -> {
+                dictionary.add(s);
+                return dictionary.size() - 1;
+            });
+        }
+
+        @Override
+        void trim() {
+            rows = Arrays.copyOf(rows, size);
+            codes = null;
+        }
+
+        @Override
+        Object get(int row) {
+            return dictionary.get(rows[checkRow(row)]);
+        }
+
+        @Override
+        void gatherInts(int[] rows, int count, int[] out) {
+            for (int i = 0; i < count; i++) {
+                out[i] = this.rows[checkRow(rows[i])];
+            }
+        }
+
+        @Override
+        List<String> dictionary() {
+            return dictionary;
+        }
+
+        @Override
+        int[] ranks() {
+            int[] codeRanks = ranks;
+            if (codeRanks == null) {
+                // strings are compared once here instead of once per comparison
+                Integer[] codesByString = new Integer[dictionary.size()];
+                for (int i = 0; i < codesByString.length; i++) {
+                    codesByString[i] = i;
+                }
+                Arrays.sort(codesByString, (c1, c2) -> dictionary.get(c1).compareTo(dictionary.get(c2)));
+                codeRanks = new int[codesByString.length];
+                for (int i = 0; i < codesByString.length; i++) {
+                    codeRanks[codesByString[i]] = i;
+                }
+                ranks = codeRanks;
+            }
+            return codeRanks;
+        }
+    }
+
+    /**
+     * Column of POLYGONS values.
+     */
+    private static final class PolygonColumn extends Column {
+        private MultiPolygon[] values;
+
+        PolygonColumn(int capacity) {
+            values = new MultiPolygon[capacity];
+        }
+
+        @Override
+        DataType type() {
+            return DataType.POLYGONS;
+        }
+
+        @Override
+        void add(Object value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = (MultiPolygon) value;
+        }
+
+        @Override
+        void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[checkRow(row)];
+        }
+    }
+
+    /**
+     * View of some rows of another column.
+     */
+    private static final class SelectedColumn extends Column {
+
+        /**
+         * Column holding the values, never itself a SelectedColumn.
+         */
+        private final Column base;
+
+        /**
+         * Row number in base of each row of the view.
+         */
+        private final int[] index;
+
+        SelectedColumn(Column base, int[] index) {
+            this.base = base;
+            this.index = index;
+            this.size = index.length;
+        }
+
+        @Override
+        DataType type() {
+            return base.type();
+        }
+
+        @Override
+        void add(Object value) {
+            throw new UnsupportedOperationException("Column View Is Read-Only");
+        }
+
+        @Override
+        void trim() {
+        }
+
+        @Override
+        Object get(int row) {
+            return base.get(baseRow(row));
+        }
+
+        @Override
+        double getDouble(int row) {
+            return base.getDouble(baseRow(row));
+        }
+
+        @Override
+        int getInt(int row) {
+            return base.getInt(baseRow(row));
+        }
+
+        @Override
+        void gatherInts(int[] rows, int count, int[] out) {
+            for (int i = 0; i < count; i++) {
+                out[i] = baseRow(rows[i]);
+            }
+            base.gatherInts(out, count, out);
+        }
+
+        @Override
+        void gatherDoubles(int[] rows, int count, double[] out, int[] scratch) {
+            for (int i = 0; i < count; i++) {
+                scratch[i] = baseRow(rows[i]);
+            }
+            base.gatherDoubles(scratch, count, out, null);
+        }
+
+        @Override
+        List<String> dictionary() {
+            return base.dictionary();
+        }
+
+        @Override
+        int[] ranks() {
+            return base.ranks();
+        }
+
+        @Override
+        Column select(int[] rows) {
+            return new SelectedColumn(base, compose(rows));
+        }
+
+        /**
+         * Return the row numbers in base of the given rows of the view, so that chained views stay
+         * one lookup away from the values.
+         *
+         * @param rows row numbers of the view.
+         * @return row numbers in base.
+         */
+        private int[] compose(int[] rows) {
+            int[] composed = new int[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                composed[i] = baseRow(rows[i]);
+            }
+            return composed;
+        }
+
+        @Override
+        int[] toIntArray() {
+            if (type() != DataType.INTEGER)
+                throw new IllegalArgumentException("Column Is Not Integer: " + type());
+            int[] values = new int[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = base.getInt(index[i]);
+            }
+            return values;
+        }
+
+        /**
+         * Return the row number in base of a row of the view.
+         *
+         * @param row row number of the view.
+         * @return row number in base.
+         */
+        private int baseRow(int row) {
+            return index[checkRow(row)];
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ColumnIndex answers repeated filter queries on a column without scanning it. It is built lazily
+ * the first time a query needs it and kept with the column, which never changes.
+ *
+ * Each row has a key from QueryEngine.sortKeys: the value for INTEGER columns, an order-preserving
+ * long for DOUBLE columns and the rank of the string for STRING columns. The index holds a hash
+ * index from each distinct key to its rows, for equality and membership queries, and the rows sorted
+ * by key, for range queries and the sorted list of distinct values.
+ */
+final class ColumnIndex {
+
+    /**
+     * The indexed column.
+     */
+    private final Column column;
+
+    /**
+     * Number of each distinct key, for the hash index.
+     */
+    private LongIdTable keyIds;
+
+    /**
+     * Position in postings of the rows of each key number, plus the total at the end.
+     */
+    private int[] offsets;
+
+    /**
+     * Rows of each key number, in increasing order within a key.
+     */
+    private int[] postings;
+
+    /**
+     * Keys in increasing order, respective to sortedRows.
+     */
+    private long[] sortedKeys;
+
+    /**
+     * Rows sorted by key, rows of equal keys in increasing order.
+     */
+    private int[] sortedRows;
+
+    /**
+     * Distinct values of the column, in increasing order.
+     */
+    private List<Object> distinctValues;
+
+    /**
+     * Create an index of a column, built on first query.
+     *
+     * @param column the column, of type INTEGER, DOUBLE or STRING.
+     */
+    ColumnIndex(Column column) {
+        this.column = column;
+    }
+
+    /**
+     * Return the rows whose key is one of the given keys, using the hash index.
+     *
+     * @param keys the keys, all different.
+     * @return row numbers, in increasing order.
+     */
+    synchronized int[] rowsWithKeys(long[] keys) {
+        if (keyIds == null)
+            buildHashIndex();
+        int[] rows = new int[0];
+        int size = 0;
+        for (long key : keys) {
+            int id = keyIds.find(key);
+            if (id < 0)
+                continue;
+            int keySize = offsets[id + 1] - offsets[id];
+            if (size + keySize > rows.length)
+                rows = Arrays.copyOf(rows, Math.max(size + keySize, rows.length * 2));
+            System.arraycopy(postings, offsets[id], rows, size, keySize);
+            size += keySize;
+        }
+        rows = Arrays.copyOf(rows, size);
+        if (keys.length > 1)
+            Arrays.sort(rows);
+        return rows;
+    }
+
+    /**
+     * Return the rows whose key compares with the given key as the operator mask accepts, using
+     * the sorted rows.
+     *
+     * @param mask comparison outcomes accepted, a combination of QueryEngine.LESS, EQUAL and GREATER.
+     * @param key the key compared with.
+     * @return row numbers, in increasing order.
+     */
+    synchronized int[] rowsInRange(int mask, long key) {
+        if (sortedKeys == null)
+            buildSortedRows();
+        int lower = bound(key, false);
+        int upper = bound(key, true);
+        int[] rows = new int[sortedRows.length];
+        int size = 0;
+        if ((mask & QueryEngine.LESS) != 0) {
+            System.arraycopy(sortedRows, 0, rows, size, lower);
+            size += lower;
+        }
+        if ((mask & QueryEngine.EQUAL) != 0) {
+            System.arraycopy(sortedRows, lower, rows, size, upper - lower);
+            size += upper - lower;
+        }
+        if ((mask & QueryEngine.GREATER) != 0) {
+            System.arraycopy(sortedRows, upper, rows, size, sortedRows.length - upper);
+            size += sortedRows.length - upper;
+        }
+        rows = Arrays.copyOf(rows, size);
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    /**
+     * Return the distinct values of the column, in increasing order.
+     *
+     * @return the distinct values.
+     */
+    synchronized List<Object> distinctValues() {
+        if (distinctValues == null) {
+            if (sortedKeys == null)
+                buildSortedRows();
+            List<Object> values = new ArrayList<>();
+            for (int i = 0; i < sortedKeys.length; i++) {
+                if (i == 0 || sortedKeys[i] != sortedKeys[i - 1])
+                    values.add(column.get(sortedRows[i]));
+            }
+            distinctValues = Collections.unmodifiableList(values);
+        }
+        return distinctValues;
+    }
+
+    /**
+     * Return the position in sortedKeys of the first key greater than, or not less than, the given key.
+     *
+     * @param key the key.
+     * @param strict true to skip the keys equal to key.
+     * @return the position.
+     */
+    private int bound(long key, boolean strict) {
+        int low = 0;
+        int high = sortedKeys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedKeys[mid] < key || (strict && sortedKeys[mid] == key))
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private void buildHashIndex() {
+        int[] rows = allRows();
+        long[] keys = QueryEngine.sortKeys(column, rows, true);
+        LongIdTable ids = new LongIdTable();
+        int[] idOfRow = new int[rows.length];
+        for (int row = 0; row < rows.length; row++) {
+            idOfRow[row] = ids.idOf(keys[row], row);
+        }
+        int[] keyOffsets = new int[ids.size() + 1];
+        for (int id : idOfRow) {
+            keyOffsets[id + 1]++;
+        }
+        for (int id = 0; id < ids.size(); id++) {
+            keyOffsets[id + 1] += keyOffsets[id];
+        }
+        int[] next = Arrays.copyOf(keyOffsets, ids.size());
+        int[] keyRows = new int[rows.length];
+        for (int row = 0; row < rows.length; row++) {
+            keyRows[next[idOfRow[row]]++] = row;
+        }
+        keyIds = ids;
+        offsets = keyOffsets;
+        postings = keyRows;
+    }
+
+    private void buildSortedRows() {
+        int[] rows = allRows();
+        long[] keys = QueryEngine.sortKeys(column, rows, true);
+        int[] sorted = QueryEngine.sort(rows, new long[][]{keys}, true);
+        long[] keysInOrder = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            keysInOrder[i] = keys[sorted[i]];
+        }
+        sortedRows = sorted;
+        sortedKeys = keysInOrder;
+    }
+
+    private int[] allRows() {
+        int[] rows = new int[column.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,304 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Condition represents a filtering rule on the rows of a dataSet: a comparison of a column with a
+ * value, a list of values a column must take, or the AND / OR of other conditions.
+ * A condition is compiled against a dataSet into a kernel run by the QueryEngine.
+ */
+abstract class Condition {
+
+    private static final String LABEL_NOT_FOUND_MSG = "Label Not Found";
+
+    private static final String UNKNOWN_OPERATOR_MSG = "Unknown Operator";
+
+    private static final String UNSUPPORTED_TYPE_MSG = "Filter Operation Doesn't Support This Data Type: ";
+
+    /**
+     * Map from string representation of operators to the comparison outcomes they accept.
+     */
+    private static final Map<String, Integer> OPERATOR_MAP = Map.of(
+            ">", QueryEngine.GREATER,
+            ">=", QueryEngine.GREATER | QueryEngine.EQUAL,
+            "=", QueryEngine.EQUAL,
+            "<=", QueryEngine.LESS | QueryEngine.EQUAL,
+            "<", QueryEngine.LESS,
+            "!=", QueryEngine.LESS | QueryEngine.GREATER
+    );
+
+    /**
+     * Compile the condition into a kernel selecting rows of the given dataSet.
+     *
+     * @param dataSet dataSet to be filtered.
+     * @return the kernel.
+     * @throws IllegalArgumentException if the condition does not apply to the dataSet.
+     */
+    abstract QueryEngine.Kernel compile(DataSet dataSet);
+
+    /**
+     * Return the rows of the given dataSet satisfying the condition, looked up in the indexes of
+     * its columns instead of scanning them. The condition must compile against the dataSet.
+     *
+     * @param dataSet dataSet to be filtered.
+     * @return the row numbers, in increasing order.
+     */
+    abstract int[] lookup(DataSet dataSet);
+
+    /**
+     * Return a condition comparing the values of a column with a value.
+     *
+     * @param label label name of the column.
+     * @param operator one of ">", ">=", "=", "<=", "<" and "!=".
+     * @param value value compared with, parsed as the type of the column.
+     * @return the condition.
+     */
+    static Condition compare(String label, String operator, String value) {
+        return new Comparison(label, operator, value);
+    }
+
+    /**
+     * Return a condition keeping the rows where a column takes one of the given values.
+     *
+     * @param label label name of the column.
+     * @param values values kept, parsed as the type of the column.
+     * @return the condition.
+     */
+    static Condition in(String label, List<String> values) {
+        return new Membership(label, values);
+    }
+
+    /**
+     * Return a condition keeping the rows satisfying all the given conditions.
+     *
+     * @param conditions the conditions.
+     * @return the condition.
+     */
+    static Condition and(List<Condition> conditions) {
+        return new Conjunction(conditions, true);
+    }
+
+    /**
+     * Return a condition keeping the rows satisfying any of the given conditions.
+     *
+     * @param conditions the conditions.
+     * @return the condition.
+     */
+    static Condition or(List<Condition> conditions) {
+        return new Conjunction(conditions, false);
+    }
+
+    /**
+     * Return the index keys of the accepted dictionary codes of a STRING column.
+     *
+     * @param column the column.
+     * @param accepted whether each code is accepted.
+     * @return the keys, all different.
+     */
+    private static long[] rankKeys(Column column, boolean[] accepted) {
+        int[] ranks = column.ranks();
+        return IntStream.range(0, accepted.length).filter(code -> accepted[code])
+                .mapToLong(code -> ranks[code]).toArray();
+    }
+
+    /**
+     * Return the column number of the given label.
+     *
+     * @param dataSet the dataSet.
+     * @param label label name of the column.
+     * @return column number.
+     */
+    private static int indexOf(DataSet dataSet, String label) {
+        int colIdx = dataSet.getLabels().indexOf(label);
+        if (colIdx < 0)
+            throw new IllegalArgumentException(LABEL_NOT_FOUND_MSG);
+        return colIdx;
+    }
+
+    /**
+     * Comparison of a column with a value.
+     */
+    private static final class Comparison extends Condition {
+        private final String label;
+        private final String operator;
+        private final String value;
+
+        Comparison(String label, String operator, String value) {
+            this.label = label;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        QueryEngine.Kernel compile(DataSet dataSet) {
+            int colIdx = indexOf(dataSet, label);
+            DataType type = dataSet.getDataTypes().get(colIdx);
+            if (type == DataType.POLYGONS)
+                throw new IllegalArgumentException(UNSUPPORTED_TYPE_MSG + type);
+
+            Integer mask = OPERATOR_MAP.get(operator);
+            if (mask == null)
+                throw new IllegalArgumentException(UNKNOWN_OPERATOR_MSG);
+
+            Column column = dataSet.column(colIdx);
+            switch (type) {
+                case INTEGER:
+                    return QueryEngine.compareInts(column, mask, Integer.parseInt(value));
+                case DOUBLE:
+                    return QueryEngine.compareDoubles(column, mask, Double.parseDouble(value));
+                default:
+                    return QueryEngine.lookupCodes(column, acceptedCodes(column, mask));
+            }
+        }
+
+        @Override
+        int[] lookup(DataSet dataSet) {
+            int colIdx = indexOf(dataSet, label);
+            int mask = OPERATOR_MAP.get(operator);
+            Column column = dataSet.column(colIdx);
+            switch (column.type()) {
+                case INTEGER:
+                    return column.index().rowsInRange(mask, Integer.parseInt(value));
+                case DOUBLE:
+                    return column.index().rowsInRange(mask, QueryEngine.doubleKey(Double.parseDouble(value)));
+                default:
+                    return column.index().rowsWithKeys(rankKeys(column, acceptedCodes(column, mask)));
+            }
+        }
+
+        /**
+         * Return which dictionary codes of a STRING column satisfy the comparison.
+         *
+         * @param column the column.
+         * @param mask comparison outcomes accepted.
+         * @return whether each code is accepted.
+         */
+        private boolean[] acceptedCodes(Column column, int mask) {
+            // compare every distinct string once instead of every row
+            List<String> dictionary = column.dictionary();
+            boolean[] accepted = new boolean[dictionary.size()];
+            for (int code = 0; code < accepted.length; code++) {
+                accepted[code] = QueryEngine.accepts(mask,
+                        Integer.signum(dictionary.get(code).compareTo(value)));
+            }
+            return accepted;
+        }
+    }
+
+    /**
+     * Membership of the values of a column in a list of values.
+     */
+    private static final class Membership extends Condition {
+        private final String label;
+        private final List<String> values;
+
+        Membership(String label, List<String> values) {
+            this.label = label;
+            this.values = new ArrayList<>(values);
+        }
+
+        @Override
+        QueryEngine.Kernel compile(DataSet dataSet) {
+            int colIdx = indexOf(dataSet, label);
+            DataType type = dataSet.getDataTypes().get(colIdx);
+            Column column = dataSet.column(colIdx);
+
+            switch (type) {
+                case INTEGER:
+                    return QueryEngine.containsInts(column, intValues());
+                case DOUBLE:
+                    return QueryEngine.containsDoubles(column, doubleValues());
+                case STRING:
+                    return QueryEngine.lookupCodes(column, acceptedCodes(column));
+                default:
+                    throw new IllegalArgumentException(UNSUPPORTED_TYPE_MSG + type);
+            }
+        }
+
+        @Override
+        int[] lookup(DataSet dataSet) {
+            Column column = dataSet.column(indexOf(dataSet, label));
+            long[] keys;
+            switch (column.type()) {
+                case INTEGER:
+                    keys = Arrays.stream(intValues()).asLongStream().toArray();
+                    break;
+                case DOUBLE:
+                    keys = Arrays.stream(doubleValues()).mapToLong(QueryEngine::doubleKey).toArray();
+                    break;
+                default:
+                    keys = rankKeys(column, acceptedCodes(column));
+                    break;
+            }
+            return column.index().rowsWithKeys(keys);
+        }
+
+        private int[] intValues() {
+            return values.stream().mapToInt(Integer::parseInt).sorted().distinct().toArray();
+        }
+
+        private double[] doubleValues() {
+            return values.stream().mapToDouble(Double::parseDouble).sorted().distinct().toArray();
+        }
+
+        /**
+         * Return which dictionary codes of a STRING column are among the values.
+         *
+         * @param column the column.
+         * @return whether each code is accepted.
+         */
+        private boolean[] acceptedCodes(Column column) {
+            Set<String> set = new HashSet<>(values);
+            List<String> dictionary = column.dictionary();
+            boolean[] accepted = new boolean[dictionary.size()];
+            for (int code = 0; code < accepted.length; code++) {
+                accepted[code] = set.contains(dictionary.get(code));
+            }
+            return accepted;
+        }
+    }
+
+    /**
+     * AND or OR of conditions.
+     */
+    private static final class Conjunction extends Condition {
+        private final List<Condition> conditions;
+        private final boolean all;
+
+        Conjunction(List<Condition> conditions, boolean all) {
+            this.conditions = new ArrayList<>(conditions);
+            this.all = all;
+        }
+
+        @Override
+        QueryEngine.Kernel compile(DataSet dataSet) {
+            List<QueryEngine.Kernel> kernels = new ArrayList<>();
+            for (Condition condition : conditions) {
+                kernels.add(condition.compile(dataSet));
+            }
+            return all ? QueryEngine.and(kernels) : QueryEngine.or(kernels);
+        }
+
+        @Override
+        int[] lookup(DataSet dataSet) {
+            int[] rows = null;
+            for (Condition condition : conditions) {
+                int[] conditionRows = condition.lookup(dataSet);
+                if (rows == null)
+                    rows = conditionRows;
+                else
+                    rows = all ? QueryEngine.intersect(rows, conditionRows) : QueryEngine.union(rows, conditionRows);
+            }
+            if (rows != null)
+                return rows;
+            // AND of no condition keeps every row, OR of no condition none
+            return all ? IntStream.range(0, dataSet.rowCount()).toArray() : new int[0];
+        }
+    }
+}
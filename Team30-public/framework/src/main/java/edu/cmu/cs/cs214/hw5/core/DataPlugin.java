@@ -37,4 +37,17 @@ public interface DataPlugin {
      * @return DataSet object containing the data from source.
      */
     DataSet loadData(Map<String, List<String>> params);
+
+    /**
+     * Load data the same way as loadData(params), reporting progress while doing so. The framework
+     * calls this method when it loads a dataSet in the background. Plugins reading a slow source
+     * should override it to report progress and to stop early once the load is cancelled.
+     *
+     * @param params a parameter mapping from configuration name to concrete parameters user specifies.
+     * @param progress receiver of the progress of the load.
+     * @return DataSet object containing the data from source.
+     */
+    default DataSet loadData(Map<String, List<String>> params, LoadProgress progress) {
+        return loadData(params);
+    }
 }
@@ -1,8 +1,10 @@
 package edu.cmu.cs.cs214.hw5.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -17,6 +19,14 @@ import java.util.stream.IntStream;
  * The DataSet consists of a list of labels (column name), a list of data types respective
  * to the column and data entity. The data in each column is of the same type, and it doesn't
  * allow NULL value.
+ *
+ * The data entity is stored by column: INTEGER and DOUBLE columns in primitive arrays and STRING
+ * columns dictionary-encoded, so numeric columns can be read without boxing through
+ * getIntColumn and getDoubleColumn. Since columns never change, DataSets derived by filtering,
+ * sorting or selecting columns share them with the DataSet they came from instead of copying.
+ * groupBy and partitionBy let display plugins aggregate or split the rows once, with a hash
+ * table over the columns, instead of grouping boxed values themselves, and join combines two data
+ * sets on equal key values the same way.
  */
 public class DataSet {
     
@@ -31,9 +41,9 @@ public class DataSet {
     private final List<DataType> dataTypes;
 
     /**
-     * Data entity of the data set(stored by row).
+     * Data entity of the data set(stored by column).
      */
-    private final List<List<Object>> data;
+    private final Column[] columns;
 
     /**
      * Number of columns in the data set.
@@ -45,6 +55,22 @@ public class DataSet {
      */
     private final int rowCount;
 
+    /**
+     * Results of the latest groupBy calls, by key labels and aggregations, so that a display plugin
+     * drawing the same data set again reuses its aggregate. Guarded by itself.
+     */
+    private final Map<List<Object>, DataSet> groupByResults = new LinkedHashMap<>(GROUP_BY_CACHE_CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, DataSet> eldest) {
+            return size() > GROUP_BY_CACHE_CAPACITY;
+        }
+    };
+
+    /**
+     * Number of groupBy results kept by a data set.
+     */
+    private static final int GROUP_BY_CACHE_CAPACITY = 4;
+
     /**
      * Error message shown when label is empty.
      */
@@ -65,11 +91,41 @@ public class DataSet {
      */
     private static final String INVALID_SIZE_AT_ROW_MSG = "Invalid Size At Row ";
 
+    /**
+     * Error message shown when label is not found.
+     */
+    private static final String LABEL_NOT_FOUND_MSG = "Label Not Found";
+
     /**
      * Error message shown when data type is invalid.
      */
     private static final String INVALID_TYPE_MSG = "Invalid Data Type At Row %d, Col %d. Expected: %s, Actual: %s";
 
+    /**
+     * Error message shown when a column cannot be grouped by.
+     */
+    private static final String GROUP_UNSUPPORTED_TYPE_MSG = "Group Operation Doesn't Support This Data Type: ";
+
+    /**
+     * Error message shown when a column cannot be aggregated.
+     */
+    private static final String AGGREGATE_UNSUPPORTED_TYPE_MSG = "Aggregate Operation Doesn't Support This Data Type: ";
+
+    /**
+     * Error message shown when the key columns of a join are not paired.
+     */
+    private static final String JOIN_KEYS_MISMATCH_MSG = "Select The Same Number Of Key Columns On Both Sides";
+
+    /**
+     * Error message shown when a column cannot be joined on.
+     */
+    private static final String JOIN_UNSUPPORTED_TYPE_MSG = "Join Operation Doesn't Support This Data Type: ";
+
+    /**
+     * Error message shown when paired key columns have different types.
+     */
+    private static final String JOIN_TYPE_MISMATCH_MSG = "Key Columns Have Different Types: %s (%s), %s (%s)";
+
     /**
      * Create and Initialize a DataSet object.
      * 
@@ -89,9 +145,12 @@ public class DataSet {
         }
         colCount = inDataTypes.size();
 
-        data = new ArrayList<>();
+        columns = new Column[colCount];
+        for (int j = 0; j < colCount; j++) {
+            columns[j] = Column.create(dataTypes.get(j), values.size());
+        }
         for (int i = 0; i < values.size(); i++) {
-            List<Object> row = new ArrayList<>(values.get(i));
+            List<Object> row = values.get(i);
             if (row.size() != colCount)
                 throw new IllegalArgumentException(INVALID_SIZE_AT_ROW_MSG + i);
             for (int j = 0; j < colCount; j++) {
@@ -99,9 +158,32 @@ public class DataSet {
                     throw new IllegalArgumentException(String.format(
                             INVALID_TYPE_MSG, i, j, dataTypes.get(j), row.get(j)));
             }
-            data.add(row);
+            for (int j = 0; j < colCount; j++) {
+                columns[j].add(row.get(j));
+            }
+        }
+        for (Column column : columns) {
+            column.trim();
         }
-        rowCount = data.size();
+        rowCount = values.size();
+        resolveDuplicateLabels();
+    }
+
+    /**
+     * Create a DataSet from columns that are already validated, such as the columns of another DataSet.
+     * The columns are shared, not copied.
+     *
+     * @param inLabels list of column labels.
+     * @param inDataTypes list of data types, respective to the columns.
+     * @param inColumns columns of the data set, all of length inRowCount.
+     * @param inRowCount number of rows.
+     */
+    DataSet(List<String> inLabels, List<DataType> inDataTypes, Column[] inColumns, int inRowCount) {
+        this.labels = new ArrayList<>(inLabels);
+        this.dataTypes = new ArrayList<>(inDataTypes);
+        this.columns = inColumns;
+        colCount = inColumns.length;
+        rowCount = inRowCount;
         resolveDuplicateLabels();
     }
 
@@ -154,7 +236,31 @@ public class DataSet {
      * @return data Object at given row and column number.
      */
     public Object getCell(int row, int col) {
-        return data.get(row).get(col);
+        return columns[col].get(row);
+    }
+
+    /**
+     * Return the numeric value at given row and column number without boxing.
+     * The column must be of type INTEGER or DOUBLE.
+     *
+     * @param row row number.
+     * @param col column number.
+     * @return value at given row and column number as a double.
+     */
+    public double getDouble(int row, int col) {
+        return columns[col].getDouble(row);
+    }
+
+    /**
+     * Return the integer value at given row and column number without boxing.
+     * The column must be of type INTEGER.
+     *
+     * @param row row number.
+     * @param col column number.
+     * @return value at given row and column number.
+     */
+    public int getInt(int row, int col) {
+        return columns[col].getInt(row);
     }
 
     /**
@@ -192,7 +298,11 @@ public class DataSet {
      * @return a copy of the list of data objects at given row.
      */
     public List<Object> getRow(int row) {
-        return new ArrayList<>(data.get(row));
+        List<Object> list = new ArrayList<>(colCount);
+        for (Column column : columns) {
+            list.add(column.get(row));
+        }
+        return list;
     }
 
     /**
@@ -202,7 +312,7 @@ public class DataSet {
      * @return a copy of the list of data objects at given column.
      */
     public List<Object> getColumn(int col) {
-        return IntStream.range(0, rowCount).mapToObj(i -> data.get(i).get(col)).collect(Collectors.toList());
+        return IntStream.range(0, rowCount).mapToObj(columns[col]::get).collect(Collectors.toList());
     }
 
     /**
@@ -217,7 +327,51 @@ public class DataSet {
             return null;
         return getColumn(index);
     }
+
+    /**
+     * Return a copy of the numeric values of the column with the given label, without boxing.
+     * INTEGER columns are widened to double.
+     *
+     * @param label label of column.
+     * @return values of the column, or null if no column has the label.
+     * @throws IllegalArgumentException if the column is neither INTEGER nor DOUBLE.
+     */
+    public double[] getDoubleColumn(String label) {
+        int index = labels.indexOf(label);
+        if (index < 0)
+            return null;
+        return columns[index].toDoubleArray();
+    }
+
+    /**
+     * Return a copy of the values of the INTEGER column with the given label, without boxing.
+     *
+     * @param label label of column.
+     * @return values of the column, or null if no column has the label.
+     * @throws IllegalArgumentException if the column is not INTEGER.
+     */
+    public int[] getIntColumn(String label) {
+        int index = labels.indexOf(label);
+        if (index < 0)
+            return null;
+        return columns[index].toIntArray();
+    }
     
+    /**
+     * Return the distinct values of the column with the given label, in increasing order. They are
+     * computed once per column and kept, so repeated calls do not scan the column.
+     *
+     * @param label label of column.
+     * @return an unmodifiable list of the distinct values, or null if no column has the label.
+     * @throws IllegalArgumentException if the column is of type POLYGONS.
+     */
+    public List<Object> distinctValues(String label) {
+        int index = labels.indexOf(label);
+        if (index < 0)
+            return null;
+        return columns[index].index().distinctValues();
+    }
+
     /**
      * Return row number of this data set.
      * 
@@ -268,15 +422,220 @@ public class DataSet {
     }
 
     /**
-     * Return a copy of this data set.
-     * 
-     * @return a copy of this data set.
+     * Return a DataSet holding only the columns with the given labels, in the given order.
+     * The values are shared with this data set, not copied.
+     *
+     * @param selectedLabels labels of the columns to keep.
+     * @return a DataSet with the selected columns.
+     * @throws IllegalArgumentException if a label is not found.
      */
-    List<List<Object>> toLists() {
-        List<List<Object>> list = new ArrayList<>();
-        for (List<Object> row : data) {
-            list.add(new ArrayList<>(row));
+    public DataSet selectColumns(List<String> selectedLabels) {
+        Column[] selected = new Column[selectedLabels.size()];
+        List<DataType> selectedTypes = new ArrayList<>();
+        for (int i = 0; i < selected.length; i++) {
+            int index = indexOf(selectedLabels.get(i));
+            selected[i] = columns[index];
+            selectedTypes.add(dataTypes.get(index));
         }
-        return list;
+        return new DataSet(selectedLabels, selectedTypes, selected, rowCount);
+    }
+
+    /**
+     * Group the rows by the values of the given columns and compute aggregates over each group.
+     * The result has one row per distinct combination of key values, in the order of the first row
+     * of each group, holding the key values followed by the aggregates. For example, grouping by
+     * "State" with a SUM of "Population" gives the total population of each state. The results of
+     * the latest groupings are kept, so grouping this data set the same way again returns the same
+     * DataSet without aggregating again.
+     *
+     * @param keyLabels labels of the INTEGER, DOUBLE or STRING columns to group by. With no label,
+     *                  all rows form a single group.
+     * @param aggregations aggregates to compute over INTEGER or DOUBLE columns.
+     * @return a DataSet with the key columns followed by a column per aggregation.
+     * @throws IllegalArgumentException if a label is not found or a column has an unsupported type.
+     */
+    public DataSet groupBy(List<String> keyLabels, List<Aggregation> aggregations) {
+        // the data set never changes, so the same grouping always gives the same result
+        List<Object> key = Arrays.asList(new ArrayList<>(keyLabels), new ArrayList<>(aggregations));
+        synchronized (groupByResults) {
+            DataSet result = groupByResults.get(key);
+            if (result != null)
+                return result;
+        }
+        DataSet result = aggregate(keyLabels, aggregations);
+        synchronized (groupByResults) {
+            groupByResults.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Compute the result of groupBy.
+     *
+     * @param keyLabels labels of the columns to group by.
+     * @param aggregations aggregates to compute.
+     * @return a DataSet with the key columns followed by a column per aggregation.
+     */
+    private DataSet aggregate(List<String> keyLabels, List<Aggregation> aggregations) {
+        Column[] keys = new Column[keyLabels.size()];
+        List<DataType> keyTypes = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            int index = indexOf(keyLabels.get(i));
+            if (dataTypes.get(index) == DataType.POLYGONS)
+                throw new IllegalArgumentException(GROUP_UNSUPPORTED_TYPE_MSG + DataType.POLYGONS);
+            keys[i] = columns[index];
+            keyTypes.add(dataTypes.get(index));
+        }
+        Column[] values = new Column[aggregations.size()];
+        for (int i = 0; i < values.length; i++) {
+            Aggregation aggregation = aggregations.get(i);
+            if (aggregation.getType() == AggregateType.COUNT)
+                continue;
+            int index = indexOf(aggregation.getLabel());
+            DataType type = dataTypes.get(index);
+            if (type != DataType.INTEGER && type != DataType.DOUBLE)
+                throw new IllegalArgumentException(AGGREGATE_UNSUPPORTED_TYPE_MSG + type);
+            values[i] = columns[index];
+        }
+
+        HashAggregator.Groups groups = HashAggregator.group(keys, rowCount);
+        List<String> resultLabels = new ArrayList<>(keyLabels);
+        List<DataType> resultTypes = new ArrayList<>(keyTypes);
+        Column[] resultColumns = Arrays.copyOf(Column.select(keys, groups.firstRows), keys.length + values.length);
+        for (int i = 0; i < values.length; i++) {
+            Aggregation aggregation = aggregations.get(i);
+            resultLabels.add(aggregation.getResultLabel());
+            resultTypes.add(aggregation.resultType(values[i] == null ? null : values[i].type()));
+            resultColumns[keys.length + i] = HashAggregator.aggregate(groups, aggregation.getType(), values[i]);
+        }
+        return new DataSet(resultLabels, resultTypes, resultColumns, groups.count());
+    }
+
+    /**
+     * Split the rows by the values of the given column. Each part holds all the columns of the rows
+     * with one value, in their order in this data set, and shares its values with this data set.
+     *
+     * @param label label of the INTEGER, DOUBLE or STRING column to split by.
+     * @return mapping from each distinct value to the rows holding it, in the order of the first row
+     *         holding each value.
+     * @throws IllegalArgumentException if the label is not found or the column is of type POLYGONS.
+     */
+    public Map<Object, DataSet> partitionBy(String label) {
+        int index = indexOf(label);
+        if (dataTypes.get(index) == DataType.POLYGONS)
+            throw new IllegalArgumentException(GROUP_UNSUPPORTED_TYPE_MSG + DataType.POLYGONS);
+        HashAggregator.Groups groups = HashAggregator.group(new Column[]{columns[index]}, rowCount);
+        int[][] groupRows = groups.rows();
+        Map<Object, DataSet> parts = new LinkedHashMap<>();
+        for (int group = 0; group < groupRows.length; group++) {
+            parts.put(columns[index].get(groups.firstRows[group]), selectRows(groupRows[group]));
+        }
+        return parts;
+    }
+
+    /**
+     * Join this data set with another on equal key values. The result holds the columns of this data
+     * set followed by the columns of the other one except its key columns, with a row for each pair
+     * of rows whose keys are equal, ordered by row of this data set then row of the other one.
+     * A LEFT join also keeps the rows of this data set without match, with 0, NaN, the empty string
+     * or an empty MultiPolygon in the columns of the other data set.
+     *
+     * @param other the data set to join with.
+     * @param keyLabels labels of the key columns of this data set.
+     * @param otherKeyLabels labels of the key columns of the other data set, respective to keyLabels.
+     * @param type the join type.
+     * @return a DataSet with the joined rows.
+     * @throws IllegalArgumentException if a label is not found or key columns have different or unsupported types.
+     */
+    public DataSet join(DataSet other, List<String> keyLabels, List<String> otherKeyLabels, JoinType type) {
+        return join(other, keyLabels, otherKeyLabels, type, HashJoin.DEFAULT_MAX_BUILD_ROWS);
+    }
+
+    /**
+     * Join this data set with another on equal key values, holding at most the given number of rows
+     * of the smaller data set in the hash table at once. Above that, rows are split into partitions
+     * joined one at a time, the others waiting in temporary files. The limit does not cover the
+     * matched pairs, which are kept in memory with the result.
+     *
+     * @param other the data set to join with.
+     * @param keyLabels labels of the key columns of this data set.
+     * @param otherKeyLabels labels of the key columns of the other data set, respective to keyLabels.
+     * @param type the join type.
+     * @param maxBuildRows maximum number of rows in the hash table at once.
+     * @return a DataSet with the joined rows.
+     * @throws IllegalArgumentException if a label is not found or key columns have different or unsupported types.
+     * @throws IllegalStateException if the temporary files cannot be written or read.
+     */
+    public DataSet join(DataSet other, List<String> keyLabels, List<String> otherKeyLabels, JoinType type,
+                        int maxBuildRows) {
+        if (keyLabels.isEmpty() || keyLabels.size() != otherKeyLabels.size())
+            throw new IllegalArgumentException(JOIN_KEYS_MISMATCH_MSG);
+        int[] keys = new int[keyLabels.size()];
+        int[] otherKeys = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = indexOf(keyLabels.get(i));
+            otherKeys[i] = other.indexOf(otherKeyLabels.get(i));
+            DataType keyType = dataTypes.get(keys[i]);
+            DataType otherKeyType = other.dataTypes.get(otherKeys[i]);
+            if (keyType == DataType.POLYGONS)
+                throw new IllegalArgumentException(JOIN_UNSUPPORTED_TYPE_MSG + keyType);
+            if (keyType != otherKeyType)
+                throw new IllegalArgumentException(String.format(JOIN_TYPE_MISMATCH_MSG,
+                        keyLabels.get(i), keyType, otherKeyLabels.get(i), otherKeyType));
+        }
+        return new HashJoin(this, keys, other, otherKeys, type, maxBuildRows).toDataSet();
+    }
+
+    /**
+     * Return the column number of the given label.
+     *
+     * @param label label of column.
+     * @return column number.
+     * @throws IllegalArgumentException if the label is not found.
+     */
+    private int indexOf(String label) {
+        int index = labels.indexOf(label);
+        if (index < 0)
+            throw new IllegalArgumentException(LABEL_NOT_FOUND_MSG + ": " + label);
+        return index;
+    }
+
+    /**
+     * Return a DataSet holding the given rows of this data set. The values are shared, not copied.
+     *
+     * @param rows row numbers of this data set, in the order of the new data set.
+     * @return a DataSet whose row i is row rows[i] of this data set.
+     */
+    DataSet selectRows(int[] rows) {
+        return new DataSet(labels, dataTypes, Column.select(columns, rows), rows.length);
+    }
+
+    /**
+     * Return a DataSet holding the columns of this data set followed by the given columns.
+     * The values are shared, not copied.
+     *
+     * @param newLabels labels of the new columns.
+     * @param newDataTypes data types of the new columns.
+     * @param newColumns the new columns, of the same length as this data set.
+     * @return a DataSet with the new columns appended.
+     */
+    DataSet appendColumns(List<String> newLabels, List<DataType> newDataTypes, Column[] newColumns) {
+        List<String> allLabels = new ArrayList<>(labels);
+        allLabels.addAll(newLabels);
+        List<DataType> allTypes = new ArrayList<>(dataTypes);
+        allTypes.addAll(newDataTypes);
+        Column[] allColumns = Arrays.copyOf(columns, colCount + newColumns.length);
+        System.arraycopy(newColumns, 0, allColumns, colCount, newColumns.length);
+        return new DataSet(allLabels, allTypes, allColumns, rowCount);
+    }
+
+    /**
+     * Return the column at given column number.
+     *
+     * @param col column number.
+     * @return the column.
+     */
+    Column column(int col) {
+        return columns[col];
     }
 }
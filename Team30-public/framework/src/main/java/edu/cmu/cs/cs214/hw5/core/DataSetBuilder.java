@@ -0,0 +1,131 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DataSetBuilder receives the rows of a dataSet from a streaming data plugin, batch by batch, and
+ * appends them straight into the typed columns of the dataSet. Rows are never kept as lists of
+ * objects, so the data is held only once while it loads.
+ *
+ * The framework creates the builder and builds the dataSet once the plugin returns. The plugin
+ * first sets the labels and types of the columns, then fills batches from newBatch and appends
+ * each one when it is full, and the last one whatever its size.
+ */
+public final class DataSetBuilder {
+
+    /**
+     * Labels of the columns, null until set.
+     */
+    private List<String> labels;
+
+    /**
+     * Data types of the columns, null until set.
+     */
+    private List<DataType> dataTypes;
+
+    /**
+     * Columns being filled.
+     */
+    private Column[] columns;
+
+    /**
+     * Number of rows appended.
+     */
+    private int rowCount;
+
+    /**
+     * Create an empty builder.
+     */
+    DataSetBuilder() {
+    }
+
+    /**
+     * Set the labels and types of the columns. Must be called once, before any batch is created.
+     *
+     * @param inLabels list of column labels.
+     * @param inDataTypes list of data types.
+     */
+    public void setColumns(List<String> inLabels, List<DataType> inDataTypes) {
+        if (columns != null)
+            throw new IllegalStateException("Columns Already Set");
+        if (inLabels.stream().anyMatch(label -> label == null || label.isEmpty()))
+            throw new IllegalArgumentException("Label Cannot Be Empty");
+        if (inDataTypes.contains(null))
+            throw new IllegalArgumentException("Data Types Cannot Be Empty");
+        if (inLabels.size() != inDataTypes.size())
+            throw new IllegalArgumentException("Invalid Size");
+        labels = new ArrayList<>(inLabels);
+        dataTypes = new ArrayList<>(inDataTypes);
+        columns = new Column[dataTypes.size()];
+        for (int j = 0; j < columns.length; j++) {
+            columns[j] = Column.create(dataTypes.get(j), RowBatch.CAPACITY);
+        }
+    }
+
+    /**
+     * Create an empty batch for rows of the columns set.
+     *
+     * @return the batch.
+     */
+    public RowBatch newBatch() {
+        checkColumnsSet();
+        return new RowBatch(dataTypes);
+    }
+
+    /**
+     * Append the complete rows of a batch to the dataSet and empty the batch.
+     *
+     * @param batch a batch created by this builder.
+     */
+    public void append(RowBatch batch) {
+        checkColumnsSet();
+        if (!dataTypes.equals(List.of(batch.types())))
+            throw new IllegalArgumentException("Batch Doesn't Match The Columns");
+        int count = batch.size();
+        for (int j = 0; j < columns.length; j++) {
+            switch (dataTypes.get(j)) {
+                case INTEGER:
+                    columns[j].addInts(batch.ints[j], count);
+                    break;
+                case DOUBLE:
+                    columns[j].addDoubles(batch.doubles[j], count);
+                    break;
+                default:
+                    for (int i = 0; i < count; i++) {
+                        columns[j].add(batch.objects[j][i]);
+                    }
+                    break;
+            }
+        }
+        rowCount += count;
+        batch.clear();
+    }
+
+    /**
+     * Return number of rows appended so far.
+     *
+     * @return number of rows.
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Build the dataSet from the rows appended. The builder must not be used afterwards.
+     *
+     * @return the dataSet.
+     */
+    DataSet build() {
+        checkColumnsSet();
+        for (Column column : columns) {
+            column.trim();
+        }
+        return new DataSet(labels, dataTypes, columns, rowCount);
+    }
+
+    private void checkColumnsSet() {
+        if (columns == null)
+            throw new IllegalStateException("Columns Not Set");
+    }
+}
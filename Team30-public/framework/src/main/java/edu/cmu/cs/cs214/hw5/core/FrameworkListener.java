@@ -3,6 +3,7 @@ package edu.cmu.cs.cs214.hw5.core;
 /**
  * FrameworkListener interface. The class implementing this interface will be notified upon
  * events happening in framework(dataLoaded, graphCreated, graphDrawn and dataSetSelected).
+ * Events of loads done in the background are delivered on the thread doing the load.
  */
 public interface FrameworkListener {
     
@@ -19,4 +20,38 @@ public interface FrameworkListener {
      * @param dataSetName name of dataSet.
      */
     void dataSetDeleted(String dataSetName);
+
+    /**
+     * Handle events when a dataSet starts loading in the background.
+     *
+     * @param dataSetName name of dataSet.
+     */
+    default void dataSetLoadStarted(String dataSetName) {
+    }
+
+    /**
+     * Handle events when a data plugin reports progress loading a dataSet in the background.
+     *
+     * @param dataSetName name of dataSet.
+     * @param fraction fraction loaded, between 0 and 1.
+     */
+    default void dataSetLoadProgress(String dataSetName, double fraction) {
+    }
+
+    /**
+     * Handle events when loading a dataSet in the background fails.
+     *
+     * @param dataSetName name of dataSet.
+     * @param cause exception thrown by the data plugin.
+     */
+    default void dataSetLoadFailed(String dataSetName, Throwable cause) {
+    }
+
+    /**
+     * Handle events when loading a dataSet in the background is cancelled.
+     *
+     * @param dataSetName name of dataSet.
+     */
+    default void dataSetLoadCancelled(String dataSetName) {
+    }
 }
@@ -0,0 +1,700 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import org.apache.commons.lang3.tuple.Triple;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * GazetteerGeocoder geocodes countries and states offline, from the polygons of a local gazetteer
+ * file in GeoJSON form, such as the Natural Earth admin 0 (countries) and admin 1 (states and
+ * provinces) files. The file is read into an in-memory index of names the first time it is used,
+ * feature by feature from the stream, the rings of each place being kept packed into arrays of
+ * coordinates rather than as one object per point.
+ *
+ * A feature is a state if it has an "adm1_code" or "iso_3166_2" property, its country being named
+ * by its "admin", "adm0_a3" or "iso_a2" property; any other feature is a country. Features are
+ * found by their names, codes and alternate names, ignoring case, accents, spacing and periods.
+ * Addresses naming a city, county or street are not found, as the gazetteer has no such places.
+ */
+public final class GazetteerGeocoder implements Geocoder {
+
+    /**
+     * Directory searched for gazetteer files by default.
+     */
+    public static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("user.home"), ".geodata", "gazetteer");
+
+    /**
+     * Properties naming a country.
+     */
+    private static final List<String> COUNTRY_NAME_PROPERTIES = List.of(
+            "name", "name_long", "name_en", "admin", "geounit", "formal_en", "abbrev", "iso_a2", "iso_a3", "adm0_a3");
+
+    /**
+     * Properties naming a state.
+     */
+    private static final List<String> STATE_NAME_PROPERTIES = List.of(
+            "name", "name_en", "woe_name", "gn_name", "postal", "iso_3166_2", "name_alt");
+
+    /**
+     * Properties naming the country of a state.
+     */
+    private static final List<String> STATE_COUNTRY_PROPERTIES = List.of("admin", "adm0_a3", "iso_a2");
+
+    /**
+     * Gazetteer file.
+     */
+    private final Path file;
+
+    /**
+     * Countries by normalized name, null until the file is read.
+     */
+    private Map<String, Place> countries;
+
+    /**
+     * States by normalized name, null until the file is read.
+     */
+    private Map<String, List<Place>> states;
+
+    /**
+     * Create a geocoder reading the given gazetteer file when first used.
+     *
+     * @param file GeoJSON file holding a FeatureCollection of country or state polygons.
+     */
+    public GazetteerGeocoder(Path file) {
+        if (file == null)
+            throw new NullPointerException();
+        this.file = file;
+    }
+
+    /**
+     * Create a geocoder for each GeoJSON file of a directory.
+     *
+     * @param directory directory of gazetteer files.
+     * @return the geocoders, sorted by file name, none if the directory does not exist.
+     * @throws IOException thrown if the directory cannot be listed.
+     */
+    public static List<GazetteerGeocoder> fromDirectory(Path directory) throws IOException {
+        if (!Files.isDirectory(directory))
+            return List.of();
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).matches(".*\\.(geo)?json"))
+                    .sorted().map(GazetteerGeocoder::new).collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "Gazetteer (" + file.getFileName() + ")";
+    }
+
+    @Override
+    public CompletableFuture<List<Triple<Double, Double, MultiPolygon>>> geocode(
+            GeoAddress[] addresses, Set<Object> unfounded, String threshold, LoadProgress progress) {
+        return geocode(addresses, unfounded, threshold, progress, this::find);
+    }
+
+    @Override
+    public CompletableFuture<List<Triple<Double, Double, MultiPolygon>>> geocode(
+            String[] addresses, Set<Object> unfounded, String threshold, LoadProgress progress) {
+        return geocode(addresses, unfounded, threshold, progress, this::find);
+    }
+
+    /**
+     * Look up each address in the index, reading the gazetteer first if needed.
+     *
+     * @param addresses addresses to geocode.
+     * @param unfounded a set to store the addresses not found.
+     * @param threshold polygon threshold, in degrees.
+     * @param progress receiver of the progress, checked for cancellation.
+     * @param find lookup of an address.
+     * @param <T> type of the addresses.
+     * @return future of a list of Triple of longitude, latitude and polygons, null for an address not found.
+     */
+    private <T> CompletableFuture<List<Triple<Double, Double, MultiPolygon>>> geocode(
+            T[] addresses, Set<Object> unfounded, String threshold, LoadProgress progress, Function<T, Place> find) {
+        double tolerance;
+        try {
+            tolerance = Double.parseDouble(threshold);
+            readIndex();
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        List<Triple<Double, Double, MultiPolygon>> res = new ArrayList<>(addresses.length);
+        for (int i = 0; i < addresses.length; i++) {
+            Place place = progress.isCancelled() ? null : find.apply(addresses[i]);
+            if (place == null) {
+                unfounded.add(addresses[i]);
+                res.add(null);
+            } else {
+                res.add(place.result(tolerance));
+            }
+            progress.report((double) (i + 1) / addresses.length);
+        }
+        return CompletableFuture.completedFuture(res);
+    }
+
+    /**
+     * Find the place of a structured address.
+     *
+     * @param address the address.
+     * @return the place, or null if it is not found.
+     */
+    private Place find(GeoAddress address) {
+        if (address.getCity() != null || address.getCounty() != null || address.getStreet() != null)
+            return null;
+        if (address.getState() != null)
+            return findState(normalize(address.getState()), address.getCountry());
+        return countries.get(normalize(address.getCountry()));
+    }
+
+    /**
+     * Find the place of a free-form address: a country, a state, or a state and its country
+     * separated by a comma.
+     *
+     * @param address the address.
+     * @return the place, or null if it is not found.
+     */
+    private Place find(String address) {
+        String name = normalize(address);
+        Place place = countries.get(name);
+        if (place == null)
+            place = findState(name, null);
+        int comma = address.lastIndexOf(',');
+        if (place == null && comma >= 0)
+            place = findState(normalize(address.substring(0, comma)), address.substring(comma + 1));
+        return place;
+    }
+
+    /**
+     * Find a state, in the given country if any.
+     *
+     * @param name normalized name of the state.
+     * @param country name of the country, or null.
+     * @return the state, or null if it is not found or several states match.
+     */
+    private Place findState(String name, String country) {
+        List<Place> candidates = states.getOrDefault(name, List.of());
+        if (country != null) {
+            String countryName = normalize(country);
+            Place countryPlace = countries.get(countryName);
+            Set<String> countryNames = countryPlace == null ? Set.of(countryName) : countryPlace.names;
+            candidates = candidates.stream().filter(s -> s.countryNames.stream().anyMatch(countryNames::contains))
+                    .collect(Collectors.toList());
+        }
+        return candidates.size() == 1 ? candidates.get(0) : null;
+    }
+
+    /**
+     * Read the gazetteer file into the index, unless it has been read already.
+     */
+    private synchronized void readIndex() {
+        if (countries != null)
+            return;
+        Map<String, Place> countryIndex = new HashMap<>();
+        Map<String, List<Place>> stateIndex = new HashMap<>();
+        boolean isCollection = false;
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            reader.setLenient(true);
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                Rings rings = new Rings();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (!reader.nextName().equals("features")) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    isCollection = true;
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        Place place = readFeature(reader, rings);
+                        if (place == null)
+                            continue;
+                        for (String name : place.names) {
+                            if (place.isState)
+                                stateIndex.computeIfAbsent(name, k -> new ArrayList<>()).add(place);
+                            else
+                                countryIndex.putIfAbsent(name, place);
+                        }
+                    }
+                    reader.endArray();
+                }
+                reader.endObject();
+            }
+        } catch (IOException | IllegalStateException | NumberFormatException ex) {
+            throw new IllegalArgumentException("Unable To Read Gazetteer: " + file);
+        }
+        if (!isCollection)
+            throw new IllegalArgumentException("Gazetteer Is Not A FeatureCollection: " + file);
+        states = stateIndex;
+        countries = countryIndex;
+    }
+
+    /**
+     * Read a feature.
+     *
+     * @param reader reader positioned at the feature.
+     * @param rings buffer the coordinates of the feature are read into.
+     * @return the place of the feature, or null if it has no polygon.
+     * @throws IOException thrown if the feature is malformed.
+     */
+    private static Place readFeature(JsonReader reader, Rings rings) throws IOException {
+        Map<String, String> properties = Map.of();
+        rings.clear();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "properties":
+                    properties = readProperties(reader);
+                    break;
+                case "geometry":
+                    rings.readGeometry(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (rings.polygonCount == 0)
+            return null;
+        boolean isState = properties.containsKey("adm1_code") || properties.containsKey("iso_3166_2");
+        return new Place(
+                names(properties, isState ? STATE_NAME_PROPERTIES : COUNTRY_NAME_PROPERTIES),
+                isState ? names(properties, STATE_COUNTRY_PROPERTIES) : Set.of(),
+                isState, properties, rings);
+    }
+
+    /**
+     * Read the properties of a feature holding a string, a number or a boolean, by lower case name.
+     *
+     * @param reader reader positioned at the properties.
+     * @return the properties.
+     * @throws IOException thrown if the properties are malformed.
+     */
+    private static Map<String, String> readProperties(JsonReader reader) throws IOException {
+        Map<String, String> res = new HashMap<>();
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return res;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            String value;
+            switch (reader.peek()) {
+                case STRING:
+                case NUMBER:
+                    value = reader.nextString();
+                    break;
+                case BOOLEAN:
+                    value = String.valueOf(reader.nextBoolean());
+                    break;
+                default:
+                    reader.skipValue();
+                    continue;
+            }
+            if (!value.isBlank())
+                res.putIfAbsent(name.toLowerCase(Locale.ROOT), value);
+        }
+        reader.endObject();
+        return res;
+    }
+
+    /**
+     * Return the normalized names held by some properties, alternate names being separated by "|".
+     *
+     * @param properties properties of a feature.
+     * @param keys names of the properties.
+     * @return the names.
+     */
+    private static Set<String> names(Map<String, String> properties, List<String> keys) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String key : keys) {
+            String value = properties.get(key);
+            if (value == null || value.equals("-99"))
+                continue;
+            for (String name : value.split("\\|")) {
+                names.add(normalize(name));
+            }
+        }
+        names.remove("");
+        return names;
+    }
+
+    /**
+     * Normalize a name so that spellings differing only by case, accents, spacing or periods match.
+     *
+     * @param s the name, may be null.
+     * @return the normalized name, empty for null.
+     */
+    private static String normalize(String s) {
+        if (s == null)
+            return "";
+        String res = Normalizer.normalize(s, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return res.replace(".", "").strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Simplify a ring with the Douglas-Peucker algorithm, keeping the points farther than the
+     * tolerance from the line through the points kept around them.
+     *
+     * @param xs x coordinates of the points.
+     * @param ys y coordinates of the points.
+     * @param start index of the first point of the ring.
+     * @param end index after the last point of the ring.
+     * @param tolerance the tolerance, in degrees.
+     * @param keep set to true for each point of the ring kept.
+     * @return the number of points of the ring kept.
+     */
+    static int simplify(double[] xs, double[] ys, int start, int end, double tolerance, boolean[] keep) {
+        int n = end - start;
+        if (n <= 3 || tolerance <= 0) {
+            Arrays.fill(keep, start, end, true);
+            return n;
+        }
+        keep[start] = true;
+        keep[end - 1] = true;
+        int kept = 2;
+        int[] stack = new int[2 * n];
+        int top = 0;
+        stack[top++] = start;
+        stack[top++] = end - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double dx = xs[last] - xs[first];
+            double dy = ys[last] - ys[first];
+            double length = Math.hypot(dx, dy);
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double px = xs[i] - xs[first];
+                double py = ys[i] - ys[first];
+                double distance = length == 0 ? Math.sqrt(px * px + py * py) : Math.abs(dy * px - dx * py) / length;
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0 && maxDistance > tolerance) {
+                keep[farthest] = true;
+                kept++;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+        if (kept < 3) {
+            Arrays.fill(keep, start, end, true);
+            return n;
+        }
+        return kept;
+    }
+
+    /**
+     * Place is a country or state of the gazetteer.
+     */
+    private static final class Place {
+
+        /**
+         * Normalized names of the place.
+         */
+        private final Set<String> names;
+
+        /**
+         * Normalized names of the country of a state, empty for a country.
+         */
+        private final Set<String> countryNames;
+
+        /**
+         * Whether the place is a state.
+         */
+        private final boolean isState;
+
+        /**
+         * Longitude of the place.
+         */
+        private final double lon;
+
+        /**
+         * Latitude of the place.
+         */
+        private final double lat;
+
+        /**
+         * X coordinates of the points of all rings.
+         */
+        private final double[] xs;
+
+        /**
+         * Y coordinates of the points of all rings.
+         */
+        private final double[] ys;
+
+        /**
+         * Start index of each ring in xs and ys, followed by the end index of the last ring.
+         */
+        private final int[] ringOffsets;
+
+        /**
+         * Index of the first ring of each polygon, followed by the number of rings.
+         */
+        private final int[] polygonOffsets;
+
+        /**
+         * Results already computed, by polygon threshold.
+         */
+        private final Map<Double, Triple<Double, Double, MultiPolygon>> results = new ConcurrentHashMap<>();
+
+        /**
+         * Create a place, located at its "label_x" and "label_y" properties if it has them, or else
+         * at the center of the bounds of the outer ring of its largest polygon.
+         *
+         * @param names normalized names of the place.
+         * @param countryNames normalized names of the country of a state.
+         * @param isState whether the place is a state.
+         * @param properties properties of the feature.
+         * @param rings rings of each polygon of the place, at least one, which are copied.
+         */
+        Place(Set<String> names, Set<String> countryNames, boolean isState, Map<String, String> properties,
+              Rings rings) {
+            this.names = names;
+            this.countryNames = countryNames;
+            this.isState = isState;
+            this.xs = Arrays.copyOf(rings.xs, rings.size);
+            this.ys = Arrays.copyOf(rings.ys, rings.size);
+            this.ringOffsets = new int[rings.ringCount + 1];
+            System.arraycopy(rings.ringEnds, 0, ringOffsets, 1, rings.ringCount);
+            this.polygonOffsets = new int[rings.polygonCount + 1];
+            System.arraycopy(rings.polygonEnds, 0, polygonOffsets, 1, rings.polygonCount);
+            double[] label = label(properties);
+            if (label == null) {
+                int largest = polygonOffsets[0];
+                for (int p = 1; p < rings.polygonCount; p++) {
+                    int outer = polygonOffsets[p];
+                    if (ringLength(outer) > ringLength(largest))
+                        largest = outer;
+                }
+                double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+                double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+                for (int i = ringOffsets[largest]; i < ringOffsets[largest + 1]; i++) {
+                    minX = Math.min(minX, xs[i]);
+                    maxX = Math.max(maxX, xs[i]);
+                    minY = Math.min(minY, ys[i]);
+                    maxY = Math.max(maxY, ys[i]);
+                }
+                label = new double[] {(minX + maxX) / 2, (minY + maxY) / 2};
+            }
+            this.lon = label[0];
+            this.lat = label[1];
+        }
+
+        private int ringLength(int ring) {
+            return ringOffsets[ring + 1] - ringOffsets[ring];
+        }
+
+        private static double[] label(Map<String, String> properties) {
+            String x = properties.get("label_x");
+            String y = properties.get("label_y");
+            if (x == null || y == null)
+                return null;
+            try {
+                return new double[] {Double.parseDouble(x), Double.parseDouble(y)};
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        /**
+         * Return the location and polygons of the place, each ring simplified to a polygon threshold.
+         * As for OpenStreetMap results, the rings of each polygon are joined into one list of points.
+         *
+         * @param tolerance the polygon threshold, in degrees.
+         * @return a Triple of longitude, latitude and polygons.
+         */
+        Triple<Double, Double, MultiPolygon> result(double tolerance) {
+            return results.computeIfAbsent(tolerance, t -> {
+                boolean[] keep = new boolean[xs.length];
+                int kept = 0;
+                for (int r = 0; r + 1 < ringOffsets.length; r++) {
+                    kept += simplify(xs, ys, ringOffsets[r], ringOffsets[r + 1], t, keep);
+                }
+                double[] keptXs = new double[kept];
+                double[] keptYs = new double[kept];
+                int[] offsets = new int[polygonOffsets.length];
+                int k = 0;
+                for (int p = 0; p + 1 < polygonOffsets.length; p++) {
+                    // the rings of a polygon follow each other, so its points form one range
+                    for (int i = ringOffsets[polygonOffsets[p]]; i < ringOffsets[polygonOffsets[p + 1]]; i++) {
+                        if (keep[i]) {
+                            keptXs[k] = xs[i];
+                            keptYs[k] = ys[i];
+                            k++;
+                        }
+                    }
+                    offsets[p + 1] = k;
+                }
+                return Triple.of(lon, lat, new MultiPolygon(keptXs, keptYs, offsets));
+            });
+        }
+    }
+
+    /**
+     * Rings holds the coordinates of the polygons of a feature as they are read, packed into arrays
+     * reused from one feature to the next.
+     */
+    private static final class Rings {
+
+        /**
+         * Number of points the arrays hold at first.
+         */
+        private static final int INITIAL_CAPACITY = 1024;
+
+        /**
+         * X coordinates of the points read.
+         */
+        private double[] xs = new double[INITIAL_CAPACITY];
+
+        /**
+         * Y coordinates of the points read.
+         */
+        private double[] ys = new double[INITIAL_CAPACITY];
+
+        /**
+         * Number of points read.
+         */
+        private int size;
+
+        /**
+         * End index of each ring read in xs and ys.
+         */
+        private int[] ringEnds = new int[16];
+
+        /**
+         * Number of rings read.
+         */
+        private int ringCount;
+
+        /**
+         * End index of each polygon read in the rings.
+         */
+        private int[] polygonEnds = new int[16];
+
+        /**
+         * Number of polygons read.
+         */
+        private int polygonCount;
+
+        /**
+         * Forget the coordinates read.
+         */
+        void clear() {
+            size = 0;
+            ringCount = 0;
+            polygonCount = 0;
+        }
+
+        /**
+         * Read a geometry, keeping its polygons if it is a Polygon or a MultiPolygon. Its type and
+         * coordinates may come in either order.
+         *
+         * @param reader reader positioned at the geometry.
+         * @throws IOException thrown if the geometry is malformed.
+         */
+        void readGeometry(JsonReader reader) throws IOException {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                return;
+            }
+            String type = "";
+            int depth = -1;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "type":
+                        type = reader.nextString();
+                        break;
+                    case "coordinates":
+                        depth = readCoordinates(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (!(type.equals("Polygon") && depth == 2 || type.equals("MultiPolygon") && depth == 3))
+                clear();
+        }
+
+        /**
+         * Read nested arrays of coordinates, recording where each ring and each polygon ends. Empty
+         * arrays are skipped.
+         *
+         * @param reader reader positioned at the array.
+         * @return depth of the array: 0 for a position, 1 for a ring, 2 for a polygon and 3 for a
+         *         MultiPolygon, -1 if it is empty.
+         * @throws IOException thrown if the coordinates are malformed.
+         */
+        private int readCoordinates(JsonReader reader) throws IOException {
+            reader.beginArray();
+            int depth = -1;
+            if (reader.hasNext() && reader.peek() != JsonToken.BEGIN_ARRAY) {
+                add(reader.nextDouble(), reader.nextDouble());
+                while (reader.hasNext()) {
+                    reader.skipValue();
+                }
+                depth = 0;
+            }
+            while (reader.hasNext()) {
+                int child = readCoordinates(reader);
+                if (child < 0)
+                    continue;
+                if (depth >= 0 && child != depth - 1)
+                    throw new MalformedJsonException("Coordinates Nested Unevenly");
+                depth = child + 1;
+            }
+            reader.endArray();
+            if (depth == 1) {
+                if (ringCount == ringEnds.length)
+                    ringEnds = Arrays.copyOf(ringEnds, ringCount * 2);
+                ringEnds[ringCount++] = size;
+            } else if (depth == 2) {
+                if (polygonCount == polygonEnds.length)
+                    polygonEnds = Arrays.copyOf(polygonEnds, polygonCount * 2);
+                polygonEnds[polygonCount++] = ringCount;
+            }
+            return depth;
+        }
+
+        private void add(double x, double y) {
+            if (size == xs.length) {
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+            }
+            xs[size] = x;
+            ys[size] = y;
+            size++;
+        }
+    }
+}
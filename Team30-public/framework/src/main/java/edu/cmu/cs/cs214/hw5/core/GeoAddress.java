@@ -5,10 +5,10 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
- * A wrapper of geographical address. This class is immutable and for self-use. It is mainly for the purpose
- * of reducing number of OpenStreetMap queries by detecting duplicate addresses.
+ * A wrapper of geographical address. This class is immutable. It is mainly for the purpose
+ * of reducing number of geocoding queries by detecting duplicate addresses.
  */
-class GeoAddress {
+public final class GeoAddress {
     
     /**
      * Country name of address.
@@ -49,7 +49,7 @@ class GeoAddress {
      * @param county county name of address.
      * @param street street name of address.
      */
-    GeoAddress(String country, String state, String city, String county, String street) {
+    public GeoAddress(String country, String state, String city, String county, String street) {
         this.country = formatAddressValue(country);
         this.state = formatAddressValue(state);
         this.city = formatAddressValue(city);
@@ -138,7 +138,7 @@ class GeoAddress {
      * 
      * @return country name of this address.
      */
-    String getCountry() {
+    public String getCountry() {
         return country;
     }
 
@@ -147,7 +147,7 @@ class GeoAddress {
      * 
      * @return state name of this address.
      */
-    String getState() {
+    public String getState() {
         return state;
     }
 
@@ -156,7 +156,7 @@ class GeoAddress {
      * 
      * @return city name of this address.
      */
-    String getCity() {
+    public String getCity() {
         return city;
     }
 
@@ -165,7 +165,7 @@ class GeoAddress {
      * 
      * @return county name of this address.
      */
-    String getCounty() {
+    public String getCounty() {
         return county;
     }
 
@@ -174,7 +174,7 @@ class GeoAddress {
      * 
      * @return street name of this address.
      */
-    String getStreet() {
+    public String getStreet() {
         return street;
     }
 }
\ No newline at end of file
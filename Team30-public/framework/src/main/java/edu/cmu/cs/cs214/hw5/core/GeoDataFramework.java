@@ -6,17 +6,23 @@ import org.apache.commons.lang3.tuple.Triple;
 
 import javax.swing.JPanel;
 import java.net.http.HttpClient;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Core implementation of GeoData Framework.
@@ -27,6 +33,11 @@ public class GeoDataFramework {
      */
     private static final String[] ADDRESS_LABEL = {"Country", "State", "City", "County", "Street"};
 
+    /**
+     * Join types shown to user, respective to INNER and LEFT.
+     */
+    private static final String[] JOIN_TYPES = {"Inner", "Left"};
+
     private static final List<String> POLYGON_THRESOLD_VALUES = Arrays.asList("0.05", "0.1", "0.3", "0.5", "0.7", "1.0");
 
     /**
@@ -39,6 +50,11 @@ public class GeoDataFramework {
      */
     private static final int DISPLAY_WINDOW_HEIGHT = 450;
 
+    /**
+     * Maximum number of dataSets loaded in the background at the same time.
+     */
+    private static final int LOAD_THREADS = 4;
+
     /**
      * Map from dataPlugin name to dataPlugin.
      */
@@ -60,32 +76,64 @@ public class GeoDataFramework {
     private final Set<FrameworkListener> listeners;
 
     /**
-     * Open Street Map Client
+     * Map from geocoder name to geocoder, OpenStreetMap first.
+     */
+    private final Map<String, Geocoder> geocoderMap;
+
+    /**
+     * Maximum number of rows of the smaller dataSet a join holds in its hash table at once.
+     */
+    private int joinMaxBuildRows = HashJoin.DEFAULT_MAX_BUILD_ROWS;
+
+    /**
+     * DataSets recently transformed by the display filters of a graph.
+     */
+    private final TransformationCache transformationCache = new TransformationCache(TransformationCache.DEFAULT_CAPACITY);
+
+    /**
+     * Names of dataSets being loaded in the background.
      */
-    private OpenStreetMapClient openStreetMapClient;
+    private final Set<String> loadingDataSets = ConcurrentHashMap.newKeySet();
 
     /**
-     * Initialize the framework by default.
+     * Threads loading dataSets in the background.
+     */
+    private final ExecutorService loadExecutor = Executors.newFixedThreadPool(LOAD_THREADS, task -> {
+        Thread thread = new Thread(task, "dataSet-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Initialize the framework by default. Geocoding results are cached in a file of the user's home directory.
      */
     public GeoDataFramework() {
-        dataPluginMap = new LinkedHashMap<>();
-        displayPluginMap = new LinkedHashMap<>();
-        dataSetMap = new HashMap<>();
-        listeners = new LinkedHashSet<>();
-        openStreetMapClient = new OpenStreetMapClient(HttpClient.newBuilder().build(), true);
+        this(HttpClient.newBuilder().build(), true, GeocodeCache.DEFAULT_FILE);
     }
 
     /**
-     * Initialize the framework by providing a http client.
+     * Initialize the framework by providing a http client. Geocoding results are cached in memory only.
      * @param httpClient http client.
      * @param printStatus print status.
      */
     public GeoDataFramework(HttpClient httpClient, boolean printStatus) {
+        this(httpClient, printStatus, null);
+    }
+
+    /**
+     * Initialize the framework by providing a http client and the file caching geocoding results.
+     * @param httpClient http client.
+     * @param printStatus print status.
+     * @param geocodeCacheFile file caching geocoding results across runs, null to cache them in memory only.
+     */
+    public GeoDataFramework(HttpClient httpClient, boolean printStatus, Path geocodeCacheFile) {
         dataPluginMap = new LinkedHashMap<>();
         displayPluginMap = new LinkedHashMap<>();
-        dataSetMap = new HashMap<>();
-        listeners = new LinkedHashSet<>();
-        openStreetMapClient = new OpenStreetMapClient(httpClient, printStatus);
+        dataSetMap = new ConcurrentHashMap<>();
+        listeners = new CopyOnWriteArraySet<>();
+        geocoderMap = new LinkedHashMap<>();
+        registerGeocoder(new OpenStreetMapClient(httpClient, printStatus,
+                new GeocodeCache(geocodeCacheFile, GeocodeCache.DEFAULT_FOUND_TTL, GeocodeCache.DEFAULT_NOT_FOUND_TTL)));
     }
 
     /**
@@ -122,6 +170,16 @@ public class GeoDataFramework {
         System.out.println("Loaded display plugin: " + plugin.getName());
     }
 
+    /**
+     * Register geocoder into the framework, to be chosen when geocoding a dataSet.
+     *
+     * @param geocoder geocoder.
+     */
+    public void registerGeocoder(Geocoder geocoder) {
+        geocoderMap.put(geocoder.getName(), geocoder);
+        System.out.println("Loaded geocoder: " + geocoder.getName());
+    }
+
     /**
      * Return a list of names of all data plugins.
      * 
@@ -140,6 +198,49 @@ public class GeoDataFramework {
         return new ArrayList<>(displayPluginMap.keySet());
     }
 
+    /**
+     * Return a list of names of all geocoders, OpenStreetMap first.
+     *
+     * @return a list of names of all geocoders.
+     */
+    public List<String> listAllGeocoders() {
+        return new ArrayList<>(geocoderMap.keySet());
+    }
+
+    /**
+     * Return a list of names of all dataSets, in alphabetical order.
+     *
+     * @return a list of names of all dataSets.
+     */
+    public List<String> listAllDataSets() {
+        return dataSetMap.keySet().stream().sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Set the maximum number of rows of the smaller dataSet a join holds in its hash table at once.
+     * Larger joins are split into partitions joined one at a time, the others waiting in temporary
+     * files. The matched pairs and the result are held in memory regardless.
+     *
+     * @param maxBuildRows maximum number of rows, at least 1.
+     */
+    public void setJoinMemoryLimit(int maxBuildRows) {
+        if (maxBuildRows < 1)
+            throw new IllegalArgumentException("Join Memory Limit Must Be Positive");
+        joinMaxBuildRows = maxBuildRows;
+    }
+
+    /**
+     * Set the number of dataSets transformed by display filters that are kept, so that drawing a graph
+     * with a combination of display filters used recently does not transform the dataSet again.
+     *
+     * @param capacity number of transformed dataSets kept, 0 to keep none.
+     */
+    public void setTransformationCacheSize(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Cache Size Must Not Be Negative");
+        transformationCache.setCapacity(capacity);
+    }
+
     /**
      * Return a dataSet by name.
      * 
@@ -173,12 +274,136 @@ public class GeoDataFramework {
         listeners.forEach(l -> l.dataSetLoaded(dataSetName));
     }
 
+    /**
+     * Load data from data plugin in the background. Listeners are told when the load starts, of the
+     * progress the plugin reports, and when it ends by dataSetLoaded, dataSetLoadFailed or
+     * dataSetLoadCancelled. Cancelling the returned future stops the load and discards its result.
+     *
+     * @param pluginName name of data plugin.
+     * @param dataSetName name of dataSet.
+     * @param params a parameter mapping from configuration name to concrete parameters user specifies.
+     * @return future completed with the loaded dataSet.
+     */
+    public CompletableFuture<DataSet> loadDataAsync(String pluginName, String dataSetName,
+                                                   Map<String, List<String>> params) {
+        DataPlugin plugin = dataPluginMap.get(pluginName);
+        if (plugin == null)
+            throw new IllegalArgumentException("Data Plugin Not Found: " + pluginName);
+        checkNewDataSetName(dataSetName);
+        if (!loadingDataSets.add(dataSetName))
+            throw new IllegalArgumentException("Duplicate Name");
+
+        DataSetLoad<DataSet> load = new DataSetLoad<>(dataSetName);
+        listeners.forEach(l -> l.dataSetLoadStarted(dataSetName));
+        load.start(loadExecutor.submit(() -> {
+            DataSet dataSet;
+            try {
+                dataSet = plugin.loadData(params, load);
+            } catch (RuntimeException | Error ex) {
+                load.fail(ex);
+                return;
+            }
+            if (load.finish(dataSet)) {
+                load.complete(dataSet);
+                listeners.forEach(l -> l.dataSetLoaded(dataSetName));
+            }
+        }));
+        return load;
+    }
+
+    /**
+     * DataSetLoad is the future of a dataSet loaded in the background, also passed to the data
+     * plugin or geocoder as its LoadProgress.
+     *
+     * @param <T> type of the result of the load.
+     */
+    private final class DataSetLoad<T> extends CompletableFuture<T> implements LoadProgress {
+
+        /**
+         * Name of the dataSet loaded.
+         */
+        private final String dataSetName;
+
+        /**
+         * Task running the load, interrupted on cancellation.
+         */
+        private Future<?> task;
+
+        /**
+         * Whether the dataSet has been added to the framework, after which the load cannot be cancelled.
+         */
+        private boolean finished;
+
+        /**
+         * Create the future of a load.
+         *
+         * @param dataSetName name of the dataSet loaded.
+         */
+        DataSetLoad(String dataSetName) {
+            this.dataSetName = dataSetName;
+            whenComplete((result, ex) -> loadingDataSets.remove(dataSetName));
+        }
+
+        /**
+         * Record the task running the load.
+         *
+         * @param loadTask the task.
+         */
+        synchronized void start(Future<?> loadTask) {
+            task = loadTask;
+            if (isCancelled())
+                task.cancel(true);
+        }
+
+        /**
+         * Add the loaded dataSet to the framework unless the load has been cancelled.
+         *
+         * @param dataSet the loaded dataSet.
+         * @return true if the dataSet has been added.
+         */
+        synchronized boolean finish(DataSet dataSet) {
+            if (isDone())
+                return false;
+            dataSetMap.put(dataSetName, dataSet);
+            finished = true;
+            return true;
+        }
+
+        /**
+         * Fail the load unless it has been cancelled.
+         *
+         * @param cause exception thrown by the load.
+         */
+        void fail(Throwable cause) {
+            if (completeExceptionally(cause))
+                listeners.forEach(l -> l.dataSetLoadFailed(dataSetName, cause));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            synchronized (this) {
+                if (finished || !super.cancel(mayInterruptIfRunning))
+                    return false;
+                if (task != null)
+                    task.cancel(true);
+            }
+            listeners.forEach(l -> l.dataSetLoadCancelled(dataSetName));
+            return true;
+        }
+
+        @Override
+        public void report(double fraction) {
+            if (!isDone())
+                listeners.forEach(l -> l.dataSetLoadProgress(dataSetName, fraction));
+        }
+    }
+
     /**
      * Check if a new data set can be added.
      * @param dataSetName name of new data set name;
      */
     private void checkNewDataSetName(String dataSetName) {
-        if (dataSetMap.containsKey(dataSetName))
+        if (dataSetMap.containsKey(dataSetName) || loadingDataSets.contains(dataSetName))
             throw new IllegalArgumentException("Duplicate Name");
         else if (dataSetName.isBlank()) {
             throw new IllegalArgumentException("Empty Name");
@@ -193,6 +418,7 @@ public class GeoDataFramework {
     public void deleteDataSet(String name) {
         if (dataSetMap.containsKey(name)) {
             dataSetMap.remove(name);
+            transformationCache.invalidate(name);
             listeners.forEach(l -> l.dataSetDeleted(name));
         }
     }
@@ -238,32 +464,60 @@ public class GeoDataFramework {
         DataSet dataSet = dataSetMap.get(dataSetName);
 
         if (!transformParams.isEmpty()) {
-            Transformation transform = new Transformation(dataSet);
-            for (Pair<DisplayFilterConfig, List<String>> param : transformParams) {
-                DisplayFilterConfig config = param.getLeft();
-                switch (config.getFilterType()) {
-                    case MULTI_SELECTION:
-                    case SINGLE_SELECTION:
-                        List<String> values = param.getRight();
-                        transform.filter(config.getLabel(), values);
-                        break;
-                    default:
-                        break;
-                }
-                if (config.getSortOrder() != null) {
-                    if (config.getSortOrder()) {
-                        transform.sort(config.getLabel());
-                    } else {
-                        transform.sort(config.getLabel(), false);
+            List<List<Object>> steps = transformSteps(transformParams);
+            DataSet transformed = transformationCache.get(dataSetName, dataSet, steps);
+            if (transformed == null) {
+                // the same dataSet is filtered again on every change of the display filters
+                Transformation transform = new Transformation(dataSet).indexed(true);
+                for (List<Object> step : steps) {
+                    String label = (String) step.get(0);
+                    @SuppressWarnings("unchecked")
+                    List<String> values = (List<String>) step.get(1);
+                    Boolean sortOrder = (Boolean) step.get(2);
+                    if (values != null)
+                        transform.filter(label, values);
+                    if (sortOrder != null) {
+                        if (sortOrder) {
+                            transform.sort(label);
+                        } else {
+                            transform.sort(label, false);
+                        }
                     }
                 }
-
+                transformed = transform.toDataSet();
+                transformationCache.put(dataSetName, dataSet, steps, transformed);
             }
-            dataSet = transform.toDataSet();
+            dataSet = transformed;
         }
         return plugin.draw(dataSet, DISPLAY_WINDOW_WIDTH, DISPLAY_WINDOW_HEIGHT, pluginParams);
     }
 
+    /**
+     * Describe the transformation done by the display filters in a canonical form, one step per
+     * filter holding its label, the selected values if it filters and the sort order if it sorts.
+     * Selected values are sorted and without duplicates, since their order does not change the result.
+     *
+     * @param transformParams a list of pairs of DisplayFilterConfig and a list of values selected by user.
+     * @return the steps of the transformation.
+     */
+    private static List<List<Object>> transformSteps(List<Pair<DisplayFilterConfig, List<String>>> transformParams) {
+        List<List<Object>> steps = new ArrayList<>();
+        for (Pair<DisplayFilterConfig, List<String>> param : transformParams) {
+            DisplayFilterConfig config = param.getLeft();
+            List<String> values = null;
+            switch (config.getFilterType()) {
+                case MULTI_SELECTION:
+                case SINGLE_SELECTION:
+                    values = new ArrayList<>(new TreeSet<>(param.getRight()));
+                    break;
+                default:
+                    break;
+            }
+            steps.add(Arrays.asList(config.getLabel(), values, config.getSortOrder()));
+        }
+        return steps;
+    }
+
     /**
      * Return a list of UserInputConfig specific to GeoCoding.
      * 
@@ -287,12 +541,14 @@ public class GeoDataFramework {
         }
 
         configList.add(new UserInputConfig("Polygon Threshold", SINGLE_SELECTION, POLYGON_THRESOLD_VALUES));
+        configList.add(new UserInputConfig("Geocoder", SINGLE_SELECTION, listAllGeocoders()));
 
         return configList;
     }
 
     /**
-     * Transform dataSet by geoCoding.
+     * Transform dataSet by geoCoding with the geocoder chosen, OpenStreetMap if none, waiting for
+     * the queries to end. Addresses whose query failed are counted as not found.
      * 
      * @param origDataSetName name of the original dataSet.
      * @param newDataSetName name of the new dataSet.
@@ -303,31 +559,57 @@ public class GeoDataFramework {
      */
     public List<String> geoCodeTransform(String origDataSetName, String newDataSetName, String newLabel,
                                  Map<String, List<String>> params, boolean isFreeForm) {
+        return join(geoCodeTransformAsync(origDataSetName, newDataSetName, newLabel, params, isFreeForm));
+    }
+
+    /**
+     * Transform dataSet by geoCoding in the background, the new dataSet being loaded as by
+     * loadDataAsync: listeners are told when the queries start, of their progress, and when they
+     * end by dataSetLoaded, dataSetLoadFailed or dataSetLoadCancelled. Cancelling the returned
+     * future stops the queries not yet sent and discards the result. Addresses whose query failed
+     * are counted as not found.
+     *
+     * @param origDataSetName name of the original dataSet.
+     * @param newDataSetName name of the new dataSet.
+     * @param newLabel new name of the labels.
+     * @param params a parameter mapping from configuration name to concrete parameters user specifies.
+     * @param isFreeForm whether the configuration if from free form or not.
+     * @return future completed with a list of strings of addresses that geo-information cannot be founded.
+     */
+    public CompletableFuture<List<String>> geoCodeTransformAsync(String origDataSetName, String newDataSetName,
+                                                                 String newLabel, Map<String, List<String>> params,
+                                                                 boolean isFreeForm) {
         if (newDataSetName == null || newDataSetName.isBlank())
             throw new IllegalArgumentException("Empty DataSet Name");
         if (newLabel == null || newLabel.isBlank())
             throw new IllegalArgumentException("Empty Label");
-        if (dataSetMap.containsKey(newDataSetName))
+        if (dataSetMap.containsKey(newDataSetName) || loadingDataSets.contains(newDataSetName))
             throw new IllegalArgumentException("Duplicate Name");
         if (params.get("Polygon Threshold").size() == 0)
             throw new IllegalArgumentException("Specify Polygon Threshold");
         String threshold = params.get("Polygon Threshold").get(0);
+        List<String> geocoderName = params.getOrDefault("Geocoder", List.of());
+        Geocoder geocoder = geocoderName.isEmpty() || geocoderName.get(0) == null ? geocoderMap.values().iterator().next()
+                : geocoderMap.get(geocoderName.get(0));
+        if (geocoder == null)
+            throw new IllegalArgumentException("Geocoder Not Found: " + geocoderName.get(0));
 
         DataSet origDataSet = dataSetMap.get(origDataSetName);
         if (origDataSet == null) {
             throw new IllegalArgumentException("DataSet Not Found");
         }
 
-        Set<Object> unfounded = new HashSet<>();
-        List<Triple<Double, Double, MultiPolygon>> queryResult = null;
+        final String[] freeFormAddresses;
+        final GeoAddress[] addressArray;
         if (isFreeForm) {
             String columnLabel = params.get("Address").get(0);
             if (columnLabel == null)
                 throw new IllegalArgumentException("Choose The Address Column");
-            String[] addressArray = origDataSet.getColumn(columnLabel).stream().map(Object::toString).toArray(String[]::new);
-            queryResult = openStreetMapClient.batchQuery(addressArray, unfounded, threshold);
+            freeFormAddresses = origDataSet.getColumn(columnLabel).stream().map(Object::toString).toArray(String[]::new);
+            addressArray = null;
         } else {
-            GeoAddress[] addressArray = new GeoAddress[origDataSet.rowCount()];
+            freeFormAddresses = null;
+            addressArray = new GeoAddress[origDataSet.rowCount()];
 
             List<String> labels = origDataSet.getLabels();
             Integer[] indexes = Arrays.stream(ADDRESS_LABEL)
@@ -341,34 +623,88 @@ public class GeoDataFramework {
                         indexes[4] < 0 ? null : origDataSet.getCell(i, indexes[4]).toString()
                 );
             }
-            queryResult = openStreetMapClient.batchQuery(addressArray, unfounded, threshold);
         }
+        if (!loadingDataSets.add(newDataSetName))
+            throw new IllegalArgumentException("Duplicate Name");
 
-        List<List<Object>> data = origDataSet.toLists();
-        List<String> labels = new ArrayList<>(origDataSet.getLabels());
-        List<DataType> types = new ArrayList<>(origDataSet.getDataTypes());
-
-        for (int i = 0; i < origDataSet.rowCount(); i++) {
-            if (queryResult.get(i) == null) {
-                continue;
+        DataSetLoad<List<String>> load = new DataSetLoad<>(newDataSetName);
+        Set<Object> unfounded = ConcurrentHashMap.newKeySet();
+        listeners.forEach(l -> l.dataSetLoadStarted(newDataSetName));
+        // some geocoders query synchronously, so even starting the queries is left to a loader thread
+        load.start(loadExecutor.submit(() -> {
+            CompletableFuture<List<Triple<Double, Double, MultiPolygon>>> geocoding;
+            try {
+                geocoding = isFreeForm ? geocoder.geocode(freeFormAddresses, unfounded, threshold, load)
+                        : geocoder.geocode(addressArray, unfounded, threshold, load);
+            } catch (RuntimeException | Error ex) {
+                load.fail(ex);
+                return;
             }
-            data.get(i).add(queryResult.get(i).getLeft());
-            data.get(i).add(queryResult.get(i).getMiddle());
-            data.get(i).add(queryResult.get(i).getRight());
+            geocoding.whenComplete((queryResult, ex) -> {
+                DataSet dataSet;
+                try {
+                    if (ex != null)
+                        throw ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    dataSet = geocodedDataSet(origDataSet, newLabel, queryResult);
+                } catch (Throwable failure) {
+                    load.fail(failure);
+                    return;
+                }
+                if (load.finish(dataSet)) {
+                    listeners.forEach(l -> l.dataSetLoaded(newDataSetName));
+                    load.complete(unfounded.stream().map(Object::toString).collect(Collectors.toList()));
+                }
+            });
+        }));
+        return load;
+    }
+
+    /**
+     * Build the dataSet of the rows of a dataSet that were geocoded, with their longitude, latitude
+     * and contour appended.
+     *
+     * @param origDataSet the original dataSet.
+     * @param newLabel new name of the labels.
+     * @param queryResult a list of Triple of longitude, latitude and polygons, null for a row not found.
+     * @return the new dataSet.
+     */
+    private static DataSet geocodedDataSet(DataSet origDataSet, String newLabel,
+                                           List<Triple<Double, Double, MultiPolygon>> queryResult) {
+        // keep the rows that were found, sharing their columns with the original dataSet
+        int[] foundRows = IntStream.range(0, origDataSet.rowCount()).filter(i -> queryResult.get(i) != null).toArray();
+        Column longitude = Column.create(DataType.DOUBLE, foundRows.length);
+        Column latitude = Column.create(DataType.DOUBLE, foundRows.length);
+        Column contour = Column.create(DataType.POLYGONS, foundRows.length);
+        for (int i : foundRows) {
+            longitude.add(queryResult.get(i).getLeft());
+            latitude.add(queryResult.get(i).getMiddle());
+            contour.add(queryResult.get(i).getRight());
         }
-        data.removeIf(r -> r.size() == origDataSet.colCount());
 
-        labels.add(newLabel + " (longitude)");
-        types.add(DataType.DOUBLE);
-        labels.add(newLabel + " (latitude)");
-        types.add(DataType.DOUBLE);
-        labels.add(newLabel + " (contour)");
-        types.add(DataType.POLYGONS);
+        List<String> labels = List.of(newLabel + " (longitude)", newLabel + " (latitude)", newLabel + " (contour)");
+        List<DataType> types = List.of(DataType.DOUBLE, DataType.DOUBLE, DataType.POLYGONS);
+        Column[] columns = {longitude, latitude, contour};
+        for (Column column : columns) {
+            column.trim();
+        }
+        return origDataSet.selectRows(foundRows).appendColumns(labels, types, columns);
+    }
 
-        dataSetMap.put(newDataSetName, new DataSet(labels, types, data));
-        listeners.forEach(l -> l.dataSetLoaded(newDataSetName));
-        List<String> unfoundedList = unfounded.stream().map(Object::toString).collect(Collectors.toList());
-        return unfoundedList;
+    /**
+     * Wait for the result of a background task, throwing its failure as is.
+     *
+     * @param future future of the result.
+     * @param <T> type of the result.
+     * @return the result.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw ex;
+        }
     }
 
     /**
@@ -382,13 +718,11 @@ public class GeoDataFramework {
         DataSet dataSet = dataSetMap.get(dataSetName);
         List<UserInputConfig> res = new ArrayList<>();
         for (DisplayFilterConfig controlConfig : displayFilterConfigs) {
-            List<Object> column = dataSet.getColumn(controlConfig.getLabel());
             switch (controlConfig.getFilterType()) {
                 case SINGLE_SELECTION:
                 case MULTI_SELECTION:
-                    res.add(new UserInputConfig(controlConfig.getLabel(), controlConfig.getFilterType(), column.stream()
-                            .filter(Objects::nonNull).distinct()
-                            .sorted()
+                    List<Object> values = dataSet.distinctValues(controlConfig.getLabel());
+                    res.add(new UserInputConfig(controlConfig.getLabel(), controlConfig.getFilterType(), values.stream()
                             .map(Object::toString).collect(Collectors.toList())));
                 default:
                     break;
@@ -443,6 +777,52 @@ public class GeoDataFramework {
         return configList;
     }
 
+    /**
+     * Return a list of UserInputConfig specific to join function.
+     *
+     * @param dataSetName name of dataSet to be joined with another.
+     * @return a list of UserInputConfig specific to join function.
+     */
+    public List<UserInputConfig> getJoinConfigs(String dataSetName) {
+        DataSet dataSet = dataSetMap.get(dataSetName);
+        if (dataSet == null)
+            throw new IllegalArgumentException("DataSet does not exist");
+        List<UserInputConfig> configList = new ArrayList<>();
+        List<String> others = listAllDataSets();
+        others.remove(dataSetName);
+        List<String> keyLabels = dataSet.getLabels();
+        keyLabels.removeAll(dataSet.labelsOfType(DataType.POLYGONS));
+
+        configList.add(new UserInputConfig("Join With", SINGLE_SELECTION, others));
+        configList.add(new UserInputConfig("Join Type", SINGLE_SELECTION, Arrays.asList(JOIN_TYPES)));
+        configList.add(new UserInputConfig("Key Columns", UserInputType.MULTI_SELECTION, keyLabels));
+        configList.add(new UserInputConfig("Other Key Columns", UserInputType.TEXT_FIELD, new ArrayList<>()));
+        return configList;
+    }
+
+    /**
+     * Return a list of UserInputConfig specific to group-by function.
+     *
+     * @param dataSetName name of dataSet to be grouped.
+     * @return a list of UserInputConfig specific to group-by function.
+     */
+    public List<UserInputConfig> getGroupByConfigs(String dataSetName) {
+        DataSet dataSet = dataSetMap.get(dataSetName);
+        if (dataSet == null)
+            throw new IllegalArgumentException("DataSet does not exist");
+        List<UserInputConfig> configList = new ArrayList<>();
+        List<String> keyLabels = dataSet.getLabels();
+        keyLabels.removeAll(dataSet.labelsOfType(DataType.POLYGONS));
+        List<String> numericLabels = new ArrayList<>(dataSet.labelsOfType(DataType.INTEGER));
+        numericLabels.addAll(dataSet.labelsOfType(DataType.DOUBLE));
+        List<String> aggregates = Arrays.stream(AggregateType.values()).map(Enum::name).collect(Collectors.toList());
+
+        configList.add(new UserInputConfig("Group By", UserInputType.MULTI_SELECTION, keyLabels));
+        configList.add(new UserInputConfig("Aggregate", SINGLE_SELECTION, aggregates));
+        configList.add(new UserInputConfig("Aggregate Columns", UserInputType.MULTI_SELECTION, numericLabels));
+        return configList;
+    }
+
     /**
      * Filter the original dataSet and create a new DataSet based on the parameter mapping specified by user. 
      * (This only supports numeric value filtering)
@@ -508,4 +888,67 @@ public class GeoDataFramework {
         dataSetMap.put(newDataSetName, newDataSet);
         listeners.forEach(l -> l.dataSetLoaded(newDataSetName));
     }
+
+    /**
+     * Join the original dataSet with another on equal key values and create a new DataSet based on the
+     * parameter mapping specified by user. The key columns of the other dataSet are given as a comma-separated
+     * list, or left blank when they have the same labels as the key columns of the original dataSet.
+     *
+     * @param origDataSetName name of original dataSet.
+     * @param newDataSetName name of new dataSet.
+     * @param params parameter mapping from configuration name to a list of values that user specifies.
+     */
+    public void join(String origDataSetName, String newDataSetName, Map<String, List<String>> params) {
+        if (params.get("Join With").isEmpty())
+            throw new IllegalArgumentException("Select The DataSet To Join With");
+        if (params.get("Key Columns").isEmpty())
+            throw new IllegalArgumentException("Select The Key Columns");
+        checkNewDataSetName(newDataSetName);
+        DataSet originDataSet = dataSetMap.get(origDataSetName);
+        DataSet otherDataSet = dataSetMap.get(params.get("Join With").get(0));
+        if (originDataSet == null || otherDataSet == null)
+            throw new IllegalArgumentException("DataSet Not Found");
+
+        JoinType type = !params.get("Join Type").isEmpty() && params.get("Join Type").get(0).equals(JOIN_TYPES[1])
+                ? JoinType.LEFT : JoinType.INNER;
+        List<String> keyLabels = params.get("Key Columns");
+        List<String> otherText = params.get("Other Key Columns");
+        List<String> otherKeyLabels = otherText.isEmpty() || otherText.get(0).isBlank() ? keyLabels
+                : Arrays.stream(otherText.get(0).split(",")).map(String::trim).collect(Collectors.toList());
+
+        DataSet newDataSet = originDataSet.join(otherDataSet, keyLabels, otherKeyLabels, type, joinMaxBuildRows);
+        dataSetMap.put(newDataSetName, newDataSet);
+        listeners.forEach(l -> l.dataSetLoaded(newDataSetName));
+    }
+
+    /**
+     * Group the rows of the original dataSet by the key columns and create a new DataSet based on the
+     * parameter mapping specified by user, holding a row per distinct combination of key values with the
+     * aggregate chosen computed over each aggregate column, or the number of rows for COUNT. Display
+     * plugins can draw the new dataSet without aggregating it again.
+     *
+     * @param origDataSetName name of original dataSet.
+     * @param newDataSetName name of new dataSet.
+     * @param params parameter mapping from configuration name to a list of values that user specifies.
+     */
+    public void groupBy(String origDataSetName, String newDataSetName, Map<String, List<String>> params) {
+        if (params.get("Group By").isEmpty())
+            throw new IllegalArgumentException("Select The Columns To Group By");
+        if (params.get("Aggregate").isEmpty() || params.get("Aggregate").get(0) == null)
+            throw new IllegalArgumentException("Select The Aggregate");
+        AggregateType type = AggregateType.valueOf(params.get("Aggregate").get(0));
+        List<String> aggregateLabels = params.get("Aggregate Columns");
+        if (type != AggregateType.COUNT && aggregateLabels.isEmpty())
+            throw new IllegalArgumentException("Select The Columns To Aggregate");
+        checkNewDataSetName(newDataSetName);
+        DataSet originDataSet = dataSetMap.get(origDataSetName);
+        if (originDataSet == null)
+            throw new IllegalArgumentException("DataSet Not Found");
+
+        List<Aggregation> aggregations = type == AggregateType.COUNT ? List.of(Aggregation.count())
+                : aggregateLabels.stream().map(label -> new Aggregation(type, label)).collect(Collectors.toList());
+        DataSet newDataSet = originDataSet.groupBy(params.get("Group By"), aggregations);
+        dataSetMap.put(newDataSetName, newDataSet);
+        listeners.forEach(l -> l.dataSetLoaded(newDataSetName));
+    }
 }
@@ -0,0 +1,509 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import org.apache.commons.lang3.tuple.Triple;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * GeoJsonReader reads the response of an OpenStreetMap query token by token from its stream, writing
+ * the coordinates of the contour straight into packed arrays of longitudes and latitudes. No tree of
+ * the response is built and no object is created per point or per number: numbers are computed from
+ * their bytes. As before, the rings of each polygon are joined into one list of points.
+ */
+final class GeoJsonReader {
+
+    /**
+     * Number of points the arrays hold at first.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Size of the buffer of bytes read from the stream.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Largest number of digits of a number computed exactly from its digits.
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    /**
+     * Largest power of ten that is an exact double.
+     */
+    private static final int MAX_EXACT_POWER = 22;
+
+    /**
+     * Powers of ten up to MAX_EXACT_POWER.
+     */
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_EXACT_POWER; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Stream of the response.
+     */
+    private final InputStream in;
+
+    /**
+     * Bytes read from the stream.
+     */
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    /**
+     * Position of the next byte of the buffer to read.
+     */
+    private int position;
+
+    /**
+     * Number of bytes in the buffer.
+     */
+    private int limit;
+
+    /**
+     * Bytes of the last string or number read.
+     */
+    private byte[] token = new byte[64];
+
+    /**
+     * Number of bytes of the last string or number read.
+     */
+    private int tokenLength;
+
+    /**
+     * Longitudes of the points read.
+     */
+    private double[] xs = new double[INITIAL_CAPACITY];
+
+    /**
+     * Latitudes of the points read.
+     */
+    private double[] ys = new double[INITIAL_CAPACITY];
+
+    /**
+     * Number of points read.
+     */
+    private int size;
+
+    /**
+     * Index of the first point of each array directly inside the coordinates, which are the
+     * polygons of a MultiPolygon.
+     */
+    private int[] starts = new int[16];
+
+    /**
+     * Number of arrays directly inside the coordinates.
+     */
+    private int startCount;
+
+    private GeoJsonReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Read the first result of the response to a query.
+     *
+     * @param in stream of the response body, in UTF-8.
+     * @return a Triple of longitude, latitude and polygons, all null if there is no result.
+     * @throws IOException thrown if the stream cannot be read or is not a valid response.
+     */
+    static Triple<Double, Double, MultiPolygon> readFirstResult(InputStream in) throws IOException {
+        GeoJsonReader reader = new GeoJsonReader(in);
+        reader.expect('[');
+        if (reader.peek() == ']')
+            return Triple.of(null, null, null);
+        return reader.readResult();
+    }
+
+    /**
+     * Read a result object.
+     *
+     * @return a Triple of longitude, latitude and polygons.
+     * @throws IOException thrown if the result is malformed.
+     */
+    private Triple<Double, Double, MultiPolygon> readResult() throws IOException {
+        Double lon = null;
+        Double lat = null;
+        String type = null;
+        expect('{');
+        if (peek() != '}') {
+            do {
+                switch (readName()) {
+                    case "lon":
+                        lon = readDouble();
+                        break;
+                    case "lat":
+                        lat = readDouble();
+                        break;
+                    case "geojson":
+                        type = readGeometry();
+                        break;
+                    default:
+                        skipValue();
+                }
+            } while (next(','));
+        }
+        expect('}');
+        if (lon == null || lat == null)
+            throw new IOException("Result Without Location");
+
+        int[] offsets;
+        if ("MultiPolygon".equals(type) && startCount > 0) {
+            offsets = Arrays.copyOf(starts, startCount + 1);
+            offsets[startCount] = size;
+        } else if ("Polygon".equals(type) && size > 0) {
+            offsets = new int[] {0, size};
+        } else {
+            size = 0;
+            add(lon, lat);
+            offsets = new int[] {0, 1};
+        }
+        return Triple.of(lon, lat, new MultiPolygon(Arrays.copyOf(xs, size), Arrays.copyOf(ys, size), offsets));
+    }
+
+    /**
+     * Read a geometry object, whose type and coordinates may come in either order.
+     *
+     * @return type of the geometry, or null if it has none.
+     * @throws IOException thrown if the geometry is malformed.
+     */
+    private String readGeometry() throws IOException {
+        String type = null;
+        if (peek() != '{') {
+            skipValue();
+            return null;
+        }
+        expect('{');
+        if (peek() != '}') {
+            do {
+                switch (readName()) {
+                    case "type":
+                        type = readString();
+                        break;
+                    case "coordinates":
+                        readCoordinates(0);
+                        break;
+                    default:
+                        skipValue();
+                }
+            } while (next(','));
+        }
+        expect('}');
+        return type;
+    }
+
+    /**
+     * Read nested arrays of coordinates, recording where each array directly inside the
+     * coordinates starts.
+     *
+     * @param depth depth of the array, 0 for the coordinates.
+     * @throws IOException thrown if the coordinates are malformed.
+     */
+    private void readCoordinates(int depth) throws IOException {
+        expect('[');
+        int c = peek();
+        if (c == ']') {
+            expect(']');
+            return;
+        }
+        if (c != '[') {
+            double x = readDouble();
+            expect(',');
+            double y = readDouble();
+            while (next(',')) {
+                skipValue();
+            }
+            add(x, y);
+        } else {
+            do {
+                if (depth == 0) {
+                    if (startCount + 1 >= starts.length)
+                        starts = Arrays.copyOf(starts, starts.length * 2);
+                    starts[startCount++] = size;
+                }
+                readCoordinates(depth + 1);
+            } while (next(','));
+        }
+        expect(']');
+    }
+
+    private void add(double x, double y) {
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    /**
+     * Read the name of a member of an object and the colon after it.
+     *
+     * @return the name.
+     * @throws IOException thrown if there is no name.
+     */
+    private String readName() throws IOException {
+        String name = readString();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * Read a string.
+     *
+     * @return the string.
+     * @throws IOException thrown if there is no string.
+     */
+    private String readString() throws IOException {
+        expect('"');
+        tokenLength = 0;
+        while (true) {
+            int c = read();
+            if (c == '"')
+                break;
+            if (c == '\\')
+                appendEscape();
+            else
+                append(c);
+        }
+        return new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read the escape sequence following a backslash into the token.
+     *
+     * @throws IOException thrown if the escape sequence is invalid.
+     */
+    private void appendEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'b':
+                append('\b');
+                break;
+            case 'f':
+                append('\f');
+                break;
+            case 'n':
+                append('\n');
+                break;
+            case 'r':
+                append('\r');
+                break;
+            case 't':
+                append('\t');
+                break;
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0)
+                        throw new IOException("Invalid Escape Sequence");
+                    code = code * 16 + digit;
+                }
+                for (byte b : String.valueOf((char) code).getBytes(StandardCharsets.UTF_8)) {
+                    append(b);
+                }
+                break;
+            default:
+                append(c);
+        }
+    }
+
+    /**
+     * Read a number, or a string holding a number.
+     *
+     * @return the number.
+     * @throws IOException thrown if there is no number.
+     * @throws NumberFormatException thrown if a string does not hold a number.
+     */
+    private double readDouble() throws IOException {
+        if (peek() == '"')
+            return Double.parseDouble(readString().strip());
+        tokenLength = 0;
+        int c = peek();
+        while (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+            append(read());
+            c = peekByte();
+        }
+        if (tokenLength == 0)
+            throw new IOException("Number Expected At " + (char) c);
+        return parseToken();
+    }
+
+    /**
+     * Return the number held by the token. Numbers of at most MAX_EXACT_DIGITS digits and a small
+     * exponent are computed from their digits, since both are exact doubles and a single
+     * multiplication or division of them is correctly rounded; other numbers are left to
+     * Double.parseDouble.
+     *
+     * @return the number.
+     */
+    private double parseToken() {
+        int p = 0;
+        boolean negative = token[0] == '-';
+        if (negative)
+            p++;
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean fraction = false;
+        boolean anyDigit = false;
+        for (; p < tokenLength; p++) {
+            byte b = token[p];
+            if (b == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            if (b < '0' || b > '9')
+                break;
+            anyDigit = true;
+            if (fraction)
+                exponent--;
+            if (mantissa == 0 && b == '0')
+                continue;
+            if (++digits > MAX_EXACT_DIGITS)
+                return parseTokenSlowly();
+            mantissa = mantissa * 10 + (b - '0');
+        }
+        if (!anyDigit)
+            return parseTokenSlowly();
+        if (p < tokenLength) {
+            if (token[p] != 'e' && token[p] != 'E')
+                return parseTokenSlowly();
+            p++;
+            boolean negativeExponent = p < tokenLength && token[p] == '-';
+            if (p < tokenLength && (token[p] == '-' || token[p] == '+'))
+                p++;
+            if (p == tokenLength || tokenLength - p > 3)
+                return parseTokenSlowly();
+            int e = 0;
+            for (; p < tokenLength; p++) {
+                if (token[p] < '0' || token[p] > '9')
+                    return parseTokenSlowly();
+                e = e * 10 + (token[p] - '0');
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if (Math.abs(exponent) > MAX_EXACT_POWER)
+            return parseTokenSlowly();
+        double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    private double parseTokenSlowly() {
+        return Double.parseDouble(new String(token, 0, tokenLength, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Skip a value of any kind.
+     *
+     * @throws IOException thrown if the value is malformed.
+     */
+    private void skipValue() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            read();
+            for (int b = read(); b != '"'; b = read()) {
+                if (b == '\\')
+                    read();
+            }
+        } else if (c == '{' || c == '[') {
+            int close = c == '{' ? '}' : ']';
+            read();
+            if (peek() != close) {
+                do {
+                    if (c == '{')
+                        readName();
+                    skipValue();
+                } while (next(','));
+            }
+            expect(close);
+        } else {
+            int length = 0;
+            while (c != ',' && c != '}' && c != ']' && c != -1 && !isWhitespace(c)) {
+                read();
+                length++;
+                c = peekByte();
+            }
+            if (length == 0)
+                throw new IOException("Value Expected At " + (char) c);
+        }
+    }
+
+    /**
+     * Read the given character if it is the next one, after whitespace.
+     *
+     * @param c the character.
+     * @return true if it has been read.
+     * @throws IOException thrown if the stream cannot be read.
+     */
+    private boolean next(char c) throws IOException {
+        if (peek() != c)
+            return false;
+        read();
+        return true;
+    }
+
+    /**
+     * Read the given character, which must be the next one after whitespace.
+     *
+     * @param c the character.
+     * @throws IOException thrown if the next character is another one.
+     */
+    private void expect(int c) throws IOException {
+        if (!next((char) c))
+            throw new IOException("Expected " + (char) c);
+    }
+
+    /**
+     * Skip whitespace and return the next byte without reading it.
+     *
+     * @return the next byte, or -1 at the end of the stream.
+     * @throws IOException thrown if the stream cannot be read.
+     */
+    private int peek() throws IOException {
+        int c = peekByte();
+        while (isWhitespace(c)) {
+            position++;
+            c = peekByte();
+        }
+        return c;
+    }
+
+    private int peekByte() throws IOException {
+        if (position == limit && !fill())
+            return -1;
+        return buffer[position] & 0xff;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill())
+            throw new IOException("Unexpected End Of Response");
+        return buffer[position++] & 0xff;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer);
+        position = 0;
+        limit = Math.max(n, 0);
+        return n > 0;
+    }
+
+    private void append(int b) {
+        if (tokenLength == token.length)
+            token = Arrays.copyOf(token, tokenLength * 2);
+        token[tokenLength++] = (byte) b;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+}
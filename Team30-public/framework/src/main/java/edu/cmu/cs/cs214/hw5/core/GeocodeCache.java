@@ -0,0 +1,362 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import org.apache.commons.lang3.tuple.Triple;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * GeocodeCache remembers the results of OpenStreetMap queries, including the addresses that were
+ * not found, so that geocoding the same addresses again needs no network. Each result expires
+ * after a time to live, shorter for addresses not found since they may be added to OpenStreetMap.
+ *
+ * Results are kept in memory and, unless the cache has no file, appended to a log file: each record
+ * holds its length, a key, an expiry time, the result and a checksum. The log is read back when the
+ * cache is created, the last record of a key winning; a record cut short by a crash is dropped with
+ * everything after it. When the cache is created, the log is rewritten without such a broken tail
+ * and without its stale records if they are the majority.
+ */
+class GeocodeCache {
+
+    /**
+     * Default location of the cache file.
+     */
+    static final Path DEFAULT_FILE = Paths.get(System.getProperty("user.home"), ".geodata", "geocode-cache.log");
+
+    /**
+     * Default time to live of an address found.
+     */
+    static final long DEFAULT_FOUND_TTL = TimeUnit.DAYS.toMillis(30);
+
+    /**
+     * Default time to live of an address not found.
+     */
+    static final long DEFAULT_NOT_FOUND_TTL = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * Result of an address not found.
+     */
+    private static final Triple<Double, Double, MultiPolygon> NOT_FOUND = Triple.of(null, null, null);
+
+    /**
+     * Log file, null for a cache kept in memory only.
+     */
+    private final Path file;
+
+    /**
+     * Time to live of an address found, in milliseconds.
+     */
+    private final long foundTtl;
+
+    /**
+     * Time to live of an address not found, in milliseconds.
+     */
+    private final long notFoundTtl;
+
+    /**
+     * Entries by key.
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Stream appending records to the log file, null if there is no file.
+     */
+    private DataOutputStream log;
+
+    /**
+     * Number of records in the log file.
+     */
+    private int logRecords;
+
+    /**
+     * Create a cache, reading back the entries of its log file.
+     *
+     * @param file log file, created if missing, or null to keep the cache in memory only.
+     * @param foundTtl time to live of an address found, in milliseconds.
+     * @param notFoundTtl time to live of an address not found, in milliseconds.
+     */
+    GeocodeCache(Path file, long foundTtl, long notFoundTtl) {
+        this.file = file;
+        this.foundTtl = foundTtl;
+        this.notFoundTtl = notFoundTtl;
+        if (file == null)
+            return;
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory != null)
+                Files.createDirectories(directory);
+            if (Files.exists(file)) {
+                long validLength = readLog();
+                if (validLength < Files.size(file) || logRecords > 2 * entries.size())
+                    rewriteLog();
+            }
+            log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile(), true)));
+        } catch (IOException ex) {
+            System.out.println("Geocoding cache kept in memory only: " + ex.getMessage());
+            entries.clear();
+            log = null;
+        }
+    }
+
+    /**
+     * Return the key of a structured address queried with a polygon threshold.
+     *
+     * @param address the address.
+     * @param threshold the polygon threshold.
+     * @return the key.
+     */
+    static String key(GeoAddress address, String threshold) {
+        return "address\u001f" + normalize(address.getCountry()) + "\u001f" + normalize(address.getState())
+                + "\u001f" + normalize(address.getCity()) + "\u001f" + normalize(address.getCounty())
+                + "\u001f" + normalize(address.getStreet()) + "\u001f" + normalize(threshold);
+    }
+
+    /**
+     * Return the key of a free-form address queried with a polygon threshold.
+     *
+     * @param address the address.
+     * @param threshold the polygon threshold.
+     * @return the key.
+     */
+    static String key(String address, String threshold) {
+        return "query\u001f" + normalize(address) + "\u001f" + normalize(threshold);
+    }
+
+    /**
+     * Return the cached result of a key.
+     *
+     * @param key the key.
+     * @return a Triple of longitude, latitude and polygons, all null if the address was not found,
+     *         or null if the key is not cached or has expired.
+     */
+    Triple<Double, Double, MultiPolygon> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt < System.currentTimeMillis())
+            return null;
+        return entry.result;
+    }
+
+    /**
+     * Cache the result of a key, as not found if its longitude is null.
+     *
+     * @param key the key.
+     * @param result a Triple of longitude, latitude and polygons.
+     */
+    void put(String key, Triple<Double, Double, MultiPolygon> result) {
+        boolean found = result.getLeft() != null;
+        Entry entry = new Entry(found ? result : NOT_FOUND,
+                System.currentTimeMillis() + (found ? foundTtl : notFoundTtl));
+        entries.put(key, entry);
+        if (file == null)
+            return;
+        synchronized (this) {
+            if (log == null)
+                return;
+            try {
+                writeRecord(log, key, entry);
+                logRecords++;
+            } catch (IOException ex) {
+                System.out.println("Geocoding cache kept in memory only: " + ex.getMessage());
+                log = null;
+            }
+        }
+    }
+
+    /**
+     * Write the records appended so far to the log file.
+     */
+    synchronized void flush() {
+        if (log == null)
+            return;
+        try {
+            log.flush();
+        } catch (IOException ex) {
+            System.out.println("Geocoding cache kept in memory only: " + ex.getMessage());
+            log = null;
+        }
+    }
+
+    /**
+     * Read the records of the log file into entries, skipping expired ones.
+     *
+     * @return length of the valid part of the log file.
+     * @throws IOException thrown if the file cannot be read.
+     */
+    private long readLog() throws IOException {
+        long now = System.currentTimeMillis();
+        long fileSize = Files.size(file);
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException ex) {
+                    break;
+                }
+                if (length < 0 || length > fileSize - validLength - Integer.BYTES - Long.BYTES)
+                    break;
+                byte[] record = new byte[length];
+                long checksum;
+                try {
+                    in.readFully(record);
+                    checksum = in.readLong();
+                } catch (EOFException ex) {
+                    break;
+                }
+                if (checksum(record) != checksum)
+                    break;
+                validLength += Integer.BYTES + length + Long.BYTES;
+                logRecords++;
+                DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(record));
+                String key = recordIn.readUTF();
+                Entry entry = readEntry(recordIn);
+                if (entry.expiresAt >= now)
+                    entries.put(key, entry);
+                else
+                    entries.remove(key);
+            }
+        }
+        return validLength;
+    }
+
+    /**
+     * Replace the log file with one holding only the live entries.
+     *
+     * @throws IOException thrown if the file cannot be written.
+     */
+    private void rewriteLog() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writeRecord(out, entry.getKey(), entry.getValue());
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logRecords = entries.size();
+    }
+
+    /**
+     * Write a record to the log.
+     *
+     * @param out stream of the log.
+     * @param key key of the entry.
+     * @param entry the entry.
+     * @throws IOException thrown if the record cannot be written.
+     */
+    private static void writeRecord(DataOutputStream out, String key, Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(bytes);
+        record.writeUTF(key);
+        record.writeLong(entry.expiresAt);
+        Triple<Double, Double, MultiPolygon> result = entry.result;
+        record.writeBoolean(result.getLeft() != null);
+        if (result.getLeft() != null) {
+            record.writeDouble(result.getLeft());
+            record.writeDouble(result.getMiddle());
+            MultiPolygon polygons = result.getRight();
+            record.writeInt(polygons.ringCount());
+            for (int i = 0; i < polygons.ringCount(); i++) {
+                record.writeInt(polygons.ringLength(i));
+                for (int j = 0; j < polygons.ringLength(i); j++) {
+                    record.writeDouble(polygons.getX(i, j));
+                    record.writeDouble(polygons.getY(i, j));
+                }
+            }
+        }
+        byte[] data = bytes.toByteArray();
+        out.writeInt(data.length);
+        out.write(data);
+        out.writeLong(checksum(data));
+    }
+
+    /**
+     * Read the entry of a record, after its key.
+     *
+     * @param in stream of the record.
+     * @return the entry.
+     * @throws IOException thrown if the record is malformed.
+     */
+    private static Entry readEntry(DataInputStream in) throws IOException {
+        long expiresAt = in.readLong();
+        if (!in.readBoolean())
+            return new Entry(NOT_FOUND, expiresAt);
+        double lon = in.readDouble();
+        double lat = in.readDouble();
+        int polygonCount = in.readInt();
+        int[] offsets = new int[polygonCount + 1];
+        double[] xs = new double[16];
+        double[] ys = new double[16];
+        for (int i = 0; i < polygonCount; i++) {
+            int pointCount = in.readInt();
+            offsets[i + 1] = offsets[i] + pointCount;
+            if (offsets[i + 1] > xs.length) {
+                xs = Arrays.copyOf(xs, Math.max(offsets[i + 1], xs.length * 2));
+                ys = Arrays.copyOf(ys, xs.length);
+            }
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                xs[j] = in.readDouble();
+                ys[j] = in.readDouble();
+            }
+        }
+        xs = Arrays.copyOf(xs, offsets[polygonCount]);
+        ys = Arrays.copyOf(ys, offsets[polygonCount]);
+        return new Entry(Triple.of(lon, lat, new MultiPolygon(xs, ys, offsets)), expiresAt);
+    }
+
+    private static long checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    /**
+     * Normalize part of an address so that spellings differing only by case or spacing share a key.
+     *
+     * @param s part of an address, may be null.
+     * @return the normalized part, empty for null.
+     */
+    private static String normalize(String s) {
+        if (s == null)
+            return "";
+        return s.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Entry is a cached result with its expiry time.
+     */
+    private static final class Entry {
+
+        /**
+         * A Triple of longitude, latitude and polygons, all null if the address was not found.
+         */
+        private final Triple<Double, Double, MultiPolygon> result;
+
+        /**
+         * Time the entry expires at, in milliseconds since the epoch.
+         */
+        private final long expiresAt;
+
+        Entry(Triple<Double, Double, MultiPolygon> result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
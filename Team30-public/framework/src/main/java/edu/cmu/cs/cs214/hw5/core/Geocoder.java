@@ -0,0 +1,47 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import org.apache.commons.lang3.tuple.Triple;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface implemented by a geocoding backend, which finds the location and contour of addresses.
+ * The framework geocodes with OpenStreetMap by default; other backends are registered into the
+ * framework and chosen for each geocoding transform.
+ */
+public interface Geocoder {
+
+    /**
+     * Fetch the name of the geocoder which is shown to the user.
+     *
+     * @return name of the geocoder.
+     */
+    String getName();
+
+    /**
+     * Geocode structured addresses. An address that is not found, or whose query fails, is added
+     * to unfounded and has a null result.
+     *
+     * @param addresses addresses to geocode, which may repeat.
+     * @param unfounded a set to store the addresses not found.
+     * @param threshold polygon threshold, in degrees, below which contours may be simplified.
+     * @param progress receiver of the progress of the geocoding, which should stop early once cancelled.
+     * @return future of a list of Triple of longitude, latitude and polygons, one per address.
+     */
+    CompletableFuture<List<Triple<Double, Double, MultiPolygon>>> geocode(
+            GeoAddress[] addresses, Set<Object> unfounded, String threshold, LoadProgress progress);
+
+    /**
+     * Geocode free-form addresses, the same way as structured ones.
+     *
+     * @param addresses addresses to geocode, which may repeat.
+     * @param unfounded a set to store the addresses not found.
+     * @param threshold polygon threshold, in degrees, below which contours may be simplified.
+     * @param progress receiver of the progress of the geocoding, which should stop early once cancelled.
+     * @return future of a list of Triple of longitude, latitude and polygons, one per address.
+     */
+    CompletableFuture<List<Triple<Double, Double, MultiPolygon>>> geocode(
+            String[] addresses, Set<Object> unfounded, String threshold, LoadProgress progress);
+}
@@ -0,0 +1,219 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.Arrays;
+
+/**
+ * HashAggregator groups the rows of a DataSet by the values of some key columns and computes
+ * aggregates over each group.
+ *
+ * Rows are first assigned a dense group number, one key column at a time: the group of a row so far
+ * and its value in the next key column are packed into a long and looked up in an open-addressing
+ * hash table, so grouping never boxes a value. Groups are numbered in the order of their first row.
+ * Aggregates are then accumulated into primitive arrays indexed by group number, reading the
+ * columns in batches.
+ */
+final class HashAggregator {
+
+    private HashAggregator() {
+    }
+
+    /**
+     * Groups is the result of grouping the rows of a DataSet.
+     */
+    static final class Groups {
+
+        /**
+         * Group number of each row.
+         */
+        final int[] groupOf;
+
+        /**
+         * First row of each group, in increasing order.
+         */
+        final int[] firstRows;
+
+        Groups(int[] groupOf, int[] firstRows) {
+            this.groupOf = groupOf;
+            this.firstRows = firstRows;
+        }
+
+        /**
+         * Return number of groups.
+         *
+         * @return number of groups.
+         */
+        int count() {
+            return firstRows.length;
+        }
+
+        /**
+         * Return the rows of each group, in increasing order.
+         *
+         * @return rows of each group, indexed by group number.
+         */
+        int[][] rows() {
+            int[][] rows = new int[count()][];
+            int[] sizes = new int[count()];
+            for (int group : groupOf) {
+                sizes[group]++;
+            }
+            for (int group = 0; group < rows.length; group++) {
+                rows[group] = new int[sizes[group]];
+            }
+            Arrays.fill(sizes, 0);
+            for (int row = 0; row < groupOf.length; row++) {
+                int group = groupOf[row];
+                rows[group][sizes[group]++] = row;
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Group rows by the values of the given columns. With no column, all rows form a single group.
+     *
+     * @param keys the key columns, of type INTEGER, DOUBLE or STRING and all of length rowCount.
+     * @param rowCount number of rows.
+     * @return the groups.
+     */
+    static Groups group(Column[] keys, int rowCount) {
+        int[] groupOf = new int[rowCount];
+        int groupCount = rowCount > 0 ? 1 : 0;
+        int[] firstRows = new int[groupCount];
+
+        QueryEngine.Batch batch = new QueryEngine.Batch();
+        for (Column key : keys) {
+            if (groupCount == 1 && key.type() == DataType.STRING) {
+                // dictionary codes are already dense, so they index the groups directly
+                int[] groupOfCode = new int[key.dictionary().size()];
+                Arrays.fill(groupOfCode, -1);
+                int[] first = new int[Math.min(groupOfCode.length, rowCount)];
+                groupCount = 0;
+                for (int start = 0; start < rowCount; start += QueryEngine.BATCH_SIZE) {
+                    int count = fillRows(batch, start, rowCount);
+                    key.gatherInts(batch.rows, count, batch.ints);
+                    for (int i = 0; i < count; i++) {
+                        int code = batch.ints[i];
+                        if (groupOfCode[code] < 0) {
+                            groupOfCode[code] = groupCount;
+                            first[groupCount++] = start + i;
+                        }
+                        groupOf[start + i] = groupOfCode[code];
+                    }
+                }
+                firstRows = Arrays.copyOf(first, groupCount);
+                continue;
+            }
+
+            LongIdTable doubleIds = key.type() == DataType.DOUBLE ? new LongIdTable() : null;
+            LongIdTable groupIds = new LongIdTable();
+            for (int start = 0; start < rowCount; start += QueryEngine.BATCH_SIZE) {
+                int count = fillRows(batch, start, rowCount);
+                if (doubleIds != null) {
+                    // doubles take 64 bits, so they are replaced with a dense number first
+                    key.gatherDoubles(batch.rows, count, batch.doubles, batch.ints);
+                    for (int i = 0; i < count; i++) {
+                        batch.ints[i] = doubleIds.idOf(Double.doubleToLongBits(batch.doubles[i]), start + i);
+                    }
+                } else {
+                    key.gatherInts(batch.rows, count, batch.ints);
+                }
+                for (int i = 0; i < count; i++) {
+                    int row = start + i;
+                    groupOf[row] = groupIds.idOf(((long) groupOf[row] << 32) | (batch.ints[i] & 0xFFFFFFFFL), row);
+                }
+            }
+            groupCount = groupIds.size();
+            firstRows = groupIds.firstRows();
+        }
+        return new Groups(groupOf, firstRows);
+    }
+
+    /**
+     * Compute an aggregate over each group.
+     *
+     * @param groups the groups.
+     * @param type aggregate to be computed.
+     * @param values column aggregated, of type INTEGER or DOUBLE. Ignored for COUNT.
+     * @return column holding the aggregate of each group, indexed by group number.
+     */
+    static Column aggregate(Groups groups, AggregateType type, Column values) {
+        int[] groupOf = groups.groupOf;
+        int groupCount = groups.count();
+        if (type == AggregateType.COUNT) {
+            int[] counts = new int[groupCount];
+            for (int group : groupOf) {
+                counts[group]++;
+            }
+            return Column.ofInts(counts);
+        }
+
+        QueryEngine.Batch batch = new QueryEngine.Batch();
+        if (values.type() == DataType.INTEGER && (type == AggregateType.MIN || type == AggregateType.MAX)) {
+            // kept as ints so that the result has the type of the column
+            boolean min = type == AggregateType.MIN;
+            int[] result = new int[groupCount];
+            Arrays.fill(result, min ? Integer.MAX_VALUE : Integer.MIN_VALUE);
+            for (int start = 0; start < groupOf.length; start += QueryEngine.BATCH_SIZE) {
+                int count = fillRows(batch, start, groupOf.length);
+                values.gatherInts(batch.rows, count, batch.ints);
+                for (int i = 0; i < count; i++) {
+                    int group = groupOf[start + i];
+                    result[group] = min ? Math.min(result[group], batch.ints[i])
+                            : Math.max(result[group], batch.ints[i]);
+                }
+            }
+            return Column.ofInts(result);
+        }
+
+        double[] result = new double[groupCount];
+        if (type == AggregateType.MIN)
+            Arrays.fill(result, Double.POSITIVE_INFINITY);
+        else if (type == AggregateType.MAX)
+            Arrays.fill(result, Double.NEGATIVE_INFINITY);
+        for (int start = 0; start < groupOf.length; start += QueryEngine.BATCH_SIZE) {
+            int count = fillRows(batch, start, groupOf.length);
+            values.gatherDoubles(batch.rows, count, batch.doubles, batch.ints);
+            for (int i = 0; i < count; i++) {
+                int group = groupOf[start + i];
+                switch (type) {
+                    case MIN:
+                        result[group] = Math.min(result[group], batch.doubles[i]);
+                        break;
+                    case MAX:
+                        result[group] = Math.max(result[group], batch.doubles[i]);
+                        break;
+                    default:
+                        result[group] += batch.doubles[i];
+                        break;
+                }
+            }
+        }
+        if (type == AggregateType.MEAN) {
+            int[] counts = new int[groupCount];
+            for (int group : groupOf) {
+                counts[group]++;
+            }
+            for (int group = 0; group < groupCount; group++) {
+                result[group] /= counts[group];
+            }
+        }
+        return Column.ofDoubles(result);
+    }
+
+    /**
+     * Put the row numbers of the batch starting at the given row into batch.rows.
+     *
+     * @param batch the batch.
+     * @param start first row of the batch.
+     * @param rowCount number of rows.
+     * @return number of rows in the batch.
+     */
+    private static int fillRows(QueryEngine.Batch batch, int start, int rowCount) {
+        int count = Math.min(QueryEngine.BATCH_SIZE, rowCount - start);
+        for (int i = 0; i < count; i++) {
+            batch.rows[i] = start + i;
+        }
+        return count;
+    }
+}
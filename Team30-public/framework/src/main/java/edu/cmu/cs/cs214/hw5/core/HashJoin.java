@@ -0,0 +1,670 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * HashJoin joins the rows of two DataSets whose key columns hold equal values.
+ *
+ * The smaller data set is the build side: its rows are numbered by key in a hash table, then the
+ * rows of the other data set look their key up in it. Keys are packed into longs one column at a
+ * time, as in HashAggregator, so no value is boxed. When the build side has more rows than the
+ * memory limit, both data sets are split, a batch of rows at a time, by a hash of their keys into
+ * partitions small enough to be joined one at a time, and the rows of each partition wait on disk
+ * until their turn. A partition still over the limit is split again with another hash, and one
+ * that cannot be split, because its rows share a key, has its build rows joined a chunk at a time.
+ *
+ * The limit bounds the hash tables and row lists of the partition being joined. It does not bound
+ * the matched pairs, two row numbers per result row, which are kept until the result is built, nor
+ * the few bytes per row of the left data set used to order the result and find its rows without match.
+ * These grow with the data sets and the result, which are in memory anyway.
+ *
+ * The result holds the columns of the left data set followed by the columns of the right one
+ * without its key columns. Its rows are ordered by left row, then by right row, whichever side is
+ * built.
+ */
+final class HashJoin {
+
+    /**
+     * Default maximum number of build rows joined in memory at once.
+     */
+    static final int DEFAULT_MAX_BUILD_ROWS = 1 << 20;
+
+    /**
+     * Maximum number of partitions a side is split into at once. Partitions still over the memory
+     * limit are split again.
+     */
+    private static final int MAX_PARTITIONS = 256;
+
+    /**
+     * Number of times a partition over the memory limit may be split again before its build rows are
+     * joined a chunk at a time instead.
+     */
+    private static final int MAX_SPLIT_LEVEL = 4;
+
+    /**
+     * Right row of a left row without match in a LEFT join.
+     */
+    private static final int MISSING = -1;
+
+    private final DataSet left;
+    private final DataSet right;
+    private final int[] leftKeys;
+    private final int[] rightKeys;
+    private final JoinType type;
+    private final int maxBuildRows;
+
+    /**
+     * Whether the left data set is the build side.
+     */
+    private final boolean buildLeft;
+
+    /**
+     * For each STRING key, the code in the build dictionary of each code of the probe dictionary,
+     * or -1 for strings not on the build side. Null for other keys.
+     */
+    private final int[][] probeCodes;
+
+    /**
+     * Whether each left row has a match.
+     */
+    private final boolean[] leftMatched;
+
+    /**
+     * Matched rows so far, in the order found.
+     */
+    private int[] leftRows = new int[16];
+    private int[] rightRows = new int[16];
+    private int pairCount;
+
+    /**
+     * Prepare a join of two data sets. The key columns must have the same types, which must not be POLYGONS.
+     *
+     * @param left the left data set.
+     * @param leftKeys key column numbers of the left data set.
+     * @param right the right data set.
+     * @param rightKeys key column numbers of the right data set, respective to leftKeys.
+     * @param type the join type.
+     * @param maxBuildRows maximum number of build rows joined in memory at once.
+     */
+    HashJoin(DataSet left, int[] leftKeys, DataSet right, int[] rightKeys, JoinType type, int maxBuildRows) {
+        this.left = left;
+        this.right = right;
+        this.leftKeys = leftKeys;
+        this.rightKeys = rightKeys;
+        this.type = type;
+        this.maxBuildRows = Math.max(1, maxBuildRows);
+        buildLeft = left.rowCount() < right.rowCount();
+        leftMatched = new boolean[left.rowCount()];
+
+        probeCodes = new int[leftKeys.length][];
+        for (int k = 0; k < leftKeys.length; k++) {
+            if (left.getDataTypes().get(leftKeys[k]) != DataType.STRING)
+                continue;
+            List<String> buildDictionary = buildKey(k).dictionary();
+            List<String> probeDictionary = probeKey(k).dictionary();
+            Map<String, Integer> buildCodes = new HashMap<>();
+            for (int code = 0; code < buildDictionary.size(); code++) {
+                buildCodes.put(buildDictionary.get(code), code);
+            }
+            probeCodes[k] = new int[probeDictionary.size()];
+            for (int code = 0; code < probeCodes[k].length; code++) {
+                probeCodes[k][code] = buildCodes.getOrDefault(probeDictionary.get(code), -1);
+            }
+        }
+    }
+
+    /**
+     * Join the data sets.
+     *
+     * @return a DataSet with the joined rows.
+     * @throws IllegalStateException if the partitions cannot be written to or read from disk.
+     */
+    DataSet toDataSet() {
+        int buildCount = buildLeft ? left.rowCount() : right.rowCount();
+        int probeCount = buildLeft ? right.rowCount() : left.rowCount();
+        try {
+            if (buildCount <= maxBuildRows)
+                joinRows(range(buildCount), RowReader.range(probeCount));
+            else
+                joinPartitions(buildCount, probeCount);
+        } catch (IOException e) {
+            throw new IllegalStateException("Join Spill Failed: " + e.getMessage(), e);
+        }
+        return assemble();
+    }
+
+    /**
+     * Join the given build rows, in increasing order, with the probe rows read in increasing order.
+     * The hash table holds the build rows only; probe rows are looked up a batch at a time.
+     *
+     * @param buildRows rows of the build side.
+     * @param probe reader of the rows of the probe side.
+     * @throws IOException if the probe rows cannot be read.
+     */
+    private void joinRows(int[] buildRows, RowReader probe) throws IOException {
+        int[] buildIds = new int[buildRows.length];
+        LongIdTable[] keyIds = new LongIdTable[leftKeys.length];
+        LongIdTable[] doubleIds = new LongIdTable[leftKeys.length];
+        QueryEngine.Batch batch = new QueryEngine.Batch();
+
+        for (int k = 0; k < leftKeys.length; k++) {
+            Column buildKey = buildKey(k);
+            doubleIds[k] = buildKey.type() == DataType.DOUBLE ? new LongIdTable() : null;
+            keyIds[k] = new LongIdTable();
+            for (int start = 0; start < buildRows.length; start += QueryEngine.BATCH_SIZE) {
+                int count = gather(buildKey, buildRows, start, Math.min(QueryEngine.BATCH_SIZE, buildRows.length - start), batch);
+                for (int i = 0; i < count; i++) {
+                    int value = doubleIds[k] == null ? batch.ints[i]
+                            : doubleIds[k].idOf(Double.doubleToLongBits(batch.doubles[i]), start + i);
+                    buildIds[start + i] = keyIds[k].idOf(pack(buildIds[start + i], value), start + i);
+                }
+            }
+        }
+
+        // build rows of each key, in increasing order
+        int keyCount = keyIds[leftKeys.length - 1].size();
+        int[] offsets = new int[keyCount + 1];
+        for (int id : buildIds) {
+            offsets[id + 1]++;
+        }
+        for (int id = 0; id < keyCount; id++) {
+            offsets[id + 1] += offsets[id];
+        }
+        int[] bucketRows = new int[buildRows.length];
+        int[] next = Arrays.copyOf(offsets, keyCount);
+        for (int i = 0; i < buildRows.length; i++) {
+            bucketRows[next[buildIds[i]]++] = buildRows[i];
+        }
+
+        int[] probeRows = new int[QueryEngine.BATCH_SIZE];
+        int[] probeIds = new int[QueryEngine.BATCH_SIZE];
+        int count;
+        while ((count = probe.read(probeRows)) > 0) {
+            Arrays.fill(probeIds, 0, count, 0);
+            for (int k = 0; k < leftKeys.length; k++) {
+                gather(probeKey(k), probeRows, 0, count, batch);
+                for (int i = 0; i < count; i++) {
+                    int value = batch.ints[i];
+                    boolean known = true;
+                    if (doubleIds[k] != null) {
+                        value = doubleIds[k].find(Double.doubleToLongBits(batch.doubles[i]));
+                        known = value >= 0;
+                    } else if (probeCodes[k] != null) {
+                        value = probeCodes[k][value];
+                        known = value >= 0;
+                    }
+                    int prev = probeIds[i];
+                    probeIds[i] = prev >= 0 && known ? keyIds[k].find(pack(prev, value)) : -1;
+                }
+            }
+            for (int j = 0; j < count; j++) {
+                int id = probeIds[j];
+                if (id < 0)
+                    continue;
+                for (int b = offsets[id]; b < offsets[id + 1]; b++) {
+                    if (buildLeft)
+                        addPair(bucketRows[b], probeRows[j]);
+                    else
+                        addPair(probeRows[j], bucketRows[b]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Split both sides by a hash of their keys into partitions written to disk, then join the
+     * partitions one at a time.
+     *
+     * @param buildCount number of rows of the build side.
+     * @param probeCount number of rows of the probe side.
+     * @throws IOException if a partition cannot be written or read.
+     */
+    private void joinPartitions(int buildCount, int probeCount) throws IOException {
+        Path directory = Files.createTempDirectory("join");
+        try {
+            int partitionCount = partitionCount(buildCount);
+            Path[] buildFiles = spill(directory, "build", true, RowReader.range(buildCount), partitionCount, 0);
+            Path[] probeFiles = spill(directory, "probe", false, RowReader.range(probeCount), partitionCount, 0);
+            for (int p = 0; p < partitionCount; p++) {
+                joinPartition(directory, buildFiles[p], probeFiles[p], 1);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Join a partition written by spill. A partition with more build rows than the memory limit is
+     * split again with another hash. If its keys cannot be split further, as when most of its rows
+     * share one key, its build rows are joined a chunk at a time, each chunk with every probe row.
+     *
+     * @param directory directory of the files.
+     * @param buildFile build rows of the partition.
+     * @param probeFile probe rows of the partition.
+     * @param level number of splits that led to this partition.
+     * @throws IOException if a partition cannot be written or read.
+     */
+    private void joinPartition(Path directory, Path buildFile, Path probeFile, int level) throws IOException {
+        int buildCount = rowCount(buildFile);
+        if (buildCount <= maxBuildRows) {
+            try (RowReader probe = RowReader.of(probeFile)) {
+                joinRows(readRows(buildFile), probe);
+            }
+            return;
+        }
+
+        if (level <= MAX_SPLIT_LEVEL) {
+            int partitionCount = partitionCount(buildCount);
+            String prefix = buildFile.getFileName() + "-";
+            Path[] buildFiles;
+            try (RowReader build = RowReader.of(buildFile)) {
+                buildFiles = spill(directory, prefix, true, build, partitionCount, level);
+            }
+            boolean split = true;
+            for (Path file : buildFiles) {
+                split &= rowCount(file) < buildCount;
+            }
+            if (split) {
+                Path[] probeFiles;
+                try (RowReader probe = RowReader.of(probeFile)) {
+                    probeFiles = spill(directory, probeFile.getFileName() + "-", false, probe, partitionCount, level);
+                }
+                Files.delete(buildFile);
+                Files.delete(probeFile);
+                for (int p = 0; p < partitionCount; p++) {
+                    joinPartition(directory, buildFiles[p], probeFiles[p], level + 1);
+                }
+                return;
+            }
+            for (Path file : buildFiles) {
+                Files.delete(file);
+            }
+        }
+
+        try (RowReader build = RowReader.of(buildFile)) {
+            while (build.remaining() > 0) {
+                int[] chunk = new int[Math.min(maxBuildRows, build.remaining())];
+                for (int read = 0; read < chunk.length; ) {
+                    read += build.read(chunk, read);
+                }
+                try (RowReader probe = RowReader.of(probeFile)) {
+                    joinRows(chunk, probe);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the rows of one side into one file per partition, in the order they are read. Rows are
+     * hashed and written a batch at a time.
+     *
+     * @param directory directory of the files.
+     * @param prefix prefix of the file names.
+     * @param build true for the build side, false for the probe side.
+     * @param rows reader of the rows to split, in increasing order.
+     * @param partitionCount number of partitions.
+     * @param level number of splits before this one, so that each split hashes keys differently.
+     * @return the files, indexed by partition.
+     * @throws IOException if a file cannot be written.
+     */
+    private Path[] spill(Path directory, String prefix, boolean build, RowReader rows, int partitionCount,
+                         int level) throws IOException {
+        int[][] stringHashes = new int[leftKeys.length][];
+        for (int k = 0; k < leftKeys.length; k++) {
+            Column key = build ? buildKey(k) : probeKey(k);
+            if (key.type() == DataType.STRING) {
+                List<String> dictionary = key.dictionary();
+                stringHashes[k] = new int[dictionary.size()];
+                for (int code = 0; code < stringHashes[k].length; code++) {
+                    stringHashes[k][code] = dictionary.get(code).hashCode();
+                }
+            }
+        }
+
+        Path[] files = new Path[partitionCount];
+        DataOutputStream[] outputs = new DataOutputStream[partitionCount];
+        try {
+            for (int p = 0; p < partitionCount; p++) {
+                files[p] = directory.resolve(prefix + p);
+                outputs[p] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(files[p])));
+            }
+            QueryEngine.Batch batch = new QueryEngine.Batch();
+            int[] batchRows = new int[QueryEngine.BATCH_SIZE];
+            int[] hashes = new int[QueryEngine.BATCH_SIZE];
+            int count;
+            while ((count = rows.read(batchRows)) > 0) {
+                Arrays.fill(hashes, 0, count, 0);
+                for (int k = 0; k < leftKeys.length; k++) {
+                    Column key = build ? buildKey(k) : probeKey(k);
+                    gather(key, batchRows, 0, count, batch);
+                    for (int i = 0; i < count; i++) {
+                        int hash;
+                        if (key.type() == DataType.DOUBLE)
+                            hash = Double.hashCode(batch.doubles[i]);
+                        else if (stringHashes[k] != null)
+                            hash = stringHashes[k][batch.ints[i]];
+                        else
+                            hash = batch.ints[i];
+                        hashes[i] = 31 * hashes[i] + hash;
+                    }
+                }
+                for (int i = 0; i < count; i++) {
+                    outputs[Math.floorMod(mix(hashes[i] ^ level * 0x9E3779B9), partitionCount)].writeInt(batchRows[i]);
+                }
+            }
+        } finally {
+            for (DataOutputStream output : outputs) {
+                if (output != null)
+                    output.close();
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Return the number of partitions to split the given number of build rows into, so that each
+     * partition of evenly spread keys holds about half the memory limit.
+     *
+     * @param buildCount number of build rows.
+     * @return number of partitions.
+     */
+    private int partitionCount(int buildCount) {
+        return (int) Math.min(MAX_PARTITIONS, ((long) buildCount + maxBuildRows - 1) / maxBuildRows * 2);
+    }
+
+    /**
+     * Return the number of rows of a partition written by spill.
+     *
+     * @param file the file of the partition.
+     * @return the number of rows.
+     * @throws IOException if the size of the file cannot be read.
+     */
+    private static int rowCount(Path file) throws IOException {
+        return (int) (Files.size(file) / Integer.BYTES);
+    }
+
+    /**
+     * Read the rows of a partition written by spill.
+     *
+     * @param file the file of the partition.
+     * @return the rows.
+     * @throws IOException if the file cannot be read.
+     */
+    private static int[] readRows(Path file) throws IOException {
+        try (RowReader reader = RowReader.of(file)) {
+            int[] rows = new int[reader.remaining()];
+            for (int read = 0; read < rows.length; ) {
+                read += reader.read(rows, read);
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Build the result from the matched rows, adding the left rows without match for a LEFT join.
+     *
+     * @return a DataSet with the joined rows.
+     */
+    private DataSet assemble() {
+        // order the pairs by left row; pairs of a left row are already ordered by right row
+        int[] offsets = new int[left.rowCount() + 1];
+        for (int i = 0; i < pairCount; i++) {
+            offsets[leftRows[i] + 1]++;
+        }
+        boolean missing = false;
+        if (type == JoinType.LEFT) {
+            for (int row = 0; row < leftMatched.length; row++) {
+                if (!leftMatched[row]) {
+                    offsets[row + 1]++;
+                    missing = true;
+                }
+            }
+        }
+        for (int row = 0; row < left.rowCount(); row++) {
+            offsets[row + 1] += offsets[row];
+        }
+        int resultCount = offsets[left.rowCount()];
+        int[] resultLeft = new int[resultCount];
+        int[] resultRight = new int[resultCount];
+        for (int i = 0; i < pairCount; i++) {
+            int at = offsets[leftRows[i]]++;
+            resultLeft[at] = leftRows[i];
+            resultRight[at] = rightRows[i];
+        }
+        if (missing) {
+            for (int row = 0; row < leftMatched.length; row++) {
+                if (!leftMatched[row]) {
+                    int at = offsets[row]++;
+                    resultLeft[at] = row;
+                    resultRight[at] = MISSING;
+                }
+            }
+        }
+
+        List<String> labels = left.getLabels();
+        List<DataType> types = left.getDataTypes();
+        List<Column> columns = new ArrayList<>();
+        Column[] leftColumns = new Column[left.colCount()];
+        for (int col = 0; col < leftColumns.length; col++) {
+            leftColumns[col] = left.column(col);
+        }
+        columns.addAll(Arrays.asList(Column.select(leftColumns, resultLeft)));
+
+        List<Column> rightColumns = new ArrayList<>();
+        for (int col = 0; col < right.colCount(); col++) {
+            int finalCol = col;
+            if (Arrays.stream(rightKeys).anyMatch(key -> key == finalCol))
+                continue;
+            labels.add(right.getLabel(col));
+            types.add(right.getDataTypes().get(col));
+            rightColumns.add(right.column(col));
+        }
+        if (missing) {
+            for (Column column : rightColumns) {
+                columns.add(withMissing(column, resultRight));
+            }
+        } else {
+            columns.addAll(Arrays.asList(Column.select(rightColumns.toArray(new Column[0]), resultRight)));
+        }
+        return new DataSet(labels, types, columns.toArray(new Column[0]), resultCount);
+    }
+
+    /**
+     * Copy the given rows of a column, filling missing rows with 0 for INTEGER, NaN for DOUBLE,
+     * the empty string for STRING and an empty MultiPolygon for POLYGONS.
+     *
+     * @param column the column.
+     * @param rows row numbers, or MISSING.
+     * @return the new column.
+     */
+    private static Column withMissing(Column column, int[] rows) {
+        Column copy = Column.create(column.type(), rows.length);
+        Object fill;
+        switch (column.type()) {
+            case INTEGER:
+                fill = 0;
+                break;
+            case DOUBLE:
+                fill = Double.NaN;
+                break;
+            case STRING:
+                fill = "";
+                break;
+            default:
+                fill = MultiPolygon.of(new ArrayList<>());
+                break;
+        }
+        for (int row : rows) {
+            copy.add(row == MISSING ? fill : column.get(row));
+        }
+        copy.trim();
+        return copy;
+    }
+
+    /**
+     * Gather the key values of a batch of rows into batch.ints, or batch.doubles for DOUBLE keys.
+     *
+     * @param key the key column.
+     * @param rows row numbers.
+     * @param start position in rows of the batch.
+     * @param count number of rows in the batch, at most QueryEngine.BATCH_SIZE.
+     * @param batch the batch.
+     * @return number of rows in the batch.
+     */
+    private static int gather(Column key, int[] rows, int start, int count, QueryEngine.Batch batch) {
+        System.arraycopy(rows, start, batch.rows, 0, count);
+        if (key.type() == DataType.DOUBLE)
+            key.gatherDoubles(batch.rows, count, batch.doubles, batch.ints);
+        else
+            key.gatherInts(batch.rows, count, batch.ints);
+        return count;
+    }
+
+    private void addPair(int leftRow, int rightRow) {
+        if (pairCount == leftRows.length) {
+            leftRows = Arrays.copyOf(leftRows, pairCount * 2);
+            rightRows = Arrays.copyOf(rightRows, pairCount * 2);
+        }
+        leftRows[pairCount] = leftRow;
+        rightRows[pairCount] = rightRow;
+        pairCount++;
+        leftMatched[leftRow] = true;
+    }
+
+    private Column buildKey(int k) {
+        return buildLeft ? left.column(leftKeys[k]) : right.column(rightKeys[k]);
+    }
+
+    private Column probeKey(int k) {
+        return buildLeft ? right.column(rightKeys[k]) : left.column(leftKeys[k]);
+    }
+
+    private static long pack(int prev, int value) {
+        return ((long) prev << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    private static int[] range(int count) {
+        int[] rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = i;
+        }
+        return rows;
+    }
+
+    private static int mix(int hash) {
+        // spread the bits so that partitions stay balanced for keys like small integers
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * RowReader reads row numbers in increasing order, either all the rows of a side or the rows of a
+     * partition written by spill.
+     */
+    private static final class RowReader implements Closeable {
+
+        /**
+         * Stream of the partition file, null when reading a range of rows.
+         */
+        private final DataInputStream input;
+
+        /**
+         * Next row of a range.
+         */
+        private int next;
+
+        /**
+         * Number of rows left to read.
+         */
+        private int remaining;
+
+        private RowReader(DataInputStream input, int remaining) {
+            this.input = input;
+            this.remaining = remaining;
+        }
+
+        /**
+         * Return a reader of the rows from 0 to count - 1.
+         *
+         * @param count number of rows.
+         * @return the reader.
+         */
+        static RowReader range(int count) {
+            return new RowReader(null, count);
+        }
+
+        /**
+         * Return a reader of the rows of a partition written by spill.
+         *
+         * @param file the file of the partition.
+         * @return the reader.
+         * @throws IOException if the file cannot be opened.
+         */
+        static RowReader of(Path file) throws IOException {
+            return new RowReader(new DataInputStream(new BufferedInputStream(Files.newInputStream(file))), rowCount(file));
+        }
+
+        /**
+         * Return the number of rows left to read.
+         *
+         * @return the number of rows left.
+         */
+        int remaining() {
+            return remaining;
+        }
+
+        /**
+         * Read up to a batch of rows.
+         *
+         * @param rows array receiving the rows.
+         * @return number of rows read, 0 at the end.
+         * @throws IOException if the file cannot be read.
+         */
+        int read(int[] rows) throws IOException {
+            return read(rows, 0);
+        }
+
+        /**
+         * Read up to a batch of rows into an array from the given position.
+         *
+         * @param rows array receiving the rows.
+         * @param from position in rows of the first row read.
+         * @return number of rows read, 0 at the end.
+         * @throws IOException if the file cannot be read.
+         */
+        int read(int[] rows, int from) throws IOException {
+            int count = Math.min(Math.min(QueryEngine.BATCH_SIZE, rows.length - from), remaining);
+            for (int i = 0; i < count; i++) {
+                rows[from + i] = input == null ? next++ : input.readInt();
+            }
+            remaining -= count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (input != null)
+                input.close();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+/**
+ * JoinType enumerates the joins DataSet.join can perform. An INNER join keeps the rows of both data
+ * sets that have a match, a LEFT join also keeps the rows of the first data set that have none.
+ */
+public enum JoinType {
+    INNER, LEFT
+}
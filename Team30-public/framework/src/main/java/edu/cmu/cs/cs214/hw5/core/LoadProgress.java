@@ -0,0 +1,36 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+/**
+ * LoadProgress is passed to a data plugin loading a dataSet in the background. The plugin reports
+ * how far it has got through it, and should stop early once the load has been cancelled.
+ */
+public interface LoadProgress {
+
+    /**
+     * LoadProgress of a load nobody follows, which is never cancelled.
+     */
+    LoadProgress NONE = new LoadProgress() {
+        @Override
+        public void report(double fraction) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /**
+     * Report the fraction of the dataSet loaded so far.
+     *
+     * @param fraction fraction loaded, between 0 and 1.
+     */
+    void report(double fraction);
+
+    /**
+     * Return whether the load has been cancelled, in which case its result is discarded.
+     *
+     * @return true if the load has been cancelled.
+     */
+    boolean isCancelled();
+}
@@ -0,0 +1,111 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.Arrays;
+
+/**
+ * LongIdTable gives each distinct long key a dense number, in the order the keys are first seen.
+ * It is an open-addressing hash table with linear probing.
+ */
+final class LongIdTable {
+    private long[] keys = new long[16];
+
+    /**
+     * Number plus one of the key in each slot, 0 for empty slots.
+     */
+    private int[] ids = new int[16];
+
+    /**
+     * Row each key was first seen at, indexed by number.
+     */
+    private int[] firstRows = new int[16];
+
+    private int size;
+
+    /**
+     * Return the number of a key, numbering it if it is new.
+     *
+     * @param key the key.
+     * @param row row the key is seen at.
+     * @return number of the key.
+     */
+    int idOf(long key, int row) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (ids[slot] != 0) {
+            if (keys[slot] == key)
+                return ids[slot] - 1;
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        ids[slot] = size + 1;
+        if (size == firstRows.length)
+            firstRows = Arrays.copyOf(firstRows, size * 2);
+        firstRows[size] = row;
+        if (++size * 2 > keys.length)
+            grow();
+        return size - 1;
+    }
+
+    /**
+     * Return the number of a key, or -1 if it has not been numbered.
+     *
+     * @param key the key.
+     * @return number of the key, or -1.
+     */
+    int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (ids[slot] != 0) {
+            if (keys[slot] == key)
+                return ids[slot] - 1;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Return number of distinct keys.
+     *
+     * @return number of distinct keys.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Return the row each key was first seen at.
+     *
+     * @return first row of each key, indexed by number.
+     */
+    int[] firstRows() {
+        return Arrays.copyOf(firstRows, size);
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new long[oldKeys.length * 2];
+        ids = new int[oldIds.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldIds[i] == 0)
+                continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while (ids[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            ids[slot] = oldIds[i];
+        }
+    }
+
+    private static int hash(long key) {
+        // finalizer of MurmurHash3, so that keys differing only in their high bits spread out
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -1,12 +1,14 @@
 package edu.cmu.cs.cs214.hw5.core;
 
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
- * MultiPolygon represents a set of contours.
+ * MultiPolygon represents a set of contours. The points of all contours are packed into two arrays
+ * of coordinates, contour after contour, so that a MultiPolygon holds no object per point and can
+ * be read and drawn without allocating.
  */
 public final class MultiPolygon {
 
@@ -23,7 +25,7 @@ public final class MultiPolygon {
             throw new UnsupportedOperationException();
         }
     }
-    
+
     /**
      * Right bound and left bound of MultiPolygon.
      */
@@ -35,27 +37,38 @@ public final class MultiPolygon {
     private final double maxY, minY;
 
     /**
-     * List of areas represented points.
+     * X coordinates of the points of all contours.
      */
-    private final List<List<Point2D>> polygons;
+    private final double[] xs;
 
     /**
-     * Initialize a MultiPolygon object.
-     * 
-     * @param points a collection of points composing this polygons.
+     * Y coordinates of the points of all contours.
      */
-    MultiPolygon(List<List<Point2D>> points) {
-        if (points == null)
-            throw new NullPointerException();
-        this.polygons = points;
+    private final double[] ys;
+
+    /**
+     * Start index of each contour in xs and ys, followed by the end index of the last contour,
+     * so that contour i spans offsets[i] to offsets[i + 1] and there are offsets.length - 1 contours.
+     */
+    private final int[] offsets;
+
+    /**
+     * Initialize a MultiPolygon object from packed coordinates, which it keeps without copying.
+     *
+     * @param xs x coordinates of all points.
+     * @param ys y coordinates of all points.
+     * @param offsets start index of each contour, followed by the end index of the last contour.
+     */
+    MultiPolygon(double[] xs, double[] ys, int[] offsets) {
+        this.xs = xs;
+        this.ys = ys;
+        this.offsets = offsets;
         double maxX = Integer.MIN_VALUE, minX = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE, minY = Integer.MAX_VALUE;
-        for (List<Point2D> polygon : polygons) {
-            for (Point2D point : polygon) {
-                maxX = Math.max(maxX, point.getX());
-                maxY = Math.max(maxY, point.getY());
-                minX = Math.min(minX, point.getX());
-                minY = Math.min(minY, point.getY());
-            }
+        for (int i = offsets[0]; i < offsets[offsets.length - 1]; i++) {
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
         }
         this.maxX = maxX;
         this.maxY = maxY;
@@ -63,9 +76,35 @@ public final class MultiPolygon {
         this.minY = minY;
     }
 
+    /**
+     * Create a MultiPolygon from a copy of the given points.
+     *
+     * @param points a collection of polygons, each a list of points.
+     * @return the MultiPolygon.
+     */
+    public static MultiPolygon of(List<List<Point2D>> points) {
+        if (points == null)
+            throw new NullPointerException();
+        int[] offsets = new int[points.size() + 1];
+        for (int i = 0; i < points.size(); i++) {
+            offsets[i + 1] = offsets[i] + points.get(i).size();
+        }
+        double[] xs = new double[offsets[points.size()]];
+        double[] ys = new double[xs.length];
+        int i = 0;
+        for (List<Point2D> polygon : points) {
+            for (Point2D point : polygon) {
+                xs[i] = point.getX();
+                ys[i] = point.getY();
+                i++;
+            }
+        }
+        return new MultiPolygon(xs, ys, offsets);
+    }
+
     /**
      * Return the right bound.
-     * 
+     *
      * @return the right bound of MultiPolygon.
      */
     public double getMaxX() {
@@ -99,22 +138,136 @@ public final class MultiPolygon {
         return minY;
     }
 
+    /**
+     * Return the number of contours of this MultiPolygon.
+     *
+     * @return the number of contours.
+     */
+    public int ringCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Return the number of points of a contour.
+     *
+     * @param ring index of the contour.
+     * @return the number of points.
+     */
+    public int ringLength(int ring) {
+        return offsets[ring + 1] - offsets[ring];
+    }
+
+    /**
+     * Return the x coordinate of a point of a contour.
+     *
+     * @param ring index of the contour.
+     * @param index index of the point in the contour.
+     * @return the x coordinate.
+     */
+    public double getX(int ring, int index) {
+        return xs[pointIndex(ring, index)];
+    }
+
+    /**
+     * Return the y coordinate of a point of a contour.
+     *
+     * @param ring index of the contour.
+     * @param index index of the point in the contour.
+     * @return the y coordinate.
+     */
+    public double getY(int ring, int index) {
+        return ys[pointIndex(ring, index)];
+    }
+
+    private int pointIndex(int ring, int index) {
+        if (index < 0 || index >= ringLength(ring))
+            throw new IndexOutOfBoundsException(index);
+        return offsets[ring] + index;
+    }
+
+    /**
+     * Transform the points of a contour and write them, cast to int, into the given arrays, ready
+     * to be drawn by Graphics.drawPolygon or fillPolygon.
+     *
+     * @param ring index of the contour.
+     * @param transform the transform applied to each point.
+     * @param xPoints array receiving the x coordinates, at least ringLength(ring) long.
+     * @param yPoints array receiving the y coordinates, at least ringLength(ring) long.
+     */
+    public void transformRing(int ring, AffineTransform transform, int[] xPoints, int[] yPoints) {
+        int from = offsets[ring];
+        int length = ringLength(ring);
+        if (xPoints.length < length || yPoints.length < length)
+            throw new IllegalArgumentException("Arrays Too Short");
+        double m00 = transform.getScaleX();
+        double m01 = transform.getShearX();
+        double m02 = transform.getTranslateX();
+        double m10 = transform.getShearY();
+        double m11 = transform.getScaleY();
+        double m12 = transform.getTranslateY();
+        for (int i = 0; i < length; i++) {
+            double x = xs[from + i];
+            double y = ys[from + i];
+            xPoints[i] = (int) (m00 * x + m01 * y + m02);
+            yPoints[i] = (int) (m10 * x + m11 * y + m12);
+        }
+    }
+
     /**
      * Return a list of polygons composing this MultiPolygon. Each polygon is a list of points.
-     * 
+     * The lists are read-only views of this MultiPolygon which create points as they are read,
+     * so the accessors of contours are cheaper.
+     *
      * @return a list of polygons composing this MultiPolygon.
      */
     public List<List<Point2D>> getPoints() {
-        return polygons.stream().map(ArrayList::new).collect(Collectors.toList());
+        return new AbstractList<>() {
+            @Override
+            public List<Point2D> get(int ring) {
+                if (ring < 0 || ring >= ringCount())
+                    throw new IndexOutOfBoundsException(ring);
+                return new Ring(ring);
+            }
+
+            @Override
+            public int size() {
+                return ringCount();
+            }
+        };
     }
 
     /**
      * Return a string representing the polygons.
-     * 
+     *
      * @return a string representing the polygons.
      */
     @Override
     public String toString() {
-        return polygons.toString();
+        return getPoints().toString();
+    }
+
+    /**
+     * Ring is a read-only view of the points of a contour.
+     */
+    private final class Ring extends AbstractList<Point2D> {
+
+        /**
+         * Index of the contour.
+         */
+        private final int ring;
+
+        Ring(int ring) {
+            this.ring = ring;
+        }
+
+        @Override
+        public Point2D get(int index) {
+            return new ImmutablePoint2D(getX(ring, index), getY(ring, index));
+        }
+
+        @Override
+        public int size() {
+            return ringLength(ring);
+        }
     }
 }
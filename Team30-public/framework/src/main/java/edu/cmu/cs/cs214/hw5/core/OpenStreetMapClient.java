@@ -1,34 +1,77 @@
 package edu.cmu.cs.cs214.hw5.core;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonSyntaxException;
 import org.apache.commons.lang3.tuple.Triple;
 
-import java.awt.geom.Point2D;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
- * Utility functions of OpenStreetMap API.
+ * Utility functions of OpenStreetMap API. Queries are sent asynchronously, at most
+ * DEFAULT_REQUESTS_PER_SECOND per second and DEFAULT_MAX_REQUESTS_PER_HOST at a time to each host
+ * by default, as the Nominatim usage policy asks.
  */
-class OpenStreetMapClient {
+class OpenStreetMapClient implements Geocoder {
     
     /**
-     * Gson used to convert between JSON and Objects.
+     * Requests allowed per second to a host by default, the most Nominatim allows.
      */
-    private static final Gson GSON = new Gson();
+    static final double DEFAULT_REQUESTS_PER_SECOND = 1;
+
+    /**
+     * Maximum number of requests in flight to a host by default.
+     */
+    static final int DEFAULT_MAX_REQUESTS_PER_HOST = 2;
+
+    /**
+     * Number of times a request is sent before giving up.
+     */
+    private static final int MAX_ATTEMPTS = 4;
+
+    /**
+     * Delay before the first retry of a request, in milliseconds.
+     */
+    private static final long BASE_BACKOFF_MILLIS = 1000;
+
+    /**
+     * Longest delay before retrying a request, in milliseconds.
+     */
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+
+    private static final int HTTP_OK = 200;
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Scheduler sending the requests held back by rate limits and retries.
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "geocode-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * Http Client Object.
@@ -37,61 +80,160 @@ class OpenStreetMapClient {
 
     private final boolean printStatus;
 
-    OpenStreetMapClient(HttpClient client, boolean printStatus) {
+    /**
+     * Results of previous queries.
+     */
+    private final GeocodeCache cache;
+
+    /**
+     * Requests allowed per second to each host.
+     */
+    private final double requestsPerSecond;
+
+    /**
+     * Maximum number of requests in flight to each host.
+     */
+    private final int maxRequestsPerHost;
+
+    /**
+     * Hosts queried, by name.
+     */
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    OpenStreetMapClient(HttpClient client, boolean printStatus, GeocodeCache cache) {
+        this(client, printStatus, cache, DEFAULT_REQUESTS_PER_SECOND, DEFAULT_MAX_REQUESTS_PER_HOST);
+    }
+
+    /**
+     * Create a client limiting the requests sent to each host.
+     *
+     * @param client Http Client Object.
+     * @param printStatus whether to print the requests sent.
+     * @param cache results of previous queries.
+     * @param requestsPerSecond requests allowed per second to each host, positive.
+     * @param maxRequestsPerHost maximum number of requests in flight to each host, at least 1.
+     */
+    OpenStreetMapClient(HttpClient client, boolean printStatus, GeocodeCache cache,
+                        double requestsPerSecond, int maxRequestsPerHost) {
+        if (requestsPerSecond <= 0 || maxRequestsPerHost < 1)
+            throw new IllegalArgumentException("Invalid Rate Limit");
         this.client = client;
         this.printStatus = printStatus;
+        this.cache = cache;
+        this.requestsPerSecond = requestsPerSecond;
+        this.maxRequestsPerHost = maxRequestsPerHost;
     }
 
     private static final String URI_PREFIX =
             "https://nominatim.openstreetmap.org/search?format=json&limit=1&polygon_geojson=1";
 
+    @Override
+    public String getName() {
+        return "OpenStreetMap";
+    }
+
     /**
      * Batch Query given an array of GeoAddress.
      * 
      * @param addressArray an array of GeoAddress used for batch query.
-     * @param unfounded a set to stored unfound address
-     * @return a list of Triple of longitude, latitude and polygons.
-     */
-    List<Triple<Double, Double, MultiPolygon>> batchQuery(GeoAddress[] addressArray, Set unfounded, String threshold) {
-        List<GeoAddress> addresses = Arrays.stream(addressArray).distinct().collect(Collectors.toList());
-        Map<GeoAddress, Triple<Double, Double, MultiPolygon>> res = new ConcurrentHashMap<>();
-        addresses.parallelStream().forEach(a -> res.put(a, queryByAdress(a, threshold)));
-        return Arrays.stream(addressArray).map(a -> {
-            if (res.get(a).getLeft() == null) {
-                unfounded.add(a);
-                return null;
-            }
-            return res.get(a);
-        }).collect(Collectors.toList());
+     * @param unfounded a set to stored unfound address, including addresses that failed.
+     * @param threshold polygon threshold of the query.
+     * @param progress progress reported as addresses are queried, and checked for cancellation.
+     * @return future of a list of Triple of longitude, latitude and polygons, null for an address not found.
+     */
+    @Override
+    public CompletableFuture<List<Triple<Double, Double, MultiPolygon>>> geocode(
+            GeoAddress[] addressArray, Set<Object> unfounded, String threshold, LoadProgress progress) {
+        return batchQuery(addressArray, unfounded, a -> GeocodeCache.key(a, threshold),
+                a -> queryByAdress(a, threshold, progress), progress);
     }
 
     /**
      * Batch Query given a string representing the address.
      * 
      * @param addressArray a string representing the address used for batch query.
-     * @param unfounded a set to stored unfound address
-     * @return a list of Triple of longitude, latitude and polygons.
-     */
-    List<Triple<Double, Double, MultiPolygon>> batchQuery(String[] addressArray, Set unfounded, String threshold) {
-        List<String> addresses = Arrays.stream(addressArray).distinct().collect(Collectors.toList());
-        Map<String, Triple<Double, Double, MultiPolygon>> res = new ConcurrentHashMap<>();
-        addresses.parallelStream().forEach(a -> res.put(a, queryByAdress(a, threshold)));
-        return Arrays.stream(addressArray).map(a -> {
-            if (res.get(a).getLeft() == null) {
-                unfounded.add(a);
+     * @param unfounded a set to stored unfound address, including addresses that failed.
+     * @param threshold polygon threshold of the query.
+     * @param progress progress reported as addresses are queried, and checked for cancellation.
+     * @return future of a list of Triple of longitude, latitude and polygons, null for an address not found.
+     */
+    @Override
+    public CompletableFuture<List<Triple<Double, Double, MultiPolygon>>> geocode(
+            String[] addressArray, Set<Object> unfounded, String threshold, LoadProgress progress) {
+        return batchQuery(addressArray, unfounded, a -> GeocodeCache.key(a, threshold),
+                a -> queryByAdress(a, threshold, progress), progress);
+    }
+
+    /**
+     * Query each distinct address once, all at the same time, leaving it to the hosts to hold the
+     * requests back. An address whose query fails is treated as not found without failing the others.
+     *
+     * @param addressArray addresses used for batch query.
+     * @param unfounded a set to stored unfound address.
+     * @param key cache key of an address.
+     * @param query query of an address.
+     * @param progress progress reported as addresses are queried.
+     * @param <T> type of the addresses.
+     * @return future of a list of Triple of longitude, latitude and polygons, null for an address not found.
+     */
+    private <T> CompletableFuture<List<Triple<Double, Double, MultiPolygon>>> batchQuery(
+            T[] addressArray, Set<Object> unfounded, Function<T, String> key,
+            Function<T, CompletableFuture<Triple<Double, Double, MultiPolygon>>> query, LoadProgress progress) {
+        List<T> addresses = Arrays.stream(addressArray).distinct().collect(Collectors.toList());
+        Map<T, Triple<Double, Double, MultiPolygon>> res = new ConcurrentHashMap<>();
+        AtomicInteger done = new AtomicInteger();
+        CompletableFuture<?>[] queries = new CompletableFuture<?>[addresses.size()];
+        for (int i = 0; i < queries.length; i++) {
+            T a = addresses.get(i);
+            queries[i] = cachedQuery(key.apply(a), () -> query.apply(a)).handle((r, ex) -> {
+                if (ex == null)
+                    res.put(a, r);
+                else if (!(unwrap(ex) instanceof CancellationException))
+                    System.out.println("Failed to geocode " + a + ": " + unwrap(ex));
+                progress.report((double) done.incrementAndGet() / queries.length);
                 return null;
-            }
-            return res.get(a);
-        }).collect(Collectors.toList());
+            });
+        }
+        return CompletableFuture.allOf(queries).whenComplete((v, ex) -> cache.flush()).thenApply(v ->
+            Arrays.stream(addressArray).map(a -> {
+                Triple<Double, Double, MultiPolygon> r = res.get(a);
+                if (r == null || r.getLeft() == null) {
+                    unfounded.add(a);
+                    return null;
+                }
+                return r;
+            }).collect(Collectors.toList()));
+    }
+
+    /**
+     * Return the cached result of a query, running the query if it is not cached. Failed queries
+     * are not cached.
+     *
+     * @param key cache key of the query.
+     * @param query the query.
+     * @return future of a Triple of longitude, latitude and polygons.
+     */
+    private CompletableFuture<Triple<Double, Double, MultiPolygon>> cachedQuery(
+            String key, Supplier<CompletableFuture<Triple<Double, Double, MultiPolygon>>> query) {
+        Triple<Double, Double, MultiPolygon> res = cache.get(key);
+        if (res != null)
+            return CompletableFuture.completedFuture(res);
+        return query.get().thenApply(r -> {
+            cache.put(key, r);
+            return r;
+        });
     }
 
     /**
      * Query given a GeoAddress.
      * 
      * @param addr GeoAddress representation of address.
-     * @return a Triple of longitude, latitude and polygons.
+     * @param threshold polygon threshold of the query.
+     * @param progress progress checked for cancellation.
+     * @return future of a Triple of longitude, latitude and polygons.
      */
-    Triple<Double, Double, MultiPolygon> queryByAdress(GeoAddress addr, String threshold) {
+    CompletableFuture<Triple<Double, Double, MultiPolygon>> queryByAdress(GeoAddress addr, String threshold,
+                                                                         LoadProgress progress) {
         StringBuilder sb = new StringBuilder(URI_PREFIX);
         if (addr.getCountry() != null)
             sb.append("&country=" + addr.getCountry());
@@ -104,120 +246,265 @@ class OpenStreetMapClient {
         if (addr.getStreet() != null)
             sb.append("&street=" + addr.getStreet());
         sb.append("&polygon_threshold=" + threshold);
-        Triple<Double, Double, MultiPolygon> res = queryByUri(sb.toString());
-        if (res.getLeft() != null)
-            return res;
-        else
-            return queryByAdress(addr.toString(), threshold);
+        return queryByUri(sb.toString(), progress).thenCompose(res -> {
+            if (res.getLeft() != null)
+                return CompletableFuture.completedFuture(res);
+            else
+                return queryByAdress(addr.toString(), threshold, progress);
+        });
     }
 
     /**
      * Query given a string representation of address.
      * 
      * @param s a string representation of address.
-     * @return a Triple of longitude, latitude and polygons.
+     * @param threshold polygon threshold of the query.
+     * @param progress progress checked for cancellation.
+     * @return future of a Triple of longitude, latitude and polygons.
      */
-    Triple<Double, Double, MultiPolygon> queryByAdress(String s, String threshold) {
+    CompletableFuture<Triple<Double, Double, MultiPolygon>> queryByAdress(String s, String threshold,
+                                                                         LoadProgress progress) {
         String uri = URI_PREFIX + "&q=" + s + "&polygon_threshold=" + threshold;
-        return queryByUri(uri);
-
+        return queryByUri(uri, progress);
     }
 
     /**
      * Query by using OpenStreetMap API with given uri.
      * 
      * @param uri uri used to query.
-     * @return a Triple of longitude, latitude and polygons.
-     */
-    Triple<Double, Double, MultiPolygon> queryByUri(String uri) {
-        uri = uri.replaceAll(" ", "%20");
-        uri = uri.replaceAll(",", "%2C");
-        System.out.println("Connecting to " + uri + "...: \t");
-        String responseBody;
-        QueryResult[] results;
+     * @param progress progress checked for cancellation.
+     * @return future of a Triple of longitude, latitude and polygons.
+     */
+    CompletableFuture<Triple<Double, Double, MultiPolygon>> queryByUri(String uri, LoadProgress progress) {
+        String escaped = uri.replaceAll(" ", "%20").replaceAll(",", "%2C");
+        HttpRequest request;
         try {
-            HttpRequest request = HttpRequest.newBuilder(new URI(uri)).build();
-            responseBody = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
-            results = GSON.fromJson(responseBody, QueryResult[].class);
-        } catch (URISyntaxException | IOException | InterruptedException | JsonSyntaxException e) {
-            if (printStatus)
-                System.out.println("Failed to connect to " + uri);
-            throw new IllegalArgumentException(String.format(
-                    "Unable to connect to OpenStreetMap. Please Retry. %n%s",
-                    URI_PREFIX));
+            request = HttpRequest.newBuilder(new URI(escaped)).build();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid Address: " + uri));
         }
-        if (printStatus)
-            System.out.println("Connected to " + uri);
-        if (results.length == 0) {
-            System.out.println("Address Not Found: " + uri.substring(URI_PREFIX.length() + 1));
-            return Triple.of(null, null, null);
-        }
-        GeoGson geojson = results[0].geojson;
-        String type = geojson.type;
-        List<List<Point2D>> boundaries = new ArrayList<>();
-        if (type.equals("MultiPolygon")) {
-            double[][][][] coordinates = GSON.fromJson(geojson.coordinates, double[][][][].class);
-            for (double[][][] polygon : coordinates) {
-                boundaries.add(parsePolygon(polygon));
+        return send(request, progress, 1).thenApply(responseBody -> parseResult(escaped, responseBody));
+    }
+
+    /**
+     * Send a request once the host allows it, retrying after a growing, randomized delay when the
+     * connection fails, the host is overloaded or it asks to slow down.
+     *
+     * @param request the request.
+     * @param progress progress checked for cancellation before sending.
+     * @param attempt number of the attempt, from 1.
+     * @return future of the stream of the response body, completed once the headers are received.
+     */
+    private CompletableFuture<InputStream> send(HttpRequest request, LoadProgress progress, int attempt) {
+        Host host = hosts.computeIfAbsent(request.uri().getHost(), h -> new Host(requestsPerSecond, maxRequestsPerHost));
+        CompletableFuture<InputStream> result = new CompletableFuture<>();
+        // a cancelled request is dropped while it waits for a slot, before it reserves a token
+        Runnable cancelled = () -> result.completeExceptionally(new CancellationException());
+        host.acquire(progress, cancelled, () -> SCHEDULER.schedule(() -> {
+            if (progress.isCancelled()) {
+                host.release();
+                cancelled.run();
+                return;
             }
-        } else if (type.equals("Polygon")) {
-            double[][][] polygon = GSON.fromJson(geojson.coordinates, double[][][].class);
-            boundaries.add(parsePolygon(polygon));
+            if (printStatus)
+                System.out.println("Connecting to " + request.uri() + "...: \t");
+            CompletableFuture<HttpResponse<InputStream>> response;
+            try {
+                response = client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+            } catch (RuntimeException ex) {
+                response = CompletableFuture.failedFuture(ex);
+            }
+            response.whenComplete((r, ex) -> {
+                host.release();
+                Throwable cause = ex == null ? null : unwrap(ex);
+                if (cause == null && r.statusCode() == HTTP_OK) {
+                    if (printStatus)
+                        System.out.println("Connected to " + request.uri());
+                    result.complete(r.body());
+                    return;
+                }
+                if (cause == null)
+                    discard(r.body());
+                boolean retry = cause == null ? r.statusCode() == HTTP_TOO_MANY_REQUESTS || r.statusCode() >= 500
+                        : cause instanceof IOException;
+                if (printStatus)
+                    System.out.println("Failed to connect to " + request.uri());
+                if (!retry || attempt >= MAX_ATTEMPTS) {
+                    result.completeExceptionally(cause != null ? cause
+                            : new IOException("OpenStreetMap Responded With Status " + r.statusCode()));
+                    return;
+                }
+                long delay = Math.max(backoff(attempt), cause == null ? retryAfter(r) : 0);
+                SCHEDULER.schedule(() -> send(request, progress, attempt + 1).whenComplete((body, retryEx) -> {
+                    if (retryEx == null)
+                        result.complete(body);
+                    else
+                        result.completeExceptionally(unwrap(retryEx));
+                }), delay, TimeUnit.MILLISECONDS);
+            });
+        }, host.limiter.reserve(), TimeUnit.MILLISECONDS));
+        return result;
+    }
+
+    /**
+     * Return the delay before retrying a request, doubling at each attempt and randomized so that
+     * requests failing together are not retried together.
+     *
+     * @param attempt number of the attempt that failed, from 1.
+     * @return the delay in milliseconds.
+     */
+    private static long backoff(int attempt) {
+        long delay = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (attempt - 1));
+        return (long) (delay * (0.5 + ThreadLocalRandom.current().nextDouble()));
+    }
+
+    /**
+     * Return the delay asked by the Retry-After header of a response.
+     *
+     * @param response the response.
+     * @return the delay in milliseconds, 0 if there is none.
+     */
+    private static long retryAfter(HttpResponse<?> response) {
+        try {
+            return response.headers().firstValue("Retry-After")
+                    .map(s -> TimeUnit.SECONDS.toMillis(Long.parseLong(s.strip())))
+                    .map(delay -> Math.min(delay, MAX_BACKOFF_MILLIS)).orElse(0L);
+        } catch (NumberFormatException ex) {
+            return 0;
         }
-        if (boundaries.size() == 0)
-            boundaries.add(List.of(new Point2D.Double(results[0].lon, results[0].lat)));
+    }
 
-        return Triple.of(results[0].lon, results[0].lat, new MultiPolygon(boundaries));
+    private static void discard(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException ex) {
+            // the connection is dropped anyway
+        }
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
     }
 
     /**
-     * Parse 2-D array representation of polygon to List representation.
-     * 
-     * @param polygon 2-D array representation of polygon.
-     * @return List representation of polygon.
-     */
-    private static List<Point2D> parsePolygon(double[][][] polygon) {
-        List<Point2D> res = new ArrayList<>();
-        for (double[][] c1 : polygon) {
-            for (double[] c : c1) {
-                res.add(new MultiPolygon.ImmutablePoint2D(c[0], c[1]));
-            }
+     * Parse the response of a query as it is received.
+     *
+     * @param uri uri used to query.
+     * @param responseBody stream of the body of the response, closed once read.
+     * @return a Triple of longitude, latitude and polygons, all null if the address was not found.
+     */
+    private static Triple<Double, Double, MultiPolygon> parseResult(String uri, InputStream responseBody) {
+        Triple<Double, Double, MultiPolygon> res;
+        try (InputStream in = responseBody) {
+            res = GeoJsonReader.readFirstResult(in);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid Response From OpenStreetMap: " + e.getMessage());
         }
+        if (res.getLeft() == null)
+            System.out.println("Address Not Found: " + uri.substring(URI_PREFIX.length() + 1));
         return res;
     }
 
     /**
-     * Object representing the query result.
+     * Host holds back the requests sent to a host, granting them at its rate and no more at a time
+     * than its maximum, in the order they come.
      */
-    private static class QueryResult {
+    private static final class Host {
+
         /**
-         * Longitude.
+         * Rate limit of the host.
          */
-        private double lon;
+        private final RateLimiter limiter;
 
         /**
-         * Latitude.
+         * Maximum number of requests in flight.
          */
-        private double lat;
-        
+        private final int maxRequests;
+
         /**
-         * GeoGson representation of polygons.
+         * Requests waiting for one in flight to complete.
          */
-        private GeoGson geojson;
+        private final Deque<Waiting> waiting = new ArrayDeque<>();
+
+        /**
+         * Number of requests in flight.
+         */
+        private int inFlight;
+
+        Host(double requestsPerSecond, int maxRequests) {
+            this.limiter = new RateLimiter(requestsPerSecond, 1);
+            this.maxRequests = maxRequests;
+        }
+
+        /**
+         * Run a request now if fewer than the maximum are in flight, or once one completes. A
+         * request cancelled before its turn is dropped without taking a slot.
+         *
+         * @param progress progress checked for cancellation before the request runs.
+         * @param cancelled task run instead of the request if it is cancelled.
+         * @param request task starting the request.
+         */
+        void acquire(LoadProgress progress, Runnable cancelled, Runnable request) {
+            if (progress.isCancelled()) {
+                cancelled.run();
+                return;
+            }
+            synchronized (this) {
+                if (inFlight >= maxRequests) {
+                    waiting.add(new Waiting(progress, cancelled, request));
+                    return;
+                }
+                inFlight++;
+            }
+            request.run();
+        }
+
+        /**
+         * Record that a request has completed, running the next one waiting that is not cancelled.
+         */
+        void release() {
+            while (true) {
+                Waiting next;
+                synchronized (this) {
+                    next = waiting.poll();
+                    if (next == null) {
+                        inFlight--;
+                        return;
+                    }
+                }
+                if (!next.progress.isCancelled()) {
+                    next.request.run();
+                    return;
+                }
+                next.cancelled.run();
+            }
+        }
     }
 
     /**
-     * GeoGson representation of polygon.
+     * Waiting is a request held back by a host until a slot is free.
      */
-    private static class GeoGson {
+    private static final class Waiting {
+
+        /**
+         * Progress checked for cancellation before the request runs.
+         */
+        private final LoadProgress progress;
+
         /**
-         * Type of polygon.
+         * Task run instead of the request if it is cancelled.
          */
-        private String type;
+        private final Runnable cancelled;
 
         /**
-         * Coordinates composing the polygon.
+         * Task starting the request.
          */
-        private JsonElement coordinates;
+        private final Runnable request;
+
+        Waiting(LoadProgress progress, Runnable cancelled, Runnable request) {
+            this.progress = progress;
+            this.cancelled = cancelled;
+            this.request = request;
+        }
     }
 }
@@ -0,0 +1,565 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * QueryEngine runs compiled filters and sorts over the rows of a DataSet.
+ *
+ * Filters are compiled into kernels, each specialized for the type of its column. A kernel
+ * processes rows in batches: it gathers the column values of a batch into a primitive array
+ * and tests them in a tight loop, without boxing or a call per row. Sorts extract one primitive
+ * key per row and column, then sort the rows by their keys. Large data sets are split into
+ * chunks processed in parallel on the common fork-join pool.
+ */
+final class QueryEngine {
+
+    /**
+     * Number of rows processed by a kernel at once.
+     */
+    static final int BATCH_SIZE = 1024;
+
+    /**
+     * Minimum number of rows for a filter or sort to run in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * Number of rows below which a parallel task is not split further.
+     */
+    private static final int PARALLEL_CHUNK = 1 << 14;
+
+    /**
+     * Comparison outcome "less than", as a bit of an operator mask.
+     */
+    static final int LESS = 1;
+
+    /**
+     * Comparison outcome "equal", as a bit of an operator mask.
+     */
+    static final int EQUAL = 2;
+
+    /**
+     * Comparison outcome "greater than", as a bit of an operator mask.
+     */
+    static final int GREATER = 4;
+
+    private QueryEngine() {
+    }
+
+    /**
+     * Kernel is a compiled filtering rule.
+     */
+    interface Kernel {
+
+        /**
+         * Keep the rows of a batch satisfying the rule. The rows kept are moved to the front of
+         * batch.rows, in their original order.
+         *
+         * @param batch batch holding the row numbers to test.
+         * @param count number of rows in the batch.
+         * @return number of rows kept.
+         */
+        int select(Batch batch, int count);
+    }
+
+    /**
+     * Batch holds the row numbers processed by a kernel at once and the buffers its column values
+     * are gathered into. Each thread uses its own batch.
+     */
+    static final class Batch {
+        final int[] rows = new int[BATCH_SIZE];
+        final int[] ints = new int[BATCH_SIZE];
+        final double[] doubles = new double[BATCH_SIZE];
+    }
+
+    /**
+     * Test a comparison outcome against an operator mask.
+     *
+     * @param mask operator mask made of LESS, EQUAL and GREATER.
+     * @param cmp comparison outcome, -1, 0 or 1.
+     * @return true if the mask accepts the outcome.
+     */
+    static boolean accepts(int mask, int cmp) {
+        return ((mask >> (cmp + 1)) & 1) != 0;
+    }
+
+    /**
+     * Return a kernel comparing an INTEGER column with a value.
+     *
+     * @param column the column.
+     * @param mask operator mask made of LESS, EQUAL and GREATER.
+     * @param value value compared with.
+     * @return the kernel.
+     */
+    static Kernel compareInts(Column column, int mask, int value) {
+        return (batch, count) -> {
+            int[] rows = batch.rows;
+            int[] values = batch.ints;
+            column.gatherInts(rows, count, values);
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (accepts(mask, Integer.compare(values[i], value)))
+                    rows[kept++] = rows[i];
+            }
+            return kept;
+        };
+    }
+
+    /**
+     * Return a kernel comparing a DOUBLE column with a value, in the order of Double.compare.
+     *
+     * @param column the column.
+     * @param mask operator mask made of LESS, EQUAL and GREATER.
+     * @param value value compared with.
+     * @return the kernel.
+     */
+    static Kernel compareDoubles(Column column, int mask, double value) {
+        return (batch, count) -> {
+            int[] rows = batch.rows;
+            double[] values = batch.doubles;
+            column.gatherDoubles(rows, count, values, batch.ints);
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (accepts(mask, Double.compare(values[i], value)))
+                    rows[kept++] = rows[i];
+            }
+            return kept;
+        };
+    }
+
+    /**
+     * Return a kernel keeping the rows of a STRING column whose dictionary code is accepted.
+     *
+     * @param column the column.
+     * @param accepted whether each dictionary code is accepted.
+     * @return the kernel.
+     */
+    static Kernel lookupCodes(Column column, boolean[] accepted) {
+        return (batch, count) -> {
+            int[] rows = batch.rows;
+            int[] codes = batch.ints;
+            column.gatherInts(rows, count, codes);
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (accepted[codes[i]])
+                    rows[kept++] = rows[i];
+            }
+            return kept;
+        };
+    }
+
+    /**
+     * Return a kernel keeping the rows of an INTEGER column whose value is in a set.
+     *
+     * @param column the column.
+     * @param sortedValues the values of the set, sorted.
+     * @return the kernel.
+     */
+    static Kernel containsInts(Column column, int[] sortedValues) {
+        return (batch, count) -> {
+            int[] rows = batch.rows;
+            int[] values = batch.ints;
+            column.gatherInts(rows, count, values);
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (Arrays.binarySearch(sortedValues, values[i]) >= 0)
+                    rows[kept++] = rows[i];
+            }
+            return kept;
+        };
+    }
+
+    /**
+     * Return a kernel keeping the rows of a DOUBLE column whose value is in a set, in the
+     * equality of Double.equals.
+     *
+     * @param column the column.
+     * @param sortedValues the values of the set, sorted.
+     * @return the kernel.
+     */
+    static Kernel containsDoubles(Column column, double[] sortedValues) {
+        return (batch, count) -> {
+            int[] rows = batch.rows;
+            double[] values = batch.doubles;
+            column.gatherDoubles(rows, count, values, batch.ints);
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (Arrays.binarySearch(sortedValues, values[i]) >= 0)
+                    rows[kept++] = rows[i];
+            }
+            return kept;
+        };
+    }
+
+    /**
+     * Return a kernel keeping the rows kept by all the given kernels.
+     *
+     * @param kernels the kernels.
+     * @return the kernel.
+     */
+    static Kernel and(List<Kernel> kernels) {
+        if (kernels.size() == 1)
+            return kernels.get(0);
+        Kernel[] children = kernels.toArray(new Kernel[0]);
+        return (batch, count) -> {
+            int kept = count;
+            for (Kernel child : children) {
+                if (kept == 0)
+                    break;
+                kept = child.select(batch, kept);
+            }
+            return kept;
+        };
+    }
+
+    /**
+     * Return a kernel keeping the rows kept by any of the given kernels.
+     *
+     * @param kernels the kernels.
+     * @return the kernel.
+     */
+    static Kernel or(List<Kernel> kernels) {
+        if (kernels.size() == 1)
+            return kernels.get(0);
+        Kernel[] children = kernels.toArray(new Kernel[0]);
+        return (batch, count) -> {
+            int[] input = Arrays.copyOf(batch.rows, count);
+            boolean[] matched = new boolean[count];
+            // positions in input of the rows no kernel has kept yet, only those are tested further
+            int[] pending = new int[count];
+            for (int i = 0; i < count; i++) {
+                pending[i] = i;
+            }
+            int pendingCount = count;
+            for (Kernel child : children) {
+                if (pendingCount == 0)
+                    break;
+                for (int k = 0; k < pendingCount; k++) {
+                    batch.rows[k] = input[pending[k]];
+                }
+                int kept = child.select(batch, pendingCount);
+                // the rows kept are a subsequence of the rows tested
+                int j = 0;
+                int remaining = 0;
+                for (int k = 0; k < pendingCount; k++) {
+                    if (j < kept && batch.rows[j] == input[pending[k]]) {
+                        matched[pending[k]] = true;
+                        j++;
+                    } else {
+                        pending[remaining++] = pending[k];
+                    }
+                }
+                pendingCount = remaining;
+            }
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (matched[i])
+                    batch.rows[kept++] = input[i];
+            }
+            return kept;
+        };
+    }
+
+    /**
+     * Return the rows of a data set kept by a kernel.
+     *
+     * @param kernel the kernel.
+     * @param rowCount number of rows of the data set.
+     * @param parallel whether a large data set may be filtered in parallel.
+     * @return the row numbers kept, in increasing order.
+     */
+    static int[] filter(Kernel kernel, int rowCount, boolean parallel) {
+        if (parallel && rowCount >= PARALLEL_THRESHOLD)
+            return ForkJoinPool.commonPool().invoke(new FilterTask(kernel, 0, rowCount));
+        return filterRange(kernel, 0, rowCount);
+    }
+
+    /**
+     * Return the rows of a range kept by a kernel.
+     *
+     * @param kernel the kernel.
+     * @param from first row number, inclusive.
+     * @param to last row number, exclusive.
+     * @return the row numbers kept, in increasing order.
+     */
+    private static int[] filterRange(Kernel kernel, int from, int to) {
+        Batch batch = new Batch();
+        int[] kept = new int[to - from];
+        int size = 0;
+        for (int start = from; start < to; start += BATCH_SIZE) {
+            int count = Math.min(BATCH_SIZE, to - start);
+            for (int i = 0; i < count; i++) {
+                batch.rows[i] = start + i;
+            }
+            int selected = kernel.select(batch, count);
+            System.arraycopy(batch.rows, 0, kept, size, selected);
+            size += selected;
+        }
+        return size == kept.length ? kept : Arrays.copyOf(kept, size);
+    }
+
+    /**
+     * FilterTask filters a range of rows, splitting it between parallel subtasks when large.
+     */
+    private static final class FilterTask extends RecursiveTask<int[]> {
+        private final Kernel kernel;
+        private final int from;
+        private final int to;
+
+        FilterTask(Kernel kernel, int from, int to) {
+            this.kernel = kernel;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= PARALLEL_CHUNK)
+                return filterRange(kernel, from, to);
+            int mid = (from + to) >>> 1;
+            FilterTask left = new FilterTask(kernel, from, mid);
+            left.fork();
+            int[] right = new FilterTask(kernel, mid, to).compute();
+            int[] leftRows = left.join();
+            int[] rows = Arrays.copyOf(leftRows, leftRows.length + right.length);
+            System.arraycopy(right, 0, rows, leftRows.length, right.length);
+            return rows;
+        }
+    }
+
+    /**
+     * Return the sort key of a double. Keys compare as the values do with Double.compare.
+     *
+     * @param value the value.
+     * @return the key.
+     */
+    static long doubleKey(double value) {
+        // orders the bits like Double.compare orders the values
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Return the rows in both of two lists.
+     *
+     * @param rows1 row numbers, in increasing order.
+     * @param rows2 row numbers, in increasing order.
+     * @return row numbers in both lists, in increasing order.
+     */
+    static int[] intersect(int[] rows1, int[] rows2) {
+        int[] rows = new int[Math.min(rows1.length, rows2.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < rows1.length && j < rows2.length; ) {
+            if (rows1[i] < rows2[j]) {
+                i++;
+            } else if (rows1[i] > rows2[j]) {
+                j++;
+            } else {
+                rows[size++] = rows1[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(rows, size);
+    }
+
+    /**
+     * Return the rows in either of two lists.
+     *
+     * @param rows1 row numbers, in increasing order.
+     * @param rows2 row numbers, in increasing order.
+     * @return row numbers in either list, in increasing order.
+     */
+    static int[] union(int[] rows1, int[] rows2) {
+        int[] rows = new int[rows1.length + rows2.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < rows1.length && j < rows2.length) {
+            if (rows1[i] < rows2[j]) {
+                rows[size++] = rows1[i++];
+            } else if (rows1[i] > rows2[j]) {
+                rows[size++] = rows2[j++];
+            } else {
+                rows[size++] = rows1[i++];
+                j++;
+            }
+        }
+        while (i < rows1.length) {
+            rows[size++] = rows1[i++];
+        }
+        while (j < rows2.length) {
+            rows[size++] = rows2[j++];
+        }
+        return Arrays.copyOf(rows, size);
+    }
+
+    /**
+     * Return the sort key of each given row of a column. Keys compare as the values do in the
+     * natural order of the column type, reversed for a descending sort.
+     *
+     * @param column the column, of type INTEGER, DOUBLE or STRING.
+     * @param rows row numbers.
+     * @param ascOrder true if sorting in ascending order, false if in descending order.
+     * @return the key of each row, in the order of rows.
+     */
+    static long[] sortKeys(Column column, int[] rows, boolean ascOrder) {
+        long[] keys = new long[rows.length];
+        Batch batch = new Batch();
+        int[] ranks = column.type() == DataType.STRING ? column.ranks() : null;
+        for (int start = 0; start < rows.length; start += BATCH_SIZE) {
+            int count = Math.min(BATCH_SIZE, rows.length - start);
+            System.arraycopy(rows, start, batch.rows, 0, count);
+            switch (column.type()) {
+                case INTEGER:
+                    column.gatherInts(batch.rows, count, batch.ints);
+                    for (int i = 0; i < count; i++) {
+                        keys[start + i] = batch.ints[i];
+                    }
+                    break;
+                case DOUBLE:
+                    column.gatherDoubles(batch.rows, count, batch.doubles, batch.ints);
+                    for (int i = 0; i < count; i++) {
+                        keys[start + i] = doubleKey(batch.doubles[i]);
+                    }
+                    break;
+                case STRING:
+                    column.gatherInts(batch.rows, count, batch.ints);
+                    for (int i = 0; i < count; i++) {
+                        keys[start + i] = ranks[batch.ints[i]];
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Sort Operation Doesn't Support This Data Type: "
+                            + column.type());
+            }
+        }
+        if (!ascOrder) {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = ~keys[i];
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Sort rows by their keys. Rows are ordered by the first keys, then by the second keys when
+     * the first are equal, and so on; rows with equal keys keep their order.
+     *
+     * @param rows row numbers.
+     * @param keys keys of each row, in the order of rows, most significant first.
+     * @param parallel whether a large number of rows may be sorted in parallel.
+     * @return the row numbers sorted.
+     */
+    static int[] sort(int[] rows, long[][] keys, boolean parallel) {
+        int[] positions = new int[rows.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        int[] buffer = new int[rows.length];
+        if (parallel && rows.length >= PARALLEL_THRESHOLD)
+            ForkJoinPool.commonPool().invoke(new SortTask(positions, 0, positions.length, buffer, keys));
+        else
+            mergeSort(positions, 0, positions.length, buffer, keys);
+
+        int[] sorted = new int[rows.length];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = rows[positions[i]];
+        }
+        return sorted;
+    }
+
+    /**
+     * Compare two positions by their keys.
+     *
+     * @param keys keys of each position, most significant first.
+     * @param p1 first position.
+     * @param p2 second position.
+     * @return a negative integer, zero, or a positive integer as the first position sorts before,
+     *         with, or after the second.
+     */
+    private static int compare(long[][] keys, int p1, int p2) {
+        for (long[] key : keys) {
+            int cmp = Long.compare(key[p1], key[p2]);
+            if (cmp != 0)
+                return cmp;
+        }
+        return 0;
+    }
+
+    /**
+     * Stable sort of a range of positions.
+     *
+     * @param a positions.
+     * @param from first index of the range, inclusive.
+     * @param to last index of the range, exclusive.
+     * @param buffer scratch space as long as a.
+     * @param keys keys of each position, most significant first.
+     */
+    private static void mergeSort(int[] a, int from, int to, int[] buffer, long[][] keys) {
+        if (to - from < 2)
+            return;
+        int mid = (from + to) >>> 1;
+        mergeSort(a, from, mid, buffer, keys);
+        mergeSort(a, mid, to, buffer, keys);
+        merge(a, from, mid, to, buffer, keys);
+    }
+
+    /**
+     * Merge two adjacent sorted ranges of positions.
+     *
+     * @param a positions.
+     * @param from first index of the first range, inclusive.
+     * @param mid first index of the second range.
+     * @param to last index of the second range, exclusive.
+     * @param buffer scratch space as long as a.
+     * @param keys keys of each position, most significant first.
+     */
+    private static void merge(int[] a, int from, int mid, int to, int[] buffer, long[][] keys) {
+        if (compare(keys, a[mid - 1], a[mid]) <= 0)
+            return;
+        System.arraycopy(a, from, buffer, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && compare(keys, buffer[i], buffer[j]) <= 0))
+                a[k] = buffer[i++];
+            else
+                a[k] = buffer[j++];
+        }
+    }
+
+    /**
+     * SortTask sorts a range of positions, sorting its halves in parallel when large.
+     */
+    private static final class SortTask extends RecursiveAction {
+        private final int[] a;
+        private final int from;
+        private final int to;
+        private final int[] buffer;
+        private final long[][] keys;
+
+        SortTask(int[] a, int from, int to, int[] buffer, long[][] keys) {
+            this.a = a;
+            this.from = from;
+            this.to = to;
+            this.buffer = buffer;
+            this.keys = keys;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_CHUNK) {
+                mergeSort(a, from, to, buffer, keys);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SortTask(a, from, mid, buffer, keys), new SortTask(a, mid, to, buffer, keys));
+            merge(a, from, mid, to, buffer, keys);
+        }
+    }
+}
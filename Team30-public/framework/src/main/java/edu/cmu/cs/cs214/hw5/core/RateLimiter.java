@@ -0,0 +1,61 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimiter is a token bucket spacing out requests to a server. Tokens are added at a steady rate
+ * up to a burst size, and each request takes one. A request finding no token reserves the next one,
+ * so requests are granted in the order they ask, never faster than the rate.
+ */
+final class RateLimiter {
+
+    /**
+     * Tokens added per nanosecond.
+     */
+    private final double tokensPerNano;
+
+    /**
+     * Largest number of tokens kept.
+     */
+    private final double burst;
+
+    /**
+     * Tokens available, negative when tokens are already reserved.
+     */
+    private double tokens;
+
+    /**
+     * Time tokens were last added at, from System.nanoTime.
+     */
+    private long lastRefill;
+
+    /**
+     * Create a limiter with a full bucket.
+     *
+     * @param permitsPerSecond number of requests allowed per second, positive.
+     * @param burst number of requests allowed at once after a quiet period, at least 1.
+     */
+    RateLimiter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1)
+            throw new IllegalArgumentException("Invalid Rate Limit");
+        this.tokensPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Take a token, reserving the next one if none is available.
+     *
+     * @return number of milliseconds to wait before sending the request.
+     */
+    synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        tokens -= 1;
+        if (tokens >= 0)
+            return 0;
+        return TimeUnit.NANOSECONDS.toMillis((long) Math.ceil(-tokens / tokensPerNano));
+    }
+}
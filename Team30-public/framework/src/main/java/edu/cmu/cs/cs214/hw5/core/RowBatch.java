@@ -0,0 +1,189 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RowBatch holds rows written by a streaming data plugin before they are appended to a
+ * DataSetBuilder. Values are kept in one primitive array per INTEGER or DOUBLE column, so rows are
+ * never boxed.
+ *
+ * Each row is written by putting one value per column, then calling endRow. A full batch is
+ * appended to the builder, which empties it so that it can be filled again.
+ */
+public final class RowBatch {
+
+    /**
+     * Number of rows a batch holds.
+     */
+    static final int CAPACITY = 1024;
+
+    /**
+     * Data types of the columns.
+     */
+    private final DataType[] types;
+
+    /**
+     * Values of each INTEGER column, null for the other columns.
+     */
+    final int[][] ints;
+
+    /**
+     * Values of each DOUBLE column, null for the other columns.
+     */
+    final double[][] doubles;
+
+    /**
+     * Values of each STRING or POLYGONS column, null for the other columns.
+     */
+    final Object[][] objects;
+
+    /**
+     * Whether each column has a value in the row being written.
+     */
+    private final boolean[] filled;
+
+    /**
+     * Number of complete rows.
+     */
+    private int size;
+
+    /**
+     * Create an empty batch for rows of the given types.
+     *
+     * @param dataTypes data types of the columns.
+     */
+    RowBatch(List<DataType> dataTypes) {
+        types = dataTypes.toArray(new DataType[0]);
+        ints = new int[types.length][];
+        doubles = new double[types.length][];
+        objects = new Object[types.length][];
+        for (int j = 0; j < types.length; j++) {
+            switch (types[j]) {
+                case INTEGER:
+                    ints[j] = new int[CAPACITY];
+                    break;
+                case DOUBLE:
+                    doubles[j] = new double[CAPACITY];
+                    break;
+                default:
+                    objects[j] = new Object[CAPACITY];
+                    break;
+            }
+        }
+        filled = new boolean[types.length];
+    }
+
+    /**
+     * Set the value of an INTEGER column in the row being written.
+     *
+     * @param column column number.
+     * @param value the value.
+     */
+    public void putInt(int column, int value) {
+        ints[check(column, DataType.INTEGER)][size] = value;
+    }
+
+    /**
+     * Set the value of a DOUBLE column in the row being written.
+     *
+     * @param column column number.
+     * @param value the value.
+     */
+    public void putDouble(int column, double value) {
+        doubles[check(column, DataType.DOUBLE)][size] = value;
+    }
+
+    /**
+     * Set the value of a STRING column in the row being written.
+     *
+     * @param column column number.
+     * @param value the value, not null.
+     */
+    public void putString(int column, String value) {
+        if (value == null)
+            throw new IllegalArgumentException("Null Value At Column " + column);
+        objects[check(column, DataType.STRING)][size] = value;
+    }
+
+    /**
+     * Set the value of a POLYGONS column in the row being written.
+     *
+     * @param column column number.
+     * @param value the value, not null.
+     */
+    public void putPolygons(int column, MultiPolygon value) {
+        if (value == null)
+            throw new IllegalArgumentException("Null Value At Column " + column);
+        objects[check(column, DataType.POLYGONS)][size] = value;
+    }
+
+    /**
+     * Complete the row being written. Every column must have a value.
+     */
+    public void endRow() {
+        for (int j = 0; j < filled.length; j++) {
+            if (!filled[j])
+                throw new IllegalArgumentException("Missing Value At Column " + j);
+        }
+        Arrays.fill(filled, false);
+        size++;
+    }
+
+    /**
+     * Return number of complete rows in the batch.
+     *
+     * @return number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return whether the batch cannot hold another row and must be appended to the builder.
+     *
+     * @return true if the batch is full.
+     */
+    public boolean isFull() {
+        return size == CAPACITY;
+    }
+
+    /**
+     * Return the data types of the columns.
+     *
+     * @return data types of the columns.
+     */
+    DataType[] types() {
+        return types;
+    }
+
+    /**
+     * Empty the batch, dropping the row being written if any.
+     */
+    void clear() {
+        for (Object[] values : objects) {
+            if (values != null)
+                Arrays.fill(values, 0, size, null);
+        }
+        Arrays.fill(filled, false);
+        size = 0;
+    }
+
+    /**
+     * Check that a value of the given type can be put into a column of the row being written.
+     *
+     * @param column column number.
+     * @param type type of the value.
+     * @return the column number.
+     */
+    private int check(int column, DataType type) {
+        if (column < 0 || column >= types.length)
+            throw new IndexOutOfBoundsException("Column " + column + " Out Of " + types.length);
+        if (types[column] != type)
+            throw new IllegalArgumentException(String.format("Column %d Is Not %s But %s", column, type, types[column]));
+        if (isFull())
+            throw new IllegalStateException("Batch Is Full");
+        filled[column] = true;
+        return column;
+    }
+}
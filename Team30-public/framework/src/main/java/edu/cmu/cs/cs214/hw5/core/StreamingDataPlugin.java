@@ -0,0 +1,50 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interface implemented by data plugins that stream their rows into the framework instead of
+ * returning a whole DataSet. The rows are appended batch by batch into a DataSetBuilder owned by
+ * the framework, which stores them directly in the typed columns of the dataSet, so the data is
+ * held only once while it loads.
+ */
+public interface StreamingDataPlugin extends DataPlugin {
+
+    /**
+     * Based on a parameter mapping from configuration name to concrete parameters user specifies,
+     * extract data from source into the builder. The plugin sets the column labels and data types
+     * (STRING, INTEGER, DOUBLE) on the builder first, then writes the rows into batches created by
+     * the builder and appends each batch once it is full, and the last one whatever its size.
+     *
+     * @param params a parameter mapping from configuration name to concrete parameters user specifies.
+     * @param builder builder receiving the rows.
+     * @param progress receiver of the progress of the load.
+     */
+    void loadData(Map<String, List<String>> params, DataSetBuilder builder, LoadProgress progress);
+
+    /**
+     * Load data by streaming it into a new builder.
+     *
+     * @param params a parameter mapping from configuration name to concrete parameters user specifies.
+     * @return DataSet object containing the data from source.
+     */
+    @Override
+    default DataSet loadData(Map<String, List<String>> params) {
+        return loadData(params, LoadProgress.NONE);
+    }
+
+    /**
+     * Load data by streaming it into a new builder, reporting progress while doing so.
+     *
+     * @param params a parameter mapping from configuration name to concrete parameters user specifies.
+     * @param progress receiver of the progress of the load.
+     * @return DataSet object containing the data from source.
+     */
+    @Override
+    default DataSet loadData(Map<String, List<String>> params, LoadProgress progress) {
+        DataSetBuilder builder = new DataSetBuilder();
+        loadData(params, builder, progress);
+        return builder.build();
+    }
+}
@@ -1,109 +1,56 @@
 package edu.cmu.cs.cs214.hw5.core;
 
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Transformation represents the transformation state of a dataSet which can be later
  * converted into a new transformation object by transformation or a new DataSet.
+ *
+ * Filters and sorts are checked against the dataSet as they are added and run together by the
+ * QueryEngine in toDataSet: all filters first, in one pass over the rows, then all sorts in one
+ * multi-key sort of the remaining rows. This gives the same rows in the same order as applying
+ * them one after the other, since filtering keeps the order of rows and sorting is stable.
+ * The new DataSet shares the columns of the original dataSet.
  */
 class Transformation {
-    
-    private static final String LABEL_NOT_FOUND_MSG = "Label Not Found";
-    
-    private static final String UNKNOWN_OPERATOR_MSG = "Unknown Operator";
-
-    /**
-     * List of label names of dataSet in transformation.
-     */
-    private List<String> labels;
-
-    /**
-     * List of data types of dataSet in transformation.
-     */
-    private List<DataType> dataTypes;
 
-    /**
-     * Data entity of dataSet in transformation.
-     */
-    private List<List<Object>> data;
-
-    /**
-     * Stream storing the dataSet.
-     */
-    private Stream<List<Object>> rowStream;
-
-    /**
-     * Predicate for operator ">".
-     */
-    private static final Predicate<Integer> LARGER = i -> i > 0;
-
-    /**
-     * Predicate for operator ">=".
-     */
-    private static final Predicate<Integer> LARGER_OR_EQUAL = i -> i >= 0;
-
-    /**
-     * Predicate for operator "=".
-     */
-    private static final Predicate<Integer> EQUAL = i -> i == 0;
+    private static final String LABEL_NOT_FOUND_MSG = "Label Not Found";
 
     /**
-     * Predicate for operator "<=".
+     * DataSet in transformation.
      */
-    private static final Predicate<Integer> SMALLER_OR_EQUAL = i -> i <= 0;
+    private final DataSet dataSet;
 
     /**
-     * Predicate for operator "<".
+     * Filtering rules, all of which rows must satisfy.
      */
-    private static final Predicate<Integer> SMALLER = i -> i < 0;
+    private final List<Condition> conditions = new ArrayList<>();
 
     /**
-     * Predicate for operator "!=".
+     * Compiled filtering rules, respective to conditions.
      */
-    private static final Predicate<Integer> UNEQUAL = i -> i != 0;
+    private final List<QueryEngine.Kernel> filters = new ArrayList<>();
 
     /**
-     * Map from string representation of operators to predicates.
+     * Column numbers to sort by, in the order the sorts were added.
      */
-    private static final Map<String, Predicate<Integer>> PREDICATE_MAP = Map.of(
-            ">", LARGER, ">=", LARGER_OR_EQUAL, "=", EQUAL, "<=", SMALLER_OR_EQUAL,
-            "<", SMALLER, "!=", UNEQUAL
-    );
+    private final List<Integer> sortColumns = new ArrayList<>();
 
     /**
-     * Comparator for double typed data.
+     * Whether each sort is in ascending order.
      */
-    private static final Comparator<Object> DOUBLE_COMPARATOR = (d1, d2) -> {
-        return Double.compare((Double) d1, (Double) d2);
-    };
+    private final List<Boolean> sortOrders = new ArrayList<>();
 
     /**
-     * Comparator for integer typed data.
+     * Whether a large dataSet may be transformed in parallel.
      */
-    private static final Comparator<Object> INTEGER_COMPARATOR = (d1, d2) -> {
-        return Integer.compare((Integer) d1, (Integer) d2);
-    };
+    private boolean parallel = true;
 
     /**
-     * Comparator for string typed data.
+     * Whether filters are looked up in column indexes instead of scanning the rows.
      */
-    private static final Comparator<Object> STRING_COMPARATOR = (d1, d2) -> {
-        return ((String) d1).compareTo((String) d2);
-    };
-
-    private static final Map<DataType, Comparator<Object>> COMPARATOR_MAP = Map.of(
-            DataType.DOUBLE, DOUBLE_COMPARATOR,
-            DataType.INTEGER, INTEGER_COMPARATOR,
-            DataType.STRING, STRING_COMPARATOR
-    );
+    private boolean indexed = false;
 
     /**
      * Initialize a Transformation object ready for performing transformation by dataSet.
@@ -111,10 +58,7 @@ class Transformation {
      * @param dataSet dataSet to be transformed.
      */
     Transformation(DataSet dataSet) {
-        data = dataSet.toLists();
-        dataTypes = new ArrayList<>(dataSet.getDataTypes());
-        labels = new ArrayList<>(dataSet.getLabels());
-        rowStream = data.stream();
+        this.dataSet = dataSet;
     }
 
     /**
@@ -126,34 +70,7 @@ class Transformation {
      * @return a new Transformation object after applying filtering rule.
      */
     Transformation filter(String label, String operator, String value) {
-        int colIdx = labels.indexOf(label);
-        if (colIdx < 0)
-            throw new IllegalArgumentException(LABEL_NOT_FOUND_MSG);
-
-        Comparator<Object> comparator = COMPARATOR_MAP.get(dataTypes.get(colIdx));
-        if (comparator == null)
-            throw new IllegalArgumentException("Filter Operation Doesn't Support This Data Type: "
-                    + dataTypes.get(colIdx));
-
-        final Predicate<Integer> predicate = PREDICATE_MAP.get(operator);
-        if (predicate == null)
-            throw new IllegalArgumentException(UNKNOWN_OPERATOR_MSG);
-
-        switch (dataTypes.get(colIdx)) {
-            case INTEGER:
-                rowStream = rowStream.filter(row -> predicate.test(comparator.compare(row.get(colIdx), Integer.valueOf(value))));
-                break;
-            case DOUBLE:
-                rowStream = rowStream.filter(row -> predicate.test(comparator.compare(row.get(colIdx), Double.valueOf(value))));
-                break;
-            case STRING:
-                rowStream = rowStream.filter(row -> predicate.test(comparator.compare(row.get(colIdx), value)));
-                break;
-            default:
-                break;
-        }
-
-        return this;
+        return filter(Condition.compare(label, operator, value));
     }
 
     /**
@@ -164,27 +81,18 @@ class Transformation {
      * @return a new Transformation object after applying filtering rule.
      */
     Transformation filter(String label, List<String> values) {
-        int colIdx = labels.indexOf(label);
-        if (colIdx < 0)
-            throw new IllegalArgumentException(LABEL_NOT_FOUND_MSG);
+        return filter(Condition.in(label, values));
+    }
 
-        final Set<Object> set;
-
-        switch (dataTypes.get(colIdx)) {
-            case INTEGER:
-                set = values.stream().map(Integer::valueOf).collect(Collectors.toSet());
-                break;
-            case DOUBLE:
-                set = values.stream().map(Double::valueOf).collect(Collectors.toSet());
-                break;
-            case STRING:
-                set = new HashSet<>(values);
-                break;
-            default:
-                throw new IllegalArgumentException("Filter Operation Doesn't Support This Data Type: "
-                        + dataTypes.get(colIdx));
-        }
-        rowStream = rowStream.filter(r -> set.contains(r.get(colIdx)));
+    /**
+     * Filter dataSet by a condition, which may combine several rules with AND and OR.
+     *
+     * @param condition the filtering rule.
+     * @return a new Transformation object after applying filtering rule.
+     */
+    Transformation filter(Condition condition) {
+        filters.add(condition.compile(dataSet));
+        conditions.add(condition);
         return this;
     }
 
@@ -200,36 +108,83 @@ class Transformation {
 
     /**
      * Sort the dataSet by specified column in ascending or descending order.
+     * Rows with equal values keep their order.
      *
      * @param label label name of the specified column.
      * @param ascOrder true if sorting in ascending order, false if in descending order.
      * @return a new Transformation object after applying sorting.
      */
     Transformation sort(String label, boolean ascOrder) {
-        int colIdx = labels.indexOf(label);
+        int colIdx = dataSet.getLabels().indexOf(label);
         if (colIdx < 0)
             throw new IllegalArgumentException(LABEL_NOT_FOUND_MSG);
+        DataType type = dataSet.getDataTypes().get(colIdx);
+        if (type == DataType.POLYGONS)
+            throw new IllegalArgumentException("Sort Operation Doesn't Support This Data Type: " + type);
+        sortColumns.add(colIdx);
+        sortOrders.add(ascOrder);
+        return this;
+    }
 
-        Comparator comparator = COMPARATOR_MAP.get(dataTypes.get(colIdx));
-        if (comparator == null)
-            throw new IllegalArgumentException("Sort Operation Doesn't Support This Data Type: " + dataTypes.get(colIdx));
-        if (ascOrder) {
-            rowStream = rowStream.sorted((row1, row2) -> comparator.compare(row1.get(colIdx), row2.get(colIdx)));
-        } else {
-            Comparator reversed = comparator.reversed();
-            rowStream = rowStream.sorted((row1, row2) -> reversed.compare(row1.get(colIdx), row2.get(colIdx)));
-        }
+    /**
+     * Allow or forbid transforming a large dataSet in parallel. Allowed by default.
+     *
+     * @param enabled true to allow running in parallel.
+     * @return this Transformation object.
+     */
+    Transformation parallel(boolean enabled) {
+        parallel = enabled;
+        return this;
+    }
+
+    /**
+     * Look filters up in the indexes of the columns instead of scanning the rows. An index is built
+     * the first time a column is filtered this way and kept with the column, so this pays off when
+     * the same dataSet is filtered many times, as when the user changes display filters.
+     * Not used by default.
+     *
+     * @param enabled true to use the indexes.
+     * @return this Transformation object.
+     */
+    Transformation indexed(boolean enabled) {
+        indexed = enabled;
         return this;
     }
 
     /**
      * Return a new DataSet converted from the transformation object.
+     * The new DataSet shares the columns of the original dataSet.
      *
      * @return a new DataSet converted from the transformation object.
      */
     DataSet toDataSet() {
-        List<List<Object>> newData = rowStream.collect(Collectors.toList());
-        return new DataSet(labels, dataTypes, newData);
+        int[] rows;
+        if (filters.isEmpty()) {
+            rows = new int[dataSet.rowCount()];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = i;
+            }
+        } else if (indexed) {
+            rows = null;
+            for (Condition condition : conditions) {
+                int[] conditionRows = condition.lookup(dataSet);
+                rows = rows == null ? conditionRows : QueryEngine.intersect(rows, conditionRows);
+            }
+        } else {
+            rows = QueryEngine.filter(QueryEngine.and(filters), dataSet.rowCount(), parallel);
+        }
+
+        if (!sortColumns.isEmpty()) {
+            // the last sort is the most significant, earlier sorts break its ties
+            int sortCount = sortColumns.size();
+            long[][] keys = new long[sortCount][];
+            for (int i = 0; i < sortCount; i++) {
+                int sort = sortCount - 1 - i;
+                keys[i] = QueryEngine.sortKeys(dataSet.column(sortColumns.get(sort)), rows, sortOrders.get(sort));
+            }
+            rows = QueryEngine.sort(rows, keys, parallel);
+        }
+        return dataSet.selectRows(rows);
     }
 
 }
@@ -0,0 +1,123 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * TransformationCache keeps the dataSets most recently produced by transforming a dataSet, so that
+ * drawing a graph again with a combination of display filters seen before does not filter and sort
+ * the dataSet again. The least recently used entry is dropped once the cache is full.
+ */
+final class TransformationCache {
+
+    /**
+     * Number of transformed dataSets kept by default.
+     */
+    static final int DEFAULT_CAPACITY = 32;
+
+    /**
+     * Transformed dataSets, from the least to the most recently used.
+     */
+    private final LinkedHashMap<Key, DataSet> entries;
+
+    /**
+     * Maximum number of transformed dataSets kept.
+     */
+    private int capacity;
+
+    /**
+     * Create an empty cache.
+     *
+     * @param capacity maximum number of transformed dataSets kept, at least 0.
+     */
+    TransformationCache(int capacity) {
+        this.capacity = capacity;
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, DataSet> eldest) {
+                return size() > TransformationCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Return the transformed dataSet cached for the given dataSet and transformation.
+     *
+     * @param dataSetName name of the original dataSet.
+     * @param dataSet the original dataSet.
+     * @param steps canonical description of the transformation.
+     * @return the transformed dataSet, or null if it is not cached.
+     */
+    synchronized DataSet get(String dataSetName, DataSet dataSet, List<?> steps) {
+        return entries.get(new Key(dataSetName, dataSet, steps));
+    }
+
+    /**
+     * Cache a transformed dataSet.
+     *
+     * @param dataSetName name of the original dataSet.
+     * @param dataSet the original dataSet.
+     * @param steps canonical description of the transformation.
+     * @param result the transformed dataSet.
+     */
+    synchronized void put(String dataSetName, DataSet dataSet, List<?> steps, DataSet result) {
+        if (capacity > 0)
+            entries.put(new Key(dataSetName, dataSet, steps), result);
+    }
+
+    /**
+     * Drop every transformed dataSet cached for the dataSet of the given name.
+     *
+     * @param dataSetName name of the original dataSet.
+     */
+    synchronized void invalidate(String dataSetName) {
+        entries.keySet().removeIf(key -> key.dataSetName.equals(dataSetName));
+    }
+
+    /**
+     * Change the maximum number of transformed dataSets kept, dropping the least recently used ones
+     * if there are more.
+     *
+     * @param newCapacity maximum number of transformed dataSets kept, at least 0.
+     */
+    synchronized void setCapacity(int newCapacity) {
+        capacity = newCapacity;
+        Iterator<Key> iterator = entries.keySet().iterator();
+        for (int excess = entries.size() - capacity; excess > 0; excess--) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Key identifies a transformed dataSet by the original dataSet and the transformation.
+     * DataSets are compared by identity, so a dataSet replaced under the same name never matches.
+     */
+    private static final class Key {
+        private final String dataSetName;
+        private final DataSet dataSet;
+        private final List<?> steps;
+
+        Key(String dataSetName, DataSet dataSet, List<?> steps) {
+            this.dataSetName = dataSetName;
+            this.dataSet = dataSet;
+            this.steps = steps;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return dataSet == other.dataSet && dataSetName.equals(other.dataSetName) && steps.equals(other.steps);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dataSetName, System.identityHashCode(dataSet), steps);
+        }
+    }
+}
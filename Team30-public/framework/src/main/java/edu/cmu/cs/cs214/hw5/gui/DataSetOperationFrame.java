@@ -22,13 +22,14 @@ import javax.swing.JTextArea;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
-import javax.swing.SwingWorker;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.IntStream;
 
 /**
@@ -36,8 +37,10 @@ import java.util.stream.IntStream;
  * type), SelectDisplayPlugin Panel(user can select display plugin for plots), DisplayPlugin
  * Panel(user can specify usage-specific configuration parameters), GeoCoding Panel(use can
  * specify configuration parameter of geoCoding transformation), Filter Panel (user can specify
- * configuration parameter of filtering transformation) and Sort Panel (user can specify 
- * configuration parameter of sorting transformation).
+ * configuration parameter of filtering transformation), Sort Panel (user can specify 
+ * configuration parameter of sorting transformation), Join Panel (user can specify
+ * configuration parameter of joining with another dataSet) and Group By Panel (user can specify
+ * configuration parameter of aggregating groups of rows).
  */
 class DataSetOperationFrame extends JFrame {
 
@@ -122,6 +125,28 @@ class DataSetOperationFrame extends JFrame {
      */
     private static final String SORT_TIP = "  Select a column by which you want to sort.";
 
+    /**
+     * JOIN title.
+     */
+    private static final String JOIN = "Join";
+
+    /**
+     * JOIN tip.
+     */
+    private static final String JOIN_TIP = "  Select a dataset and the columns whose values must match. Type the matching " +
+            "columns of the other dataset separated by commas, or leave it blank if they have the same names.";
+
+    /**
+     * GROUP BY title.
+     */
+    private static final String GROUP_BY = "Group By";
+
+    /**
+     * GROUP BY tip.
+     */
+    private static final String GROUP_BY_TIP = "  Select the columns to group by and an aggregate. The new dataset has a row " +
+            "per group, with the aggregate of each selected column, or the number of rows for COUNT.";
+
     /**
      * GRAPH NAME label name.
      */
@@ -163,6 +188,10 @@ class DataSetOperationFrame extends JFrame {
         paneTransform.addTab(FILTER, filterPanel);
         JPanel sortPanel = createSortPanel();
         paneTransform.addTab(SORT, sortPanel);
+        JPanel joinPanel = createJoinPanel();
+        paneTransform.addTab(JOIN, joinPanel);
+        JPanel groupByPanel = createGroupByPanel();
+        paneTransform.addTab(GROUP_BY, groupByPanel);
 
         pack();
         setLocationRelativeTo(null);
@@ -339,51 +368,50 @@ class DataSetOperationFrame extends JFrame {
             boolean isFreeForm = rigidOrFreeFormTabPane.getSelectedIndex() == 0 ? false : true;
             Map<String, List<String>> params = isFreeForm ? mapFreeFormPanel.getUserInput() : mapRigidFormPanel.getUserInput();
 
-            SwingWorker worker = new SwingWorker<Integer, Integer>() {
-                @Override
-                protected Integer doInBackground() {
-                    try {
-                        DataSetOperationFrame.this.setEnabled(false);
-                        List<String> unfounded = parent.getCore().geoCodeTransform(dataSetName,
-                                newDataSetName.getUserInput().get(0), resultLabel.getUserInput().get(0),params,
-                                isFreeForm);
-                        if (unfounded.size() > 0) {
-                            String s;
-                            if (unfounded.size() > 3) {
-                                s = String.join("\n", unfounded.subList(0, 3));
-                                s += "\n...";
-                            } else {
-                                s = String.join("\n", unfounded);
-                            }
-
-                            String msg = String.format("Some Address(es) Are Not Found:%n" +
-                                    "%s%n%nFilter And Save?", s);
-                            int res = JOptionPane.showConfirmDialog(DataSetOperationFrame.this, msg, dataSetName, YES_NO_OPTION);
-                            if (res == NO_OPTION) {
-                                parent.getCore().deleteDataSet(newDataSetName.getUserInput().get(0));
-                                DataSetOperationFrame.this.setEnabled(true);
-                                return 0;
-                            }
-                        }
-                        DataSetOperationFrame.this.setVisible(false);
-                        DataSetOperationFrame.this.dispose();
-                    } catch (IllegalArgumentException | IllegalStateException ex) {
-                        DataSetOperationFrame.this.setEnabled(true);
-                        JOptionPane.showMessageDialog(DataSetOperationFrame.this, ex.getMessage());
-                    } catch (Exception ex) {
-                        DataSetOperationFrame.this.setEnabled(true);
-                        ex.printStackTrace();
-                    }
-                    return 0;
-                }
-            };
-            worker.execute();
-
+            String newName = newDataSetName.getUserInput().get(0);
+            CompletableFuture<List<String>> geocoding;
+            try {
+                geocoding = parent.getCore().geoCodeTransformAsync(dataSetName, newName,
+                        resultLabel.getUserInput().get(0), params, isFreeForm);
+            } catch (IllegalArgumentException | IllegalStateException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage());
+                return;
+            }
+            // the queries go on in the background, shown on the main window like a dataSet being loaded
+            parent.showLoading(newName, geocoding);
+            geocoding.thenAccept(unfounded -> SwingUtilities.invokeLater(() -> confirmUnfounded(newName, unfounded)));
+            setVisible(false);
+            dispose();
         }));
 
         return panel;
     }
 
+    /**
+     * Ask the user whether to keep a geocoded dataSet when some of its addresses were not found,
+     * deleting it otherwise.
+     *
+     * @param newDataSetName name of the geocoded dataSet.
+     * @param unfounded addresses not found.
+     */
+    private void confirmUnfounded(String newDataSetName, List<String> unfounded) {
+        if (unfounded.isEmpty())
+            return;
+        String s;
+        if (unfounded.size() > 3) {
+            s = String.join("\n", unfounded.subList(0, 3));
+            s += "\n...";
+        } else {
+            s = String.join("\n", unfounded);
+        }
+
+        String msg = String.format("Some Address(es) Are Not Found:%n" +
+                "%s%n%nFilter And Save?", s);
+        int res = JOptionPane.showConfirmDialog(parent, msg, newDataSetName, YES_NO_OPTION);
+        if (res == NO_OPTION)
+            parent.getCore().deleteDataSet(newDataSetName);
+    }
+
     /**
      * Create a filtering control panel.
      * 
@@ -420,11 +448,11 @@ class DataSetOperationFrame extends JFrame {
                 return;
             }
             String selected = cur.get(0);
-            List<Object> values = parent.getCore().getDataSet(dataSetName).getColumn(selected);
-            if (values == null || values.isEmpty())
+            double[] values = parent.getCore().getDataSet(dataSetName).getDoubleColumn(selected);
+            if (values == null || values.length == 0)
                 return;
-            double max = values.stream().mapToDouble(i -> ((Number) i).doubleValue()).max().getAsDouble();
-            double min = values.stream().mapToDouble(i -> ((Number) i).doubleValue()).min().getAsDouble();
+            double max = Arrays.stream(values).max().getAsDouble();
+            double min = Arrays.stream(values).min().getAsDouble();
             tipsLabel.setText(String.format("Min: %s, Max: %s", min, max));
         });
 
@@ -511,6 +539,94 @@ class DataSetOperationFrame extends JFrame {
         return panel;
     }
 
+    /**
+     * Create a join control panel.
+     *
+     * @return join control panel.
+     */
+    private JPanel createJoinPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+
+        JTextArea textArea = new JTextArea(JOIN_TIP);
+        textArea.setLineWrap(true);
+        textArea.setWrapStyleWord(true);
+        textArea.setOpaque(false);
+        textArea.setBorder(BorderFactory.createEmptyBorder(0, 5, 10, 5));
+        panel.add(textArea, BorderLayout.NORTH);
+
+        JPanel controlPanel = new JPanel();
+        controlPanel.setLayout(new BorderLayout());
+        panel.add(controlPanel, BorderLayout.CENTER);
+
+        UserInputPanel joinPanel = new UserInputPanel(
+                parent.getCore().getJoinConfigs(dataSetName));
+        controlPanel.add(joinPanel, BorderLayout.NORTH);
+
+        JPanel lowerPanel = new JPanel();
+        lowerPanel.setLayout(new BoxLayout(lowerPanel, BoxLayout.Y_AXIS));
+        controlPanel.add(lowerPanel, BorderLayout.SOUTH);
+
+        UserInputComponent newDataSetName = new UserInputComponent.TextFieldInput("New DataSet Name");
+        lowerPanel.add(newDataSetName);
+
+        lowerPanel.add(createCancelOkButtonPanel(l -> {
+            Map<String, List<String>> params = joinPanel.getUserInput();
+            try {
+                parent.getCore().join(dataSetName, newDataSetName.getUserInput().get(0), params);
+                this.setVisible(false);
+                this.dispose();
+            } catch (IllegalArgumentException | IllegalStateException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage());
+            }
+        }));
+
+        return panel;
+    }
+
+    /**
+     * Create a group-by control panel.
+     *
+     * @return group-by control panel.
+     */
+    private JPanel createGroupByPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+
+        JTextArea textArea = new JTextArea(GROUP_BY_TIP);
+        textArea.setLineWrap(true);
+        textArea.setWrapStyleWord(true);
+        textArea.setOpaque(false);
+        textArea.setBorder(BorderFactory.createEmptyBorder(0, 5, 10, 5));
+        panel.add(textArea, BorderLayout.NORTH);
+
+        JPanel controlPanel = new JPanel();
+        controlPanel.setLayout(new BorderLayout());
+        panel.add(controlPanel, BorderLayout.CENTER);
+
+        UserInputPanel groupByPanel = new UserInputPanel(
+                parent.getCore().getGroupByConfigs(dataSetName));
+        controlPanel.add(groupByPanel, BorderLayout.NORTH);
+
+        JPanel lowerPanel = new JPanel();
+        lowerPanel.setLayout(new BoxLayout(lowerPanel, BoxLayout.Y_AXIS));
+        controlPanel.add(lowerPanel, BorderLayout.SOUTH);
+
+        UserInputComponent newDataSetName = new UserInputComponent.TextFieldInput("New DataSet Name");
+        lowerPanel.add(newDataSetName);
+
+        lowerPanel.add(createCancelOkButtonPanel(l -> {
+            Map<String, List<String>> params = groupByPanel.getUserInput();
+            try {
+                parent.getCore().groupBy(dataSetName, newDataSetName.getUserInput().get(0), params);
+                this.setVisible(false);
+                this.dispose();
+            } catch (IllegalArgumentException | IllegalStateException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage());
+            }
+        }));
+
+        return panel;
+    }
+
     /**
      * Create a panel containing cancel and ok button.
      * 
@@ -10,14 +10,17 @@ import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.event.KeyEvent;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 /**
  * The framework GUI implementation. This class is responsible for displaying
@@ -87,6 +90,11 @@ public class GeoDataFrameworkGui extends JFrame implements FrameworkListener {
      */
     private final Map<String, GraphDisplayingFrame> graphMap;
 
+    /**
+     * Map from name of dataSet loading in the background to its LoadingComponent.
+     */
+    private final Map<String, LoadingComponent> loadingMap;
+
     /**
      * Initialize the GeoData Framework GUI.
      * 
@@ -100,6 +108,7 @@ public class GeoDataFrameworkGui extends JFrame implements FrameworkListener {
         this.core = core;
         this.graphMap = new HashMap<>();
         this.dataSetMap = new HashMap<>();
+        this.loadingMap = new HashMap<>();
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setMinimumSize(new Dimension(WINDOW_WIDTH, WINDOW_HEIGHT));
@@ -172,14 +181,32 @@ public class GeoDataFrameworkGui extends JFrame implements FrameworkListener {
     }
 
     /**
-     * Load data from data plugin given its name.
+     * Load data from data plugin given its name, in the background so that several dataSets
+     * can load at once while the GUI keeps responding.
      * 
      * @param pluginName name of plugin from which to load data.
      * @param dataSetName name of dataSet loaded by the plugin.
      * @param userInput a parameter mapping from configuration name to concrete parameters user specifies.
      */
     void loadData(String pluginName, String dataSetName, Map<String, List<String>> userInput) {
-        core.loadData(pluginName, dataSetName, userInput);
+        showLoading(dataSetName, core.loadDataAsync(pluginName, dataSetName, userInput));
+    }
+
+    /**
+     * Show a dataSet being loaded in the background, with its progress and a button cancelling it,
+     * until the framework tells it is loaded, failed or cancelled.
+     *
+     * @param dataSetName name of dataSet.
+     * @param load future of the load.
+     */
+    void showLoading(String dataSetName, Future<?> load) {
+        if (load.isDone())
+            return;
+        LoadingComponent component = new LoadingComponent(dataSetName, load);
+        dataPanel.add(component);
+        loadingMap.put(dataSetName, component);
+        dataPanel.revalidate();
+        dataPanel.repaint();
     }
 
     /**
@@ -189,9 +216,14 @@ public class GeoDataFrameworkGui extends JFrame implements FrameworkListener {
      */
     @Override
     public void dataSetLoaded(String dataSetName) {
-        JComponent component = new DataSetComponent(this, dataSetName);
-        dataPanel.add(component);
-        dataSetMap.put(dataSetName, component);
+        onEventThread(() -> {
+            removeLoadingComponent(dataSetName);
+            JComponent component = new DataSetComponent(this, dataSetName);
+            dataPanel.add(component);
+            dataSetMap.put(dataSetName, component);
+            dataPanel.revalidate();
+            dataPanel.repaint();
+        });
     }
 
     /**
@@ -201,9 +233,74 @@ public class GeoDataFrameworkGui extends JFrame implements FrameworkListener {
      */
     @Override
     public void dataSetDeleted(String dataSetName) {
-        if (dataSetMap.containsKey(dataSetName))
-            dataPanel.remove(dataSetMap.remove(dataSetName));
+        onEventThread(() -> {
+            if (dataSetMap.containsKey(dataSetName))
+                dataPanel.remove(dataSetMap.remove(dataSetName));
+            dataPanel.revalidate();
+            dataPanel.repaint();
+        });
+    }
+
+    /**
+     * Handle events when a data plugin reports progress loading a dataSet in the background.
+     *
+     * @param dataSetName name of dataSet.
+     * @param fraction fraction loaded, between 0 and 1.
+     */
+    @Override
+    public void dataSetLoadProgress(String dataSetName, double fraction) {
+        onEventThread(() -> {
+            if (loadingMap.containsKey(dataSetName))
+                loadingMap.get(dataSetName).setProgress(fraction);
+        });
+    }
+
+    /**
+     * Handle events when loading a dataSet in the background fails.
+     *
+     * @param dataSetName name of dataSet.
+     * @param cause exception thrown by the data plugin.
+     */
+    @Override
+    public void dataSetLoadFailed(String dataSetName, Throwable cause) {
+        onEventThread(() -> {
+            removeLoadingComponent(dataSetName);
+            JOptionPane.showMessageDialog(this, cause.getMessage(), dataSetName, JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    /**
+     * Handle events when loading a dataSet in the background is cancelled.
+     *
+     * @param dataSetName name of dataSet.
+     */
+    @Override
+    public void dataSetLoadCancelled(String dataSetName) {
+        onEventThread(() -> removeLoadingComponent(dataSetName));
+    }
+
+    /**
+     * Remove the LoadingComponent of a dataSet, if it is shown.
+     *
+     * @param dataSetName name of dataSet.
+     */
+    private void removeLoadingComponent(String dataSetName) {
+        if (loadingMap.containsKey(dataSetName))
+            dataPanel.remove(loadingMap.remove(dataSetName));
         dataPanel.revalidate();
         dataPanel.repaint();
     }
+
+    /**
+     * Run an update of the GUI on the event dispatch thread, since events of background loads
+     * arrive on the thread doing the load.
+     *
+     * @param update the update.
+     */
+    private static void onEventThread(Runnable update) {
+        if (SwingUtilities.isEventDispatchThread())
+            update.run();
+        else
+            SwingUtilities.invokeLater(update);
+    }
 }
@@ -0,0 +1,74 @@
+package edu.cmu.cs.cs214.hw5.gui;
+
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingConstants;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.util.concurrent.Future;
+
+/**
+ * LoadingComponent takes the place of a dataSet in the DataSet panel while the dataSet
+ * is loaded in the background, showing the progress of the load and a button to cancel it.
+ */
+class LoadingComponent extends JPanel {
+
+    /**
+     * Width of component.
+     */
+    private static final int COMPONENT_WIDTH = 150;
+
+    /**
+     * Height of component.
+     */
+    private static final int COMPONENT_HEIGHT = 100;
+
+    /**
+     * Number of steps of the progress bar.
+     */
+    private static final int PROGRESS_STEPS = 100;
+
+    /**
+     * Progress of the load, indeterminate until the data plugin reports some.
+     */
+    private final JProgressBar progressBar;
+
+    /**
+     * Create and initialize a loading component.
+     *
+     * @param name name of dataSet.
+     * @param load the load, cancelled by the close button.
+     */
+    LoadingComponent(String name, Future<?> load) {
+        super(new BorderLayout());
+        setPreferredSize(new Dimension(COMPONENT_WIDTH, COMPONENT_HEIGHT));
+        setBorder(BorderFactory.createLineBorder(Color.GRAY));
+
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        CloseButton button = new CloseButton();
+        button.setToolTipText("Cancel loading");
+        button.addActionListener(l -> load.cancel(true));
+        topPanel.add(button);
+        add(topPanel, BorderLayout.NORTH);
+
+        add(new JLabel(name, SwingConstants.CENTER), BorderLayout.CENTER);
+
+        progressBar = new JProgressBar(0, PROGRESS_STEPS);
+        progressBar.setIndeterminate(true);
+        add(progressBar, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Show the fraction of the dataSet loaded so far.
+     *
+     * @param fraction fraction loaded, between 0 and 1.
+     */
+    void setProgress(double fraction) {
+        progressBar.setIndeterminate(false);
+        progressBar.setValue((int) Math.round(Math.max(0, Math.min(1, fraction)) * PROGRESS_STEPS));
+    }
+}
@@ -58,8 +58,8 @@ class StringFormPanel extends JPanel {
             if (!selectedPlugin.isEmpty() && selectedPlugin.get(0) != null) {
                 DataSet dataSet = parent.getCore().getDataSet(dataSetName);
                 String userLabel = this.getUserInput().get(COLUMN_NAME).get(0);
-                List<Object> column = dataSet.getColumn(userLabel);
-                List<String> distinctValues = column.stream().distinct().sorted().map(Object::toString).collect(Collectors.toList());
+                List<String> distinctValues = dataSet.distinctValues(userLabel).stream()
+                        .map(Object::toString).collect(Collectors.toList());
                 UserInputComponent userInputComponent = new UserInputComponent.MultiSelectionInput(VALUES, distinctValues);
                 remove(this.valueComponent);
                 this.valueComponent = userInputComponent;
@@ -0,0 +1,93 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmotionAnalysisBenchmark - measures building and querying {@link EmotionAnalysisImpl} over synthetic corpora of
+ * several sizes. Run with {@code ./gradlew jmh} from the framework directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmotionAnalysisBenchmark {
+
+    /**
+     * Number of keywords asked for, as by the visual plugins
+     */
+    private static final int NUM_KEYWORDS = 20;
+
+    /**
+     * A corpus and an analysis built over it
+     */
+    @State(Scope.Benchmark)
+    public static class Corpus {
+        @Param({"1000", "10000", "100000"})
+        int numDocuments;
+
+        List<Document> documents;
+        EmotionAnalysisImpl analysis;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            // a vocabulary growing with the corpus, as new texts bring new keywords
+            documents = SyntheticCorpus.documents(numDocuments, numDocuments / 2);
+            analysis = new EmotionAnalysisImpl(documents);
+        }
+    }
+
+    /**
+     * An analysis built before every invocation, for measuring queries whose results are cached by the analysis
+     */
+    @State(Scope.Thread)
+    public static class FreshAnalysis {
+        EmotionAnalysisImpl analysis;
+
+        @Setup(Level.Invocation)
+        public void setUp(Corpus corpus) {
+            analysis = new EmotionAnalysisImpl(corpus.documents);
+        }
+    }
+
+    @Benchmark
+    public EmotionAnalysis construct(Corpus corpus) {
+        return new EmotionAnalysisImpl(corpus.documents);
+    }
+
+    @Benchmark
+    public Map<String, Map<Emotion, Double>> getAvgKeyEmotions(FreshAnalysis fresh) {
+        return fresh.analysis.getAvgKeyEmotions(NUM_KEYWORDS);
+    }
+
+    @Benchmark
+    public Map<Emotion, Double> filterKey(Corpus corpus) {
+        // the most frequent keyword removes the most documents
+        return corpus.analysis.filterKey(SyntheticCorpus.keyword(0)).getAvgEmotions();
+    }
+
+    @Benchmark
+    public Map<Emotion, Double> filterEmotion(Corpus corpus) {
+        return corpus.analysis.filterEmotion(Emotion.JOY).getAvgEmotions();
+    }
+
+    @Benchmark
+    public Map<String, Map<Emotion, Double>> filterKeyThenGetAvgKeyEmotions(Corpus corpus) {
+        return corpus.analysis.filterKey(SyntheticCorpus.keyword(0)).getAvgKeyEmotions(NUM_KEYWORDS);
+    }
+}
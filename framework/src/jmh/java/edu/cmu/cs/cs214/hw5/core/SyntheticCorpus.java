@@ -0,0 +1,64 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * SyntheticCorpus - generates analyzed documents for the benchmarks without calling an analyzer. Keywords are drawn
+ * from a fixed vocabulary with a skewed distribution so that a few keywords appear in many documents, as in real
+ * corpora, and all emotion scores are uniformly random. The same seed always gives the same corpus.
+ */
+final class SyntheticCorpus {
+
+    /**
+     * Number of keywords in every document
+     */
+    static final int KEYWORDS_PER_DOCUMENT = 20;
+
+    private static final long SEED = 214;
+
+    private SyntheticCorpus() {
+    }
+
+    /**
+     * Gets the keyword of the given rank, rank 0 being the most frequent
+     * @param rank the rank of the keyword in the vocabulary
+     * @return the keyword
+     */
+    static String keyword(int rank) {
+        return "keyword" + rank;
+    }
+
+    /**
+     * Generates analyzed documents
+     * @param numDocuments the number of documents
+     * @param vocabularySize the number of distinct keywords to draw from
+     * @return the documents
+     */
+    static List<Document> documents(int numDocuments, int vocabularySize) {
+        Random random = new Random(SEED);
+        List<Document> documents = new ArrayList<>(numDocuments);
+        for(int i = 0; i < numDocuments; i++) {
+            List<KeywordAnalysis> keywords = new ArrayList<>(KEYWORDS_PER_DOCUMENT);
+            for(int k = 0; k < KEYWORDS_PER_DOCUMENT; k++) {
+                // cubing a uniform sample favours low ranks
+                int rank = (int) (vocabularySize * Math.pow(random.nextDouble(), 3));
+                keywords.add(new KeywordAnalysis(keyword(rank), 1 + random.nextInt(5), random.nextDouble(),
+                        emotions(random)));
+            }
+            documents.add(new Document("document " + i, new TextAnalysis(emotions(random), keywords)));
+        }
+        return documents;
+    }
+
+    private static Map<Emotion, Double> emotions(Random random) {
+        Map<Emotion, Double> emotions = new EnumMap<>(Emotion.class);
+        for(Emotion emotion: Emotion.values()) {
+            emotions.put(emotion, random.nextDouble());
+        }
+        return emotions;
+    }
+}
@@ -0,0 +1,112 @@
+package edu.cmu.cs.cs214.hw5;
+
+import edu.cmu.cs.cs214.hw5.batch.BatchRunner;
+import edu.cmu.cs.cs214.hw5.core.DataPlugin;
+import edu.cmu.cs.cs214.hw5.core.EmotionAnalysisFrameworkImpl;
+import edu.cmu.cs.cs214.hw5.core.LexiconEmotionAnalyzer;
+import edu.cmu.cs.cs214.hw5.core.VisualPlugin;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The main class for running the EmotionAnalysisFramework without a display. Every source is analyzed as a separate
+ * job, written to the output directory as JSON plus one PNG per visual plugin:
+ * <pre>
+ * BatchMain --data &lt;plugin&gt; [--visual &lt;plugin&gt;]... [--out &lt;dir&gt;] [--top &lt;n&gt;] [--jobs &lt;n&gt;]
+ *           [--offline] &lt;source&gt;...
+ * </pre>
+ * A source holds the params of the data plugin separated by spaces, as typed in the gui.
+ */
+public class BatchMain {
+
+    private static final String USAGE = "Usage: BatchMain --data <plugin> [--visual <plugin>]... [--out <dir>] "
+            + "[--top <n>] [--jobs <n>] [--offline] <source>...";
+    private static final int DEFAULT_TOP_KEYWORDS = 50;
+    private static final int DEFAULT_JOBS = 4;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+
+        String dataPluginName = null;
+        List<String> visualPluginNames = new ArrayList<>();
+        Path out = Paths.get("emotion-analysis-output");
+        int top = DEFAULT_TOP_KEYWORDS;
+        int jobs = DEFAULT_JOBS;
+        boolean offline = false;
+        List<List<String>> sources = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--data":
+                        dataPluginName = args[++i];
+                        break;
+                    case "--visual":
+                        visualPluginNames.add(args[++i]);
+                        break;
+                    case "--out":
+                        out = Paths.get(args[++i]);
+                        break;
+                    case "--top":
+                        top = Integer.parseInt(args[++i]);
+                        break;
+                    case "--jobs":
+                        jobs = Integer.parseInt(args[++i]);
+                        break;
+                    case "--offline":
+                        offline = true;
+                        break;
+                    default:
+                        sources.add(Arrays.asList(args[i].split(" ")));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            exit(USAGE);
+        }
+        if (dataPluginName == null || sources.isEmpty()) {
+            exit(USAGE);
+        }
+
+        DataPlugin dataPlugin = findDataPlugin(dataPluginName);
+        List<VisualPlugin> visualPlugins = new ArrayList<>();
+        for (String name : visualPluginNames) {
+            visualPlugins.add(findVisualPlugin(name));
+        }
+        dataPlugin.onRegister();
+        visualPlugins.forEach(VisualPlugin::onRegister);
+
+        EmotionAnalysisFrameworkImpl core = offline
+                ? new EmotionAnalysisFrameworkImpl(new LexiconEmotionAnalyzer())
+                : new EmotionAnalysisFrameworkImpl();
+        int failed = new BatchRunner(core, out, top).runAll(dataPlugin, visualPlugins, sources, jobs);
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    private static DataPlugin findDataPlugin(String name) {
+        for (DataPlugin plugin : Main.loadDataPlugins()) {
+            if (plugin.getName().equalsIgnoreCase(name)) {
+                return plugin;
+            }
+        }
+        exit("No data plugin named " + name);
+        return null;
+    }
+
+    private static VisualPlugin findVisualPlugin(String name) {
+        for (VisualPlugin plugin : Main.loadVisualPlugins()) {
+            if (plugin.getName().equalsIgnoreCase(name)) {
+                return plugin;
+            }
+        }
+        exit("No visual plugin named " + name);
+        return null;
+    }
+
+    private static void exit(String message) {
+        System.err.println(message);
+        System.exit(2);
+    }
+}
@@ -2,25 +2,31 @@ package edu.cmu.cs.cs214.hw5;
 
 import edu.cmu.cs.cs214.hw5.core.DataPlugin;
 import edu.cmu.cs.cs214.hw5.core.EmotionAnalysisFrameworkImpl;
+import edu.cmu.cs.cs214.hw5.core.LexiconEmotionAnalyzer;
 import edu.cmu.cs.cs214.hw5.core.VisualPlugin;
 import edu.cmu.cs.cs214.hw5.gui.EmotionAnalysisFrameworkGui;
 
 import javax.swing.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ServiceLoader;
 
 /**
- * The main class for running the EmotionAnalysisFramework
+ * The main class for running the EmotionAnalysisFramework. Pass {@code --offline} to analyze texts with the bundled
+ * lexicon instead of IBM Watson.
  */
 public class Main {
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(Main::createAndStartFramework);
+        boolean offline = Arrays.asList(args).contains("--offline");
+        SwingUtilities.invokeLater(() -> createAndStartFramework(offline));
     }
 
-    private static void createAndStartFramework() {
-        EmotionAnalysisFrameworkImpl core = new EmotionAnalysisFrameworkImpl();
+    private static void createAndStartFramework(boolean offline) {
+        EmotionAnalysisFrameworkImpl core = offline
+                ? new EmotionAnalysisFrameworkImpl(new LexiconEmotionAnalyzer())
+                : new EmotionAnalysisFrameworkImpl();
         EmotionAnalysisFrameworkGui gui = new EmotionAnalysisFrameworkGui(core);
         core.setStateChangeListener(gui);
 
@@ -36,7 +42,7 @@ public class Main {
      * Load Data Plugins listed in META-INF/services/...
      * @return List of instantiated plugins
      */
-    private static List<DataPlugin> loadDataPlugins() {
+    static List<DataPlugin> loadDataPlugins() {
         ServiceLoader<DataPlugin> dataPlugins = ServiceLoader.load(DataPlugin.class);
         List<DataPlugin> result = new ArrayList<>();
         for (DataPlugin plugin : dataPlugins) {
@@ -49,7 +55,7 @@ public class Main {
      * Load Visual Plugins listed in META-INF/services/...
      * @return List of instantiated plugins
      */
-    private static List<VisualPlugin> loadVisualPlugins() {
+    static List<VisualPlugin> loadVisualPlugins() {
         ServiceLoader<VisualPlugin> visualPlugins = ServiceLoader.load(VisualPlugin.class);
         List<VisualPlugin> result = new ArrayList<>();
         for (VisualPlugin plugin : visualPlugins) {
@@ -0,0 +1,260 @@
+package edu.cmu.cs.cs214.hw5.batch;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import edu.cmu.cs.cs214.hw5.core.DataPlugin;
+import edu.cmu.cs.cs214.hw5.core.Emotion;
+import edu.cmu.cs.cs214.hw5.core.EmotionAnalysis;
+import edu.cmu.cs.cs214.hw5.core.EmotionAnalysisFrameworkImpl;
+import edu.cmu.cs.cs214.hw5.core.VisualPlugin;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BatchRunner - runs emotion analyses without a display. Each job retrieves texts from a {@link DataPlugin}, writes
+ * the aggregates of the {@link EmotionAnalysis} as JSON, and renders the visual of every {@link VisualPlugin}
+ * off-screen to PNG. Jobs may run in parallel; they share the framework's analyzer and worker pool, and calls into
+ * the same plugin instance are serialized since plugins are not required to be thread-safe.
+ */
+public class BatchRunner {
+
+    /**
+     * Size of visuals whose panel has no preferred size
+     */
+    private static final int DEFAULT_WIDTH = 800;
+    private static final int DEFAULT_HEIGHT = 600;
+
+    /**
+     * Maximum length of the source part of output file names
+     */
+    private static final int MAX_NAME_LENGTH = 60;
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final EmotionAnalysisFrameworkImpl core;
+    private final Path outputDirectory;
+    private final int numKeywords;
+
+    /**
+     * Creates a runner writing its results to the given directory
+     * @param core the framework running the analyses
+     * @param outputDirectory the directory the JSON and PNG files are written to, created if missing
+     * @param numKeywords the number of most frequent keywords written to the JSON
+     */
+    public BatchRunner(EmotionAnalysisFrameworkImpl core, Path outputDirectory, int numKeywords) {
+        if (numKeywords < 0) {
+            throw new IllegalArgumentException("Number of keywords must not be negative");
+        }
+        this.core = core;
+        this.outputDirectory = outputDirectory;
+        this.numKeywords = numKeywords;
+    }
+
+    /**
+     * Runs one job per source, up to the given number at once
+     * @param dataPlugin the data plugin retrieving the texts
+     * @param visualPlugins the visual plugins to render
+     * @param sources the params of the data plugin for each job
+     * @param parallelism the maximum number of jobs running at once
+     * @return the number of jobs that failed
+     * @throws InterruptedException if interrupted while waiting for the jobs
+     */
+    public int runAll(DataPlugin dataPlugin, List<VisualPlugin> visualPlugins, List<List<String>> sources,
+                      int parallelism) throws InterruptedException {
+        ExecutorService jobs = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, sources.size())));
+        try {
+            List<Future<List<Path>>> results = new ArrayList<>();
+            for (int i = 0; i < sources.size(); i++) {
+                List<String> params = sources.get(i);
+                String jobName = jobName(i, params);
+                results.add(jobs.submit(() -> run(dataPlugin, visualPlugins, params, jobName)));
+            }
+            int failed = 0;
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    for (Path file : results.get(i).get()) {
+                        System.out.println("Wrote " + file);
+                    }
+                } catch (ExecutionException e) {
+                    failed++;
+                    System.err.println("Job " + String.join(" ", sources.get(i)) + " failed: "
+                            + e.getCause().getMessage());
+                }
+            }
+            return failed;
+        } finally {
+            jobs.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs a single job
+     * @param dataPlugin the data plugin retrieving the texts
+     * @param visualPlugins the visual plugins to render
+     * @param params the params of the data plugin
+     * @param jobName the prefix of the output file names
+     * @return the files written
+     * @throws Exception if the data could not be analyzed, or a visual could not be rendered or written
+     */
+    public List<Path> run(DataPlugin dataPlugin, List<VisualPlugin> visualPlugins, List<String> params,
+                          String jobName) throws Exception {
+        EmotionAnalysis analysis = core.analyze(serialized(dataPlugin), params);
+        Files.createDirectories(outputDirectory);
+        List<Path> written = new ArrayList<>();
+
+        Path json = outputDirectory.resolve(jobName + ".json");
+        Files.write(json, toJson(analysis, dataPlugin.getName(), params, numKeywords)
+                .getBytes(StandardCharsets.UTF_8));
+        written.add(json);
+
+        for (VisualPlugin plugin : visualPlugins) {
+            BufferedImage image;
+            synchronized (plugin) {
+                image = renderOffscreen(plugin.getVisual(analysis));
+            }
+            Path png = outputDirectory.resolve(jobName + "-" + sanitize(plugin.getName()) + ".png");
+            if (!ImageIO.write(image, "png", png.toFile())) {
+                throw new IOException("No PNG writer available");
+            }
+            written.add(png);
+        }
+        return written;
+    }
+
+    /**
+     * Converts the aggregates of an analysis to JSON
+     * @param analysis the analysis
+     * @param dataPlugin the name of the data plugin the texts came from
+     * @param params the params of the data plugin
+     * @param numKeywords the number of most frequent keywords to include
+     * @return the JSON text
+     */
+    public static String toJson(EmotionAnalysis analysis, String dataPlugin, List<String> params, int numKeywords) {
+        JsonObject root = new JsonObject();
+        root.addProperty("dataPlugin", dataPlugin);
+        JsonArray source = new JsonArray();
+        params.forEach(source::add);
+        root.add("params", source);
+        root.add("avgEmotions", toJson(analysis.getAvgEmotions()));
+
+        Map<String, Long> top = analysis.getTopKeywords(numKeywords);
+        Map<String, Map<Emotion, Double>> keyEmotions = analysis.getAvgKeyEmotions(top.size());
+        JsonArray keywords = new JsonArray();
+        for (Map.Entry<String, Long> keyword : top.entrySet()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("keyword", keyword.getKey());
+            entry.addProperty("frequency", keyword.getValue());
+            entry.add("avgEmotions", toJson(keyEmotions.get(keyword.getKey())));
+            keywords.add(entry);
+        }
+        root.addProperty("distinctKeywords", analysis.getKeywords().size());
+        root.add("topKeywords", keywords);
+        return GSON.toJson(root);
+    }
+
+    private static JsonObject toJson(Map<Emotion, Double> emotions) {
+        JsonObject object = new JsonObject();
+        for (Emotion emotion : Emotion.values()) {
+            object.addProperty(emotion.name().toLowerCase(Locale.ROOT), emotions.get(emotion));
+        }
+        return object;
+    }
+
+    /**
+     * Paints a panel into an image without showing it on screen. The panel is laid out at its preferred size.
+     * @param panel the panel holding the visual
+     * @return the image of the panel
+     */
+    public static BufferedImage renderOffscreen(JPanel panel) {
+        Dimension size = panel.getPreferredSize();
+        int width = size.width > 0 ? size.width : DEFAULT_WIDTH;
+        int height = size.height > 0 ? size.height : DEFAULT_HEIGHT;
+        panel.setSize(width, height);
+        layout(panel);
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            panel.printAll(graphics);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    // Lays out a component tree that was never added to a window
+    private static void layout(Component component) {
+        component.doLayout();
+        if (component instanceof Container) {
+            for (Component child : ((Container) component).getComponents()) {
+                layout(child);
+            }
+        }
+    }
+
+    /**
+     * Wraps a data plugin so that concurrent jobs call it one at a time
+     * @param plugin the data plugin
+     * @return the wrapped plugin
+     */
+    private static DataPlugin serialized(DataPlugin plugin) {
+        return new DataPlugin() {
+            @Override
+            public String getName() {
+                return plugin.getName();
+            }
+
+            @Override
+            public String getDescription() {
+                return plugin.getDescription();
+            }
+
+            @Override
+            public void onRegister() {
+                plugin.onRegister();
+            }
+
+            @Override
+            public List<String> getData(List<String> params) throws Exception {
+                synchronized (plugin) {
+                    return plugin.getData(params);
+                }
+            }
+        };
+    }
+
+    /**
+     * Gets the output file name prefix of a job
+     * @param index the index of the job
+     * @param params the params of the data plugin
+     * @return the index followed by the params, made safe for file names
+     */
+    static String jobName(int index, List<String> params) {
+        String name = sanitize(String.join("_", params));
+        if (name.length() > MAX_NAME_LENGTH) {
+            name = name.substring(0, MAX_NAME_LENGTH);
+        }
+        return String.format("%03d-%s", index, name);
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]+", "_");
+    }
+}
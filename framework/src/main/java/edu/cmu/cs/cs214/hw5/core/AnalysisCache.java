@@ -0,0 +1,228 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.ibm.cloud.sdk.core.util.GsonSingleton;
+import com.ibm.watson.natural_language_understanding.v1.model.AnalysisResults;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * AnalysisCache -- a disk-backed cache of IBM Watson analysis results keyed by a hash of the analyzed text.
+ * Each entry is stored in its own file so that the cache survives restarts of the framework. Entries expire after
+ * a time-to-live, and the least recently used entries are evicted once the cache grows past its size limit.
+ */
+class AnalysisCache {
+
+    /**
+     * Extension of the cache entry files
+     */
+    private static final String EXTENSION = ".json";
+
+    /**
+     * Gson used to convert between cache entries and JSON
+     */
+    private static final Gson GSON = GsonSingleton.getGsonWithoutPrettyPrinting();
+
+    /**
+     * The directory holding the cache entries
+     */
+    private final Path directory;
+
+    /**
+     * The maximum total size of the cache entries in bytes
+     */
+    private final long maxBytes;
+
+    /**
+     * The time-to-live of an entry in milliseconds
+     */
+    private final long ttlMillis;
+
+    /**
+     * Sizes of the cache entries by key, from least to most recently used
+     */
+    private final Map<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+    private boolean loaded;
+
+    /**
+     * A cache entry as stored on disk
+     */
+    private static class Entry {
+        private long created;
+        private AnalysisResults results;
+    }
+
+    /**
+     * Constructs a new cache storing its entries in the given directory
+     * @param directory the directory holding the cache entries, created when the first entry is stored
+     * @param maxBytes the maximum total size of the cache entries in bytes
+     * @param ttl how long an entry stays valid after it was stored
+     */
+    AnalysisCache(Path directory, long maxBytes, Duration ttl) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Gets the cached analysis of the text
+     * @param text the analyzed text
+     * @return the analysis results, or null if the text has no valid entry in the cache
+     */
+    synchronized AnalysisResults get(String text) {
+        load();
+        String key = hash(text);
+        if (entrySizes.get(key) == null) {
+            return null;
+        }
+        Path file = fileOf(key);
+        try {
+            Entry entry = GSON.fromJson(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Entry.class);
+            long now = System.currentTimeMillis();
+            if (entry == null || entry.results == null || now - entry.created >= ttlMillis) {
+                remove(key);
+                return null;
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now)); // remember the access across restarts
+            return entry.results;
+        } catch (IOException | JsonParseException e) {
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the analysis of the text, evicting the least recently used entries if the cache grows too large
+     * @param text the analyzed text
+     * @param results the analysis results
+     */
+    synchronized void put(String text, AnalysisResults results) {
+        load();
+        String key = hash(text);
+        Entry entry = new Entry();
+        entry.created = System.currentTimeMillis();
+        entry.results = results;
+        byte[] bytes = GSON.toJson(entry).getBytes(StandardCharsets.UTF_8);
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(tmp, bytes);
+            Files.move(tmp, fileOf(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        Long previous = entrySizes.put(key, (long) bytes.length);
+        totalBytes += bytes.length - (previous == null ? 0 : previous);
+        evict();
+    }
+
+    /**
+     * Gets the key of the text
+     * @param text the text
+     * @return the hex encoded SHA-256 hash of the text
+     */
+    static String hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the entries already on disk the first time the cache is used, oldest access first
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> entries = files
+                    .filter(f -> f.getFileName().toString().endsWith(EXTENSION))
+                    .sorted(Comparator.comparing(AnalysisCache::lastModified))
+                    .collect(Collectors.toList());
+            for (Path file : entries) {
+                String name = file.getFileName().toString();
+                long size = Files.size(file);
+                entrySizes.put(name.substring(0, name.length() - EXTENSION.length()), size);
+                totalBytes += size;
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+        evict();
+    }
+
+    /**
+     * Removes the least recently used entries until the cache fits in its size limit
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entrySizes.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            deleteFile(entry.getKey());
+        }
+    }
+
+    /**
+     * Removes an entry from the cache
+     * @param key the key of the entry
+     */
+    private void remove(String key) {
+        Long size = entrySizes.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        deleteFile(key);
+    }
+
+    private void deleteFile(String key) {
+        try {
+            Files.deleteIfExists(fileOf(key));
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private Path fileOf(String key) {
+        return directory.resolve(key + EXTENSION);
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package edu.cmu.cs.cs214.hw5.core;
 
-import com.ibm.watson.natural_language_understanding.v1.model.*;
-
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -9,19 +7,16 @@ import java.util.Map;
 
 /**
  * Document -- a Java class representing each data source. Has keywords, text,
- * emotions, and keywordEmotions. Calls the IBM Watson API to run analysis on
- * the keywords and emotions in the text.
+ * emotions, and keywordEmotions. Built from the {@link TextAnalysis} an
+ * {@link EmotionAnalyzer} produced for the text. Emotion scores are kept in
+ * primitive arrays indexed by {@link Emotion#ordinal()}.
  */
 class Document {
-    /**
-     * IBM Watson API analysis result
-     */
-    private final AnalysisResults results;
 
     /**
      * The list of keywords in the text
      */
-    private List<Keyword> keywords;
+    private final List<Keyword> keywords;
 
     /**
      * The document text
@@ -29,24 +24,40 @@ class Document {
     private final String text;
 
     /**
-     * The emotions in the text
+     * The emotions in the text, indexed by emotion ordinal
      */
-    private Map<Emotion, Double> emotions;
+    private final double[] emotions;
 
     /**
-     * The emotions associated with each keyword in the text
+     * The emotions associated with each keyword in the text, one row of {@link EmotionScoreMap#WIDTH} scores per
+     * keyword in the order of {@link #keywords}
      */
-    private Map<Keyword, Map<Emotion, Double>> keywordEmotions;
+    private final double[] keywordEmotions;
 
     /**
-     * Constructs a new Document object given the text and API analysis results
+     * Constructs a new Document object given the text and its analysis results
      * @param text the text
-     * @param results the API analysis results
+     * @param results the analysis results
+     * @throws IllegalStateException if there are no analysis results
      */
-    Document(String text, AnalysisResults results) {
+    Document(String text, TextAnalysis results) {
+        if (results == null) {
+            throw new IllegalStateException("Unable to get API analysis results");
+        }
         this.text = text;
-        this.results = results;
-        parseAPIAnalysis();
+
+        // get keywords and keyword emotions
+        List<KeywordAnalysis> keywordResults = results.getKeywords();
+        this.keywords = new ArrayList<>(keywordResults.size());
+        this.keywordEmotions = new double[keywordResults.size() * EmotionScoreMap.WIDTH];
+        for (KeywordAnalysis k : keywordResults) {
+            EmotionScoreMap.copy(k.getEmotions(), keywordEmotions, keywords.size() * EmotionScoreMap.WIDTH);
+            keywords.add(new Keyword(k.getText(), k.getCount(), k.getRelevance()));
+        }
+
+        // get emotions
+        this.emotions = new double[EmotionScoreMap.WIDTH];
+        EmotionScoreMap.copy(results.getEmotions(), emotions, 0);
     }
 
     /**
@@ -67,57 +78,29 @@ class Document {
 
     /**
      * Gets the emotions
-     * @return the emotions map
+     * @return read-only view of the emotions map
      */
     Map<Emotion, Double> getEmotions() {
-        return emotions;
+        return new EmotionScoreMap(emotions, 0);
     }
 
     /**
-     * Gets the keyword-emotion associations
-     * @return the map of keyword emotions
+     * Gets the emotion scores, indexed by emotion ordinal. The array is shared and must not be modified.
+     * @return the emotion scores
      */
-    Map<Keyword, Map<Emotion, Double>> getKeywordEmotions() {
-        return keywordEmotions;
+    double[] getEmotionScores() {
+        return emotions;
     }
 
     /**
-     * Parses data from API analysis result and sets fields
+     * Gets the keyword-emotion associations
+     * @return the map of keyword emotions, with read-only emotion maps
      */
-    private void parseAPIAnalysis() {
-        if (results == null) {
-            throw new IllegalStateException("Unable to get API analysis results");
-        }
-
-        // get keywords and keyword emotions
-        this.keywords = new ArrayList<>(); // initialize empty keywords list
-        this.keywordEmotions = new HashMap<>(); // initialize empty keyword-emotions map
-
-        for (KeywordsResult k : results.getKeywords()) {
-            // add new keyword to keywords list
-            Keyword newKeyword = new Keyword(k.getText(), k.getCount(), k.getRelevance());
-            this.keywords.add(newKeyword);
-
-            // add keyword and emotions to keyword emotions list
-            Map<Emotion, Double> emotionMap = new HashMap<>();
-            EmotionScores keyEmotions = k.getEmotion();
-
-            emotionMap.put(Emotion.ANGER, keyEmotions.getAnger());
-            emotionMap.put(Emotion.DISGUST, keyEmotions.getDisgust());
-            emotionMap.put(Emotion.FEAR, keyEmotions.getFear());
-            emotionMap.put(Emotion.JOY, keyEmotions.getJoy());
-            emotionMap.put(Emotion.SADNESS, keyEmotions.getSadness());
-
-            this.keywordEmotions.put(newKeyword, emotionMap);
+    Map<Keyword, Map<Emotion, Double>> getKeywordEmotions() {
+        Map<Keyword, Map<Emotion, Double>> keywordEmotionMap = new HashMap<>();
+        for (int i = 0; i < keywords.size(); i++) {
+            keywordEmotionMap.put(keywords.get(i), new EmotionScoreMap(keywordEmotions, i * EmotionScoreMap.WIDTH));
         }
-
-        // get emotions
-        this.emotions = new HashMap<>(); // initialize empty emotions map
-        EmotionScores e = results.getEmotion().getDocument().getEmotion();
-        this.emotions.put(Emotion.ANGER, e.getAnger());
-        this.emotions.put(Emotion.DISGUST, e.getDisgust());
-        this.emotions.put(Emotion.FEAR, e.getFear());
-        this.emotions.put(Emotion.JOY, e.getJoy());
-        this.emotions.put(Emotion.SADNESS, e.getSadness());
+        return keywordEmotionMap;
     }
-}
\ No newline at end of file
+}
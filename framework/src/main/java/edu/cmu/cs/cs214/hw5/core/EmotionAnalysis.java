@@ -13,6 +13,14 @@ public interface EmotionAnalysis {
      */
     Map<String, Long> getKeywords();
 
+    /**
+     * Gets the most frequent keywords and their respective frequencies, without sorting all keywords
+     * Raises an IllegalArgumentException if numKeywords is negative
+     * @param numKeywords the maximum number of keywords to return
+     * @return a map of at most numKeywords keywords to frequencies, iterating from the most frequent keyword
+     */
+    Map<String, Long> getTopKeywords(int numKeywords);
+
     /**
      * Gets the average emotions associated with each keyword
      * Raises an IllegalArgumentException if numKeywords is greater than the number of keywords
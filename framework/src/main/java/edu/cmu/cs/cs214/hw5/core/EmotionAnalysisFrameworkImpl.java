@@ -1,39 +1,109 @@
 package edu.cmu.cs.cs214.hw5.core;
 
-import com.ibm.cloud.sdk.core.security.Authenticator;
-import com.ibm.cloud.sdk.core.security.IamAuthenticator;
-import com.ibm.watson.natural_language_understanding.v1.NaturalLanguageUnderstanding;
-import com.ibm.watson.natural_language_understanding.v1.model.*;
-
-import java.io.FileInputStream;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Properties;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * EmotionAnalysisFrameworkImpl - Implementation of the {@link EmotionAnalysisFramework}.
- * Uses IBM Watson's Natural Language Understanding API suite to run analysis on text. Uses a {@link DataPlugin} as a
- * data source that will retrieve text to be formed into a {@link EmotionAnalysis} object which is passed to a
- * {@link VisualPlugin} to visualize the analysis.
+ * Uses an {@link EmotionAnalyzer} to run analysis on text, IBM Watson's Natural Language Understanding API suite by
+ * default. Uses a {@link DataPlugin} as a data source that will retrieve text to be formed into a
+ * {@link EmotionAnalysis} object which is passed to a {@link VisualPlugin} to visualize the analysis. Texts retrieved
+ * from the data plugin are analyzed concurrently by a bounded pool of workers sharing a single analyzer. Documents
+ * are added to the analysis as they complete, so a visual requested while the data is still loading is displayed
+ * right away and re-rendered at most every {@value RENDER_INTERVAL_MILLIS} ms as more texts are analyzed.
  */
 public class EmotionAnalysisFrameworkImpl implements EmotionAnalysisFramework {
 
     /**
-     * IBM Watson API key
+     * Minimum length for text analysis
      */
-    private final String watsonAPIKey = getWatsonAPIKey();
+    private static final int MIN_LENGTH = 15;
 
     /**
-     * Minimum length for IBM Watson text analysis
+     * Default maximum number of texts analyzed at once
      */
-    private static final int MIN_LENGTH = 15;
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+
+    /**
+     * Seconds an idle analysis worker is kept alive
+     */
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Minimum time between two renders of the visual while data is loading
+     */
+    private static final long RENDER_INTERVAL_MILLIS = 500;
+
+    /**
+     * Bounded pool of workers running the analyzer
+     */
+    private final ThreadPoolExecutor analysisExecutor;
+
+    /**
+     * Analyzer run on every text retrieved from the data plugin
+     */
+    private final EmotionAnalyzer analyzer;
 
     private EmotionAnalysisFrameworkListener listener;
-    private EmotionAnalysis analysis;
+    private volatile EmotionAnalysis analysis;
     private DataPlugin currentDataPlugin;
-    private VisualPlugin currentVisualPlugin;
+    private volatile VisualPlugin currentVisualPlugin;
+
+    /**
+     * Whether a data request is running, and whether a visual was requested while it runs. Guarded by this.
+     */
+    private boolean loading;
+    private boolean visualRequested;
+
+    /**
+     * Creates a framework that analyzes texts with IBM Watson, sending up to {@value DEFAULT_MAX_CONCURRENT_REQUESTS}
+     * requests at once
+     */
+    public EmotionAnalysisFrameworkImpl() {
+        this(new WatsonEmotionAnalyzer());
+    }
+
+    /**
+     * Creates a framework that analyzes up to {@value DEFAULT_MAX_CONCURRENT_REQUESTS} texts at once with the given
+     * analyzer
+     * @param analyzer the analyzer run on every text
+     */
+    public EmotionAnalysisFrameworkImpl(EmotionAnalyzer analyzer) {
+        this(analyzer, DEFAULT_MAX_CONCURRENT_REQUESTS);
+    }
+
+    /**
+     * Creates a framework that analyzes up to the given number of texts at once with the given analyzer
+     * @param analyzer the analyzer run on every text
+     * @param maxConcurrentRequests the maximum number of texts analyzed at once
+     */
+    public EmotionAnalysisFrameworkImpl(EmotionAnalyzer analyzer, int maxConcurrentRequests) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("At least one concurrent request is required");
+        }
+        analysisExecutor = new ThreadPoolExecutor(maxConcurrentRequests, maxConcurrentRequests,
+                WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "emotion-analysis");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        analysisExecutor.allowCoreThreadTimeOut(true);
+        this.analyzer = analyzer;
+    }
 
     /**
      * Registers a {@link EmotionAnalysisFrameworkListener} to observe changes in the {@link EmotionAnalysisFramework}
@@ -80,24 +150,6 @@ public class EmotionAnalysisFrameworkImpl implements EmotionAnalysisFramework {
         currentVisualPlugin = plugin;
     }
 
-    /**
-     * Gets API key from secret file
-     * @return the Watson API Key
-     */
-    private String getWatsonAPIKey() {
-        Properties prop = new Properties();
-        try {
-            FileInputStream is = new FileInputStream("../framework/src/main/resources/secret.properties");
-            prop.load(is);
-            String apiKey = prop.getProperty("WATSON_API_KEY");
-            is.close();
-            return apiKey;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "";
-        }
-    }
-
     /**
      * Takes a string and removes all non-unicode characters such as emojis
      * @param text the text
@@ -115,34 +167,21 @@ public class EmotionAnalysisFrameworkImpl implements EmotionAnalysisFramework {
     }
 
     /**
-     * Calls the IBM Watson API on the text and returns result of API request
-     * @param text the text to analyze
-     * @return the API analysis result
+     * Analyzes a text and creates a document from it
+     * @param text the text retrieved from the data plugin
+     * @return the document, or null if the text is too short or could not be analyzed
      */
-    private AnalysisResults getDataFromAPI(String text) {
+    private Document analyzeText(String text) {
+        String textOnly = getTextOnly(text);
+        if (textOnly.length() <= MIN_LENGTH) {
+            return null;
+        }
         try {
-            Authenticator authenticator = new IamAuthenticator(watsonAPIKey);
-            NaturalLanguageUnderstanding service = new NaturalLanguageUnderstanding("2019-07-12", authenticator);
-
-            // API call configurations
-            EmotionOptions emotions = new EmotionOptions.Builder()
-                    .build();
-
-            KeywordsOptions keywords = new KeywordsOptions.Builder()
-                    .emotion(true)
-                    .build();
-
-            Features features = new Features.Builder()
-                    .emotion(emotions)
-                    .keywords(keywords)
-                    .build();
-            AnalyzeOptions parameters = new AnalyzeOptions.Builder()
-                    .text(text)
-                    .features(features)
-                    .build();
-
-            return service.analyze(parameters).execute().getResult(); // Return API request result
-            
+            // Create new document with text and analysis results
+            return new Document(textOnly, analyzer.analyze(textOnly));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         } catch (Exception e) {
             System.out.println(e.getMessage());
             return null;
@@ -150,48 +189,172 @@ public class EmotionAnalysisFrameworkImpl implements EmotionAnalysisFramework {
     }
 
     /**
-     * Method invoked by the gui when user selects a data plugin and indicates a request for data
+     * Retrieves texts from a data plugin and analyzes them without involving the listener or the current plugins.
+     * May be called from several threads at once; all calls share this framework's analyzer and worker pool.
+     * @param plugin the data plugin to retrieve texts from
+     * @param params the source of the data to retrieve
+     * @return the analysis of the texts
+     * @throws Exception if the data could not be retrieved or analyzed
+     */
+    public EmotionAnalysis analyze(DataPlugin plugin, List<String> params) throws Exception {
+        List<Document> docs = new ArrayList<>();
+        analyzeTexts(plugin.getData(params), docs::add, remaining -> { });
+        return new EmotionAnalysisImpl(docs);
+    }
+
+    /**
+     * Method invoked by the gui when user selects a data plugin and indicates a request for data. Blocks until all
+     * texts are analyzed, so the gui should call it off the event dispatch thread to display partial results.
      * @param source the source of the data grabbed from user input
      */
     public void requestDataFromSource(List<String> source) {
         if (currentDataPlugin == null) {
             listener.onCatchLoadException("Please select a data plugin");
-        } else {
-            listener.onDataRequest();
+            return;
+        }
+        listener.onDataRequest();
+        try {
+            List<String> dataRequestResult = currentDataPlugin.getData(source);
+            IncrementalEmotionAnalysis incremental = new IncrementalEmotionAnalysis();
+            synchronized (this) {
+                analysis = incremental;
+                loading = true;
+            }
             try {
-                List<Document> docs = new ArrayList<>();
-                List<String> dataRequestResult = currentDataPlugin.getData(source);
-                for (String text : dataRequestResult) {
-                    AnalysisResults apiResult = getDataFromAPI(text); // Get text analysis results from Watson API
-                    String textOnly = getTextOnly(text);
-                    if (apiResult != null && textOnly.length() > MIN_LENGTH) {
-                        try {
-                            // Create new document with text and API results
-                            Document doc = new Document(textOnly, apiResult);
-                            docs.add(doc);
-                        }
-                        catch (Exception e) {
-                            System.out.println(e.getMessage());
-                        }
-                    }
+                analyzeAll(dataRequestResult, incremental);
+            } finally {
+                synchronized (this) {
+                    loading = false;
+                    visualRequested = false;
+                }
+            }
+            analysis = incremental.snapshot();
+            listener.onDataReadyToDisplay();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            listener.onCatchLoadException("Data request was interrupted");
+        } catch (ExecutionException e) {
+            listener.onCatchLoadException(e.getCause().getMessage());
+        } catch (Exception e) {
+            listener.onCatchLoadException(e.getMessage());
+        }
+    }
 
+    /**
+     * Analyzes the texts concurrently and adds the documents to the analysis in the order they complete. A visual
+     * requested in the meantime is rendered as soon as possible, then re-rendered on a throttled schedule.
+     * @param texts the texts retrieved from the data plugin
+     * @param incremental the analysis the documents are added to
+     * @throws InterruptedException if interrupted while waiting for a text to be analyzed
+     * @throws ExecutionException if analyzing a text failed
+     */
+    private void analyzeAll(List<String> texts, IncrementalEmotionAnalysis incremental)
+            throws InterruptedException, ExecutionException {
+        LiveVisual live = new LiveVisual(texts.size(), incremental);
+        analyzeTexts(texts, live::add, live::update);
+    }
+
+    /**
+     * Analyzes the texts on the worker pool and hands each document to the consumer, on the calling thread, in the
+     * order they complete. The progress callback is run on the calling thread before each wait for a document, at
+     * least every {@value RENDER_INTERVAL_MILLIS} ms, and once more after the last document.
+     * @param texts the texts to analyze
+     * @param onDocument receives every document analyzed
+     * @param onProgress receives the number of texts still being analyzed
+     * @throws InterruptedException if interrupted while waiting for a text to be analyzed
+     * @throws ExecutionException if analyzing a text failed
+     */
+    private void analyzeTexts(List<String> texts, Consumer<Document> onDocument, IntConsumer onProgress)
+            throws InterruptedException, ExecutionException {
+        CompletionService<Document> pipeline = new ExecutorCompletionService<>(analysisExecutor);
+        for (String text : texts) {
+            pipeline.submit(() -> analyzeText(text));
+        }
+        int remaining = texts.size();
+        while (true) {
+            onProgress.accept(remaining);
+            if (remaining == 0) {
+                return;
+            }
+            Future<Document> done = pipeline.poll(RENDER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            if (done != null) {
+                remaining--;
+                Document doc = done.get();
+                if (doc != null) {
+                    onDocument.accept(doc);
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders a visual on the event dispatch thread, where Swing components must be created, and hands it to the
+     * listener there. Waits for the render, so the analysis is not modified while the visual reads it.
+     * @param plugin the visual plugin
+     * @param analysis the analysis to visualize
+     * @param update true to replace the displayed visual, false to display a new one
+     * @return null if the visual was displayed, or the exception the plugin failed with, or the InterruptedException
+     *         if interrupted before the render finished
+     */
+    private Exception showVisual(VisualPlugin plugin, EmotionAnalysis analysis, boolean update) {
+        Exception[] failure = new Exception[1];
+        Runnable render = () -> {
+            try {
+                JPanel panel = plugin.getVisual(analysis);
+                if (update) {
+                    listener.onVisualUpdated(panel);
+                } else {
+                    listener.onLoadVisualRequest(panel);
                 }
-                analysis = new EmotionAnalysisImpl(docs);
-                listener.onDataReadyToDisplay();
             } catch (Exception e) {
-                listener.onCatchLoadException(e.getMessage());
+                failure[0] = e;
             }
+        };
+        if (SwingUtilities.isEventDispatchThread()) {
+            render.run();
+            return failure[0];
+        }
+        try {
+            SwingUtilities.invokeAndWait(render);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // ends the data request at its next wait for a document
+            return e;
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return failure[0];
+    }
+
+    /**
+     * Checks whether a visual was requested since the last check, and marks the data request as finished
+     * @param finished true if all texts have been analyzed
+     * @return true if a visual was requested
+     */
+    private synchronized boolean takeVisualRequest(boolean finished) {
+        boolean requested = visualRequested;
+        visualRequested = false;
+        if (finished) {
+            loading = false;
         }
+        return requested;
     }
 
     /**
-     * Method invoked by the gui when user selects visual plugin and indicates a request for data
+     * Method invoked by the gui when user selects visual plugin and indicates a request for data. While data is
+     * loading, the visual is rendered by the data request with the texts analyzed so far and kept up to date.
      */
     public void requestVisualizeData() {
         if (currentVisualPlugin == null) {
             listener.onCatchLoadException("Please select a visual plugin");
             return;
         }
+        synchronized (this) {
+            if (loading) {
+                visualRequested = true;
+                return;
+            }
+        }
+        EmotionAnalysis analysis = this.analysis;
         if (analysis == null) {
             listener.onCatchLoadException("Data not loaded from data plugin");
             return;
@@ -203,4 +366,85 @@ public class EmotionAnalysisFrameworkImpl implements EmotionAnalysisFramework {
             listener.onCatchLoadException(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * LiveVisual - the state of the visual displayed while a data request is running. Adds documents to the
+     * analysis and renders the visual requested during the data request as documents arrive.
+     */
+    private class LiveVisual {
+
+        /**
+         * Number of texts retrieved from the data plugin
+         */
+        private final int total;
+
+        /**
+         * Analysis the documents are added to
+         */
+        private final IncrementalEmotionAnalysis incremental;
+
+        /**
+         * Requested visual that has not been displayed yet
+         */
+        private VisualPlugin pendingVisual;
+
+        /**
+         * Displayed visual that is kept up to date
+         */
+        private VisualPlugin liveVisual;
+
+        /**
+         * Whether documents were added since the last render, and when the last render happened
+         */
+        private boolean changed;
+        private long lastUpdate = System.currentTimeMillis();
+
+        LiveVisual(int total, IncrementalEmotionAnalysis incremental) {
+            this.total = total;
+            this.incremental = incremental;
+        }
+
+        /**
+         * Adds an analyzed document to the analysis
+         * @param doc the document
+         */
+        void add(Document doc) {
+            incremental.add(doc);
+            changed = true;
+        }
+
+        /**
+         * Reports progress and renders the visual if one was requested or the throttle interval has passed
+         * @param remaining the number of texts still being analyzed
+         */
+        void update(int remaining) {
+            boolean requested = takeVisualRequest(remaining == 0);
+            if (requested) {
+                pendingVisual = currentVisualPlugin;
+                liveVisual = null;
+            }
+            long now = System.currentTimeMillis();
+            boolean due = changed && (remaining == 0 || now - lastUpdate >= RENDER_INTERVAL_MILLIS);
+            if (due) {
+                listener.onDataPartiallyLoaded(total - remaining, total);
+                changed = false;
+                lastUpdate = now;
+            }
+            if (pendingVisual != null && (requested || due || remaining == 0)) {
+                Exception failure = showVisual(pendingVisual, incremental, false);
+                if (failure == null) {
+                    liveVisual = pendingVisual;
+                    pendingVisual = null;
+                } else if (remaining == 0) {
+                    listener.onCatchLoadException(failure.getMessage());
+                } // else too few texts analyzed for this visual yet; retried on the next update
+            } else if (liveVisual != null && due) {
+                Exception failure = showVisual(liveVisual, incremental, true);
+                if (failure != null) {
+                    listener.onCatchLoadException(failure.getMessage());
+                    liveVisual = null;
+                }
+            }
+        }
+    }
+}
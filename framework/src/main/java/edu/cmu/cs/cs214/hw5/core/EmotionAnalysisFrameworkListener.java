@@ -44,4 +44,20 @@ public interface EmotionAnalysisFrameworkListener {
      */
     void onLoadVisualRequest(JPanel panel);
 
+    /**
+     * Called periodically while a data request is running, once some of the texts have been analyzed. The analysis
+     * can already be visualized at this point.
+     * @param analyzed the number of texts analyzed so far
+     * @param total the number of texts retrieved from the data plugin
+     */
+    default void onDataPartiallyLoaded(int analyzed, int total) {
+    }
+
+    /**
+     * Called when the visual requested during a running data request has been re-rendered with newly analyzed texts
+     * @param panel the panel holding the updated visual, replacing the one displayed before
+     */
+    default void onVisualUpdated(JPanel panel) {
+    }
+
 }
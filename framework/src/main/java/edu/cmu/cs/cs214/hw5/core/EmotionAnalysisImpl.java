@@ -1,71 +1,231 @@
 package edu.cmu.cs.cs214.hw5.core;
 
-import java.util.List;
-import java.util.Map;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 
 /**
- * EmotionAnalysisImpl - Implementation of the {@link EmotionAnalysis}
+ * EmotionAnalysisImpl - Implementation of the {@link EmotionAnalysis}.
+ * An analysis is a selection of documents over an immutable {@link Corpus} shared with every analysis filtered from
+ * it. Filters clear bits of the selection and derive the keyword aggregates of the result from those of the analysis
+ * they were applied to, so chained filters never rebuild the corpus. Keywords are only ranked as far as callers ask:
+ * the top keywords are selected with a bounded heap, and all keywords are sorted only when all of them are requested.
  */
 class EmotionAnalysisImpl implements EmotionAnalysis {
-    private List<Document> documents;
-    private Map<Emotion, Double> avgEmotions;   // average emotions across all documents
-    private Map<String, Long> keywords;         // map of keywords to their frequency
-    private List<String> topKeywords;           // list of keywords sorted by frequency
+    private final Corpus corpus;
+    private final BitSet selection;             // ids of the documents in this analysis
+    private final long[] keywordCounts;         // total frequency of each keyword id over the selected documents
+    private final int[] keywordEntries;         // number of selected document keywords with each keyword id
+    private final int distinctKeywords;         // number of keyword ids with entries in the selected documents
+    private final double[] avgEmotions;         // average emotions across the selected documents
+    private int[] topKeywords;                  // most frequent keyword ids in order, as many as requested so far
+    private Map<String, Long> keywords;         // map of keywords to their frequency, computed on first use
 
     private static final String KEYWORD_ERROR = "Documents do not contain enough keywords for analysis";
+    private static final String NEGATIVE_ERROR = "Number of keywords must not be negative";
+
+    /**
+     * Corpus - the documents of an analysis laid out in flat arrays: the emotions of every document, the keywords of
+     * every document, and for every keyword the documents listing it. Never modified once built.
+     */
+    private static final class Corpus {
+        private final String[] keywordText;             // keyword by keyword id
+        private final Map<String, Integer> keywordIds;  // keyword id by keyword
+        private final double[] emotionScores;           // one row of emotion ordinals per document
+        private final int[] entryStart;                 // first keyword entry of each document, plus the end
+        private final int[] entryKeyword;               // keyword id of each keyword entry
+        private final long[] entryFrequency;            // frequency of each keyword entry
+        private final int[] postingStart;               // first posting of each keyword id, plus the end
+        private final int[] postingDocument;            // document id of each posting, one per keyword entry
+        private final BitSet[] mainEmotionDocuments;    // documents by main emotion ordinal
+
+        /**
+         * Lays out the given documents
+         * @param documents the list of documents
+         */
+        Corpus(List<Document> documents) {
+            int size = documents.size();
+            emotionScores = new double[size * EmotionScoreMap.WIDTH];
+            mainEmotionDocuments = new BitSet[EmotionScoreMap.WIDTH];
+            for(int i = 0; i < EmotionScoreMap.WIDTH; i++) {
+                mainEmotionDocuments[i] = new BitSet(size);
+            }
+
+            // number the keywords and flatten the keyword lists of the documents
+            keywordIds = new HashMap<>();
+            List<String> texts = new ArrayList<>();
+            entryStart = new int[size + 1];
+            int entries = 0;
+            for(Document document: documents) {
+                entries += document.getKeywords().size();
+            }
+            entryKeyword = new int[entries];
+            entryFrequency = new long[entries];
+            int entry = 0;
+            for(int id = 0; id < size; id++) {
+                Document document = documents.get(id);
+                System.arraycopy(document.getEmotionScores(), 0, emotionScores, id * EmotionScoreMap.WIDTH,
+                        EmotionScoreMap.WIDTH);
+                Emotion mainEmotion = getMainEmotion(id);
+                if(mainEmotion != null) {
+                    mainEmotionDocuments[mainEmotion.ordinal()].set(id);
+                }
+                entryStart[id] = entry;
+                for(Keyword keyword: document.getKeywords()) {
+                    Integer keywordId = keywordIds.get(keyword.getWord());
+                    if(keywordId == null) {
+                        keywordId = texts.size();
+                        keywordIds.put(keyword.getWord(), keywordId);
+                        texts.add(keyword.getWord());
+                    }
+                    entryKeyword[entry] = keywordId;
+                    entryFrequency[entry] = keyword.getFrequency();
+                    entry++;
+                }
+            }
+            entryStart[size] = entry;
+            keywordText = texts.toArray(new String[0]);
+
+            // invert the keyword entries into postings, keeping document order within each keyword
+            postingStart = new int[keywordText.length + 1];
+            for(int keywordId: entryKeyword) {
+                postingStart[keywordId + 1]++;
+            }
+            for(int k = 0; k < keywordText.length; k++) {
+                postingStart[k + 1] += postingStart[k];
+            }
+            postingDocument = new int[entries];
+            int[] next = postingStart.clone();
+            for(int id = 0; id < size; id++) {
+                for(int e = entryStart[id]; e < entryStart[id + 1]; e++) {
+                    postingDocument[next[entryKeyword[e]]++] = id;
+                }
+            }
+        }
+
+        /**
+         * Gets the number of documents
+         * @return the number of documents
+         */
+        int size() {
+            return entryStart.length - 1;
+        }
+
+        // Returns the main emotion of the document with the given id
+        private Emotion getMainEmotion(int documentId) {
+            int row = documentId * EmotionScoreMap.WIDTH;
+            Emotion currEmotion = null;
+            double currRelevance = -1.0;
+
+            for(Emotion emotion: EmotionScoreMap.EMOTIONS) {
+                if(emotionScores[row + emotion.ordinal()] > currRelevance) {
+                    currRelevance = emotionScores[row + emotion.ordinal()];
+                    currEmotion = emotion;
+                }
+            }
+            return currEmotion;
+        }
+    }
 
     /**
      * Given a list of documents, analyzes the keywords and emotions across all documents
      * @param documents the list of documents
      */
     EmotionAnalysisImpl(List<Document> documents) {
-        this.documents = documents;
-        calculateKeywords();
-        calculateTopKeywords();
-        calculateAvgEmotions();
-    }
+        this.corpus = new Corpus(documents);
+        this.selection = new BitSet(corpus.size());
+        selection.set(0, corpus.size());
 
-    private void calculateTopKeywords() {
-        // sorts the keywords by total frequency
-        topKeywords = new ArrayList<>(keywords.keySet());
+        // Adds the frequency of each keyword from each document
+        keywordCounts = new long[corpus.keywordText.length];
+        keywordEntries = new int[corpus.keywordText.length];
+        for(int e = 0; e < corpus.entryKeyword.length; e++) {
+            keywordCounts[corpus.entryKeyword[e]] += corpus.entryFrequency[e];
+            keywordEntries[corpus.entryKeyword[e]]++;
+        }
+        distinctKeywords = corpus.keywordText.length;
+        avgEmotions = calculateAvgEmotions();
+    }
 
-        topKeywords.sort((key1, key2) -> {
-            int freqCompare =  keywords.get(key2).compareTo(keywords.get(key1));
-            if(freqCompare == 0) return key1.compareTo(key2); // if frequencies are equal then compare string values
-            return freqCompare;
-        });
+    /**
+     * Creates an analysis of a selection of the corpus documents with already derived keyword aggregates
+     * @param corpus the shared corpus
+     * @param selection ids of the selected documents
+     * @param keywordCounts total frequency of each keyword id over the selected documents
+     * @param keywordEntries number of selected document keywords with each keyword id
+     * @param distinctKeywords number of keyword ids with entries in the selected documents
+     */
+    private EmotionAnalysisImpl(Corpus corpus, BitSet selection, long[] keywordCounts, int[] keywordEntries,
+                                int distinctKeywords) {
+        this.corpus = corpus;
+        this.selection = selection;
+        this.keywordCounts = keywordCounts;
+        this.keywordEntries = keywordEntries;
+        this.distinctKeywords = distinctKeywords;
+        this.avgEmotions = calculateAvgEmotions();
     }
 
-    private void calculateKeywords() {
-        keywords = new HashMap<>();
+    private double[] calculateAvgEmotions() {
+        double[] avgEmotions = new double[EmotionScoreMap.WIDTH];
+        int size = selection.cardinality();
 
-        // Adds the frequency of each keyword from each document
-        for(Document document:documents) {
-            for(Keyword keyword: document.getKeywords()) {
-                long freq = keywords.getOrDefault(keyword.getWord(), (long)0);
-                keywords.put(keyword.getWord(), freq + keyword.getFrequency());
+        for(int id = selection.nextSetBit(0); id >= 0; id = selection.nextSetBit(id + 1)) {
+            int row = id * EmotionScoreMap.WIDTH;
+            for(int i = 0; i < EmotionScoreMap.WIDTH; i++) {
+                avgEmotions[i] += corpus.emotionScores[row + i]/size;
             }
         }
+        return avgEmotions;
     }
 
-    private void calculateAvgEmotions() {
-        avgEmotions = new HashMap<>();
-        int size = documents.size();
-
-        // initialize all emotion values to zero
-        for(Emotion emotion: Emotion.values()) {
-            avgEmotions.put(emotion, 0.0);
+    /**
+     * Gets the most frequent keyword ids in order. Fewer than all keywords are selected with a bounded heap in
+     * O(V log k); all keywords are fully sorted. The result is kept so smaller requests reuse it.
+     * @param numKeywords the number of keyword ids, at most the number of distinct keywords
+     * @return at least numKeywords keyword ids sorted by frequency
+     */
+    private synchronized int[] getTopKeywordIds(int numKeywords) {
+        if(topKeywords != null && topKeywords.length >= numKeywords) {
+            return topKeywords;
+        }
+        if(numKeywords >= distinctKeywords) {
+            List<Integer> ids = new ArrayList<>(distinctKeywords);
+            for(int k = 0; k < keywordEntries.length; k++) {
+                if(keywordEntries[k] > 0) ids.add(k);
+            }
+            ids.sort(this::compareKeywords);
+            topKeywords = toArray(ids);
+            return topKeywords;
         }
 
-        for(Document document: documents) {
-            Map<Emotion, Double> emotions = document.getEmotions();
-            for(Emotion emotion: Emotion.values()) {
-                double relevance = emotions.get(emotion)/size;
-                avgEmotions.put(emotion, avgEmotions.get(emotion) + relevance);
+        // keep the numKeywords best keywords seen so far, with the worst of them at the head
+        PriorityQueue<Integer> heap = new PriorityQueue<>(numKeywords + 1, (key1, key2) -> compareKeywords(key2, key1));
+        for(int k = 0; k < keywordEntries.length; k++) {
+            if(keywordEntries[k] == 0) continue;
+            if(heap.size() < numKeywords) {
+                heap.add(k);
+            } else if(numKeywords > 0 && compareKeywords(k, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(k);
             }
         }
+        int[] top = new int[heap.size()];
+        for(int i = top.length - 1; i >= 0; i--) {
+            top[i] = heap.poll();
+        }
+        topKeywords = top;
+        return topKeywords;
+    }
+
+    // Orders keyword ids by total frequency, then by keyword
+    private int compareKeywords(int key1, int key2) {
+        int freqCompare = Long.compare(keywordCounts[key2], keywordCounts[key1]);
+        if(freqCompare == 0) return corpus.keywordText[key1].compareTo(corpus.keywordText[key2]); // if frequencies are equal then compare string values
+        return freqCompare;
     }
 
     /**
@@ -73,10 +233,37 @@ class EmotionAnalysisImpl implements EmotionAnalysis {
      * @return a map of keywords to frequencies
      */
     @Override
-    public Map<String, Long> getKeywords() {
+    public synchronized Map<String, Long> getKeywords() {
+        if(keywords == null) {
+            keywords = new HashMap<>();
+            for(int k = 0; k < keywordEntries.length; k++) {
+                if(keywordEntries[k] > 0) keywords.put(corpus.keywordText[k], keywordCounts[k]);
+            }
+        }
         return keywords;
     }
 
+    /**
+     * Gets the most frequent keywords and their respective frequencies, without sorting all keywords
+     * Raises an IllegalArgumentException if numKeywords is negative
+     * @param numKeywords the maximum number of keywords to return
+     * @return a map of at most numKeywords keywords to frequencies, iterating from the most frequent keyword
+     */
+    @Override
+    public Map<String, Long> getTopKeywords(int numKeywords) {
+        if(numKeywords < 0) {
+            throw new IllegalArgumentException(NEGATIVE_ERROR);
+        }
+        int count = Math.min(numKeywords, distinctKeywords);
+        int[] keys = getTopKeywordIds(count);
+
+        Map<String, Long> top = new LinkedHashMap<>();
+        for(int i = 0; i < count; i++) {
+            top.put(corpus.keywordText[keys[i]], keywordCounts[keys[i]]);
+        }
+        return top;
+    }
+
     /**
      * Gets the average emotions associated with each keyword
      * Raises an IllegalArgumentException if numKeywords is greater than the number of keywords
@@ -85,19 +272,38 @@ class EmotionAnalysisImpl implements EmotionAnalysis {
      */
     @Override
     public Map<String, Map<Emotion, Double>> getAvgKeyEmotions(int numKeywords) {
-        if(numKeywords > keywords.size()) {
+        if(numKeywords > distinctKeywords) {
             throw new IllegalArgumentException(KEYWORD_ERROR);
         }
 
-        List<String> keys = topKeywords.subList(0, numKeywords);
+        int[] keys = getTopKeywordIds(numKeywords);
 
         Map<String, Map<Emotion, Double>> avgKeyEmotions = new HashMap<>();
-        for(String key: keys) {
-            avgKeyEmotions.put(key, getKeyEmotions(key));
+        for(int i = 0; i < numKeywords; i++) {
+            avgKeyEmotions.put(corpus.keywordText[keys[i]], getKeywordAvgEmotions(keys[i]));
         }
         return avgKeyEmotions;
     }
 
+    // Returns the average emotions of the selected documents listing the keyword with the given id
+    private Map<Emotion, Double> getKeywordAvgEmotions(int keywordId) {
+        double[] avgEmotions = new double[EmotionScoreMap.WIDTH];
+        long count = 0;
+        for(int p = corpus.postingStart[keywordId]; p < corpus.postingStart[keywordId + 1]; p++) {
+            int id = corpus.postingDocument[p];
+            if(selection.get(id)) {
+                int row = id * EmotionScoreMap.WIDTH;
+                for(int i = 0; i < EmotionScoreMap.WIDTH; i++) {
+                    avgEmotions[i] += corpus.emotionScores[row + i];
+                }
+                count++;
+            }
+        }
+        for(int i = 0; i < EmotionScoreMap.WIDTH; i++) {
+            avgEmotions[i] /= count;
+        }
+        return new EmotionScoreMap(avgEmotions, 0);
+    }
 
     /**
      * Gets the average emotion levels across all documents
@@ -105,7 +311,7 @@ class EmotionAnalysisImpl implements EmotionAnalysis {
      */
     @Override
     public Map<Emotion, Double> getAvgEmotions() {
-        return avgEmotions;
+        return new EmotionScoreMap(avgEmotions, 0);
     }
 
     /**
@@ -115,16 +321,15 @@ class EmotionAnalysisImpl implements EmotionAnalysis {
      */
     @Override
     public EmotionAnalysis filterKey(String key) {
-        List<Document> filteredDocuments = new ArrayList<>(documents);
-        for(Document document: documents) {
-            for(Keyword keyword: document.getKeywords()) {
-                if(keyword.getWord().equals(key)) {
-                    filteredDocuments.remove(document);
-                    break;
-                }
-            }
+        Integer keywordId = corpus.keywordIds.get(key);
+        if(keywordId == null) {
+            return this;
+        }
+        BitSet removed = new BitSet(corpus.size());
+        for(int p = corpus.postingStart[keywordId]; p < corpus.postingStart[keywordId + 1]; p++) {
+            removed.set(corpus.postingDocument[p]);
         }
-        return new EmotionAnalysisImpl(filteredDocuments);
+        return without(removed);
     }
 
     /**
@@ -134,54 +339,83 @@ class EmotionAnalysisImpl implements EmotionAnalysis {
      */
     @Override
     public EmotionAnalysis filterEmotion(Emotion emotion) {
-        List<Document> filteredDocuments = new ArrayList<>(documents);
-        for(Document document: documents) {
-            if(getMainEmotion(document).equals(emotion))
-                filteredDocuments.remove(document);
-        }
-        return new EmotionAnalysisImpl(filteredDocuments);
+        return without((BitSet) corpus.mainEmotionDocuments[emotion.ordinal()].clone());
     }
 
+    /**
+     * Derives the analysis of the selected documents minus the given ones. Only the keywords of the removed
+     * documents have their aggregates updated, and a full frequency order already sorted here is merged rather than
+     * sorted again.
+     * @param removed ids of the documents to remove; modified by this method
+     * @return the emotion analysis after removing the documents
+     */
+    private EmotionAnalysisImpl without(BitSet removed) {
+        removed.and(selection);
+        if(removed.isEmpty()) {
+            return this;
+        }
+        BitSet kept = (BitSet) selection.clone();
+        kept.andNot(removed);
 
-    private Map<Emotion, Double> getKeyEmotions(String key){
-        Map<Emotion, Double> emotionSum = new HashMap<>();
-        Map<Emotion, Long> emotionFreq = new HashMap<>();
-
-        for(Document document:documents){
-            List<Keyword> keywords = document.getKeywords();
-            Map<Emotion, Double> emotions = document.getEmotions();
-            for(Keyword keyword: keywords){
-                if(keyword.getWord().equals(key)) {
-                    for(Emotion emotion: Emotion.values()) {
-                        double value = emotions.get(emotion);
-                        emotionSum.put(emotion, value + emotionSum.getOrDefault(emotion, 0.0));
-                        emotionFreq.put(emotion, 1 + emotionFreq.getOrDefault(emotion, (long)0));
-                    }
-                }
+        long[] counts = keywordCounts.clone();
+        int[] entries = keywordEntries.clone();
+        int distinct = distinctKeywords;
+        BitSet changed = new BitSet(entries.length);
+        for(int id = removed.nextSetBit(0); id >= 0; id = removed.nextSetBit(id + 1)) {
+            for(int e = corpus.entryStart[id]; e < corpus.entryStart[id + 1]; e++) {
+                int k = corpus.entryKeyword[e];
+                counts[k] -= corpus.entryFrequency[e];
+                if(--entries[k] == 0) distinct--;
+                changed.set(k);
             }
         }
 
-        Map<Emotion, Double> avgEmotions = new HashMap<>();
-        for(Emotion emotion: Emotion.values()) {
-            avgEmotions.put(emotion, emotionSum.get(emotion)/emotionFreq.get(emotion));
+        EmotionAnalysisImpl result = new EmotionAnalysisImpl(corpus, kept, counts, entries, distinct);
+        int[] parentTop;
+        synchronized (this) {
+            parentTop = topKeywords;
         }
-
-        return avgEmotions;
+        if(parentTop != null && parentTop.length == distinctKeywords) {
+            result.topKeywords = result.mergeTopKeywords(parentTop, changed);
+        }
+        return result;
     }
 
+    /**
+     * Derives the frequency order of this analysis from the order of the analysis it was filtered from
+     * @param parentTop keyword ids sorted by their frequency before filtering
+     * @param changed ids of the keywords whose frequency changed
+     * @return keyword ids sorted by frequency
+     */
+    private int[] mergeTopKeywords(int[] parentTop, BitSet changed) {
+        // unchanged keywords keep their relative order, so only the changed ones need sorting
+        List<Integer> moved = new ArrayList<>();
+        for(int k = changed.nextSetBit(0); k >= 0; k = changed.nextSetBit(k + 1)) {
+            if(keywordEntries[k] > 0) moved.add(k);
+        }
+        moved.sort(this::compareKeywords);
 
-    // Returns the main emotion of the document
-    private Emotion getMainEmotion(Document document) {
-        Map<Emotion, Double> emotions = document.getEmotions();
-        Emotion currEmotion = null;
-        Double currRelevance = -1.0;
-
-        for(Emotion emotion: Emotion.values()) {
-            if(emotions.get(emotion) > currRelevance) {
-                currRelevance = emotions.get(emotion);
-                currEmotion = emotion;
+        int[] top = new int[distinctKeywords];
+        int i = 0;
+        int m = 0;
+        for(int k: parentTop) {
+            if(changed.get(k)) continue;
+            while(m < moved.size() && compareKeywords(moved.get(m), k) < 0) {
+                top[i++] = moved.get(m++);
             }
+            top[i++] = k;
+        }
+        while(m < moved.size()) {
+            top[i++] = moved.get(m++);
+        }
+        return top;
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        int[] array = new int[ids.size()];
+        for(int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
         }
-        return currEmotion;
+        return array;
     }
-}
\ No newline at end of file
+}
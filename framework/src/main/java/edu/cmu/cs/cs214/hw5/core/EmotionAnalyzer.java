@@ -0,0 +1,23 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+/**
+ * EmotionAnalyzer - interface for the backends that analyze the emotions and keywords of a text. The
+ * {@link EmotionAnalysisFrameworkImpl} calls the analyzer from several threads at once, so implementations
+ * must be thread-safe.
+ */
+public interface EmotionAnalyzer {
+
+    /**
+     * Getter for the name of the analyzer
+     * @return the name of the analyzer
+     */
+    String getName();
+
+    /**
+     * Analyzes the emotions and keywords of a text
+     * @param text the text to analyze, with emojis and other symbols already removed
+     * @return the analysis of the text
+     * @throws Exception if the text could not be analyzed
+     */
+    TextAnalysis analyze(String text) throws Exception;
+}
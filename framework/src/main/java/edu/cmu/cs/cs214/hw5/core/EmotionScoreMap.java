@@ -0,0 +1,109 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * EmotionScoreMap -- a read-only {@code Map<Emotion, Double>} view of emotion scores stored in a primitive array,
+ * indexed by {@link Emotion#ordinal()} starting at an offset. Lets documents and analyses keep their scores in flat
+ * {@code double[]}s while still handing out maps.
+ */
+final class EmotionScoreMap extends AbstractMap<Emotion, Double> {
+
+    /**
+     * The emotions, in ordinal order
+     */
+    static final Emotion[] EMOTIONS = Emotion.values();
+
+    /**
+     * The number of emotions, and so the number of scores per row of a score array
+     */
+    static final int WIDTH = EMOTIONS.length;
+
+    /**
+     * The backing scores
+     */
+    private final double[] scores;
+
+    /**
+     * Index of the score of the first emotion
+     */
+    private final int offset;
+
+    /**
+     * Constructs a view of the scores of a single row
+     * @param scores the backing scores
+     * @param offset index of the score of the first emotion
+     */
+    EmotionScoreMap(double[] scores, int offset) {
+        this.scores = scores;
+        this.offset = offset;
+    }
+
+    /**
+     * Copies the scores of a map into a row of a score array
+     * @param emotions the score of every emotion
+     * @param scores the score array
+     * @param offset index of the score of the first emotion
+     * @throws IllegalArgumentException if a score is missing for an emotion
+     */
+    static void copy(Map<Emotion, Double> emotions, double[] scores, int offset) {
+        for (Emotion emotion : EMOTIONS) {
+            Double score = emotions.get(emotion);
+            if (score == null) {
+                throw new IllegalArgumentException("Missing score for " + emotion);
+            }
+            scores[offset + emotion.ordinal()] = score;
+        }
+    }
+
+    @Override
+    public Double get(Object key) {
+        return key instanceof Emotion ? scores[offset + ((Emotion) key).ordinal()] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Emotion;
+    }
+
+    @Override
+    public int size() {
+        return WIDTH;
+    }
+
+    @Override
+    public Set<Entry<Emotion, Double>> entrySet() {
+        return new AbstractSet<Entry<Emotion, Double>>() {
+            @Override
+            public Iterator<Entry<Emotion, Double>> iterator() {
+                return new Iterator<Entry<Emotion, Double>>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < WIDTH;
+                    }
+
+                    @Override
+                    public Entry<Emotion, Double> next() {
+                        if (next >= WIDTH) {
+                            throw new NoSuchElementException();
+                        }
+                        Emotion emotion = EMOTIONS[next++];
+                        return new SimpleImmutableEntry<>(emotion, scores[offset + emotion.ordinal()]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return WIDTH;
+            }
+        };
+    }
+}
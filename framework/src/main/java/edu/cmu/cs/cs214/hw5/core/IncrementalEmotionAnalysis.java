@@ -0,0 +1,186 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * IncrementalEmotionAnalysis - an {@link EmotionAnalysis} that absorbs documents as they are analyzed. Keyword
+ * frequencies, running emotion sums and the frequency order of the keywords are updated in place for every added
+ * document, so the analysis can be displayed while a long data request is still running. Filtering takes a snapshot
+ * of the documents added so far.
+ */
+class IncrementalEmotionAnalysis implements EmotionAnalysis {
+    private final List<Document> documents = new ArrayList<>();
+    private final double[] emotionSums = new double[EmotionScoreMap.WIDTH];    // emotions summed over all documents
+    private final Map<String, KeywordStats> keywordStats = new HashMap<>();
+    private final TreeSet<KeywordStats> ranking = new TreeSet<>(BY_FREQUENCY); // keywords sorted by frequency
+
+    private static final String KEYWORD_ERROR = "Documents do not contain enough keywords for analysis";
+    private static final String NEGATIVE_ERROR = "Number of keywords must not be negative";
+
+    /**
+     * Orders keywords by total frequency, then by keyword
+     */
+    private static final Comparator<KeywordStats> BY_FREQUENCY = (key1, key2) -> {
+        int freqCompare = Long.compare(key2.frequency, key1.frequency);
+        if(freqCompare == 0) return key1.word.compareTo(key2.word); // if frequencies are equal then compare string values
+        return freqCompare;
+    };
+
+    /**
+     * KeywordStats - the running totals of a keyword: its frequency, and the emotions of the documents listing it
+     */
+    private static class KeywordStats {
+        private final String word;
+        private final double[] emotionSums = new double[EmotionScoreMap.WIDTH];
+        private long frequency;
+        private long entries;                   // number of document keywords added to the sums
+
+        KeywordStats(String word) {
+            this.word = word;
+        }
+    }
+
+    /**
+     * Adds a newly analyzed document to the analysis
+     * @param document the document
+     */
+    synchronized void add(Document document) {
+        documents.add(document);
+        double[] emotions = document.getEmotionScores();
+        for(int i = 0; i < EmotionScoreMap.WIDTH; i++) {
+            emotionSums[i] += emotions[i];
+        }
+        for(Keyword keyword: document.getKeywords()) {
+            KeywordStats stats = keywordStats.get(keyword.getWord());
+            if(stats == null) {
+                stats = new KeywordStats(keyword.getWord());
+                keywordStats.put(keyword.getWord(), stats);
+            } else {
+                ranking.remove(stats); // re-inserted below with its new frequency
+            }
+            stats.frequency += keyword.getFrequency();
+            stats.entries++;
+            for(int i = 0; i < EmotionScoreMap.WIDTH; i++) {
+                stats.emotionSums[i] += emotions[i];
+            }
+            ranking.add(stats);
+        }
+    }
+
+    /**
+     * Gets the number of documents added so far
+     * @return the number of documents
+     */
+    synchronized int size() {
+        return documents.size();
+    }
+
+    /**
+     * Gets the keywords and their respective frequencies
+     * @return a map of keywords to frequencies
+     */
+    @Override
+    public synchronized Map<String, Long> getKeywords() {
+        Map<String, Long> keywords = new HashMap<>();
+        for(KeywordStats stats: keywordStats.values()) {
+            keywords.put(stats.word, stats.frequency);
+        }
+        return keywords;
+    }
+
+    /**
+     * Gets the most frequent keywords and their respective frequencies from the keyword order kept up to date
+     * Raises an IllegalArgumentException if numKeywords is negative
+     * @param numKeywords the maximum number of keywords to return
+     * @return a map of at most numKeywords keywords to frequencies, iterating from the most frequent keyword
+     */
+    @Override
+    public synchronized Map<String, Long> getTopKeywords(int numKeywords) {
+        if(numKeywords < 0) {
+            throw new IllegalArgumentException(NEGATIVE_ERROR);
+        }
+        Map<String, Long> top = new LinkedHashMap<>();
+        Iterator<KeywordStats> ranked = ranking.iterator();
+        while(top.size() < numKeywords && ranked.hasNext()) {
+            KeywordStats stats = ranked.next();
+            top.put(stats.word, stats.frequency);
+        }
+        return top;
+    }
+
+    /**
+     * Gets the average emotions associated with each keyword
+     * Raises an IllegalArgumentException if numKeywords is greater than the number of keywords
+     * @param numKeywords the number of keywords to analyze
+     * @return a map of keywords to emotion levels
+     */
+    @Override
+    public synchronized Map<String, Map<Emotion, Double>> getAvgKeyEmotions(int numKeywords) {
+        if(numKeywords > ranking.size()) {
+            throw new IllegalArgumentException(KEYWORD_ERROR);
+        }
+
+        Map<String, Map<Emotion, Double>> avgKeyEmotions = new HashMap<>();
+        Iterator<KeywordStats> top = ranking.iterator();
+        for(int i = 0; i < numKeywords; i++) {
+            KeywordStats stats = top.next();
+            avgKeyEmotions.put(stats.word, average(stats.emotionSums, stats.entries));
+        }
+        return avgKeyEmotions;
+    }
+
+    /**
+     * Gets the average emotion levels across all documents
+     * @return map of emotions
+     */
+    @Override
+    public synchronized Map<Emotion, Double> getAvgEmotions() {
+        return average(emotionSums, documents.size());
+    }
+
+    /**
+     * Filters out the documents containing the given keyword
+     * @param key the keyword to be filtered
+     * @return the emotion analysis of the documents added so far after filtering
+     */
+    @Override
+    public EmotionAnalysis filterKey(String key) {
+        return snapshot().filterKey(key);
+    }
+
+    /**
+     * Filters out the documents with the given main emotion
+     * @param emotion the emotion to be filtered
+     * @return the emotion analysis of the documents added so far after filtering
+     */
+    @Override
+    public EmotionAnalysis filterEmotion(Emotion emotion) {
+        return snapshot().filterEmotion(emotion);
+    }
+
+    /**
+     * Gets an analysis of the documents added so far that does not change when more documents are added
+     * @return the emotion analysis
+     */
+    synchronized EmotionAnalysis snapshot() {
+        return new EmotionAnalysisImpl(new ArrayList<>(documents));
+    }
+
+    // Returns the averages of the given sums, or zeros if nothing was summed
+    private static Map<Emotion, Double> average(double[] sums, long count) {
+        double[] avgEmotions = new double[EmotionScoreMap.WIDTH];
+        if(count > 0) {
+            for(int i = 0; i < EmotionScoreMap.WIDTH; i++) {
+                avgEmotions[i] = sums[i]/count;
+            }
+        }
+        return new EmotionScoreMap(avgEmotions, 0);
+    }
+}
@@ -13,12 +13,12 @@ class Keyword {
     /**
      * The keyword frequency
      */
-    private final Long frequency;
+    private final long frequency;
 
     /**
      * The keyword relevance
      */
-    private final Double relevance;
+    private final double relevance;
 
     /**
      * Constructs a new Keyword object given the word, frequency, and relevance
@@ -26,7 +26,7 @@ class Keyword {
      * @param frequency the frequency in the text
      * @param relevance the relevance in the text
      */
-    Keyword(String word, Long frequency, Double relevance) {
+    Keyword(String word, long frequency, double relevance) {
         this.word = word;
         this.frequency = frequency;
         this.relevance = relevance;
@@ -44,7 +44,7 @@ class Keyword {
      * Gets the frequency
      * @return the frequency
      */
-    Long getFrequency() {
+    long getFrequency() {
         return frequency;
     }
 
@@ -52,7 +52,7 @@ class Keyword {
      * Gets the relevance
      * @return the relevance
      */
-    Double getRelevance() {
+    double getRelevance() {
         return relevance;
     }
 
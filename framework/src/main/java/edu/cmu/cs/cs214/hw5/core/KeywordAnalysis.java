@@ -0,0 +1,84 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * KeywordAnalysis -- a keyword found by an {@link EmotionAnalyzer}, with its count and relevance in the text and
+ * the emotion scores of the context it appears in.
+ */
+public final class KeywordAnalysis {
+
+    /**
+     * The keyword phrase
+     */
+    private final String text;
+
+    /**
+     * The number of occurrences of the keyword in the text
+     */
+    private final long count;
+
+    /**
+     * The relevance of the keyword in the text
+     */
+    private final double relevance;
+
+    /**
+     * The emotion scores of the keyword
+     */
+    private final Map<Emotion, Double> emotions;
+
+    /**
+     * Constructs a new KeywordAnalysis object given the keyword, count, relevance and emotion scores
+     * @param text the keyword
+     * @param count the number of occurrences in the text
+     * @param relevance the relevance in the text
+     * @param emotions the score of every emotion of the keyword
+     * @throws IllegalArgumentException if a score is missing for an emotion
+     */
+    public KeywordAnalysis(String text, long count, double relevance, Map<Emotion, Double> emotions) {
+        for (Emotion emotion : Emotion.values()) {
+            if (emotions.get(emotion) == null) {
+                throw new IllegalArgumentException("Missing score for " + emotion);
+            }
+        }
+        this.text = text;
+        this.count = count;
+        this.relevance = relevance;
+        this.emotions = Collections.unmodifiableMap(new EnumMap<>(emotions));
+    }
+
+    /**
+     * Gets the keyword
+     * @return the keyword
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets the number of occurrences
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the relevance
+     * @return the relevance
+     */
+    public double getRelevance() {
+        return relevance;
+    }
+
+    /**
+     * Gets the emotion scores
+     * @return the emotions map
+     */
+    public Map<Emotion, Double> getEmotions() {
+        return emotions;
+    }
+}
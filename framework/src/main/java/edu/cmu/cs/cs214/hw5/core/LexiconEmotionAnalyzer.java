@@ -0,0 +1,235 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * LexiconEmotionAnalyzer - {@link EmotionAnalyzer} that runs entirely offline. Emotions are scored with a lexicon
+ * mapping words to emotion weights: the score of an emotion is its total weight over the number of lexicon words
+ * found. Keywords are the most frequent words that are not stop words, scored on the words around them.
+ */
+public class LexiconEmotionAnalyzer implements EmotionAnalyzer {
+
+    /**
+     * Classpath location of the default lexicon
+     */
+    private static final String DEFAULT_LEXICON = "/emotion-lexicon.tsv";
+
+    /**
+     * Maximum number of keywords reported for a text
+     */
+    private static final int MAX_KEYWORDS = 50;
+
+    /**
+     * Minimum length of a keyword
+     */
+    private static final int MIN_KEYWORD_LENGTH = 3;
+
+    /**
+     * Number of words on each side of a keyword used to score its emotions
+     */
+    private static final int CONTEXT_WINDOW = 5;
+
+    /**
+     * Words that are never keywords
+     */
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "the", "and", "for", "are", "but", "not", "you", "your", "all", "any", "can", "had", "has", "have",
+            "her", "his", "him", "she", "was", "were", "one", "our", "out", "who", "why", "how", "what", "when",
+            "where", "which", "with", "this", "that", "these", "those", "there", "their", "them", "they", "then",
+            "than", "from", "into", "about", "after", "before", "been", "being", "will", "would", "could",
+            "should", "just", "also", "some", "more", "most", "very", "only", "over", "such", "its", "it's",
+            "i'm", "don't", "did", "does", "doing", "each", "other", "here", "because", "while", "again", "get",
+            "got", "let", "may", "might", "must", "now", "off", "own", "same", "say", "says", "said", "see",
+            "too", "two", "use", "way", "yes", "yet", "via", "amp", "http", "https", "www", "com"));
+
+    /**
+     * Words, including apostrophes within them
+     */
+    private static final Pattern WORD = Pattern.compile("\\p{L}+(?:'\\p{L}+)*");
+
+    /**
+     * Emotion weights by word
+     */
+    private final Map<String, Map<Emotion, Double>> lexicon;
+
+    /**
+     * Creates an analyzer using the lexicon bundled with the framework
+     */
+    public LexiconEmotionAnalyzer() {
+        this(loadLexicon(DEFAULT_LEXICON));
+    }
+
+    /**
+     * Creates an analyzer using the given lexicon
+     * @param lexicon emotion weights by lower case word
+     */
+    public LexiconEmotionAnalyzer(Map<String, Map<Emotion, Double>> lexicon) {
+        Map<String, Map<Emotion, Double>> copy = new HashMap<>();
+        for (Map.Entry<String, Map<Emotion, Double>> entry : lexicon.entrySet()) {
+            copy.put(entry.getKey().toLowerCase(Locale.ROOT), new EnumMap<>(entry.getValue()));
+        }
+        this.lexicon = Collections.unmodifiableMap(copy);
+    }
+
+    @Override
+    public String getName() {
+        return "Offline lexicon";
+    }
+
+    /**
+     * Analyzes the emotions and keywords of the text using the lexicon
+     * @param text the text to analyze
+     * @return the analysis of the text
+     */
+    @Override
+    public TextAnalysis analyze(String text) {
+        List<String> words = new ArrayList<>();
+        Matcher matcher = WORD.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            words.add(matcher.group());
+        }
+
+        // count the keyword candidates and remember where they occur
+        Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            if (word.length() >= MIN_KEYWORD_LENGTH && !STOP_WORDS.contains(word)) {
+                positions.computeIfAbsent(word, w -> new ArrayList<>()).add(i);
+            }
+        }
+        List<String> candidates = new ArrayList<>(positions.keySet());
+        candidates.sort((a, b) -> {
+            int byCount = Integer.compare(positions.get(b).size(), positions.get(a).size());
+            return byCount != 0 ? byCount : a.compareTo(b);
+        });
+
+        List<KeywordAnalysis> keywords = new ArrayList<>();
+        if (!candidates.isEmpty()) {
+            double maxCount = positions.get(candidates.get(0)).size();
+            for (String word : candidates.subList(0, Math.min(MAX_KEYWORDS, candidates.size()))) {
+                List<Integer> occurrences = positions.get(word);
+                keywords.add(new KeywordAnalysis(word, occurrences.size(), occurrences.size() / maxCount,
+                        scoreContext(words, occurrences)));
+            }
+        }
+        return new TextAnalysis(score(words, 0, words.size()), keywords);
+    }
+
+    /**
+     * Scores the emotions of the words around each occurrence of a keyword
+     * @param words the words of the text
+     * @param occurrences the positions of the keyword
+     * @return the score of every emotion
+     */
+    private Map<Emotion, Double> scoreContext(List<String> words, List<Integer> occurrences) {
+        double[] weights = new double[Emotion.values().length];
+        int hits = 0;
+        int end = 0;
+        for (int position : occurrences) {
+            // overlapping windows are only counted once
+            int from = Math.max(end, position - CONTEXT_WINDOW);
+            end = Math.min(words.size(), position + CONTEXT_WINDOW + 1);
+            hits += addWeights(words, from, end, weights);
+        }
+        return toScores(weights, hits);
+    }
+
+    /**
+     * Scores the emotions of a range of words
+     * @param words the words of the text
+     * @param from the first word, inclusive
+     * @param to the last word, exclusive
+     * @return the score of every emotion
+     */
+    private Map<Emotion, Double> score(List<String> words, int from, int to) {
+        double[] weights = new double[Emotion.values().length];
+        int hits = addWeights(words, from, to, weights);
+        return toScores(weights, hits);
+    }
+
+    /**
+     * Adds the lexicon weights of a range of words
+     * @param words the words of the text
+     * @param from the first word, inclusive
+     * @param to the last word, exclusive
+     * @param weights the total weight of each emotion, indexed by {@link Emotion#ordinal()}
+     * @return the number of words found in the lexicon
+     */
+    private int addWeights(List<String> words, int from, int to, double[] weights) {
+        int hits = 0;
+        for (int i = from; i < to; i++) {
+            Map<Emotion, Double> entry = lexicon.get(words.get(i));
+            if (entry != null) {
+                hits++;
+                for (Map.Entry<Emotion, Double> weight : entry.entrySet()) {
+                    weights[weight.getKey().ordinal()] += weight.getValue();
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Turns total emotion weights into scores between 0 and 1
+     * @param weights the total weight of each emotion, indexed by {@link Emotion#ordinal()}
+     * @param hits the number of words found in the lexicon
+     * @return the score of every emotion
+     */
+    private static Map<Emotion, Double> toScores(double[] weights, int hits) {
+        Map<Emotion, Double> scores = new EnumMap<>(Emotion.class);
+        for (Emotion emotion : Emotion.values()) {
+            scores.put(emotion, hits == 0 ? 0.0 : Math.min(1.0, weights[emotion.ordinal()] / hits));
+        }
+        return scores;
+    }
+
+    /**
+     * Loads a lexicon from the classpath. Each line holds a word, an emotion and a weight separated by tabs; lines
+     * starting with '#' are ignored.
+     * @param resource the classpath location of the lexicon
+     * @return emotion weights by word
+     * @throws IllegalStateException if the lexicon is missing or malformed
+     */
+    static Map<String, Map<Emotion, Double>> loadLexicon(String resource) {
+        InputStream in = LexiconEmotionAnalyzer.class.getResourceAsStream(resource);
+        if (in == null) {
+            throw new IllegalStateException("Lexicon not found: " + resource);
+        }
+        Map<String, Map<Emotion, Double>> lexicon = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length != 3) {
+                    throw new IllegalStateException("Malformed lexicon line: " + line);
+                }
+                Emotion emotion = Emotion.valueOf(fields[1].toUpperCase(Locale.ROOT));
+                lexicon.computeIfAbsent(fields[0].toLowerCase(Locale.ROOT), w -> new EnumMap<>(Emotion.class))
+                        .put(emotion, Double.parseDouble(fields[2]));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Unable to read lexicon " + resource + ": " + e.getMessage(), e);
+        }
+        return lexicon;
+    }
+}
@@ -0,0 +1,56 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TextAnalysis -- the result of an {@link EmotionAnalyzer} on a single text: the emotion scores of the whole text
+ * and the keywords found in it.
+ */
+public final class TextAnalysis {
+
+    /**
+     * The emotion scores of the text
+     */
+    private final Map<Emotion, Double> emotions;
+
+    /**
+     * The keywords of the text
+     */
+    private final List<KeywordAnalysis> keywords;
+
+    /**
+     * Constructs a new TextAnalysis given the emotion scores and keywords of a text
+     * @param emotions the score of every emotion in the text
+     * @param keywords the keywords in the text
+     * @throws IllegalArgumentException if a score is missing for an emotion
+     */
+    public TextAnalysis(Map<Emotion, Double> emotions, List<KeywordAnalysis> keywords) {
+        for (Emotion emotion : Emotion.values()) {
+            if (emotions.get(emotion) == null) {
+                throw new IllegalArgumentException("Missing score for " + emotion);
+            }
+        }
+        this.emotions = Collections.unmodifiableMap(new EnumMap<>(emotions));
+        this.keywords = Collections.unmodifiableList(new ArrayList<>(keywords));
+    }
+
+    /**
+     * Gets the emotion scores of the text
+     * @return the emotions map
+     */
+    public Map<Emotion, Double> getEmotions() {
+        return emotions;
+    }
+
+    /**
+     * Gets the keywords of the text
+     * @return the keyword list
+     */
+    public List<KeywordAnalysis> getKeywords() {
+        return keywords;
+    }
+}
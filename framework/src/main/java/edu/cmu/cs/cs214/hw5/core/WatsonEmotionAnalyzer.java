@@ -0,0 +1,217 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import com.ibm.cloud.sdk.core.security.Authenticator;
+import com.ibm.cloud.sdk.core.security.IamAuthenticator;
+import com.ibm.cloud.sdk.core.service.exception.ServiceResponseException;
+import com.ibm.watson.natural_language_understanding.v1.NaturalLanguageUnderstanding;
+import com.ibm.watson.natural_language_understanding.v1.model.*;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * WatsonEmotionAnalyzer - {@link EmotionAnalyzer} that uses IBM Watson's Natural Language Understanding API suite to
+ * run analysis on text. All requests share a single Watson client, and results are cached on disk so that a text
+ * is only sent to Watson once.
+ */
+public class WatsonEmotionAnalyzer implements EmotionAnalyzer {
+
+    /**
+     * Number of times a failed Watson request is retried, and the mean delay before the first retry (doubled on each
+     * retry and jittered so that concurrent requests do not retry in lockstep)
+     */
+    private static final int MAX_RETRIES = 3;
+    private static final long INITIAL_BACKOFF_MILLIS = 500;
+
+    /**
+     * Location, size limit and time-to-live of the Watson result cache
+     */
+    private static final String CACHE_DIRECTORY = ".emotion-analysis/watson-cache";
+    private static final long CACHE_MAX_BYTES = 64L * 1024 * 1024;
+    private static final Duration CACHE_TTL = Duration.ofDays(30);
+
+    /**
+     * IBM Watson API key
+     */
+    private final String watsonAPIKey;
+
+    /**
+     * Cache of Watson results for texts that have already been analyzed
+     */
+    private final AnalysisCache analysisCache;
+
+    /**
+     * IBM Watson client shared by all requests, created on first use
+     */
+    private NaturalLanguageUnderstanding service;
+
+    /**
+     * Creates an analyzer using the API key from the secret file and the default result cache
+     */
+    public WatsonEmotionAnalyzer() {
+        this(getWatsonAPIKey(), new AnalysisCache(
+                Paths.get(System.getProperty("user.home"), CACHE_DIRECTORY), CACHE_MAX_BYTES, CACHE_TTL));
+    }
+
+    /**
+     * Creates an analyzer using the given API key and result cache
+     * @param watsonAPIKey the IBM Watson API key
+     * @param analysisCache the cache of Watson results
+     */
+    WatsonEmotionAnalyzer(String watsonAPIKey, AnalysisCache analysisCache) {
+        this.watsonAPIKey = watsonAPIKey;
+        this.analysisCache = analysisCache;
+    }
+
+    @Override
+    public String getName() {
+        return "IBM Watson";
+    }
+
+    /**
+     * Analyzes the text with Watson, or serves it from the cache if it was analyzed before
+     * @param text the text to analyze
+     * @return the analysis of the text
+     * @throws Exception if Watson could not analyze the text
+     */
+    @Override
+    public TextAnalysis analyze(String text) throws Exception {
+        AnalysisResults apiResult = analysisCache.get(text);
+        if (apiResult == null) {
+            apiResult = getDataFromAPI(text); // Get text analysis results from Watson API
+            analysisCache.put(text, apiResult);
+        }
+        return toTextAnalysis(apiResult);
+    }
+
+    /**
+     * Gets API key from secret file
+     * @return the Watson API Key
+     */
+    private static String getWatsonAPIKey() {
+        Properties prop = new Properties();
+        try {
+            FileInputStream is = new FileInputStream("../framework/src/main/resources/secret.properties");
+            prop.load(is);
+            String apiKey = prop.getProperty("WATSON_API_KEY");
+            is.close();
+            return apiKey;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return "";
+        }
+    }
+
+    /**
+     * Gets the Watson client, creating it on first use
+     * @return the Watson client
+     */
+    private synchronized NaturalLanguageUnderstanding getService() {
+        if (service == null) {
+            Authenticator authenticator = new IamAuthenticator(watsonAPIKey);
+            service = new NaturalLanguageUnderstanding("2019-07-12", authenticator);
+        }
+        return service;
+    }
+
+    /**
+     * Calls the IBM Watson API on the text and returns result of API request. Requests that fail because of the
+     * network, rate limiting or a server error are retried with exponential backoff.
+     * @param text the text to analyze
+     * @return the API analysis result
+     * @throws InterruptedException if interrupted while waiting to retry
+     */
+    private AnalysisResults getDataFromAPI(String text) throws InterruptedException {
+        NaturalLanguageUnderstanding service = getService();
+
+        // API call configurations
+        EmotionOptions emotions = new EmotionOptions.Builder()
+                .build();
+
+        KeywordsOptions keywords = new KeywordsOptions.Builder()
+                .emotion(true)
+                .build();
+
+        Features features = new Features.Builder()
+                .emotion(emotions)
+                .keywords(keywords)
+                .build();
+        AnalyzeOptions parameters = new AnalyzeOptions.Builder()
+                .text(text)
+                .features(features)
+                .build();
+
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return service.analyze(parameters).execute().getResult(); // Return API request result
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_RETRIES || !isRetryable(e)) {
+                    throw e;
+                }
+                Thread.sleep((long) (backoff * (0.5 + ThreadLocalRandom.current().nextDouble())));
+                backoff *= 2;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a failed Watson request may succeed if sent again
+     * @param e the exception thrown by the request
+     * @return true if the request was rate limited, hit a server error or failed to reach the server
+     */
+    private static boolean isRetryable(RuntimeException e) {
+        if (e instanceof ServiceResponseException) {
+            int status = ((ServiceResponseException) e).getStatusCode();
+            return status == 429 || status >= 500;
+        }
+        // the Watson client wraps network failures in an unchecked exception
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts a Watson analysis result to a {@link TextAnalysis}
+     * @param results the API analysis results
+     * @return the analysis of the text
+     * @throws IllegalStateException if there are no results
+     */
+    static TextAnalysis toTextAnalysis(AnalysisResults results) {
+        if (results == null) {
+            throw new IllegalStateException("Unable to get API analysis results");
+        }
+
+        List<KeywordAnalysis> keywords = new ArrayList<>();
+        for (KeywordsResult k : results.getKeywords()) {
+            keywords.add(new KeywordAnalysis(k.getText(), k.getCount(), k.getRelevance(), toEmotionMap(k.getEmotion())));
+        }
+        return new TextAnalysis(toEmotionMap(results.getEmotion().getDocument().getEmotion()), keywords);
+    }
+
+    /**
+     * Converts Watson emotion scores to an emotion map
+     * @param scores the emotion scores
+     * @return the score of every emotion
+     */
+    private static Map<Emotion, Double> toEmotionMap(EmotionScores scores) {
+        Map<Emotion, Double> emotionMap = new EnumMap<>(Emotion.class);
+        emotionMap.put(Emotion.ANGER, scores.getAnger());
+        emotionMap.put(Emotion.DISGUST, scores.getDisgust());
+        emotionMap.put(Emotion.FEAR, scores.getFear());
+        emotionMap.put(Emotion.JOY, scores.getJoy());
+        emotionMap.put(Emotion.SADNESS, scores.getSadness());
+        return emotionMap;
+    }
+}
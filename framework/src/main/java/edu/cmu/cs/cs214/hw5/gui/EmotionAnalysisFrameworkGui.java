@@ -30,6 +30,7 @@ public class EmotionAnalysisFrameworkGui implements EmotionAnalysisFrameworkList
     // Text field titles
     private static final String TEXT_CURRENT_DATA_PLUGIN = "Data Plugin: ";
     private static final String TEXT_CURRENT_VISUAL_PLUGIN = "Visual Plugin: ";
+    private static final String TEXT_PROGRESS = "Analyzed %d of %d texts...";
     // Dimensions
     private static final int WIDTH = 600;
     private static final int HEIGHT = 300;
@@ -56,6 +57,8 @@ public class EmotionAnalysisFrameworkGui implements EmotionAnalysisFrameworkList
     private EmotionAnalysisFrameworkImpl core;
     private DataPlugin currentDataPlugin;
     private VisualPlugin currentVisualPlugin;
+    // The window displaying the most recent visual
+    private JFrame visualFrame;
 
     public EmotionAnalysisFrameworkGui(EmotionAnalysisFrameworkImpl fc) {
         frame = new JFrame(DEFAULT_TITLE);
@@ -88,7 +91,11 @@ public class EmotionAnalysisFrameworkGui implements EmotionAnalysisFrameworkList
         loadDataButton.setEnabled(false);
         loadDataButton.addActionListener(event -> {
             String[] splitByWhiteSpace = sourceInputField.getText().split(" ");
-            core.requestDataFromSource(Arrays.asList(splitByWhiteSpace));
+            // load off the event dispatch thread so partial results can be displayed while texts are analyzed
+            Thread loader = new Thread(() -> core.requestDataFromSource(Arrays.asList(splitByWhiteSpace)),
+                    "data-request");
+            loader.setDaemon(true);
+            loader.start();
         });
         loadVisualButton.setEnabled(false);
         loadVisualButton.addActionListener(event -> {
@@ -138,9 +145,18 @@ public class EmotionAnalysisFrameworkGui implements EmotionAnalysisFrameworkList
         JOptionPane.showMessageDialog(component, message, title, JOptionPane.ERROR_MESSAGE);
     }
 
+    // Runs the update on the event dispatch thread, as the framework notifies from its data request thread
+    private static void onEventDispatchThread(Runnable update) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            update.run();
+        } else {
+            SwingUtilities.invokeLater(update);
+        }
+    }
+
     @Override
     public void onDataRequest() {
-        loadDataButton.setEnabled(false);
+        onEventDispatchThread(() -> loadDataButton.setEnabled(false));
     }
 
     /**
@@ -148,8 +164,26 @@ public class EmotionAnalysisFrameworkGui implements EmotionAnalysisFrameworkList
      */
     @Override
     public void onDataReadyToDisplay() {
-        loadVisualButton.setEnabled(true);
-        loadDataButton.setEnabled(true);
+        onEventDispatchThread(() -> {
+            loadVisualButton.setEnabled(true);
+            loadDataButton.setEnabled(true);
+            if (currentDataPlugin != null) {
+                instructionsText.setText(currentDataPlugin.getDescription());
+            }
+        });
+    }
+
+    /**
+     * Invoked by framework while the data is loading, once part of it can be visualized
+     * @param analyzed the number of texts analyzed so far
+     * @param total the number of texts retrieved from the data plugin
+     */
+    @Override
+    public void onDataPartiallyLoaded(int analyzed, int total) {
+        onEventDispatchThread(() -> {
+            loadVisualButton.setEnabled(true);
+            instructionsText.setText(String.format(TEXT_PROGRESS, analyzed, total));
+        });
     }
 
     /**
@@ -195,6 +229,10 @@ public class EmotionAnalysisFrameworkGui implements EmotionAnalysisFrameworkList
      */
     @Override
     public void onCatchLoadException(String msg) {
+        onEventDispatchThread(() -> showLoadException(msg));
+    }
+
+    private void showLoadException(String msg) {
         String title = "Failed to Load Plugin";
         JFrame frame = (JFrame) SwingUtilities.getRoot(this.frame);
         showDialog(frame, title, msg + " \nRe-select plugins");
@@ -212,11 +250,29 @@ public class EmotionAnalysisFrameworkGui implements EmotionAnalysisFrameworkList
      */
     @Override
     public void onLoadVisualRequest(JPanel panel) {
-        String title = (currentVisualPlugin != null) ? currentVisualPlugin.getName() : "";
-        JFrame visualFrame = new JFrame(title);
-        visualFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-        visualFrame.setContentPane(panel);
-        visualFrame.pack();
-        visualFrame.setVisible(true);
+        onEventDispatchThread(() -> {
+            String title = (currentVisualPlugin != null) ? currentVisualPlugin.getName() : "";
+            visualFrame = new JFrame(title);
+            visualFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+            visualFrame.setContentPane(panel);
+            visualFrame.pack();
+            visualFrame.setVisible(true);
+        });
+    }
+
+    /**
+     * Called when the visual has been re-rendered with newly analyzed texts
+     * @param panel the panel holding the updated visual
+     */
+    @Override
+    public void onVisualUpdated(JPanel panel) {
+        onEventDispatchThread(() -> {
+            if (visualFrame == null || !visualFrame.isDisplayable()) {
+                return; // the user closed the visual
+            }
+            visualFrame.setContentPane(panel);
+            visualFrame.revalidate();
+            visualFrame.repaint();
+        });
     }
 }
@@ -0,0 +1,104 @@
+package edu.cmu.cs.cs214.hw5.batch;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import edu.cmu.cs.cs214.hw5.core.DataPlugin;
+import edu.cmu.cs.cs214.hw5.core.Emotion;
+import edu.cmu.cs.cs214.hw5.core.EmotionAnalysisFrameworkImpl;
+import edu.cmu.cs.cs214.hw5.core.LexiconEmotionAnalyzer;
+import edu.cmu.cs.cs214.hw5.core.VisualPlugin;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * BatchRunnerTest -- tests the BatchRunner class
+ */
+public class BatchRunnerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DataPlugin dataPlugin;
+    private VisualPlugin visualPlugin;
+    private BatchRunner runner;
+    private Path out;
+
+    @Before
+    public void setUp() throws Exception {
+        dataPlugin = mock(DataPlugin.class);
+        when(dataPlugin.getName()).thenReturn("Test Data Plugin");
+        when(dataPlugin.getData(any())).thenReturn(Arrays.asList("happy dogs everywhere",
+                "happy cats somewhere", "angry dogs elsewhere"));
+
+        visualPlugin = mock(VisualPlugin.class);
+        when(visualPlugin.getName()).thenReturn("Test Visual");
+        when(visualPlugin.getVisual(any())).thenAnswer(invocation -> {
+            JPanel panel = new JPanel();
+            panel.setPreferredSize(new Dimension(40, 30));
+            panel.setBackground(Color.RED);
+            return panel;
+        });
+
+        Map<String, Map<Emotion, Double>> lexicon = new HashMap<>();
+        lexicon.put("happy", Collections.singletonMap(Emotion.JOY, 1.0));
+        lexicon.put("angry", Collections.singletonMap(Emotion.ANGER, 1.0));
+        out = folder.getRoot().toPath().resolve("out");
+        runner = new BatchRunner(new EmotionAnalysisFrameworkImpl(new LexiconEmotionAnalyzer(lexicon)), out, 2);
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        List<Path> written = runner.run(dataPlugin, Collections.singletonList(visualPlugin),
+                Collections.singletonList("pets"), "job");
+        assertEquals(written, Arrays.asList(out.resolve("job.json"), out.resolve("job-Test_Visual.png")));
+
+        JsonObject json = JsonParser.parseString(new String(Files.readAllBytes(written.get(0)),
+                StandardCharsets.UTF_8)).getAsJsonObject();
+        assertEquals(json.get("dataPlugin").getAsString(), "Test Data Plugin");
+        assertEquals(json.getAsJsonObject("avgEmotions").get("joy").getAsDouble(), 2.0 / 3, 1e-9);
+        JsonArray keywords = json.getAsJsonArray("topKeywords");
+        assertEquals(keywords.size(), 2);
+        assertEquals(keywords.get(0).getAsJsonObject().get("keyword").getAsString(), "dogs");
+        assertEquals(keywords.get(0).getAsJsonObject().get("frequency").getAsLong(), 2);
+
+        BufferedImage image = ImageIO.read(written.get(1).toFile());
+        assertEquals(image.getWidth(), 40);
+        assertEquals(image.getHeight(), 30);
+        assertEquals(image.getRGB(20, 15), Color.RED.getRGB());
+    }
+
+    @Test
+    public void testRunAllCountsFailures() throws Exception {
+        when(dataPlugin.getData(Collections.singletonList("broken"))).thenThrow(new Exception("unavailable"));
+        List<List<String>> sources = Arrays.asList(Collections.singletonList("pets"),
+                Collections.singletonList("broken"));
+        assertEquals(runner.runAll(dataPlugin, Collections.emptyList(), sources, 2), 1);
+        assertTrue(Files.exists(out.resolve("000-pets.json")));
+        assertFalse(Files.exists(out.resolve("001-broken.json")));
+    }
+
+    @Test
+    public void testJobName() {
+        assertEquals(BatchRunner.jobName(7, Arrays.asList("cmu", "news/today")), "007-cmu_news_today");
+    }
+}
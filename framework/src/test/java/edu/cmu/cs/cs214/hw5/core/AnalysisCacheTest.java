@@ -0,0 +1,74 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import com.ibm.cloud.sdk.core.util.GsonSingleton;
+import com.ibm.watson.natural_language_understanding.v1.model.AnalysisResults;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+/**
+ * AnalysisCacheTest -- tests the AnalysisCache class
+ */
+public class AnalysisCacheTest {
+    private static final String RESULTS_JSON = "{\"keywords\":[{\"text\":\"Hello\",\"count\":2,\"relevance\":0.1," +
+            "\"emotion\":{\"anger\":0.1,\"disgust\":0.2,\"fear\":0.3,\"joy\":0.4,\"sadness\":0.5}}]," +
+            "\"emotion\":{\"document\":{\"emotion\":{\"anger\":0.1,\"disgust\":0.2,\"fear\":0.3,\"joy\":0.4," +
+            "\"sadness\":0.5}}}}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private AnalysisResults results;
+
+    @Before
+    public void setUp() {
+        directory = folder.getRoot().toPath().resolve("cache");
+        results = GsonSingleton.getGson().fromJson(RESULTS_JSON, AnalysisResults.class);
+    }
+
+    @Test
+    public void testMiss() {
+        AnalysisCache cache = new AnalysisCache(directory, Long.MAX_VALUE, Duration.ofDays(1));
+        assertNull(cache.get("Hello Hello Goodbye Goodbye"));
+    }
+
+    @Test
+    public void testHitAfterRestart() {
+        new AnalysisCache(directory, Long.MAX_VALUE, Duration.ofDays(1)).put("Hello Hello Goodbye Goodbye", results);
+
+        AnalysisCache cache = new AnalysisCache(directory, Long.MAX_VALUE, Duration.ofDays(1));
+        Document document = new Document("Hello Hello Goodbye Goodbye",
+                WatsonEmotionAnalyzer.toTextAnalysis(cache.get("Hello Hello Goodbye Goodbye")));
+        assertEquals(document.getKeywords().get(0).getWord(), "Hello");
+        assertEquals(document.getKeywords().get(0).getFrequency(), 2);
+        assertEquals(document.getEmotions().get(Emotion.SADNESS), Double.valueOf(0.5));
+    }
+
+    @Test
+    public void testExpired() {
+        AnalysisCache cache = new AnalysisCache(directory, Long.MAX_VALUE, Duration.ZERO);
+        cache.put("Hello Hello Goodbye Goodbye", results);
+        assertNull(cache.get("Hello Hello Goodbye Goodbye"));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        long entrySize = GsonSingleton.getGsonWithoutPrettyPrinting().toJson(results).length() + 40;
+        AnalysisCache cache = new AnalysisCache(directory, 2 * entrySize, Duration.ofDays(1));
+        cache.put("first", results);
+        cache.put("second", results);
+        assertNotNull(cache.get("first"));
+        cache.put("third", results);
+
+        assertNotNull(cache.get("first"));
+        assertNull(cache.get("second"));
+        assertNotNull(cache.get("third"));
+    }
+}
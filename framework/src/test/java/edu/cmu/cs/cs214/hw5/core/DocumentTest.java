@@ -44,7 +44,7 @@ public class DocumentTest {
         when(emotionResult.getDocument()).thenReturn(documentEmotionResults);
         when(documentEmotionResults.getEmotion()).thenReturn(scores);
 
-        document = new Document(text, results);
+        document = new Document(text, WatsonEmotionAnalyzer.toTextAnalysis(results));
 
     }
 
@@ -54,8 +54,8 @@ public class DocumentTest {
         assertEquals(keywords.size(), 1);
 
         Keyword keyword = keywords.get(0);
-        assertEquals(keyword.getRelevance(), Double.valueOf(0.1));
-        assertEquals(keyword.getFrequency(), Long.valueOf(2));
+        assertEquals(keyword.getRelevance(), 0.1, 0.0);
+        assertEquals(keyword.getFrequency(), 2);
         assertEquals(keyword.getWord(), "Hello");
     }
 
@@ -75,6 +75,21 @@ public class DocumentTest {
     }
 
 
+    @Test
+    public void testKeywordEmotions() {
+        Map<Emotion, Double> emotions = document.getKeywordEmotions().get(document.getKeywords().get(0));
+        assertEquals(emotions.size(), 5);
+        assertEquals(emotions.get(Emotion.JOY), Double.valueOf(0.4));
+        assertEquals(emotions.get(Emotion.SADNESS), Double.valueOf(0.5));
+    }
+
+    @Test
+    public void testEmotionScores() {
+        double[] scores = document.getEmotionScores();
+        assertEquals(scores[Emotion.ANGER.ordinal()], 0.1, 0.0);
+        assertEquals(scores[Emotion.FEAR.ordinal()], 0.3, 0.0);
+    }
+
     @Test(expected = IllegalStateException.class)
     public void testEmptyResult() {
         new Document(text, null);
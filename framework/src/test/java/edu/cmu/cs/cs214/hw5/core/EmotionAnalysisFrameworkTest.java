@@ -6,6 +6,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import javax.swing.*;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -87,4 +88,49 @@ public class EmotionAnalysisFrameworkTest {
 
     }
 
+    @Test
+    public void testOfflineAnalyzer() throws Exception {
+        ArgumentCaptor<EmotionAnalysis> valueCapture = ArgumentCaptor.forClass(EmotionAnalysis.class);
+        when(visualPlugin.getVisual(valueCapture.capture())).thenReturn(panel);
+
+        framework = new EmotionAnalysisFrameworkImpl(new LexiconEmotionAnalyzer());
+        framework.setStateChangeListener(listener);
+        framework.setCurrentVisualPlugin(visualPlugin);
+        framework.setCurrentDataPlugin(dataPlugin);
+        framework.requestDataFromSource(sources);
+        framework.requestVisualizeData();
+
+        verify(listener, times(1)).onDataReadyToDisplay();
+        EmotionAnalysis analysis = valueCapture.getValue();
+        assertEquals(analysis.getKeywords().get("treasure"), Long.valueOf(1));
+        assertEquals(analysis.getAvgEmotions().size(), Emotion.values().length);
+    }
+
+    @Test
+    public void testVisualizeWhileLoading() throws Exception {
+        List<String> twoTexts = Arrays.asList(text, text + "Again.");
+        when(dataPlugin.getData(sources)).thenReturn(twoTexts);
+
+        // the user requests the visual while the first text is being analyzed
+        LexiconEmotionAnalyzer lexicon = new LexiconEmotionAnalyzer();
+        EmotionAnalyzer analyzer = mock(EmotionAnalyzer.class);
+        when(analyzer.analyze(anyString())).thenAnswer(invocation -> {
+            framework.requestVisualizeData();
+            return lexicon.analyze(invocation.getArgument(0));
+        }).thenAnswer(invocation -> lexicon.analyze(invocation.getArgument(0)));
+
+        framework = new EmotionAnalysisFrameworkImpl(analyzer, 1);
+        framework.setStateChangeListener(listener);
+        framework.setCurrentVisualPlugin(visualPlugin);
+        framework.setCurrentDataPlugin(dataPlugin);
+        framework.requestDataFromSource(sources);
+
+        // the visual is displayed during the request and updated with the second text
+        verify(listener, times(1)).onLoadVisualRequest(panel);
+        verify(listener, times(1)).onVisualUpdated(panel);
+        verify(listener, times(1)).onDataRequest();
+        verify(listener, times(1)).onDataReadyToDisplay();
+        verify(listener, never()).onCatchLoadException(anyString());
+    }
+
 }
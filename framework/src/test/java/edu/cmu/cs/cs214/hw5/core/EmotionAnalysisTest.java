@@ -45,11 +45,11 @@ public class EmotionAnalysisTest {
         keywords2.add(new Keyword("World", (long)5, 0.5));
 
         Document doc1 = mock(Document.class);
-        when(doc1.getEmotions()).thenReturn(emotions1);
+        when(doc1.getEmotionScores()).thenReturn(toScores(emotions1));
         when(doc1.getKeywords()).thenReturn(keywords1);
 
         Document doc2 = mock(Document.class);
-        when(doc2.getEmotions()).thenReturn(emotions2);
+        when(doc2.getEmotionScores()).thenReturn(toScores(emotions2));
         when(doc2.getKeywords()).thenReturn(keywords2);
 
         analysis1 = new EmotionAnalysisImpl(new ArrayList<>(Collections.singletonList(doc1)));
@@ -57,6 +57,11 @@ public class EmotionAnalysisTest {
         analysis3 = new EmotionAnalysisImpl(new ArrayList<>(Arrays.asList(doc1, doc2)));
     }
 
+    private static double[] toScores(Map<Emotion, Double> emotions) {
+        double[] scores = new double[Emotion.values().length];
+        EmotionScoreMap.copy(emotions, scores, 0);
+        return scores;
+    }
 
     @Test
     public void testGetKeyword1(){
@@ -174,6 +179,47 @@ public class EmotionAnalysisTest {
         assertFalse(keyEmotions.containsKey("World"));
     }
 
+    @Test
+    public void testFilterReordersTopKeywords() {
+        assertTrue(analysis3.getAvgKeyEmotions(1).containsKey("Hello"));
+
+        EmotionAnalysis analysis = analysis3.filterEmotion(Emotion.SADNESS);
+        assertEquals(analysis.getKeywords().get("Hello"), Long.valueOf(4));
+        assertTrue(analysis.getAvgKeyEmotions(1).containsKey("World"));
+        equalsEmotions3(analysis.getAvgEmotions());
+    }
+
+    @Test
+    public void testChainedFilters() {
+        EmotionAnalysis analysis = analysis3.filterEmotion(Emotion.SADNESS).filterKey("World");
+        assertTrue(analysis.getKeywords().isEmpty());
+        assertEquals(analysis3.getKeywords().get("Hello"), Long.valueOf(7));
+        assertEquals(analysis.filterKey("Missing").getKeywords().size(), 0);
+    }
+
+    @Test
+    public void testTopKeywords() {
+        Map<String, Long> top = analysis3.getTopKeywords(1);
+        assertEquals(top.size(), 1);
+        assertEquals(top.get("Hello"), Long.valueOf(7));
+
+        List<String> all = new ArrayList<>(analysis3.getTopKeywords(5).keySet());
+        assertEquals(all, Arrays.asList("Hello", "World"));
+        assertTrue(analysis3.getTopKeywords(0).isEmpty());
+    }
+
+    @Test
+    public void testTopKeywordsAfterFilter() {
+        analysis3.getTopKeywords(1);
+        EmotionAnalysis analysis = analysis3.filterEmotion(Emotion.SADNESS);
+        assertEquals(new ArrayList<>(analysis.getTopKeywords(2).keySet()), Arrays.asList("World", "Hello"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTopKeywords() {
+        analysis3.getTopKeywords(-1);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testInvalidKeyword() {
         analysis3.getAvgKeyEmotions(3);
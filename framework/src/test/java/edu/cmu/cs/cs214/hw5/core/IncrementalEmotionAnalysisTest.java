@@ -0,0 +1,101 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * IncrementalEmotionAnalysisTest -- tests the IncrementalEmotionAnalysis class
+ */
+public class IncrementalEmotionAnalysisTest {
+    private Document doc1, doc2;
+    private IncrementalEmotionAnalysis analysis;
+
+    @Before
+    public void setUp() {
+        List<Keyword> keywords1 = new ArrayList<>();
+        List<Keyword> keywords2 = new ArrayList<>();
+
+        keywords1.add(new Keyword("Hello", (long)3, 0.5));
+        keywords2.add(new Keyword("Hello", (long)4, 0.5));
+        keywords2.add(new Keyword("World", (long)5, 0.5));
+        keywords2.add(new Keyword("Again", (long)5, 0.5));
+
+        doc1 = mock(Document.class);
+        when(doc1.getEmotionScores()).thenReturn(new double[]{0.1, 0.4, 0.2, 0.5, 0.3});
+        when(doc1.getKeywords()).thenReturn(keywords1);
+
+        doc2 = mock(Document.class);
+        when(doc2.getEmotionScores()).thenReturn(new double[]{0.3, 0.2, 0.4, 0.1, 0.5});
+        when(doc2.getKeywords()).thenReturn(keywords2);
+
+        analysis = new IncrementalEmotionAnalysis();
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(analysis.getKeywords().isEmpty());
+        assertEquals(analysis.getAvgEmotions().get(Emotion.JOY), 0.0, 0.0);
+    }
+
+    @Test
+    public void testAdd() {
+        analysis.add(doc1);
+        assertEquals(analysis.getKeywords().get("Hello"), Long.valueOf(3));
+        assertEquals(analysis.getAvgEmotions().get(Emotion.JOY), 0.4, 0.0);
+        assertTrue(analysis.getAvgKeyEmotions(1).containsKey("Hello"));
+
+        analysis.add(doc2);
+        assertEquals(analysis.size(), 2);
+        assertEquals(analysis.getKeywords().get("Hello"), Long.valueOf(7));
+        assertEquals(analysis.getAvgEmotions().get(Emotion.ANGER), 0.2, 0.001);
+        assertEquals(analysis.getAvgKeyEmotions(3).get("Hello").get(Emotion.FEAR), 0.4, 0.001);
+        assertEquals(analysis.getAvgKeyEmotions(3).get("World").get(Emotion.FEAR), 0.5, 0.001);
+    }
+
+    @Test
+    public void testTopKeywordsReordered() {
+        analysis.add(doc2);
+        Map<String, Map<Emotion, Double>> top = analysis.getAvgKeyEmotions(2);
+        assertEquals(top.keySet(), new HashSet<>(Arrays.asList("Again", "World")));
+
+        analysis.add(doc1);
+        top = analysis.getAvgKeyEmotions(1);
+        assertTrue(top.containsKey("Hello"));
+    }
+
+    @Test
+    public void testTopKeywords() {
+        analysis.add(doc1);
+        analysis.add(doc2);
+        assertEquals(new ArrayList<>(analysis.getTopKeywords(2).keySet()), Arrays.asList("Hello", "Again"));
+        assertEquals(analysis.getTopKeywords(10).size(), 3);
+    }
+
+    @Test
+    public void testFilterSnapshot() {
+        analysis.add(doc1);
+        analysis.add(doc2);
+        EmotionAnalysis filtered = analysis.filterKey("World");
+        analysis.add(doc2);
+
+        assertEquals(filtered.getKeywords().size(), 1);
+        assertEquals(filtered.getKeywords().get("Hello"), Long.valueOf(3));
+        assertEquals(analysis.getKeywords().get("Hello"), Long.valueOf(11));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidKeyword() {
+        analysis.add(doc1);
+        analysis.getAvgKeyEmotions(2);
+    }
+}
@@ -22,12 +22,12 @@ public class KeywordTest {
 
     @Test
     public void testFrequency() {
-        assertEquals(keyword.getFrequency(), Long.valueOf(1));
+        assertEquals(keyword.getFrequency(), 1);
     }
 
     @Test
     public void testRelevance() {
-        assertEquals(keyword.getRelevance(), Double.valueOf(2.0));
+        assertEquals(keyword.getRelevance(), 2.0, 0.0);
     }
 
 
@@ -0,0 +1,64 @@
+package edu.cmu.cs.cs214.hw5.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * LexiconEmotionAnalyzerTest -- tests the LexiconEmotionAnalyzer class
+ */
+public class LexiconEmotionAnalyzerTest {
+    private LexiconEmotionAnalyzer analyzer;
+
+    @Before
+    public void setUp() {
+        Map<String, Map<Emotion, Double>> lexicon = new HashMap<>();
+        lexicon.put("happy", Collections.singletonMap(Emotion.JOY, 1.0));
+        lexicon.put("angry", Collections.singletonMap(Emotion.ANGER, 0.5));
+        analyzer = new LexiconEmotionAnalyzer(lexicon);
+    }
+
+    @Test
+    public void testEmotions() {
+        TextAnalysis analysis = analyzer.analyze("Happy dogs and angry cats");
+        assertEquals(analysis.getEmotions().get(Emotion.JOY), Double.valueOf(0.5));
+        assertEquals(analysis.getEmotions().get(Emotion.ANGER), Double.valueOf(0.25));
+        assertEquals(analysis.getEmotions().get(Emotion.FEAR), Double.valueOf(0.0));
+    }
+
+    @Test
+    public void testKeywords() {
+        TextAnalysis analysis = analyzer.analyze("The cats are happy. The cats are fed, and the dog is angry!");
+        KeywordAnalysis top = analysis.getKeywords().get(0);
+        assertEquals(top.getText(), "cats");
+        assertEquals(top.getCount(), 2);
+        assertEquals(top.getRelevance(), 1.0, 0.0);
+        for (KeywordAnalysis keyword : analysis.getKeywords()) {
+            assertNotEquals(keyword.getText(), "the");
+            assertNotEquals(keyword.getText(), "is");
+        }
+    }
+
+    @Test
+    public void testKeywordEmotions() {
+        TextAnalysis analysis = analyzer.analyze("happy puppy one two three four five six seven eight nine ten kitten");
+        Map<String, KeywordAnalysis> keywords = new HashMap<>();
+        for (KeywordAnalysis keyword : analysis.getKeywords()) {
+            keywords.put(keyword.getText(), keyword);
+        }
+        assertEquals(keywords.get("puppy").getEmotions().get(Emotion.JOY), Double.valueOf(1.0));
+        assertEquals(keywords.get("kitten").getEmotions().get(Emotion.JOY), Double.valueOf(0.0));
+    }
+
+    @Test
+    public void testDefaultLexicon() {
+        TextAnalysis analysis = new LexiconEmotionAnalyzer().analyze("What a wonderful, happy day");
+        assertTrue(analysis.getEmotions().get(Emotion.JOY) > 0);
+        assertEquals(analysis.getEmotions().get(Emotion.SADNESS), Double.valueOf(0.0));
+    }
+}
@@ -12,8 +12,6 @@ import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class AreaChartPlugin implements DisplayPlugin {
 
@@ -85,29 +83,20 @@ public class AreaChartPlugin implements DisplayPlugin {
         String xLabel = pluginParams.get(X_AXIS).get(0);
         String categoryLabel = pluginParams.get(CATEGORY).get(0);
         List<String> yLabels = pluginParams.get(Y_AXIS);
-        List<List<Double>> yList = new ArrayList<>();
-        for (String yLabel : yLabels)
-            yList.add(dataSet.getColumn(yLabel).stream().map(v -> ((Number) v).doubleValue()).collect(Collectors.toList()));
-
-        List<Double> xList;
-        xList = dataSet.getColumn(xLabel).stream().map(v -> ((Number) v).doubleValue()).collect(Collectors.toList());
         XYChart chart = new XYChartBuilder().width(width).height(height).build();
         if (categoryLabel != null) {
-            List<Object> categoryCol = dataSet.getColumn(categoryLabel);
-            Map<String, List<Integer>> indices = IntStream.range(0, categoryCol.size()).boxed()
-                .collect(Collectors.groupingBy(i -> (String) categoryCol.get(i), Collectors.toList()));
-            for (int i = 0; i < yList.size(); i++) {
-                for (Map.Entry<String, List<Integer>> entry : indices.entrySet()) {
-                    String label = entry.getKey() + ", " + yLabels.get(i);
-                    int ii = i;
-                    List<Double> y = entry.getValue().stream().map(j -> yList.get(ii).get(j)).collect(Collectors.toList());
-                    List<Double> x = entry.getValue().stream().map(xList::get).collect(Collectors.toList());
-                    chart.addSeries(label, x, y);
+            Map<Object, DataSet> categories = dataSet.partitionBy(categoryLabel);
+            for (String yLabel : yLabels) {
+                for (Map.Entry<Object, DataSet> entry : categories.entrySet()) {
+                    String label = entry.getKey() + ", " + yLabel;
+                    DataSet category = entry.getValue();
+                    chart.addSeries(label, category.getDoubleColumn(xLabel), category.getDoubleColumn(yLabel));
                 }
             }
         } else {
-            for (int i = 0; i < yList.size(); i++)
-                chart.addSeries(yLabels.get(i), xList, yList.get(i));
+            double[] xList = dataSet.getDoubleColumn(xLabel);
+            for (String yLabel : yLabels)
+                chart.addSeries(yLabel, xList, dataSet.getDoubleColumn(yLabel));
         }
         XChartPanel<XYChart> chartPanel = new XChartPanel<>(chart);
         chart.getStyler().setDefaultSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.Area);
@@ -133,6 +122,4 @@ public class AreaChartPlugin implements DisplayPlugin {
             throw new IllegalArgumentException(CATEGORY_ERROR_MSG);
         }
     }
-
-
 }
@@ -4,8 +4,6 @@ import edu.cmu.cs.cs214.hw5.core.*;
 
 import javax.swing.*;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import org.knowm.xchart.*;
 import org.knowm.xchart.style.Styler;
@@ -96,10 +94,10 @@ public class BarChartPlugin implements DisplayPlugin {
         chart.getStyler().setPlotGridLinesVisible(false);
 
         // get x-values and y-values
-        final List<Double> xList = dataSet.getColumn(xLabel).stream().map(v -> ((Number) v).doubleValue()).collect(Collectors.toList());
-        final List<Double> yList = dataSet.getColumn(yLabel).stream().map(v -> ((Number) v).doubleValue()).collect(Collectors.toList());
+        final double[] xList = dataSet.getDoubleColumn(xLabel);
+        final double[] yList = dataSet.getDoubleColumn(yLabel);
 
-        if (yList.size() > 0) {
+        if (yList.length > 0) {
             chart.addSeries(yLabel, xList, yList);
         }
 
@@ -1,5 +1,7 @@
 package edu.cmu.cs.cs214.hw5.core.display;
 
+import edu.cmu.cs.cs214.hw5.core.AggregateType;
+import edu.cmu.cs.cs214.hw5.core.Aggregation;
 import edu.cmu.cs.cs214.hw5.core.DataSet;
 import edu.cmu.cs.cs214.hw5.core.DataType;
 import edu.cmu.cs.cs214.hw5.core.DisplayFilterConfig;
@@ -9,7 +11,7 @@ import edu.cmu.cs.cs214.hw5.core.UserInputType;
 import org.knowm.xchart.*;
 import javax.swing.*;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -67,22 +69,15 @@ public class PieChartPlugin implements DisplayPlugin {
         String categoryLabel = pluginParams.get(CATEGORY).get(0);
 
         PieChart chart = new PieChartBuilder().width(width).height(height).build();
-        List<Object> values = dataset.getColumn(valueLabel);
-        List<Object> categories = dataset.getColumn(categoryLabel);
-        Map<String, Number> data = new HashMap<>();
 
-        // Combine data to get rid of duplicate categories
-        for(int i = 0; i < values.size(); i++) {
-            String category = (String) categories.get(i);
-            Number value = (Number) values.get(i);
-
-            Number prev = data.getOrDefault(category, 0.0);
-            data.put(category, value.doubleValue() + prev.doubleValue());
-        }
+        // Combine data to get rid of duplicate categories. The dataSet keeps the totals, so redrawing
+        // the same data reuses them instead of aggregating again.
+        DataSet totals = dataset.groupBy(Collections.singletonList(categoryLabel),
+                Collections.singletonList(new Aggregation(AggregateType.SUM, valueLabel)));
 
         // Add category/value pairs to pie chart
-        for(Map.Entry<String, Number> entry : data.entrySet()) {
-            chart.addSeries(entry.getKey(), entry.getValue());
+        for(int i = 0; i < totals.rowCount(); i++) {
+            chart.addSeries((String) totals.getCell(i, 0), totals.getDouble(i, 1));
         }
 
         return new XChartPanel<>(chart);
@@ -74,14 +74,15 @@ public class BarGraphPlugin implements VisualPlugin {
      */
     @Override
     public JPanel getVisual(EmotionAnalysis analysis) throws Exception {
-        Map<String, Long> keywordFreq = analysis.getKeywords();
+        Map<String, Long> keywordFreq = analysis.getTopKeywords(NUM_KEYWORDS);
         Map<String, Map<Emotion, Double>> keywordEmotions = analysis.getAvgKeyEmotions(NUM_KEYWORDS);
         Map<String, Map<Emotion, Double>> normalizedFreq = getNormalized(keywordFreq, keywordEmotions);
 
         List<String> keywords = new ArrayList<>();
         Map<Emotion, List<Double>> frequencies = new HashMap<>();
 
-        for(String key: keywordEmotions.keySet()) {
+        // most frequent keyword first
+        for(String key: keywordFreq.keySet()) {
             keywords.add(key);
 
             // For each emotion, get a list of emotion levels corresponding to